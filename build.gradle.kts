@@ -15,10 +15,23 @@ repositories {
     mavenCentral()
 }
 
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+val perf: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.test {
@@ -31,4 +44,75 @@ tasks.test {
 
 tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
-}
\ No newline at end of file
+}
+
+// Runs the JMH benchmarks with the GC profiler (throughput plus allocation rate).
+// Pass extra JMH options with -PjmhArgs, e.g. -PjmhArgs="CallPriceCalculatorBenchmark -f 1 -wi 2 -i 3"
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs JMH benchmarks from src/jmh."
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args("-prof", "gc", "-rf", "json", "-rff", layout.buildDirectory.file("reports/jmh/results.json").get().asFile.path)
+    (project.findProperty("jmhArgs") as String?)?.let { extra -> args(extra.split(" ").filter { it.isNotBlank() }) }
+    doFirst { layout.buildDirectory.dir("reports/jmh").get().asFile.mkdirs() }
+}
+
+// End-to-end throughput gate against perf/baseline.json. Options:
+//   -PperfSizes=10000,100000,1000000  dataset sizes in calls
+//   -PperfTolerance=0.2               allowed relative regression
+//   -PperfUpdateBaseline              rewrite the baseline from this run
+tasks.register<JavaExec>("perfGate") {
+    group = "verification"
+    description = "Bills generated fixed-seed datasets and fails on throughput or memory regressions."
+    classpath = perf.runtimeClasspath
+    mainClass.set("org.phonecompany.billing.perf.ThroughputGate")
+    jvmArgs("-Xmx2g", "-XX:+UseG1GC")
+    args(
+        file("perf/baseline.json").path,
+        layout.buildDirectory.dir("perf").get().asFile.path,
+        project.findProperty("perfTolerance") ?: "0.2",
+        project.findProperty("perfSizes") ?: "10000,100000,1000000"
+    )
+    if (project.hasProperty("perfUpdateBaseline")) {
+        args("--update")
+    }
+}
+
+// Runnable jar for the command-line tool (org.phonecompany.billing.cli.BillingCli).
+tasks.jar {
+    manifest {
+        attributes("Main-Class" to "org.phonecompany.billing.cli.BillingCli")
+    }
+}
+
+// AppCDS archive for the command-line tool, next to the jar in build/libs. A training run of the jar records the
+// classes the tool loads; launching with -XX:SharedArchiveFile maps them instead of loading them again.
+// The archive only works with the JDK build that created it and the jar at the same path.
+val cdsTrainingLog = layout.buildDirectory.file("cds/training.csv")
+val cdsArchive = tasks.jar.flatMap { jar -> jar.destinationDirectory.file(jar.archiveBaseName.map { "$it.jsa" }) }
+
+val cdsTrainingLogTask = tasks.register<JavaExec>("cdsTrainingLog") {
+    description = "Generates the call log used to train the AppCDS archive."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.phonecompany.billing.workload.CallLogGenerator")
+    args(cdsTrainingLog.get().asFile.path, "2000", "1", "500")
+    outputs.file(cdsTrainingLog)
+    doFirst { cdsTrainingLog.get().asFile.parentFile.mkdirs() }
+}
+
+val cdsArchiveTask = tasks.register<JavaExec>("cdsArchive") {
+    group = "build"
+    description = "Creates the AppCDS archive for the command-line tool from a training run of the jar."
+    dependsOn(cdsTrainingLogTask)
+    classpath = files(tasks.jar.flatMap { it.archiveFile })
+    mainClass.set("org.phonecompany.billing.cli.CdsTraining")
+    jvmArgs("-XX:ArchiveClassesAtExit=${cdsArchive.get().asFile.path}", "-Xlog:cds=off", "-Xlog:cds+dynamic=off")
+    args(cdsTrainingLog.get().asFile.path)
+    inputs.file(tasks.jar.flatMap { it.archiveFile })
+    outputs.file(cdsArchive)
+}
+
+tasks.assemble {
+    dependsOn(cdsArchiveTask)
+}
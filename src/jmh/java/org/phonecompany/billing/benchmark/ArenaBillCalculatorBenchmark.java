@@ -0,0 +1,90 @@
+package org.phonecompany.billing.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.phonecompany.billing.BatchCallPricer;
+import org.phonecompany.billing.arena.ArenaBillCalculator;
+import org.phonecompany.billing.arena.OffHeapCallArena;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Billing a resident working set, off the heap versus as {@link Call} records; scores are calls per microsecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ArenaBillCalculatorBenchmark {
+
+    private static final int CALLS = 2_000_000;
+
+    @Param({"16", "100000"})
+    public int distinctNumbers;
+
+    private final MostCalledNumberPromotion promotion = new MostCalledNumberPromotion();
+    private final ArenaBillCalculator sequential = new ArenaBillCalculator(promotion, false);
+    private final ArenaBillCalculator parallel = new ArenaBillCalculator(promotion, true);
+
+    private List<Call> calls;
+    private OffHeapCallArena arena;
+
+    @Setup
+    public void setUp() {
+        calls = new CsvCallLogParser().parse(BenchmarkLogs.csv(CALLS, distinctNumbers));
+        arena = OffHeapCallArena.direct();
+        calls.forEach(arena::append);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        arena.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public BigDecimal arenaSequential() {
+        return sequential.calculate(arena);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public BigDecimal arenaParallel() {
+        return parallel.calculate(arena);
+    }
+
+    /** The same pricing from heap records, for comparison. */
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public long heapCalls() {
+        long[] prices = BatchCallPricer.priceCalls(calls);
+        PhoneNumber free = promotion.getFreePhoneNumber(calls).orElse(null);
+        long total = 0;
+        for (int i = 0; i < prices.length; i++) {
+            if (!calls.get(i).phoneNumber().equals(free)) {
+                total += prices[i];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,64 @@
+package org.phonecompany.billing.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.phonecompany.billing.BatchCallPricer;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Columnar pricing throughput; scores are calls per microsecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchCallPricerBenchmark {
+
+    /** Fits in L2, so the score reflects the loop rather than memory bandwidth. */
+    private static final int CALLS = 16 * 1024;
+
+    private final long[] starts = new long[CALLS];
+    private final long[] durations = new long[CALLS];
+    private final long[] prices = new long[CALLS];
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        long january2020 = 26_297_280L;
+        for (int i = 0; i < CALLS; i++) {
+            starts[i] = january2020 + random.nextLong(31 * 24 * 60);
+            durations[i] = random.nextInt(10) == 0 ? random.nextLong(600) : random.nextLong(1, 8);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public long[] priceBatch() {
+        BatchCallPricer.priceBatch(starts, durations, prices);
+        return prices;
+    }
+
+    /**
+     * The same loop with C2's superword pass turned off, to show what vectorization adds on this CPU.
+     */
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    @Fork(value = 1, jvmArgsAppend = "-XX:-UseSuperWord")
+    public long[] priceBatchWithoutSuperWord() {
+        BatchCallPricer.priceBatch(starts, durations, prices);
+        return prices;
+    }
+}
@@ -0,0 +1,23 @@
+package org.phonecompany.billing.benchmark;
+
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+/**
+ * Deterministic call logs for benchmarks.
+ */
+final class BenchmarkLogs {
+
+    private static final long SEED = 42;
+
+    private BenchmarkLogs() {
+    }
+
+    /**
+     * Builds a CSV log of {@code lines} calls to {@code distinctNumbers} Zipf-distributed numbers,
+     * spread over a month with a realistic duration mix.
+     */
+    static String csv(int lines, int distinctNumbers) {
+        return new CallLogGenerator(WorkloadProfile.standard(SEED, distinctNumbers)).csv(lines);
+    }
+}
@@ -0,0 +1,60 @@
+package org.phonecompany.billing.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallPriceCalculatorBenchmark {
+
+    /**
+     * SHORT: 3 minutes inside peak hours.
+     * BOUNDARY: 12 minutes starting just before 16:00, crossing the peak end within the first 5 minutes.
+     * MULTI_DAY: 3 days, crossing many peak/off-peak boundaries in the discounted part.
+     */
+    @Param({"SHORT", "BOUNDARY", "MULTI_DAY"})
+    public String shape;
+
+    private final CallPriceCalculator calculator = new CallPriceCalculator();
+    private Call call;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime start = switch (shape) {
+            case "SHORT" -> LocalDateTime.of(2020, 1, 13, 10, 0, 0);
+            case "BOUNDARY", "MULTI_DAY" -> LocalDateTime.of(2020, 1, 13, 15, 57, 30);
+            default -> throw new IllegalArgumentException("Unknown shape: " + shape);
+        };
+        LocalDateTime end = switch (shape) {
+            case "SHORT" -> start.plusMinutes(3);
+            case "BOUNDARY" -> start.plusMinutes(12);
+            default -> start.plusDays(3);
+        };
+        call = new Call(new PhoneNumber("420774577453"), start, end);
+    }
+
+    @Benchmark
+    public BigDecimal calculate() {
+        return calculator.calculate(call);
+    }
+}
@@ -0,0 +1,43 @@
+package org.phonecompany.billing.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvCallLogParserBenchmark {
+
+    @Param({"1000", "100000"})
+    public int lines;
+
+    private final CsvCallLogParser parser = new CsvCallLogParser();
+    private String log;
+
+    @Setup
+    public void setUp() {
+        log = BenchmarkLogs.csv(lines, 1000);
+    }
+
+    @Benchmark
+    public List<Call> parse() {
+        return parser.parse(log);
+    }
+}
@@ -0,0 +1,48 @@
+package org.phonecompany.billing.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MostCalledNumberPromotionBenchmark {
+
+    private static final int CALLS = 2_000_000;
+
+    @Param({"16", "1000000"})
+    public int distinctNumbers;
+
+    private final MostCalledNumberPromotion promotion = new MostCalledNumberPromotion();
+    private List<Call> calls;
+
+    @Setup
+    public void setUp() {
+        calls = new CsvCallLogParser().parse(BenchmarkLogs.csv(CALLS, distinctNumbers));
+    }
+
+    @Benchmark
+    public Optional<PhoneNumber> getFreePhoneNumber() {
+        return promotion.getFreePhoneNumber(calls);
+    }
+}
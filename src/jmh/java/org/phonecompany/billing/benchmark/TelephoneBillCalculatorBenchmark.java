@@ -0,0 +1,57 @@
+package org.phonecompany.billing.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.analytics.UsageCube;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end bill calculation. The 10M-line case needs a large heap because the current
+ * implementation materializes every call before pricing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class TelephoneBillCalculatorBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    public int lines;
+
+    private final TelephoneBillCalculatorImpl calculator = new TelephoneBillCalculatorImpl();
+    private String log;
+
+    @Setup
+    public void setUp() {
+        log = BenchmarkLogs.csv(lines, 10_000);
+    }
+
+    @Benchmark
+    public BigDecimal calculate() {
+        return calculator.calculate(log);
+    }
+
+    /**
+     * Same bill with the analytics cube as side output; the difference to {@link #calculate()} is its overhead.
+     */
+    @Benchmark
+    public UsageCube calculateWithAnalytics() {
+        UsageCube cube = new UsageCube();
+        calculator.calculate(log, cube);
+        return cube;
+    }
+}
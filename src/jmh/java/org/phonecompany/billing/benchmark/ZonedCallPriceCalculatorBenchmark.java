@@ -0,0 +1,65 @@
+package org.phonecompany.billing.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.model.ZonedCall;
+import org.phonecompany.billing.zone.ZoneOffsetTable;
+import org.phonecompany.billing.zone.ZonedCallPriceCalculator;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZonedCallPriceCalculatorBenchmark {
+
+    private static final ZoneId PRAGUE = ZoneId.of("Europe/Prague");
+
+    /**
+     * Shapes as in {@link CallPriceCalculatorBenchmark}, plus
+     * DST: 3 hours across the spring change, priced in two offset runs.
+     */
+    @Param({"SHORT", "BOUNDARY", "MULTI_DAY", "DST"})
+    public String shape;
+
+    private final ZonedCallPriceCalculator calculator = new ZonedCallPriceCalculator(ZoneOffsetTable.of(PRAGUE));
+    private ZonedCall call;
+
+    @Setup
+    public void setUp() {
+        ZonedDateTime start = switch (shape) {
+            case "SHORT" -> ZonedDateTime.of(2020, 1, 13, 10, 0, 0, 0, PRAGUE);
+            case "BOUNDARY", "MULTI_DAY" -> ZonedDateTime.of(2020, 1, 13, 15, 57, 30, 0, PRAGUE);
+            case "DST" -> ZonedDateTime.of(2024, 3, 31, 0, 30, 0, 0, PRAGUE);
+            default -> throw new IllegalArgumentException("Unknown shape: " + shape);
+        };
+        ZonedDateTime end = switch (shape) {
+            case "SHORT" -> start.plusMinutes(3);
+            case "BOUNDARY" -> start.plusMinutes(12);
+            case "DST" -> start.plusHours(3);
+            default -> start.plusDays(3);
+        };
+        call = new ZonedCall(new PhoneNumber("420774577453"), start, end);
+    }
+
+    @Benchmark
+    public BigDecimal calculate() {
+        return calculator.calculate(call);
+    }
+}
@@ -0,0 +1,193 @@
+package org.phonecompany.billing;
+
+import org.phonecompany.billing.model.Call;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Prices calls held in columnar, primitive form: start as local epoch-minute and duration in whole minutes,
+ * with prices written in haléř (1/100 Kč). Applies the same tariff as {@link CallPriceCalculator}.
+ * <p>
+ * Instead of walking minutes, the inner loop counts peak minutes in closed form. The number of peak minutes
+ * starting in {@code [0, x)} is
+ * <pre>
+ *     P(x) = floorDiv(x, 1440) * 480 + clamp(floorMod(x, 1440) - 480, 0, 480)
+ * </pre>
+ * so the peak minutes of any interval are a difference of two {@code P} values. The price of a call of
+ * {@code d} minutes starting at {@code t}, of which the first {@code s = min(d, 5)} are undiscounted, is then
+ * <pre>
+ *     50 * s + 30 * (d - s) + 50 * (P(t + d) - P(t))
+ * </pre>
+ * since both the standard and the discounted peak rate add 50 haléř to their off-peak rate.
+ * <p>
+ * The inputs are validated in a first pass, so a rejected range leaves the output untouched. When every call ends
+ * at least 480 minutes before epoch-minute 2<sup>31</sup> (in the year 6053), {@code P} is computed without
+ * division or compares: days are counted from 16:00, so each ends with its 480 peak minutes, the division by 1440
+ * is a multiply by a reciprocal and a shift, exact in that range, and the clamp is a sign mask. The price is then
+ * built in four short passes over the range, each small enough for C2 to unroll it and, on CPUs with 64-bit vector
+ * multiplies (AVX-512DQ), vectorize it. Later calls are priced by a scalar loop dividing by 1440.
+ * <p>
+ * Epoch-minutes are minutes since 1970-01-01T00:00 in the log's local time, so peak hours fall at minutes
+ * 480-959 of every day; earlier starts are rejected, which lets the loops use plain division. Boundaries are
+ * whole minutes, so a start with seconds can be truncated to its minute without changing the price.
+ */
+public final class BatchCallPricer {
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    private static final long PEAK_START_MINUTE = 8 * 60;
+    private static final long PEAK_MINUTES_PER_DAY = 8 * 60;
+    private static final long STANDARD_MINUTES_THRESHOLD = 5;
+
+    private static final long OFF_PEAK_HALER = 50;
+    private static final long PEAK_SURCHARGE_HALER = 50;
+    private static final long DISCOUNTED_OFF_PEAK_HALER = 30;
+
+    /** Days counted from 16:00 of the day before, so that each ends with its peak hours. */
+    private static final long DAY_START_OFFSET = MINUTES_PER_DAY - (PEAK_START_MINUTE + PEAK_MINUTES_PER_DAY);
+    private static final long OFF_PEAK_MINUTES_PER_DAY = MINUTES_PER_DAY - PEAK_MINUTES_PER_DAY;
+
+    /** {@code (x * DAY_RECIPROCAL) >>> DAY_SHIFT == x / 1440} for every {@code 0 <= x < 2^31}. */
+    private static final long DAY_RECIPROCAL = 3_054_198_967L;
+    private static final int DAY_SHIFT = 42;
+
+    /** Calls ending before this epoch-minute are priced in vectorizable passes. */
+    static final long RECIPROCAL_END_LIMIT = (1L << 31) - DAY_START_OFFSET;
+
+    private BatchCallPricer() {
+    }
+
+    /**
+     * Prices {@code [from, to)} of the input columns into the same positions of {@code outHaler}.
+     *
+     * @throws IllegalArgumentException if the range does not fit the arrays, or a start or duration is
+     *                                  negative; nothing is written then
+     */
+    public static void priceBatch(long[] startEpochMinutes, long[] durationMinutes, long[] outHaler, int from, int to) {
+        Objects.checkFromToIndex(from, to, startEpochMinutes.length);
+        Objects.checkFromToIndex(from, to, durationMinutes.length);
+        Objects.checkFromToIndex(from, to, outHaler.length);
+
+        // An end that overflows shows up as negative too.
+        long bits = 0;
+        for (int i = from; i < to; i++) {
+            bits |= startEpochMinutes[i] | durationMinutes[i]
+                    | (startEpochMinutes[i] + durationMinutes[i] + DAY_START_OFFSET);
+        }
+        if (bits < 0) {
+            throw new IllegalArgumentException("Start minutes and durations must not be negative");
+        }
+
+        if (bits < RECIPROCAL_END_LIMIT + DAY_START_OFFSET) {
+            priceByReciprocal(startEpochMinutes, durationMinutes, outHaler, from, to);
+        } else {
+            priceByDivision(startEpochMinutes, durationMinutes, outHaler, from, to);
+        }
+    }
+
+    /**
+     * Builds the prices in {@code outHaler} in passes, since C2 only unrolls, and so only vectorizes, loops with a
+     * small body.
+     */
+    private static void priceByReciprocal(
+            long[] startEpochMinutes, long[] durationMinutes, long[] outHaler, int from, int to) {
+        for (int i = from; i < to; i++) {
+            outHaler[i] = startEpochMinutes[i] + durationMinutes[i];
+        }
+        for (int i = from; i < to; i++) {
+            outHaler[i] = peakMinutesBeforeByReciprocal(outHaler[i]);
+        }
+        for (int i = from; i < to; i++) {
+            outHaler[i] -= peakMinutesBeforeByReciprocal(startEpochMinutes[i]);
+        }
+        for (int i = from; i < to; i++) {
+            // 50 * min(d, 5) + 30 * (d - min(d, 5)) == 50 * d - 20 * max(d - 5, 0)
+            long overThreshold = durationMinutes[i] - STANDARD_MINUTES_THRESHOLD;
+            outHaler[i] = PEAK_SURCHARGE_HALER * outHaler[i] + OFF_PEAK_HALER * durationMinutes[i]
+                    - (((OFF_PEAK_HALER - DISCOUNTED_OFF_PEAK_HALER) * overThreshold) & ~(overThreshold >> 63));
+        }
+    }
+
+    /**
+     * {@link #peakMinutesBefore} for {@code 0 <= epochMinute < RECIPROCAL_END_LIMIT}, without division or compares.
+     */
+    private static long peakMinutesBeforeByReciprocal(long epochMinute) {
+        long sinceDayStart = epochMinute + DAY_START_OFFSET;
+        long day = (sinceDayStart * DAY_RECIPROCAL) >>> DAY_SHIFT;
+        long intoPeak = sinceDayStart - day * MINUTES_PER_DAY - OFF_PEAK_MINUTES_PER_DAY;
+        return day * PEAK_MINUTES_PER_DAY + (intoPeak & ~(intoPeak >> 63));
+    }
+
+    private static void priceByDivision(
+            long[] startEpochMinutes, long[] durationMinutes, long[] outHaler, int from, int to) {
+        for (int i = from; i < to; i++) {
+            long start = startEpochMinutes[i];
+            long minutes = durationMinutes[i];
+            long standard = Math.min(minutes, STANDARD_MINUTES_THRESHOLD);
+            long end = start + minutes;
+            long peakBeforeEnd = end / MINUTES_PER_DAY * PEAK_MINUTES_PER_DAY + peakToday(end % MINUTES_PER_DAY);
+            long peakBeforeStart = start / MINUTES_PER_DAY * PEAK_MINUTES_PER_DAY + peakToday(start % MINUTES_PER_DAY);
+
+            outHaler[i] = OFF_PEAK_HALER * standard
+                    + DISCOUNTED_OFF_PEAK_HALER * (minutes - standard)
+                    + PEAK_SURCHARGE_HALER * (peakBeforeEnd - peakBeforeStart);
+        }
+    }
+
+    public static void priceBatch(long[] startEpochMinutes, long[] durationMinutes, long[] outHaler) {
+        priceBatch(startEpochMinutes, durationMinutes, outHaler, 0, startEpochMinutes.length);
+    }
+
+    /**
+     * Converts calls to columns and prices them; convenient when calls are already parsed.
+     *
+     * @return price of each call in haléř, in input order
+     */
+    public static long[] priceCalls(List<Call> calls) {
+        int n = calls.size();
+        long[] starts = new long[n];
+        long[] minutes = new long[n];
+        for (int i = 0; i < n; i++) {
+            Call call = calls.get(i);
+            starts[i] = toEpochMinute(call.startTime());
+            minutes[i] = call.getDurationInMinutes();
+        }
+        long[] prices = new long[n];
+        priceBatch(starts, minutes, prices);
+        return prices;
+    }
+
+    /**
+     * @return the local date-time truncated to whole minutes since 1970-01-01T00:00
+     */
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * @return haléř as a Kč amount with scale 2
+     */
+    public static BigDecimal toCrowns(long haler) {
+        return BigDecimal.valueOf(haler, 2);
+    }
+
+    /**
+     * Peak minutes among the minutes starting in {@code [0, epochMinute)}; for negative input, the negated
+     * count over {@code [epochMinute, 0)}. The peak minutes of {@code [a, b)} are
+     * {@code peakMinutesBefore(b) - peakMinutesBefore(a)}.
+     */
+    public static long peakMinutesBefore(long epochMinute) {
+        long day = Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+        return day * PEAK_MINUTES_PER_DAY + peakToday(epochMinute - day * MINUTES_PER_DAY);
+    }
+
+    /**
+     * Peak minutes starting between midnight and {@code minuteOfDay}, for {@code 0 <= minuteOfDay < 1440}.
+     */
+    private static long peakToday(long minuteOfDay) {
+        return Math.min(Math.max(minuteOfDay - PEAK_START_MINUTE, 0), PEAK_MINUTES_PER_DAY);
+    }
+}
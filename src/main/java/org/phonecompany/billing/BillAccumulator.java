@@ -0,0 +1,150 @@
+package org.phonecompany.billing;
+
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Incrementally built bill: per-number call counts and price subtotals.
+ * Applies the same promotion as {@link org.phonecompany.billing.promotion.MostCalledNumberPromotion}
+ * (the most called number is free, ties go to the arithmetically highest number),
+ * without keeping the individual calls.
+ * Not thread-safe.
+ */
+public class BillAccumulator {
+
+    private final Map<PhoneNumber, NumberTally> tallies = new HashMap<>();
+    private long callCount;
+
+    /**
+     * Records one priced call to the given number.
+     */
+    public void add(PhoneNumber phoneNumber, BigDecimal price) {
+        add(phoneNumber, 1, price);
+    }
+
+    /**
+     * Records {@code calls} calls to the given number costing {@code price} together.
+     */
+    public void add(PhoneNumber phoneNumber, long calls, BigDecimal price) {
+        NumberTally tally = tallies.computeIfAbsent(phoneNumber, number -> new NumberTally());
+        tally.calls += calls;
+        tally.subtotal = tally.subtotal.add(price);
+        callCount += calls;
+    }
+
+    /**
+     * Adds everything recorded by another accumulator into this one.
+     */
+    public void addAll(BillAccumulator other) {
+        for (Map.Entry<PhoneNumber, NumberTally> entry : other.tallies.entrySet()) {
+            add(entry.getKey(), entry.getValue().calls, entry.getValue().subtotal);
+        }
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    public boolean isEmpty() {
+        return callCount == 0;
+    }
+
+    /**
+     * Returns the number made free by the promotion, or empty if no calls were recorded.
+     */
+    public Optional<PhoneNumber> getFreePhoneNumber() {
+        PhoneNumber best = null;
+        long bestCalls = 0;
+
+        for (Map.Entry<PhoneNumber, NumberTally> entry : tallies.entrySet()) {
+            long calls = entry.getValue().calls;
+            if (best == null || calls > bestCalls
+                    || (calls == bestCalls && entry.getKey().compareTo(best) > 0)) {
+                best = entry.getKey();
+                bestCalls = calls;
+            }
+        }
+
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Returns the bill total, excluding calls to the free number.
+     */
+    public BigDecimal getTotal() {
+        PhoneNumber freeNumber = getFreePhoneNumber().orElse(null);
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (Map.Entry<PhoneNumber, NumberTally> entry : tallies.entrySet()) {
+            if (!entry.getKey().equals(freeNumber)) {
+                total = total.add(entry.getValue().subtotal);
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns call count and price subtotal per number, in no particular order.
+     */
+    public Map<PhoneNumber, NumberSubtotal> getSubtotals() {
+        Map<PhoneNumber, NumberSubtotal> result = new HashMap<>(tallies.size() * 2);
+        for (Map.Entry<PhoneNumber, NumberTally> entry : tallies.entrySet()) {
+            result.put(entry.getKey(), new NumberSubtotal(entry.getValue().calls, entry.getValue().subtotal));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the call count and subtotal of one number, if it was called.
+     */
+    public Optional<NumberSubtotal> getSubtotal(PhoneNumber phoneNumber) {
+        NumberTally tally = tallies.get(phoneNumber);
+        return tally == null ? Optional.empty() : Optional.of(new NumberSubtotal(tally.calls, tally.subtotal));
+    }
+
+    /**
+     * Writes the accumulated state in a form readable by {@link #readFrom(DataInput)}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(tallies.size());
+        for (Map.Entry<PhoneNumber, NumberTally> entry : tallies.entrySet()) {
+            out.writeUTF(entry.getKey().value());
+            out.writeLong(entry.getValue().calls);
+            out.writeUTF(entry.getValue().subtotal.toString());
+        }
+    }
+
+    /**
+     * Restores an accumulator written by {@link #writeTo(DataOutput)}.
+     */
+    public static BillAccumulator readFrom(DataInput in) throws IOException {
+        BillAccumulator accumulator = new BillAccumulator();
+        int numbers = in.readInt();
+        for (int i = 0; i < numbers; i++) {
+            PhoneNumber phoneNumber = new PhoneNumber(in.readUTF());
+            long calls = in.readLong();
+            BigDecimal subtotal = new BigDecimal(in.readUTF());
+            accumulator.add(phoneNumber, calls, subtotal);
+        }
+        return accumulator;
+    }
+
+    /**
+     * Call count and summed price of calls to one number.
+     */
+    public record NumberSubtotal(long calls, BigDecimal subtotal) {
+    }
+
+    private static final class NumberTally {
+        private long calls;
+        private BigDecimal subtotal = BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,151 @@
+package org.phonecompany.billing;
+
+import org.phonecompany.billing.model.Call;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes call prices by call shape. A price depends only on the start's minute of day (peak boundaries are
+ * whole minutes) and on the rounded-up duration, so billing millions of subscribers mostly repeats a small set
+ * of shapes.
+ * <p>
+ * The cache is a bounded, 4-way set-associative table. Reads are lock-free: each slot holds an immutable
+ * entry published through an {@link AtomicReferenceArray}. Insertions take one of a fixed set of striped
+ * locks, so concurrent misses on different sets do not contend; when a set is full its entries are replaced
+ * round robin. Calls longer than the duration cutoff bypass the cache, since multi-day shapes rarely repeat
+ * and would only evict the common ones.
+ * <p>
+ * The key holds no date, so only the plain {@link CallPriceCalculator} can be wrapped: subclasses such as
+ * {@link org.phonecompany.billing.tariff.ScheduledCallPriceCalculator} or
+ * {@link org.phonecompany.billing.zone.ZonedCallPriceCalculator} price the same shape differently on different days.
+ * <p>
+ * Thread-safe as long as the delegate is.
+ */
+public class CachingCallPriceCalculator extends CallPriceCalculator {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final long DEFAULT_MAX_CACHED_MINUTES = 24 * 60;
+
+    private static final int WAYS = 4;
+    private static final int STRIPES = 64;
+
+    private final CallPriceCalculator delegate;
+    private final long maxCachedMinutes;
+    private final AtomicReferenceArray<Entry> slots;
+    private final int setMask;
+    private final Object[] locks = new Object[STRIPES];
+    private final byte[] nextVictim;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+
+    /**
+     * @param delegate         a plain {@link CallPriceCalculator}, not a subclass
+     * @param capacity         maximum number of cached shapes, rounded up to a power of two (at least 4)
+     * @param maxCachedMinutes calls longer than this are priced directly
+     */
+    public CachingCallPriceCalculator(CallPriceCalculator delegate, int capacity, long maxCachedMinutes) {
+        if (delegate.getClass() != CallPriceCalculator.class) {
+            throw new IllegalArgumentException(
+                    "Only the plain CallPriceCalculator prices by call shape alone: " + delegate.getClass().getName());
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (maxCachedMinutes < 0) {
+            throw new IllegalArgumentException("Duration cutoff must not be negative: " + maxCachedMinutes);
+        }
+        this.delegate = delegate;
+        this.maxCachedMinutes = maxCachedMinutes;
+
+        int slotCount = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.setMask = slotCount / WAYS - 1;
+        this.nextVictim = new byte[slotCount / WAYS];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public CachingCallPriceCalculator(CallPriceCalculator delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_MAX_CACHED_MINUTES);
+    }
+
+    @Override
+    public BigDecimal calculate(Call call) {
+        long minutes = call.getDurationInMinutes();
+        if (minutes == 0 || minutes > maxCachedMinutes) {
+            bypasses.increment();
+            return delegate.calculate(call);
+        }
+
+        LocalTime start = call.startTime().toLocalTime();
+        long key = (long) (start.getHour() * 60 + start.getMinute()) << 32 | minutes;
+        int set = set(key);
+        int base = set * WAYS;
+
+        for (int way = 0; way < WAYS; way++) {
+            Entry entry = slots.get(base + way);
+            if (entry != null && entry.key == key) {
+                hits.increment();
+                return entry.price;
+            }
+        }
+
+        misses.increment();
+        BigDecimal price = delegate.calculate(call);
+        insert(set, base, new Entry(key, price));
+        return price;
+    }
+
+    private void insert(int set, int base, Entry entry) {
+        synchronized (locks[set & (STRIPES - 1)]) {
+            for (int way = 0; way < WAYS; way++) {
+                Entry existing = slots.get(base + way);
+                if (existing == null) {
+                    slots.set(base + way, entry);
+                    return;
+                }
+                if (existing.key == entry.key) {
+                    return;
+                }
+            }
+            int victim = nextVictim[set];
+            nextVictim[set] = (byte) ((victim + 1) % WAYS);
+            slots.set(base + victim, entry);
+        }
+    }
+
+    private int set(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & setMask;
+    }
+
+    /**
+     * @return a consistent-enough view of the hit statistics; counters are read one after another
+     */
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), bypasses.sum());
+    }
+
+    /**
+     * Cache statistics. Bypassed calls (zero-length or above the duration cutoff) are neither hits nor misses.
+     */
+    public record Stats(long hits, long misses, long bypasses) {
+
+        /**
+         * @return hits over cache lookups, or 0 before the first lookup
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private record Entry(long key, BigDecimal price) {
+    }
+}
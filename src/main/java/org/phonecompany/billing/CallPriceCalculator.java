@@ -1,5 +1,9 @@
 package org.phonecompany.billing;
 
+import org.phonecompany.billing.jfr.BillingEvents;
+import org.phonecompany.billing.jfr.SlowCallPricingEvent;
+import org.phonecompany.billing.metrics.Counter;
+import org.phonecompany.billing.metrics.MetricsRegistry;
 import org.phonecompany.billing.model.Call;
 
 import java.math.BigDecimal;
@@ -24,9 +28,49 @@ public class CallPriceCalculator {
     private static final BigDecimal DISCOUNTED_OFF_PEAK_RATE = OFF_PEAK_RATE.subtract(LONG_CALL_DISCOUNT); // 0.30
 
     private static final int STANDARD_MINUTES_THRESHOLD = 5;
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
 
+    private final Counter callsPriced;
+    private final Counter minutesPriced;
+
+    /**
+     * @param metrics receives {@code pricer.calls} and {@code pricer.minutes}; per-call timing is left to
+     *                callers, as a clock read would cost more than pricing a short call
+     */
+    public CallPriceCalculator(MetricsRegistry metrics) {
+        this.callsPriced = metrics.counter("pricer.calls");
+        this.minutesPriced = metrics.counter("pricer.minutes");
+    }
+
+    public CallPriceCalculator() {
+        this(MetricsRegistry.noop());
+    }
+
+    /**
+     * Prices one call. While Flight Recorder is running, a {@link SlowCallPricingEvent} is committed for a call
+     * that took longer than the event threshold; otherwise the event class is never loaded.
+     */
     public BigDecimal calculate(Call call) {
+        return BillingEvents.isEnabled() ? priceRecorded(call) : price(call);
+    }
+
+    private BigDecimal priceRecorded(Call call) {
+        SlowCallPricingEvent event = new SlowCallPricingEvent();
+        event.begin();
+        BigDecimal price = price(call);
+        event.end();
+        if (event.shouldCommit()) {
+            event.phoneNumber = call.phoneNumber().value();
+            event.durationMinutes = call.getDurationInMinutes();
+            event.commit();
+        }
+        return price;
+    }
+
+    private BigDecimal price(Call call) {
         long totalMinutes = call.getDurationInMinutes();
+        callsPriced.increment();
+        minutesPriced.add(totalMinutes);
 
         if (totalMinutes == 0) {
             return BigDecimal.ZERO;
@@ -61,9 +105,11 @@ public class CallPriceCalculator {
         long remaining = minutes;
 
         while (remaining > 0) {
+            LocalTime currentTime = current.toLocalTime();
+
             if (isPeakHour(current)) {
                 // In peak hours - calculate until peak ends (16:00)
-                long minutesUntilPeakEnd = ChronoUnit.MINUTES.between(current.toLocalTime(), PEAK_END);
+                long minutesUntilPeakEnd = minutesStartingBefore(currentTime, PEAK_END);
                 long batch = Math.min(remaining, minutesUntilPeakEnd);
 
                 total = total.add(DISCOUNTED_PEAK_RATE.multiply(BigDecimal.valueOf(batch)));
@@ -71,18 +117,15 @@ public class CallPriceCalculator {
                 remaining -= batch;
             } else {
                 // In off-peak hours - calculate until peak starts
-                LocalTime currentTime = current.toLocalTime();
                 long minutesUntilPeakStart;
 
                 if (currentTime.isBefore(PEAK_START)) {
                     // Before 08:00 - calculate until 08:00 same day
-                    minutesUntilPeakStart = ChronoUnit.MINUTES.between(currentTime, PEAK_START);
+                    minutesUntilPeakStart = minutesStartingBefore(currentTime, PEAK_START);
                 } else {
                     // After 16:00 - calculate until 08:00 next day
-                    // Minutes until end of day + minutes from midnight to 08:00
-                    long minutesUntilMidnight = ChronoUnit.MINUTES.between(currentTime, LocalTime.of(23, 59)) + 1;
-                    long minutesFromMidnightToPeak = ChronoUnit.MINUTES.between(LocalTime.MIDNIGHT, PEAK_START);
-                    minutesUntilPeakStart = minutesUntilMidnight + minutesFromMidnightToPeak;
+                    long secondsUntilMidnight = SECONDS_PER_DAY - currentTime.toSecondOfDay();
+                    minutesUntilPeakStart = (secondsUntilMidnight + PEAK_START.toSecondOfDay() + 59) / 60;
                 }
 
                 long batch = Math.min(remaining, minutesUntilPeakStart);
@@ -96,6 +139,16 @@ public class CallPriceCalculator {
         return total;
     }
 
+    /**
+     * Counts the minutes, stepping from {@code from} in whole minutes, that start before {@code boundary}.
+     * Rounds up so that a minute starting a few seconds before the boundary is included;
+     * truncating would leave a zero-length batch and the loop above would never advance.
+     */
+    private long minutesStartingBefore(LocalTime from, LocalTime boundary) {
+        long seconds = ChronoUnit.SECONDS.between(from, boundary);
+        return (seconds + 59) / 60;
+    }
+
     /**
      * Returns the standard rate (peak or off-peak) for a given time.
      */
@@ -0,0 +1,295 @@
+package org.phonecompany.billing;
+
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe counterpart of {@link BillAccumulator} for one account fed by several threads at once.
+ * <p>
+ * Each called number has a set of cells in the style of {@link java.util.concurrent.atomic.LongAdder}: a thread
+ * updates one cell with a CAS and, when the CAS fails because another thread got there first, moves to another
+ * cell, growing the set (up to about the number of CPUs) so that hot accounts stop contending. A cell packs the
+ * call count and the subtotal in haléř into a single long, so one CAS records a call completely.
+ * <p>
+ * A cell that would exceed its 2^24 - 2 calls or 2^40 haléř is drained into an overflow tally of its cells, under
+ * their monitor, which writers otherwise never take; a price too large for a cell goes there directly.
+ * <p>
+ * {@link #snapshot()} is a consistent cut taken without stopping writers. The account has an epoch, and each
+ * number a generation of cells per epoch, created by the first writer of that epoch. A snapshot advances the epoch,
+ * so new calls go to new generations, then seals the older generations cell by cell and folds them into a running
+ * total per number. A writer that finds its cell sealed started before the snapshot and finishes after it, so it
+ * retries in the new epoch. The snapshot thus holds every call that completed before it started, none that started
+ * after it ended, and of the calls in between exactly those ordered before the epoch change, so its total and free
+ * number are those of the account at that moment. Snapshots exclude one another; writers never wait for them.
+ */
+public class ConcurrentBillAccumulator {
+
+    private static final int COUNT_BITS = 24;
+    private static final int HALER_BITS = Long.SIZE - COUNT_BITS;
+    /** One below the count field's capacity, so that no cell reaches {@link #SEALED}. */
+    private static final long MAX_COUNT = (1L << COUNT_BITS) - 2;
+    private static final long HALER_MASK = (1L << HALER_BITS) - 1;
+    private static final long SEALED = -1L;
+
+    private static final int MAX_CELLS = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(
+            () -> new int[]{Long.hashCode(Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L) | 1});
+
+    private final ConcurrentHashMap<PhoneNumber, NumberCells> numbers = new ConcurrentHashMap<>();
+
+    /** Written only by {@link #snapshot()}. */
+    private volatile long epoch;
+
+    /**
+     * Records one priced call to the given number.
+     *
+     * @throws IllegalArgumentException if the price is negative or not a whole number of haléř
+     */
+    public void add(PhoneNumber phoneNumber, BigDecimal price) {
+        if (price.signum() < 0) {
+            throw new IllegalArgumentException("Price cannot be negative: " + price);
+        }
+        long haler = price.movePointRight(2).longValueExact();
+        NumberCells cells = numbers.computeIfAbsent(phoneNumber, number -> new NumberCells());
+        while (true) {
+            Generation generation = cells.generation(epoch);
+            if (haler > HALER_MASK ? generation.addToOverflow(1, haler) : generation.add(haler)) {
+                return;
+            }
+            // Sealed by a snapshot since the epoch was read: record the call in the new epoch.
+        }
+    }
+
+    /**
+     * Takes a consistent cut of the account without blocking writers; see the class comment.
+     *
+     * @return a bill with per-number counts and subtotals, its total and free number
+     */
+    public synchronized BillAccumulator snapshot() {
+        long sealedEpoch = epoch;
+        epoch = sealedEpoch + 1;
+
+        BillAccumulator bill = new BillAccumulator();
+        numbers.forEach((number, cells) -> {
+            cells.fold(sealedEpoch);
+            if (cells.foldedCalls > 0) {
+                bill.add(number, cells.foldedCalls,
+                        cells.foldedHaler == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(cells.foldedHaler, 2));
+            }
+        });
+        return bill;
+    }
+
+    private static final class NumberCells {
+
+        private static final VarHandle GENERATION;
+
+        static {
+            try {
+                GENERATION = MethodHandles.lookup().findVarHandle(NumberCells.class, "generation", Generation.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile Generation generation = new Generation(0, null, 1);
+
+        /** Calls and haléř of sealed generations; guarded by the accumulator. */
+        private long foldedCalls;
+        private long foldedHaler;
+
+        /**
+         * Returns the generation to record a call of the given epoch in, creating it for the first call of an epoch.
+         */
+        Generation generation(long epoch) {
+            while (true) {
+                Generation current = generation;
+                if (current.epoch >= epoch) {
+                    return current;
+                }
+                Generation next = new Generation(epoch, current, current.cells.length);
+                if (GENERATION.compareAndSet(this, current, next)) {
+                    return next;
+                }
+            }
+        }
+
+        /**
+         * Seals every generation up to the given epoch and adds it to the folded tallies. Generations are created
+         * in epoch order and each links the one it replaced, so all unsealed ones hang below the newest.
+         */
+        void fold(long epoch) {
+            Generation newest = generation;
+            for (Generation older = newest; older != null; older = older.previous) {
+                if (older.epoch <= epoch) {
+                    long[] sums = older.seal();
+                    foldedCalls += sums[0];
+                    foldedHaler = Math.addExact(foldedHaler, sums[1]);
+                }
+            }
+            newest.previous = null;
+        }
+    }
+
+    /**
+     * The cells of one number for one epoch. Once sealed, neither its cells nor its overflow tally change.
+     */
+    private static final class Generation {
+
+        private static final VarHandle CELLS;
+        private static final Cell[] SEALED_CELLS = {};
+
+        static {
+            try {
+                CELLS = MethodHandles.lookup().findVarHandle(Generation.class, "cells", Cell[].class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        final long epoch;
+        volatile Generation previous;
+        private volatile Cell[] cells;
+
+        /** Guarded by this, like the overflow tally. */
+        private boolean sealed;
+        private long overflowCalls;
+        private long overflowHaler;
+
+        Generation(long epoch, Generation previous, int width) {
+            this.epoch = epoch;
+            this.previous = previous;
+            Cell[] initial = new Cell[Math.max(1, width)];
+            for (int i = 0; i < initial.length; i++) {
+                initial[i] = new Cell();
+            }
+            this.cells = initial;
+        }
+
+        /**
+         * @return false if the generation is sealed and the call was not recorded
+         */
+        boolean add(long haler) {
+            int[] probe = PROBE.get();
+            while (true) {
+                Cell[] current = cells;
+                if (current.length == 0) {
+                    return false;
+                }
+                Cell cell = current[probe[0] & (current.length - 1)];
+                long value = (long) Cell.VALUE.getVolatile(cell);
+                if (value == SEALED) {
+                    return false;
+                }
+                if ((value >>> HALER_BITS) == MAX_COUNT || (value & HALER_MASK) + haler > HALER_MASK) {
+                    if (!drain(cell)) {
+                        return false;
+                    }
+                    continue;
+                }
+                long updated = value + (1L << HALER_BITS) + haler;
+                if (Cell.VALUE.compareAndSet(cell, value, updated)) {
+                    return true;
+                }
+                // Contended: try another cell next time, and add cells if there is room.
+                probe[0] = rehash(probe[0]);
+                if (current.length < MAX_CELLS && cells == current) {
+                    Cell[] grown = new Cell[current.length * 2];
+                    System.arraycopy(current, 0, grown, 0, current.length);
+                    for (int i = current.length; i < grown.length; i++) {
+                        grown[i] = new Cell();
+                    }
+                    CELLS.compareAndSet(this, current, grown);
+                }
+            }
+        }
+
+        /**
+         * @return false if the generation is sealed and the calls were not recorded
+         */
+        synchronized boolean addToOverflow(long calls, long haler) {
+            if (sealed) {
+                return false;
+            }
+            overflowCalls += calls;
+            overflowHaler = Math.addExact(overflowHaler, haler);
+            return true;
+        }
+
+        /**
+         * Moves a full cell's calls into the overflow tally. Holding the monitor keeps {@link #seal()} from seeing
+         * the calls in neither place.
+         *
+         * @return false if the generation is sealed
+         */
+        private synchronized boolean drain(Cell cell) {
+            if (sealed) {
+                return false;
+            }
+            long value = (long) Cell.VALUE.getAndSet(cell, 0L);
+            return addToOverflow(value >>> HALER_BITS, value & HALER_MASK);
+        }
+
+        /**
+         * Seals every cell, including those a concurrent grow adds, and the overflow tally.
+         *
+         * @return calls and haléř recorded before the seal, or zeros if already sealed
+         */
+        long[] seal() {
+            synchronized (this) {
+                if (sealed) {
+                    return new long[]{0, 0};
+                }
+                sealed = true;
+            }
+            long calls = 0;
+            long haler = 0;
+            Cell[] current;
+            do {
+                current = cells;
+                for (Cell cell : current) {
+                    long value = (long) Cell.VALUE.getAndSet(cell, SEALED);
+                    if (value != SEALED) {
+                        calls += value >>> HALER_BITS;
+                        haler += value & HALER_MASK;
+                    }
+                }
+            } while (!CELLS.compareAndSet(this, current, SEALED_CELLS));
+            synchronized (this) {
+                return new long[]{calls + overflowCalls, Math.addExact(haler, overflowHaler)};
+            }
+        }
+
+        private static int rehash(int probe) {
+            probe ^= probe << 13;
+            probe ^= probe >>> 17;
+            return probe ^ (probe << 5);
+        }
+    }
+
+    /**
+     * One packed (count, haléř) cell, padded so that neighbouring cells do not share a cache line.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cell {
+
+        static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(Cell.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private long p0, p1, p2, p3, p4, p5, p6;
+        private volatile long value;
+        private long q0, q1, q2, q3, q4, q5, q6;
+    }
+}
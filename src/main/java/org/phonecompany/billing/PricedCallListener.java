@@ -0,0 +1,23 @@
+package org.phonecompany.billing;
+
+import org.phonecompany.billing.model.Call;
+
+import java.math.BigDecimal;
+
+/**
+ * Side output of a billing pass: sees every call of the bill once it has been priced.
+ */
+@FunctionalInterface
+public interface PricedCallListener {
+
+    /**
+     * @param price what the call adds to the bill; zero for calls to the free number
+     * @param free  whether the call was made free by the promotion
+     */
+    void onPricedCall(Call call, BigDecimal price, boolean free);
+
+    static PricedCallListener none() {
+        return (call, price, free) -> {
+        };
+    }
+}
@@ -1,5 +1,10 @@
 package org.phonecompany.billing;
 
+import org.phonecompany.billing.jfr.BillCalculationEvent;
+import org.phonecompany.billing.jfr.BillingEvents;
+import org.phonecompany.billing.metrics.Counter;
+import org.phonecompany.billing.metrics.Histogram;
+import org.phonecompany.billing.metrics.MetricsRegistry;
 import org.phonecompany.billing.model.Call;
 import org.phonecompany.billing.model.PhoneNumber;
 import org.phonecompany.billing.parser.CallLogParser;
@@ -24,13 +29,44 @@ public class TelephoneBillCalculatorImpl implements TelephoneBillCalculator {
     private final CallPriceCalculator priceCalculator;
     private final FreePromotionStrategy promotionStrategy;
 
+    private final Counter billsCalculated;
+    private final Histogram billLatency;
+    private final Histogram pricingLatency;
+
+    /**
+     * @param metrics receives {@code bill.count}, {@code bill.nanos} (whole calculation)
+     *                and {@code bill.pricing.nanos} (pricing stage only)
+     */
     public TelephoneBillCalculatorImpl(
             CallLogParser parser,
             CallPriceCalculator priceCalculator,
-            FreePromotionStrategy promotionStrategy) {
+            FreePromotionStrategy promotionStrategy,
+            MetricsRegistry metrics) {
         this.parser = parser;
         this.priceCalculator = priceCalculator;
         this.promotionStrategy = promotionStrategy;
+        this.billsCalculated = metrics.counter("bill.count");
+        this.billLatency = metrics.histogram("bill.nanos");
+        this.pricingLatency = metrics.histogram("bill.pricing.nanos");
+    }
+
+    public TelephoneBillCalculatorImpl(
+            CallLogParser parser,
+            CallPriceCalculator priceCalculator,
+            FreePromotionStrategy promotionStrategy) {
+        this(parser, priceCalculator, promotionStrategy, MetricsRegistry.noop());
+    }
+
+    /**
+     * Creates a calculator with the default components, all reporting into the given registry.
+     */
+    public TelephoneBillCalculatorImpl(MetricsRegistry metrics) {
+        this(
+                new CsvCallLogParser(metrics),
+                new CallPriceCalculator(metrics),
+                new MostCalledNumberPromotion(metrics),
+                metrics
+        );
     }
 
     public TelephoneBillCalculatorImpl() {
@@ -43,10 +79,27 @@ public class TelephoneBillCalculatorImpl implements TelephoneBillCalculator {
 
     @Override
     public BigDecimal calculate(String phoneLog) {
+        return calculate(phoneLog, PricedCallListener.none());
+    }
+
+    /**
+     * Calculates the bill, passing every call to the listener once priced, including calls to the free number.
+     */
+    public BigDecimal calculate(String phoneLog, PricedCallListener listener) {
+        BillCalculationEvent event = null;
+        if (BillingEvents.isEnabled()) {
+            event = new BillCalculationEvent();
+            event.begin();
+        }
+        long start = System.nanoTime();
+        billsCalculated.increment();
+
         // 1. Parse the phone log
         List<Call> allCalls = parser.parse(phoneLog);
 
         if (allCalls.isEmpty()) {
+            billLatency.record(System.nanoTime() - start);
+            commit(event, allCalls, null, BigDecimal.ZERO, 0);
             return BigDecimal.ZERO;
         }
 
@@ -54,20 +107,50 @@ public class TelephoneBillCalculatorImpl implements TelephoneBillCalculator {
         PhoneNumber freeNumber = promotionStrategy.getFreePhoneNumber(allCalls).orElse(null);
 
         // 3. Calculate total price, excluding calls to free number
-        return calculateTotalPrice(allCalls, freeNumber);
+        long pricingStart = System.nanoTime();
+        BigDecimal total = calculateTotalPrice(allCalls, freeNumber, listener);
+
+        long end = System.nanoTime();
+        pricingLatency.record(end - pricingStart);
+        billLatency.record(end - start);
+        commit(event, allCalls, freeNumber, total, end - pricingStart);
+        return total;
+    }
+
+    private static void commit(BillCalculationEvent event, List<Call> calls, PhoneNumber freeNumber, BigDecimal total,
+                               long pricingNanos) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.callCount = calls.size();
+            event.pricingDuration = pricingNanos;
+            event.freeNumber = freeNumber == null ? null : freeNumber.value();
+            event.total = total.toPlainString();
+            event.commit();
+        }
     }
 
     /**
      * Calculates the total price for all billable calls.
-     * Calls to the free number (if not null) are excluded.
+     * Calls to the free number (if not null) are excluded, and only reported to the listener.
      *
      * @param freeNumber phone number to exclude, or null if no promotion applies
      */
-    private BigDecimal calculateTotalPrice(List<Call> calls, PhoneNumber freeNumber) {
-        return calls.stream()
-                .filter(call -> isBillable(call, freeNumber))
-                .map(priceCalculator::calculate)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private BigDecimal calculateTotalPrice(List<Call> calls, PhoneNumber freeNumber, PricedCallListener listener) {
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (Call call : calls) {
+            if (isBillable(call, freeNumber)) {
+                BigDecimal price = priceCalculator.calculate(call);
+                total = total.add(price);
+                listener.onPricedCall(call, price, false);
+            } else {
+                listener.onPricedCall(call, BigDecimal.ZERO, true);
+            }
+        }
+        return total;
     }
 
     /**
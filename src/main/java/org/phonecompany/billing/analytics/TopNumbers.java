@@ -0,0 +1,172 @@
+package org.phonecompany.billing.analytics;
+
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate most-called numbers in bounded memory, using the Space-Saving algorithm: at most {@code capacity}
+ * numbers are counted, and a new number replaces the one with the lowest count, inheriting that count as its
+ * possible overestimate.
+ * <p>
+ * Every number called more than {@code calls / capacity} times is guaranteed to be present, and a reported count
+ * exceeds the true count by at most the entry's {@code error}. With no more distinct numbers than the capacity,
+ * counts are exact. Summaries merge with the same guarantees, so one per thread or subscriber can be combined.
+ * <p>
+ * Tallies are kept in a hash map and in a min-heap on count, so counting a number and replacing the smallest are
+ * both O(log capacity). Not thread-safe.
+ */
+public class TopNumbers {
+
+    private final int capacity;
+    private final Map<PhoneNumber, Tally> tallies;
+    private final Tally[] heap;
+    private int size;
+
+    public TopNumbers(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.tallies = new HashMap<>(capacity * 2);
+        this.heap = new Tally[capacity];
+    }
+
+    public void add(PhoneNumber number, long calls) {
+        Tally tally = tallies.get(number);
+        if (tally != null) {
+            tally.count += calls;
+            siftDown(tally.index);
+        } else if (size < capacity) {
+            insert(new Tally(number, calls, 0));
+        } else {
+            Tally smallest = heap[0];
+            tallies.remove(smallest.number);
+            Tally replacement = new Tally(number, smallest.count + calls, smallest.count);
+            replacement.index = 0;
+            heap[0] = replacement;
+            tallies.put(number, replacement);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Adds another summary into this one (Agarwal et al., "Mergeable summaries"): a number missing from a full
+     * summary is assumed to have that summary's minimum count, then the largest {@code capacity} counts are kept.
+     */
+    public void merge(TopNumbers other) {
+        long thisFloor = floor();
+        long otherFloor = other.floor();
+        List<Tally> merged = new ArrayList<>(size + other.size);
+
+        for (Tally mine : tallies.values()) {
+            Tally theirs = other.tallies.get(mine.number);
+            merged.add(theirs == null
+                    ? new Tally(mine.number, mine.count + otherFloor, mine.error + otherFloor)
+                    : new Tally(mine.number, mine.count + theirs.count, mine.error + theirs.error));
+        }
+        for (Tally theirs : other.tallies.values()) {
+            if (!tallies.containsKey(theirs.number)) {
+                merged.add(new Tally(theirs.number, theirs.count + thisFloor, theirs.error + thisFloor));
+            }
+        }
+
+        merged.sort(Comparator.comparingLong((Tally tally) -> tally.count).reversed());
+        tallies.clear();
+        size = 0;
+        for (Tally tally : merged.subList(0, Math.min(capacity, merged.size()))) {
+            insert(tally);
+        }
+    }
+
+    /**
+     * @return tracked numbers, most called first (ties by higher number)
+     */
+    public List<Entry> getTop() {
+        List<Entry> top = new ArrayList<>(size);
+        for (Tally tally : tallies.values()) {
+            top.add(new Entry(tally.number, tally.count, tally.error));
+        }
+        top.sort(Comparator.comparingLong(Entry::calls).thenComparing(Entry::number).reversed());
+        return top;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * The count an untracked number may at most have had: the minimum count when full, otherwise zero.
+     */
+    private long floor() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    private void insert(Tally tally) {
+        tally.index = size;
+        heap[size++] = tally;
+        tallies.put(tally.number, tally);
+        siftUp(tally.index);
+    }
+
+    private void siftUp(int index) {
+        Tally tally = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= tally.count) {
+                break;
+            }
+            move(heap[parent], index);
+            index = parent;
+        }
+        move(tally, index);
+    }
+
+    private void siftDown(int index) {
+        Tally tally = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (tally.count <= heap[child].count) {
+                break;
+            }
+            move(heap[child], index);
+            index = child;
+        }
+        move(tally, index);
+    }
+
+    private void move(Tally tally, int index) {
+        heap[index] = tally;
+        tally.index = index;
+    }
+
+    /**
+     * @param calls estimated calls, never below the true count
+     * @param error by how much {@code calls} may exceed the true count
+     */
+    public record Entry(PhoneNumber number, long calls, long error) {
+    }
+
+    private static final class Tally {
+        private final PhoneNumber number;
+        private final long error;
+        private long count;
+        private int index;
+
+        private Tally(PhoneNumber number, long count, long error) {
+            this.number = number;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
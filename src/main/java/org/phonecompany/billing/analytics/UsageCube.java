@@ -0,0 +1,114 @@
+package org.phonecompany.billing.analytics;
+
+import org.phonecompany.billing.BatchCallPricer;
+import org.phonecompany.billing.PricedCallListener;
+import org.phonecompany.billing.model.Call;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+
+/**
+ * Usage analytics filled in during the billing pass: every {@link UsageMetric} per hour of the week (168 buckets,
+ * Monday 00:00 first), plus the approximate {@link TopNumbers}. Pass it to
+ * {@link org.phonecompany.billing.TelephoneBillCalculatorImpl#calculate(String, PricedCallListener)}.
+ * <p>
+ * A call is attributed to the bucket it starts in; its minutes are split into peak and off-peak in closed form
+ * without walking them. All counters live in one primitive array, so recording a call allocates nothing beyond
+ * converting its price, and cubes built per subscriber or per thread are combined with {@link #merge(UsageCube)}.
+ * Revenue is counted in whole haléř per call, rounded half up as on the itemized invoice. Not thread-safe.
+ */
+public class UsageCube implements PricedCallListener {
+
+    public static final int HOURS_PER_WEEK = 7 * 24;
+    public static final int DEFAULT_TOP_NUMBERS = 100;
+
+    private static final int METRICS = UsageMetric.values().length;
+
+    private final long[] cells = new long[HOURS_PER_WEEK * METRICS];
+    private final TopNumbers topNumbers;
+
+    public UsageCube(int topNumbersCapacity) {
+        this.topNumbers = new TopNumbers(topNumbersCapacity);
+    }
+
+    public UsageCube() {
+        this(DEFAULT_TOP_NUMBERS);
+    }
+
+    @Override
+    public void onPricedCall(Call call, BigDecimal price, boolean free) {
+        LocalDateTime start = call.startTime();
+        long minutes = call.getDurationInMinutes();
+        long startMinute = BatchCallPricer.toEpochMinute(start);
+        long peak = BatchCallPricer.peakMinutesBefore(startMinute + minutes) - BatchCallPricer.peakMinutesBefore(startMinute);
+
+        int base = hourOfWeek(start.getDayOfWeek(), start.getHour()) * METRICS;
+        cells[base + UsageMetric.CALLS.ordinal()]++;
+        if (free) {
+            cells[base + UsageMetric.FREE_CALLS.ordinal()]++;
+        }
+        cells[base + UsageMetric.MINUTES.ordinal()] += minutes;
+        cells[base + UsageMetric.PEAK_MINUTES.ordinal()] += peak;
+        cells[base + UsageMetric.OFF_PEAK_MINUTES.ordinal()] += minutes - peak;
+        cells[base + UsageMetric.REVENUE_HALER.ordinal()] += price.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+
+        topNumbers.add(call.phoneNumber(), 1);
+    }
+
+    /**
+     * Adds another cube's counters and top numbers into this one.
+     */
+    public void merge(UsageCube other) {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] += other.cells[i];
+        }
+        topNumbers.merge(other.topNumbers);
+    }
+
+    public long get(DayOfWeek day, int hour, UsageMetric metric) {
+        return cells[hourOfWeek(day, hour) * METRICS + metric.ordinal()];
+    }
+
+    /**
+     * @return the metric per hour of day, summed over weekdays
+     */
+    public long[] byHourOfDay(UsageMetric metric) {
+        long[] hours = new long[24];
+        for (int bucket = 0; bucket < HOURS_PER_WEEK; bucket++) {
+            hours[bucket % 24] += cells[bucket * METRICS + metric.ordinal()];
+        }
+        return hours;
+    }
+
+    /**
+     * @return the metric per weekday, Monday first
+     */
+    public long[] byWeekday(UsageMetric metric) {
+        long[] days = new long[7];
+        for (int bucket = 0; bucket < HOURS_PER_WEEK; bucket++) {
+            days[bucket / 24] += cells[bucket * METRICS + metric.ordinal()];
+        }
+        return days;
+    }
+
+    public long total(UsageMetric metric) {
+        long total = 0;
+        for (int bucket = 0; bucket < HOURS_PER_WEEK; bucket++) {
+            total += cells[bucket * METRICS + metric.ordinal()];
+        }
+        return total;
+    }
+
+    public TopNumbers getTopNumbers() {
+        return topNumbers;
+    }
+
+    private static int hourOfWeek(DayOfWeek day, int hour) {
+        if (hour < 0 || hour > 23) {
+            throw new IllegalArgumentException("Hour out of range: " + hour);
+        }
+        return (day.getValue() - 1) * 24 + hour;
+    }
+}
@@ -0,0 +1,14 @@
+package org.phonecompany.billing.analytics;
+
+/**
+ * Quantities tracked per hour-of-week bucket of a {@link UsageCube}.
+ */
+public enum UsageMetric {
+    CALLS,
+    FREE_CALLS,
+    MINUTES,
+    PEAK_MINUTES,
+    OFF_PEAK_MINUTES,
+    /** Billed amount in haléř; calls to the free number add nothing. */
+    REVENUE_HALER
+}
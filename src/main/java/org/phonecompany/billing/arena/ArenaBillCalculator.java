@@ -0,0 +1,79 @@
+package org.phonecompany.billing.arena;
+
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.promotion.FreePromotionStrategy;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Bills the calls of an {@link OffHeapCallArena} with the tariff of
+ * {@link org.phonecompany.billing.TelephoneBillCalculatorImpl}, pricing each {@link CallBatch} in place.
+ * Subtotals are kept in arrays indexed by phone id, so the heap used is 8 bytes per distinct number (per scan
+ * range when parallel) and nothing per call.
+ */
+public class ArenaBillCalculator {
+
+    private final ArenaPromotion promotion;
+    private final boolean parallel;
+
+    /**
+     * @param parallel whether to price on the common fork-join pool
+     */
+    public ArenaBillCalculator(FreePromotionStrategy promotionStrategy, boolean parallel) {
+        this.promotion = new ArenaPromotion(promotionStrategy);
+        this.parallel = parallel;
+    }
+
+    public ArenaBillCalculator() {
+        this(new MostCalledNumberPromotion(), true);
+    }
+
+    /**
+     * @return the bill total, the same as {@code TelephoneBillCalculatorImpl} returns for the same calls
+     * @throws IllegalStateException if the arena is closed
+     */
+    public BigDecimal calculate(OffHeapCallArena calls) {
+        long[] subtotals = subtotalsByPhoneId(calls);
+        Optional<PhoneNumber> freeNumber = promotion.getFreePhoneNumber(calls);
+
+        long total = 0;
+        for (long subtotal : subtotals) {
+            total += subtotal;
+        }
+        if (freeNumber.isPresent()) {
+            for (int id = 0; id < subtotals.length; id++) {
+                if (calls.getPhoneNumber(id).equals(freeNumber.get())) {
+                    total -= subtotals[id];
+                    break;
+                }
+            }
+        }
+        return total == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(total, 2);
+    }
+
+    /**
+     * @return price of all calls to each phone id, in haléř
+     */
+    long[] subtotalsByPhoneId(OffHeapCallArena calls) {
+        int numbers = calls.getNumberCount();
+        if (!parallel) {
+            long[] subtotals = new long[numbers];
+            calls.forEachBatch(batch -> addPrices(subtotals, batch));
+            return subtotals;
+        }
+        return calls.scan(() -> new long[numbers], ArenaBillCalculator::addPrices, (left, right) -> {
+            for (int id = 0; id < numbers; id++) {
+                left[id] += right[id];
+            }
+            return left;
+        });
+    }
+
+    private static void addPrices(long[] subtotals, CallBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            subtotals[batch.phoneId(i)] += batch.priceHaler(i);
+        }
+    }
+}
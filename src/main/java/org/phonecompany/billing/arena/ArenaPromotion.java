@@ -0,0 +1,46 @@
+package org.phonecompany.billing.arena;
+
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.promotion.FreePromotionStrategy;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+
+import java.util.Optional;
+
+/**
+ * Applies a {@link FreePromotionStrategy} to the calls of an {@link OffHeapCallArena}. The most-called-number rule
+ * is evaluated on call counts per phone id from a parallel scan, so the heap used is one array slot per distinct
+ * number and scan range; any other strategy gets the calls copied onto the heap.
+ */
+public final class ArenaPromotion {
+
+    private final FreePromotionStrategy strategy;
+
+    public ArenaPromotion(FreePromotionStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * @return the same number as {@link FreePromotionStrategy#getFreePhoneNumber} for the arena's calls
+     * @throws IllegalStateException if the arena is closed
+     */
+    public Optional<PhoneNumber> getFreePhoneNumber(OffHeapCallArena calls) {
+        // Exact type only: a subclass may have changed the rule.
+        if (strategy.getClass() != MostCalledNumberPromotion.class) {
+            return strategy.getFreePhoneNumber(calls.toCalls());
+        }
+        int numbers = calls.getNumberCount();
+        long[] callCounts = calls.scan(() -> new long[numbers], ArenaPromotion::countCalls, (left, right) -> {
+            for (int id = 0; id < numbers; id++) {
+                left[id] += right[id];
+            }
+            return left;
+        });
+        return ((MostCalledNumberPromotion) strategy).getFreePhoneNumber(callCounts, calls::getPhoneNumber);
+    }
+
+    private static void countCalls(long[] callCounts, CallBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            callCounts[batch.phoneId(i)]++;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.phonecompany.billing.arena;
+
+import org.phonecompany.billing.BatchCallPricer;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Up to {@value #CAPACITY} consecutive calls of an {@link OffHeapCallArena}, copied into heap columns in the units
+ * {@link BatchCallPricer} takes: local epoch-minute of the start and whole minutes of duration, rounded up as
+ * {@link org.phonecompany.billing.model.Call#getDurationInMinutes()} does. A batch is refilled by every step of a
+ * scan, so its contents are only valid inside the callback that received it.
+ */
+public final class CallBatch {
+
+    public static final int CAPACITY = 1024;
+
+    private final int[] phoneIds = new int[CAPACITY];
+    private final long[] startEpochMinutes = new long[CAPACITY];
+    private final long[] durationMinutes = new long[CAPACITY];
+    private final long[] pricesHaler = new long[CAPACITY];
+
+    private long firstIndex;
+    private int size;
+    private boolean priced;
+
+    CallBatch() {
+    }
+
+    /**
+     * @return arena index of the batch's first call
+     */
+    public long getFirstIndex() {
+        return firstIndex;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int phoneId(int i) {
+        Objects.checkIndex(i, size);
+        return phoneIds[i];
+    }
+
+    public long startEpochMinute(int i) {
+        Objects.checkIndex(i, size);
+        return startEpochMinutes[i];
+    }
+
+    public long durationMinutes(int i) {
+        Objects.checkIndex(i, size);
+        return durationMinutes[i];
+    }
+
+    /**
+     * @return the price of call {@code i} in haléř; the whole batch is priced on first use
+     */
+    public long priceHaler(int i) {
+        Objects.checkIndex(i, size);
+        if (!priced) {
+            BatchCallPricer.priceBatch(startEpochMinutes, durationMinutes, pricesHaler, 0, size);
+            priced = true;
+        }
+        return pricesHaler[i];
+    }
+
+    /**
+     * Decodes {@code count} records starting at {@code byteOffset} of a little-endian chunk into the columns,
+     * from position {@code at}.
+     */
+    void read(ByteBuffer chunk, int byteOffset, int at, int count) {
+        for (int i = 0; i < count; i++) {
+            int offset = byteOffset + i * OffHeapCallArena.RECORD_BYTES;
+            phoneIds[at + i] = chunk.getInt(offset + OffHeapCallArena.PHONE_ID_OFFSET);
+            durationMinutes[at + i] = (chunk.getInt(offset + OffHeapCallArena.DURATION_OFFSET) + 59L) / 60;
+            startEpochMinutes[at + i] = chunk.getLong(offset + OffHeapCallArena.START_OFFSET) / 60;
+        }
+    }
+
+    void reset(long firstIndex, int size) {
+        this.firstIndex = firstIndex;
+        this.size = size;
+        this.priced = false;
+    }
+}
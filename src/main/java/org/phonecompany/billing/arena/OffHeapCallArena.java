@@ -0,0 +1,446 @@
+package org.phonecompany.billing.arena;
+
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Append-only store of calls outside the GC heap, for working sets of hundreds of millions of calls.
+ * <p>
+ * Every call is one {@value #RECORD_BYTES}-byte little-endian record: phone id ({@code int}), duration in seconds
+ * ({@code int}) and start as local epoch-second ({@code long}), in that order so that the {@code long} is aligned.
+ * Records live in fixed-size chunks of direct memory ({@link #direct()}) or of a scratch file mapped into memory
+ * ({@link #mapped(Path)}), allocated as the arena grows; only the phone number dictionary, one entry per distinct
+ * number, is on the heap. The collector therefore sees a handful of buffer objects whatever the number of calls,
+ * and pause times do not grow with it.
+ * <p>
+ * Calls are read back in {@link CallBatch}es of columns that {@link org.phonecompany.billing.BatchCallPricer}
+ * prices directly, sequentially by {@link #forEachBatch} or on the common fork-join pool by {@link #scan}.
+ * <p>
+ * The memory is released by {@link #close()}, not by the collector, after which the arena rejects all access.
+ * Appends must not overlap other operations. Reads and scans may run concurrently with each other, and
+ * {@link #close()} waits for those in progress before freeing the memory they read.
+ */
+public final class OffHeapCallArena implements AutoCloseable {
+
+    public static final int RECORD_BYTES = 16;
+
+    /** 4M records, 64 MiB per chunk. */
+    public static final int DEFAULT_CHUNK_RECORDS = 1 << 22;
+
+    /** The largest chunk a single buffer can address. */
+    static final int MAX_CHUNK_RECORDS = 1 << 26;
+
+    /** Scans hand each worker this many ranges on average, so that uneven workers still finish together. */
+    private static final int RANGES_PER_WORKER = 4;
+
+    static final int PHONE_ID_OFFSET = 0;
+    static final int DURATION_OFFSET = 4;
+    static final int START_OFFSET = 8;
+
+    private final int chunkShift;
+    private final long chunkMask;
+    private final FileChannel file;
+    private final Path filePath;
+
+    private ByteBuffer[] chunks = new ByteBuffer[8];
+    private int chunkCount;
+    private long size;
+    private volatile boolean closed;
+
+    /** Held for reading by every access to chunk memory, and for writing by {@link #close()}. */
+    private final ReentrantReadWriteLock memoryLock = new ReentrantReadWriteLock();
+
+    private final Map<PhoneNumber, Integer> phoneIds = new HashMap<>();
+    private final List<PhoneNumber> phoneNumbers = new ArrayList<>();
+
+    private OffHeapCallArena(int chunkRecords, FileChannel file, Path filePath) {
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkRecords);
+        this.chunkMask = chunkRecords - 1;
+        this.file = file;
+        this.filePath = filePath;
+    }
+
+    /**
+     * Creates an arena in direct memory, bounded by {@code -XX:MaxDirectMemorySize}.
+     *
+     * @param chunkRecords records per chunk, a power of two up to 2^26
+     * @throws IllegalArgumentException if the chunk size is invalid
+     */
+    public static OffHeapCallArena direct(int chunkRecords) {
+        return new OffHeapCallArena(checkChunkRecords(chunkRecords), null, null);
+    }
+
+    public static OffHeapCallArena direct() {
+        return direct(DEFAULT_CHUNK_RECORDS);
+    }
+
+    /**
+     * Creates an arena in a new scratch file mapped into memory, for working sets larger than the direct memory
+     * limit or than physical memory; the operating system pages records in and out. The file is deleted when
+     * the arena is closed.
+     *
+     * @param chunkRecords records per chunk, a power of two up to 2^26
+     * @throws IllegalArgumentException if the chunk size is invalid
+     * @throws IOException              if the file exists or cannot be created
+     */
+    public static OffHeapCallArena mapped(Path file, int chunkRecords) throws IOException {
+        checkChunkRecords(chunkRecords);
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new OffHeapCallArena(chunkRecords, channel, file);
+    }
+
+    public static OffHeapCallArena mapped(Path file) throws IOException {
+        return mapped(file, DEFAULT_CHUNK_RECORDS);
+    }
+
+    /**
+     * Appends a call; seconds of its start are kept, so it bills exactly as the {@link Call} does.
+     *
+     * @return the index of the call
+     * @throws IllegalArgumentException if the call starts before 1970 or lasts 2^31 seconds or more
+     * @throws IllegalStateException    if the arena is closed
+     * @throws UncheckedIOException if a mapped arena cannot grow its file
+     */
+    public long append(Call call) {
+        long seconds = ChronoUnit.SECONDS.between(call.startTime(), call.endTime());
+        if (seconds > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Call is too long to store: " + call);
+        }
+        return append(call.phoneNumber(), call.startTime().toEpochSecond(ZoneOffset.UTC), (int) seconds);
+    }
+
+    /**
+     * Appends a call given in the record's own units.
+     *
+     * @param startEpochSecond local start in seconds since 1970-01-01T00:00
+     * @return the index of the call
+     * @throws IllegalArgumentException if the start or the duration is negative
+     * @throws IllegalStateException    if the arena is closed
+     */
+    public long append(PhoneNumber phoneNumber, long startEpochSecond, int durationSeconds) {
+        checkOpen();
+        if (startEpochSecond < 0 || durationSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "Start and duration must not be negative: " + startEpochSecond + ", " + durationSeconds);
+        }
+        long index = size;
+        int chunk = (int) (index >>> chunkShift);
+        if (chunk == chunkCount) {
+            addChunk();
+        }
+        // Registered only once the record has room, so that every phone id has at least one call.
+        int phoneId = phoneIds.computeIfAbsent(phoneNumber, number -> {
+            phoneNumbers.add(number);
+            return phoneNumbers.size() - 1;
+        });
+        int offset = (int) (index & chunkMask) * RECORD_BYTES;
+        chunks[chunk].putInt(offset + PHONE_ID_OFFSET, phoneId)
+                .putInt(offset + DURATION_OFFSET, durationSeconds)
+                .putLong(offset + START_OFFSET, startEpochSecond);
+        size = index + 1;
+        return index;
+    }
+
+    public long size() {
+        checkOpen();
+        return size;
+    }
+
+    /**
+     * @return the number of distinct phone numbers; phone ids run from 0 to this count, exclusive
+     */
+    public int getNumberCount() {
+        checkOpen();
+        return phoneNumbers.size();
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if no number has this id
+     */
+    public PhoneNumber getPhoneNumber(int phoneId) {
+        checkOpen();
+        return phoneNumbers.get(phoneId);
+    }
+
+    /**
+     * @return bytes of chunks allocated, including the unused tail of the last one
+     */
+    public long getReservedBytes() {
+        checkOpen();
+        return (long) chunkCount << chunkShift << 4;
+    }
+
+    /**
+     * Reads one call back as a {@link Call}; for spot checks, as scans avoid creating objects per call.
+     *
+     * @throws IndexOutOfBoundsException if there is no call at this index
+     */
+    public Call getCall(long index) {
+        Lock lock = readMemory();
+        try {
+            return readCall(index);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Call readCall(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Call index " + index + " out of bounds for size " + size);
+        }
+        ByteBuffer chunk = chunks[(int) (index >>> chunkShift)];
+        int offset = (int) (index & chunkMask) * RECORD_BYTES;
+        long start = chunk.getLong(offset + START_OFFSET);
+        return new Call(
+                phoneNumbers.get(chunk.getInt(offset + PHONE_ID_OFFSET)),
+                LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(start + chunk.getInt(offset + DURATION_OFFSET), 0, ZoneOffset.UTC)
+        );
+    }
+
+    /**
+     * Passes all calls to the consumer in index order, one batch at a time. The same batch is refilled for
+     * every call to the consumer, so it must not be kept.
+     *
+     * @throws IllegalStateException if the arena is closed
+     */
+    public void forEachBatch(Consumer<CallBatch> consumer) {
+        Lock lock = readMemory();
+        try {
+            forEachBatch(0, size, new CallBatch(), consumer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Folds all calls into a result, splitting them into ranges folded on the common fork-join pool into
+     * separate results, which are then combined. Each range is folded in index order, one batch at a time.
+     *
+     * @param newResult   creates an empty result per range
+     * @param accumulator folds a batch into a result; the batch must not be kept
+     * @param combiner    merges two results, in either direction
+     * @throws IllegalStateException if the arena is closed
+     */
+    public <R> R scan(Supplier<R> newResult, BiConsumer<R, CallBatch> accumulator, BinaryOperator<R> combiner) {
+        // Held by the calling thread until all ranges are done, so close() cannot free memory a worker reads.
+        Lock lock = readMemory();
+        try {
+            return scan(size, newResult, accumulator, combiner);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <R> R scan(long total, Supplier<R> newResult, BiConsumer<R, CallBatch> accumulator,
+                       BinaryOperator<R> combiner) {
+        long batches = (total + CallBatch.CAPACITY - 1) / CallBatch.CAPACITY;
+        int ranges = (int) Math.max(1, Math.min(batches,
+                (long) Runtime.getRuntime().availableProcessors() * RANGES_PER_WORKER));
+
+        return LongStream.range(0, ranges)
+                .parallel()
+                .mapToObj(range -> {
+                    R result = newResult.get();
+                    // Ranges start on batch boundaries, so batches line up with those of forEachBatch.
+                    long from = Math.min(total, batches * range / ranges * CallBatch.CAPACITY);
+                    long to = Math.min(total, batches * (range + 1) / ranges * CallBatch.CAPACITY);
+                    forEachBatch(from, to, new CallBatch(), batch -> accumulator.accept(result, batch));
+                    return result;
+                })
+                .reduce(combiner)
+                .orElseGet(newResult);
+    }
+
+    /**
+     * Copies the calls onto the heap; only sensible for arenas far smaller than the ones this class is for.
+     *
+     * @throws IllegalStateException if the arena is closed or holds more calls than a list can
+     */
+    public List<Call> toCalls() {
+        Lock lock = readMemory();
+        try {
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Too many calls for a list: " + size);
+            }
+            List<Call> calls = new ArrayList<>((int) size);
+            for (long index = 0; index < size; index++) {
+                calls.add(readCall(index));
+            }
+            return calls;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Waits for reads and scans in progress, then frees the memory of all chunks at once and, for a mapped arena,
+     * deletes its file. Closing again does nothing.
+     *
+     * @throws IllegalStateException if called from inside a scan or batch callback of this arena
+     * @throws IOException           if the file cannot be closed or deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (memoryLock.getReadHoldCount() > 0) {
+            throw new IllegalStateException("Call arena cannot be closed while this thread is scanning it");
+        }
+        ByteBuffer[] released;
+        memoryLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            released = Arrays.copyOf(chunks, chunkCount);
+            chunks = null;
+        } finally {
+            memoryLock.writeLock().unlock();
+        }
+        for (ByteBuffer chunk : released) {
+            BufferCleaner.free(chunk);
+        }
+        if (file != null) {
+            file.close();
+            Files.deleteIfExists(filePath);
+        }
+    }
+
+    /**
+     * Takes the read lock on chunk memory, failing if the arena is closed.
+     */
+    private Lock readMemory() {
+        Lock lock = memoryLock.readLock();
+        lock.lock();
+        if (closed) {
+            lock.unlock();
+            throw new IllegalStateException("Call arena is closed");
+        }
+        return lock;
+    }
+
+    private void forEachBatch(long from, long to, CallBatch batch, Consumer<CallBatch> consumer) {
+        for (long start = from; start < to; start += CallBatch.CAPACITY) {
+            int count = (int) Math.min(CallBatch.CAPACITY, to - start);
+            fill(batch, start, count);
+            consumer.accept(batch);
+        }
+    }
+
+    /**
+     * Reads records {@code [first, first + count)} into the batch's columns, chunk by chunk.
+     */
+    private void fill(CallBatch batch, long first, int count) {
+        int filled = 0;
+        while (filled < count) {
+            long index = first + filled;
+            ByteBuffer chunk = chunks[(int) (index >>> chunkShift)];
+            int record = (int) (index & chunkMask);
+            int run = (int) Math.min(count - filled, chunkMask + 1 - record);
+            batch.read(chunk, record * RECORD_BYTES, filled, run);
+            filled += run;
+        }
+        batch.reset(first, count);
+    }
+
+    private void addChunk() {
+        int chunkBytes = (int) ((chunkMask + 1) * RECORD_BYTES);
+        ByteBuffer chunk;
+        if (file == null) {
+            chunk = ByteBuffer.allocateDirect(chunkBytes);
+        } else {
+            try {
+                chunk = file.map(FileChannel.MapMode.READ_WRITE, (long) chunkCount * chunkBytes, chunkBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot grow call arena file " + filePath, e);
+            }
+        }
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        chunks[chunkCount++] = chunk.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Call arena is closed");
+        }
+    }
+
+    private static int checkChunkRecords(int chunkRecords) {
+        if (chunkRecords < 1 || chunkRecords > MAX_CHUNK_RECORDS || Integer.bitCount(chunkRecords) != 1) {
+            throw new IllegalArgumentException("Chunk records must be a power of two up to 2^26: " + chunkRecords);
+        }
+        return chunkRecords;
+    }
+
+    /**
+     * Releases direct and mapped buffers on demand. Java 21 has no supported way to do so (the foreign memory
+     * API is still a preview), so this calls {@code invokeCleaner} of {@code sun.misc.Unsafe} from
+     * {@code jdk.unsupported}, looked up at run time so that the build does not depend on it; where that is
+     * unavailable, buffers are left to the collector.
+     */
+    private static final class BufferCleaner {
+
+        private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+        static void free(ByteBuffer buffer) {
+            if (INVOKE_CLEANER == null) {
+                return;
+            }
+            try {
+                INVOKE_CLEANER.invokeExact(buffer);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot free call arena chunk", e);
+            }
+        }
+
+        private static MethodHandle invokeCleaner() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                return MethodHandles.lookup()
+                        .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                        .bindTo(field.get(null));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
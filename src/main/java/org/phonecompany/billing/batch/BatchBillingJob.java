@@ -0,0 +1,146 @@
+package org.phonecompany.billing.batch;
+
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.batch.BatchCheckpoint.InputVersion;
+import org.phonecompany.billing.ingest.OffsetLineReader;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bills a list of call log files, one bill per file, with periodic checkpoints to local disk.
+ * <p>
+ * A checkpoint records the results of completed inputs plus the size, modification time, byte offset and partial
+ * bill of the input in progress. It is written every {@code checkpointInterval} calls and after each completed
+ * input, by atomically replacing the checkpoint file. A job started with an existing checkpoint skips the completed
+ * inputs and resumes the current one from the recorded offset; the final results are identical to an
+ * uninterrupted run. If the current input's size or modification time has changed since, the offset may no longer
+ * fall on the same line, so that input is billed again from the start. The checkpoint is kept after completion,
+ * so running a finished job again just returns the stored results; delete the file to start over.
+ */
+public class BatchBillingJob {
+
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 100_000;
+
+    private final List<Path> inputs;
+    private final Path checkpointFile;
+    private final int checkpointInterval;
+    private final CsvCallLogParser parser;
+    private final CallPriceCalculator priceCalculator;
+
+    public BatchBillingJob(
+            List<Path> inputs,
+            Path checkpointFile,
+            int checkpointInterval,
+            CsvCallLogParser parser,
+            CallPriceCalculator priceCalculator) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+        }
+        this.inputs = List.copyOf(inputs);
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = checkpointInterval;
+        this.parser = parser;
+        this.priceCalculator = priceCalculator;
+    }
+
+    public BatchBillingJob(List<Path> inputs, Path checkpointFile) {
+        this(inputs, checkpointFile, DEFAULT_CHECKPOINT_INTERVAL, new CsvCallLogParser(), new CallPriceCalculator());
+    }
+
+    /**
+     * Runs the job to completion, resuming from the checkpoint if one exists.
+     *
+     * @return one result per input, in input order
+     * @throws IllegalStateException    if the checkpoint belongs to a job with different inputs
+     * @throws IllegalArgumentException if an input contains an invalid line
+     */
+    public List<BillResult> run() throws IOException {
+        List<BillResult> results = new ArrayList<>();
+        long offset = 0;
+        BillAccumulator bill = new BillAccumulator();
+
+        BatchCheckpoint checkpoint = BatchCheckpoint.load(checkpointFile).orElse(null);
+        if (checkpoint != null) {
+            if (!checkpoint.inputs().equals(inputs)) {
+                throw new IllegalStateException(
+                    "Checkpoint " + checkpointFile + " was written for different inputs: " + checkpoint.inputs()
+                );
+            }
+            results.addAll(checkpoint.completed());
+            if (results.size() < inputs.size() && checkpoint.inputVersion() != null
+                    && checkpoint.inputVersion().equals(InputVersion.of(inputs.get(results.size())))) {
+                offset = checkpoint.offset();
+                bill = checkpoint.partialBill();
+            }
+        }
+
+        OffsetLineReader lineReader = new OffsetLineReader(true);
+
+        for (int i = results.size(); i < inputs.size(); i++) {
+            Path input = inputs.get(i);
+            new InputRun(input, InputVersion.of(input), results, bill).billFrom(lineReader, offset);
+
+            results.add(new BillResult(input, bill.getTotal(), bill.getFreePhoneNumber().orElse(null)));
+            offset = 0;
+            bill = new BillAccumulator();
+            new BatchCheckpoint(inputs, results, null, offset, bill).store(checkpointFile);
+        }
+
+        return results;
+    }
+
+    /**
+     * Bills one input, checkpointing every {@link #checkpointInterval} calls.
+     */
+    private final class InputRun {
+
+        private final Path input;
+        private final InputVersion version;
+        private final List<BillResult> completed;
+        private final BillAccumulator bill;
+        private long callsSinceCheckpoint;
+
+        private InputRun(Path input, InputVersion version, List<BillResult> completed, BillAccumulator bill) {
+            this.input = input;
+            this.version = version;
+            this.completed = completed;
+            this.bill = bill;
+        }
+
+        private void billFrom(OffsetLineReader lineReader, long offset) throws IOException {
+            try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+                lineReader.read(channel, offset, (line, lineStart, nextLine) -> {
+                    if (line.isBlank()) {
+                        return;
+                    }
+                    billLine(line.trim(), lineStart);
+
+                    if (++callsSinceCheckpoint >= checkpointInterval) {
+                        new BatchCheckpoint(inputs, completed, version, nextLine, bill).store(checkpointFile);
+                        callsSinceCheckpoint = 0;
+                    }
+                });
+            }
+        }
+
+        private void billLine(String line, long lineStart) {
+            Call call;
+            try {
+                call = parser.parseLine(line);
+            } catch (Exception e) {
+                throw new IllegalArgumentException(
+                    "Failed to parse " + input + " at byte " + lineStart + ": " + line, e
+                );
+            }
+            bill.add(call.phoneNumber(), priceCalculator.calculate(call));
+        }
+    }
+}
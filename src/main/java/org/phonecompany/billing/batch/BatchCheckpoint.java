@@ -0,0 +1,101 @@
+package org.phonecompany.billing.batch;
+
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.ingest.AtomicFiles;
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress of a batch job: the inputs it was started with, the results of completed inputs,
+ * and the version, byte offset and partial bill of the input in progress. The version is null when no input
+ * is in progress.
+ */
+record BatchCheckpoint(
+        List<Path> inputs,
+        List<BillResult> completed,
+        InputVersion inputVersion,
+        long offset,
+        BillAccumulator partialBill
+) {
+
+    private static final int MAGIC = 0x42415432; // "BAT2"
+
+    /**
+     * Size and modification time of an input, taken before it is read. An offset is only valid in the input
+     * version it was recorded for.
+     */
+    record InputVersion(long size, long lastModifiedNanos) {
+
+        static InputVersion of(Path input) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(input, BasicFileAttributes.class);
+            return new InputVersion(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    void store(Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(inputs.size());
+            for (Path input : inputs) {
+                out.writeUTF(input.toString());
+            }
+            out.writeInt(completed.size());
+            for (BillResult result : completed) {
+                out.writeUTF(result.total().toString());
+                out.writeUTF(result.freeNumber() == null ? "" : result.freeNumber().value());
+            }
+            out.writeBoolean(inputVersion != null);
+            if (inputVersion != null) {
+                out.writeLong(inputVersion.size());
+                out.writeLong(inputVersion.lastModifiedNanos());
+            }
+            out.writeLong(offset);
+            partialBill.writeTo(out);
+        }
+        AtomicFiles.write(file, bytes.toByteArray());
+    }
+
+    static Optional<BatchCheckpoint> load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a batch checkpoint file: " + file);
+            }
+            int inputCount = in.readInt();
+            List<Path> inputs = new ArrayList<>(inputCount);
+            for (int i = 0; i < inputCount; i++) {
+                inputs.add(Path.of(in.readUTF()));
+            }
+            int completedCount = in.readInt();
+            List<BillResult> completed = new ArrayList<>(completedCount);
+            for (int i = 0; i < completedCount; i++) {
+                BigDecimal total = new BigDecimal(in.readUTF());
+                String freeNumber = in.readUTF();
+                completed.add(new BillResult(
+                        inputs.get(i),
+                        total,
+                        freeNumber.isEmpty() ? null : new PhoneNumber(freeNumber)));
+            }
+            InputVersion inputVersion = in.readBoolean() ? new InputVersion(in.readLong(), in.readLong()) : null;
+            long offset = in.readLong();
+            return Optional.of(new BatchCheckpoint(
+                    inputs, completed, inputVersion, offset, BillAccumulator.readFrom(in)));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.phonecompany.billing.batch;
+
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+/**
+ * Bill calculated for one input of a batch job.
+ *
+ * @param input      the call log the bill was calculated from
+ * @param total      amount to pay, with the promotion applied
+ * @param freeNumber number made free by the promotion, or null if the log had no calls
+ */
+public record BillResult(Path input, BigDecimal total, PhoneNumber freeNumber) {
+}
@@ -0,0 +1,193 @@
+package org.phonecompany.billing.cli;
+
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.invoice.InvoiceFormat;
+import org.phonecompany.billing.invoice.ItemizedBillCalculator;
+import org.phonecompany.billing.invoice.ItemizedInvoiceWriter;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Command-line entry point, billing one call log per invocation:
+ * <pre>
+ *     java -jar phonecompany.jar [--itemized | --binary] [--output FILE] [--timing] [LOG | -]
+ * </pre>
+ * The log is read from {@code LOG}, or from standard input if it is {@code -} or missing. By default the bill total
+ * is printed. {@code --itemized} writes the CSV itemized invoice instead and {@code --binary} the binary one
+ * (see {@link InvoiceFormat}), to {@code FILE} or to standard output. {@code --timing} reports on standard error how
+ * long the first result took, from JVM start and from entering {@code main}.
+ * <p>
+ * Exit status is 0 on success, 1 if the log is invalid or cannot be read or written, and 2 on a usage error.
+ * <p>
+ * Invoked once per file by mediation scripts, the tool is dominated by JVM startup. It streams the log through
+ * {@link CsvCallLogParser} into a {@link BillAccumulator}, or {@link ItemizedBillCalculator} for invoices, so it
+ * bills exactly as the library does, and the build produces an AppCDS archive from a training run
+ * ({@link CdsTraining}) so that those classes load already parsed and verified; see the README for how to use it.
+ */
+public final class BillingCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String USAGE =
+            "Usage: billing [--itemized | --binary] [--output FILE] [--timing] [LOG | -]";
+
+    private BillingCli() {
+    }
+
+    public static void main(String[] args) {
+        int status = run(args, System.in, System.out, System.err);
+        if (status != EXIT_OK) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Runs the tool with the given streams, which are flushed but not closed.
+     *
+     * @return the exit status
+     */
+    static int run(String[] args, InputStream stdin, PrintStream out, PrintStream err) {
+        long started = System.nanoTime();
+        InvoiceFormat itemized = null;
+        Path output = null;
+        boolean timing = false;
+        String input = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--itemized" -> itemized = InvoiceFormat.CSV;
+                case "--binary" -> itemized = InvoiceFormat.BINARY;
+                case "--timing" -> timing = true;
+                case "--output" -> {
+                    if (++i == args.length) {
+                        return usage(err, "--output needs a file");
+                    }
+                    output = Path.of(args[i]);
+                }
+                case "--help", "-h" -> {
+                    out.println(USAGE);
+                    out.flush();
+                    return EXIT_OK;
+                }
+                default -> {
+                    if (arg.startsWith("--") || input != null) {
+                        return usage(err, "unexpected argument " + arg);
+                    }
+                    input = arg;
+                }
+            }
+        }
+        if (output != null && itemized == null) {
+            return usage(err, "--output applies to --itemized and --binary only");
+        }
+
+        try (InputStream in = input == null || input.equals("-") ? new NonClosingInputStream(stdin)
+                : new FileInputStream(input)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            if (itemized == null) {
+                out.println(total(reader).toPlainString());
+            } else if (output != null) {
+                writeInvoice(reader, itemized, output);
+            } else {
+                Path invoice = Files.createTempFile("invoice-", itemized == InvoiceFormat.CSV ? ".csv" : ".bin");
+                try {
+                    writeInvoice(reader, itemized, invoice);
+                    Files.copy(invoice, out);
+                } finally {
+                    Files.deleteIfExists(invoice);
+                }
+            }
+            out.flush();
+        } catch (IllegalArgumentException e) {
+            err.println(new StringBuilder("billing: ").append(describe(e)));
+            err.flush();
+            return EXIT_FAILURE;
+        } catch (IOException e) {
+            err.println(new StringBuilder("billing: ").append(e));
+            err.flush();
+            return EXIT_FAILURE;
+        }
+
+        if (timing) {
+            reportTiming(err, started);
+        }
+        return EXIT_OK;
+    }
+
+    private static BigDecimal total(BufferedReader reader) throws IOException {
+        CallPriceCalculator priceCalculator = new CallPriceCalculator();
+        BillAccumulator bill = new BillAccumulator();
+        new CsvCallLogParser().parse(reader, call -> bill.add(call.phoneNumber(), priceCalculator.calculate(call)));
+        return bill.getTotal();
+    }
+
+    private static void writeInvoice(BufferedReader reader, InvoiceFormat format, Path output) throws IOException {
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new ItemizedBillCalculator().calculate(reader, new ItemizedInvoiceWriter(channel, format));
+        }
+    }
+
+    /**
+     * Prints the time to first result, from JVM start and from entering the tool. The JVM start time is read only
+     * after the result is out, as the management classes behind it are not on the billing path.
+     */
+    private static void reportTiming(PrintStream err, long started) {
+        long resultMillis = System.currentTimeMillis();
+        long inToolMillis = (System.nanoTime() - started) / 1_000_000;
+        long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        StringBuilder report = new StringBuilder("billing: first result after ")
+                .append(resultMillis - jvmStartMillis).append(" ms from JVM start, ")
+                .append(inToolMillis).append(" ms in billing");
+        err.println(report);
+        err.flush();
+    }
+
+    private static String describe(IllegalArgumentException e) {
+        StringBuilder message = new StringBuilder(String.valueOf(e.getMessage()));
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            message.append(": ").append(cause.getMessage());
+        }
+        return message.toString();
+    }
+
+    private static int usage(PrintStream err, String problem) {
+        err.println(new StringBuilder("billing: ").append(problem));
+        err.println(USAGE);
+        err.flush();
+        return EXIT_USAGE;
+    }
+
+    /**
+     * Keeps the caller's standard input open when the tool is done with it.
+     */
+    private static final class NonClosingInputStream extends FilterInputStream {
+
+        private NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // standard input belongs to the caller
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.phonecompany.billing.cli;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Training run behind the CLI's AppCDS archive: the build runs this with {@code -XX:ArchiveClassesAtExit} so the
+ * archive holds every class that {@link BillingCli} loads in each of its modes, including the error path for an
+ * invalid line. Output is discarded. Arguments: a representative call log.
+ */
+public final class CdsTraining {
+
+    private CdsTraining() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: CdsTraining <log>");
+            System.exit(BillingCli.EXIT_USAGE);
+        }
+        String log = args[0];
+        Path invoice = Files.createTempFile("cds-training-", ".inv");
+        try (PrintStream sink = new PrintStream(OutputStream.nullOutputStream())) {
+            train(sink, InputStream.nullInputStream(), log);
+            train(sink, InputStream.nullInputStream(), "--timing", log);
+            train(sink, InputStream.nullInputStream(), "--itemized", log);
+            train(sink, InputStream.nullInputStream(), "--binary", "--output", invoice.toString(), log);
+            try (InputStream stdin = new FileInputStream(log)) {
+                train(sink, stdin, "-");
+            }
+            train(sink, new ByteArrayInputStream("not a call\n".getBytes(StandardCharsets.UTF_8)), "-");
+        } finally {
+            Files.deleteIfExists(invoice);
+        }
+    }
+
+    private static void train(PrintStream sink, InputStream stdin, String... args) {
+        BillingCli.run(args, stdin, sink, sink);
+    }
+}
@@ -0,0 +1,21 @@
+package org.phonecompany.billing.cycle;
+
+import java.time.LocalDateTime;
+
+/**
+ * Defines how the time line is divided into consecutive billing cycles.
+ * A cycle is the half-open interval [start, next start).
+ */
+public interface BillingCycle {
+
+    /**
+     * Returns the start of the cycle containing the given time.
+     */
+    LocalDateTime cycleStart(LocalDateTime time);
+
+    /**
+     * Returns the start of the cycle following the one that starts at {@code cycleStart}.
+     * This is also the exclusive end of that cycle.
+     */
+    LocalDateTime nextCycleStart(LocalDateTime cycleStart);
+}
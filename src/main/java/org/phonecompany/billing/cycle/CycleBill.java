@@ -0,0 +1,24 @@
+package org.phonecompany.billing.cycle;
+
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Bill for a single billing cycle.
+ *
+ * @param cycleStart inclusive start of the cycle
+ * @param cycleEnd   exclusive end of the cycle
+ * @param total      amount to pay, with the promotion applied
+ * @param freeNumber number made free by the promotion in this cycle, or null if there were no calls
+ * @param callCount  number of calls (or call parts, for calls split at a boundary) in the cycle
+ */
+public record CycleBill(
+        LocalDateTime cycleStart,
+        LocalDateTime cycleEnd,
+        BigDecimal total,
+        PhoneNumber freeNumber,
+        long callCount
+) {
+}
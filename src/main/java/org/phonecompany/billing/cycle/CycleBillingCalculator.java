@@ -0,0 +1,195 @@
+package org.phonecompany.billing.cycle;
+
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Bills a log that spans several billing cycles in one streaming pass.
+ * Each call is routed to the cycle its minutes fall into; a call crossing a cycle boundary is split
+ * so that every minute is charged to the cycle in which it starts, priced as part of the whole call
+ * (the long-call discount is not restarted by the split). Each part counts as a call for the promotion
+ * of its cycle.
+ * <p>
+ * With time-ordered input (non-decreasing start times) a cycle is closed and emitted as soon as a call
+ * starts after its end, so only the cycles still receiving calls are kept in memory.
+ */
+public class CycleBillingCalculator {
+
+    private final BillingCycle cycle;
+    private final CsvCallLogParser parser;
+    private final CallPriceCalculator priceCalculator;
+
+    public CycleBillingCalculator(
+            BillingCycle cycle,
+            CsvCallLogParser parser,
+            CallPriceCalculator priceCalculator) {
+        this.cycle = cycle;
+        this.parser = parser;
+        this.priceCalculator = priceCalculator;
+    }
+
+    public CycleBillingCalculator(BillingCycle cycle) {
+        this(cycle, new CsvCallLogParser(), new CallPriceCalculator());
+    }
+
+    /**
+     * Calculates the bills of all cycles touched by the log, ordered by cycle start.
+     * The input does not need to be time-ordered.
+     */
+    public List<CycleBill> calculate(String phoneLog) {
+        List<CycleBill> bills = new ArrayList<>();
+        Session session = openSession(false, bills::add);
+
+        parser.parse(phoneLog).forEach(session::accept);
+        session.finish();
+
+        return bills;
+    }
+
+    /**
+     * Streams a time-ordered log, emitting each cycle's bill as soon as the input moves past its end.
+     *
+     * @throws IllegalArgumentException if a call starts inside a cycle that was already emitted
+     */
+    public void calculate(Reader phoneLog, Consumer<CycleBill> billConsumer) throws IOException {
+        Session session = openSession(true, billConsumer);
+
+        parser.parse(phoneLog, session::accept);
+        session.finish();
+    }
+
+    /**
+     * Opens a session that accepts calls one at a time.
+     *
+     * @param timeOrdered  whether calls arrive with non-decreasing start times, allowing early emission
+     * @param billConsumer receives the bill of each closed cycle, in cycle order
+     */
+    public Session openSession(boolean timeOrdered, Consumer<CycleBill> billConsumer) {
+        return new Session(timeOrdered, billConsumer);
+    }
+
+    /**
+     * Routes calls into per-cycle accumulators. Not thread-safe.
+     */
+    public final class Session {
+
+        private final boolean timeOrdered;
+        private final Consumer<CycleBill> billConsumer;
+        private final TreeMap<LocalDateTime, BillAccumulator> openCycles = new TreeMap<>();
+        private LocalDateTime closedUntil;
+
+        private Session(boolean timeOrdered, Consumer<CycleBill> billConsumer) {
+            this.timeOrdered = timeOrdered;
+            this.billConsumer = billConsumer;
+        }
+
+        public void accept(Call call) {
+            if (timeOrdered) {
+                closeCyclesEndingBy(call.startTime());
+            }
+
+            LocalDateTime cycleStart = cycle.cycleStart(call.startTime());
+            LocalDateTime cycleEnd = cycle.nextCycleStart(cycleStart);
+
+            if (!call.endTime().isAfter(cycleEnd)) {
+                accumulatorFor(cycleStart).add(call.phoneNumber(), priceCalculator.calculate(call));
+                return;
+            }
+
+            splitAcrossCycles(call, cycleStart, cycleEnd);
+        }
+
+        /**
+         * Emits the bills of all cycles that are still open.
+         */
+        public void finish() {
+            while (!openCycles.isEmpty()) {
+                emit(openCycles.pollFirstEntry());
+            }
+        }
+
+        /**
+         * Charges each cycle the price of the call minutes starting in it, computed as the difference
+         * between the prices of the call prefixes ending at consecutive boundaries. A cycle in which no
+         * minute starts, such as the one after a boundary crossed in the call's last minute, is not charged
+         * and does not count the call.
+         */
+        private void splitAcrossCycles(Call call, LocalDateTime cycleStart, LocalDateTime cycleEnd) {
+            BigDecimal pricedSoFar = BigDecimal.ZERO;
+            long totalMinutes = call.getDurationInMinutes();
+
+            while (cycleEnd.isBefore(call.endTime())) {
+                long secondsToBoundary = Duration.between(call.startTime(), cycleEnd).getSeconds();
+                long minutesBeforeBoundary = (secondsToBoundary + 59) / 60;
+                if (minutesBeforeBoundary >= totalMinutes) {
+                    break;
+                }
+                Call prefix = new Call(
+                        call.phoneNumber(),
+                        call.startTime(),
+                        call.startTime().plusMinutes(minutesBeforeBoundary));
+
+                BigDecimal prefixPrice = priceCalculator.calculate(prefix);
+                accumulatorFor(cycleStart).add(call.phoneNumber(), prefixPrice.subtract(pricedSoFar));
+                pricedSoFar = prefixPrice;
+
+                cycleStart = cycleEnd;
+                cycleEnd = cycle.nextCycleStart(cycleStart);
+            }
+
+            BigDecimal fullPrice = priceCalculator.calculate(call);
+            accumulatorFor(cycleStart).add(call.phoneNumber(), fullPrice.subtract(pricedSoFar));
+        }
+
+        private BillAccumulator accumulatorFor(LocalDateTime cycleStart) {
+            if (closedUntil != null && cycleStart.isBefore(closedUntil)) {
+                throw new IllegalArgumentException(
+                    "Call falls into cycle starting " + cycleStart + ", which was already closed"
+                );
+            }
+            return openCycles.computeIfAbsent(cycleStart, start -> new BillAccumulator());
+        }
+
+        private void closeCyclesEndingBy(LocalDateTime time) {
+            Iterator<Map.Entry<LocalDateTime, BillAccumulator>> iterator = openCycles.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                Map.Entry<LocalDateTime, BillAccumulator> entry = iterator.next();
+                if (cycle.nextCycleStart(entry.getKey()).isAfter(time)) {
+                    break;
+                }
+                iterator.remove();
+                emit(entry);
+            }
+        }
+
+        private void emit(Map.Entry<LocalDateTime, BillAccumulator> entry) {
+            LocalDateTime cycleEnd = cycle.nextCycleStart(entry.getKey());
+            BillAccumulator bill = entry.getValue();
+
+            if (closedUntil == null || cycleEnd.isAfter(closedUntil)) {
+                closedUntil = cycleEnd;
+            }
+            billConsumer.accept(new CycleBill(
+                    entry.getKey(),
+                    cycleEnd,
+                    bill.getTotal(),
+                    bill.getFreePhoneNumber().orElse(null),
+                    bill.getCallCount()));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.phonecompany.billing.cycle;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Billing cycles starting at midnight on a fixed day of every month.
+ * In months shorter than the chosen day, the cycle starts on the last day of the month.
+ */
+public class MonthlyBillingCycle implements BillingCycle {
+
+    private final int dayOfMonth;
+
+    public MonthlyBillingCycle(int dayOfMonth) {
+        if (dayOfMonth < 1 || dayOfMonth > 31) {
+            throw new IllegalArgumentException("Day of month must be between 1 and 31: " + dayOfMonth);
+        }
+        this.dayOfMonth = dayOfMonth;
+    }
+
+    @Override
+    public LocalDateTime cycleStart(LocalDateTime time) {
+        YearMonth month = YearMonth.from(time);
+        LocalDateTime boundary = boundaryIn(month);
+
+        return time.isBefore(boundary) ? boundaryIn(month.minusMonths(1)) : boundary;
+    }
+
+    @Override
+    public LocalDateTime nextCycleStart(LocalDateTime cycleStart) {
+        return boundaryIn(YearMonth.from(cycleStart).plusMonths(1));
+    }
+
+    private LocalDateTime boundaryIn(YearMonth month) {
+        return month.atDay(Math.min(dayOfMonth, month.lengthOfMonth())).atStartOfDay();
+    }
+}
@@ -0,0 +1,76 @@
+package org.phonecompany.billing.dedup;
+
+import org.phonecompany.billing.model.Call;
+
+import java.time.ZoneOffset;
+
+/**
+ * Fixed-size Bloom filter over call keys (phone number, start time, end time).
+ * Memory use is determined by the bit count alone, regardless of how many calls are added.
+ */
+class CallBloomFilter {
+
+    private static final long RANGE_SEED = 0x632BE59BD9B4E019L;
+
+    private final long[] bits;
+    private final long mask;
+    private final int hashFunctions;
+
+    /**
+     * @param log2Bits      base-2 logarithm of the number of bits (e.g. 24 for 2 MiB)
+     * @param hashFunctions number of probes per key
+     */
+    CallBloomFilter(int log2Bits, int hashFunctions) {
+        if (log2Bits < 6 || log2Bits > 34) {
+            throw new IllegalArgumentException("log2Bits must be between 6 and 34: " + log2Bits);
+        }
+        if (hashFunctions < 1) {
+            throw new IllegalArgumentException("At least one hash function is required");
+        }
+        this.bits = new long[1 << (log2Bits - 6)];
+        this.mask = (1L << log2Bits) - 1;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Adds the call key to the filter.
+     *
+     * @return true if the key may have been added before, false if it definitely was not
+     */
+    boolean put(Call call) {
+        long h1 = mix(call.phoneNumber().value().hashCode() * 0x9E3779B97F4A7C15L
+                ^ call.startTime().toEpochSecond(ZoneOffset.UTC));
+        long h2 = mix(h1 ^ call.endTime().toEpochSecond(ZoneOffset.UTC)) | 1L;
+
+        boolean present = true;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = (h1 + i * h2) & mask;
+            int word = (int) (bit >>> 6);
+            long bitMask = 1L << bit;
+            if ((bits[word] & bitMask) == 0) {
+                present = false;
+                bits[word] |= bitMask;
+            }
+        }
+        return present;
+    }
+
+    /**
+     * Hashes the call key to a value in {@code [0, 2^31)} that is independent of the filter probes, so that a filter
+     * over the calls of one hash range is as selective as one over all calls.
+     */
+    static int rangeHash(Call call) {
+        long h = mix(call.phoneNumber().value().hashCode() * 0xC2B2AE3D27D4EB4FL
+                ^ (call.startTime().toEpochSecond(ZoneOffset.UTC) + RANGE_SEED));
+        return (int) (mix(h ^ call.endTime().toEpochSecond(ZoneOffset.UTC)) >>> 33);
+    }
+
+    /**
+     * Finalizer from SplitMix64, spreads all input bits across the result.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
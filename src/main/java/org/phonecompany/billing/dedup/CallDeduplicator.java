@@ -0,0 +1,216 @@
+package org.phonecompany.billing.dedup;
+
+import org.phonecompany.billing.model.Call;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Removes repeated call records (same phone number, start time and end time),
+ * keeping the first occurrence of each.
+ * Small logs are checked against an exact set. Larger logs go through a fixed-size Bloom filter first,
+ * and only the calls it flags as possible duplicates are confirmed exactly in a second pass.
+ * <p>
+ * The suspects are capped at {@code maxSuspects} calls. When a pass flags more, its calls are split into two halves
+ * by a hash of their key, and each half is filtered again with an empty filter, so the stage holds at most the filter
+ * and twice the cap whatever the log size, at the cost of two more passes per split. Duplicates share a key and so
+ * a half, which keeps the result exact. {@link #deduplicate(CallSource, Consumer)} streams a log that way without
+ * holding its calls; {@link #deduplicate(List)} bounds only its own state, as its input and result are lists.
+ */
+public class CallDeduplicator {
+
+    static final int DEFAULT_EXACT_THRESHOLD = 100_000;
+    static final int DEFAULT_LOG2_BLOOM_BITS = 24;
+    static final int DEFAULT_HASH_FUNCTIONS = 5;
+    static final int DEFAULT_MAX_SUSPECTS = 1 << 20;
+
+    /** Key hashes are in {@code [0, 2^31)}. */
+    private static final long HASH_RANGE_END = 1L << 31;
+
+    private final int exactThreshold;
+    private final int log2BloomBits;
+    private final int hashFunctions;
+    private final int maxSuspects;
+
+    /**
+     * @param exactThreshold largest log size (in calls) deduplicated with an exact set
+     * @param log2BloomBits  base-2 logarithm of the Bloom filter size in bits
+     * @param hashFunctions  number of Bloom filter probes per call
+     * @param maxSuspects    most possible duplicates confirmed exactly in one pass
+     */
+    public CallDeduplicator(int exactThreshold, int log2BloomBits, int hashFunctions, int maxSuspects) {
+        if (exactThreshold < 0) {
+            throw new IllegalArgumentException("Exact threshold cannot be negative: " + exactThreshold);
+        }
+        if (maxSuspects < 1) {
+            throw new IllegalArgumentException("Suspect cap must be positive: " + maxSuspects);
+        }
+        this.exactThreshold = exactThreshold;
+        this.log2BloomBits = log2BloomBits;
+        this.hashFunctions = hashFunctions;
+        this.maxSuspects = maxSuspects;
+    }
+
+    public CallDeduplicator(int exactThreshold, int log2BloomBits, int hashFunctions) {
+        this(exactThreshold, log2BloomBits, hashFunctions, DEFAULT_MAX_SUSPECTS);
+    }
+
+    public CallDeduplicator() {
+        this(DEFAULT_EXACT_THRESHOLD, DEFAULT_LOG2_BLOOM_BITS, DEFAULT_HASH_FUNCTIONS);
+    }
+
+    public DeduplicationResult deduplicate(List<Call> calls) {
+        if (calls == null || calls.isEmpty()) {
+            return new DeduplicationResult(List.of(), 0);
+        }
+
+        List<Call> unique = calls.size() <= exactThreshold
+                ? deduplicateExact(calls)
+                : deduplicateWithFilter(calls);
+
+        return new DeduplicationResult(unique, calls.size() - unique.size());
+    }
+
+    /**
+     * Hands the first occurrence of every call in the source to the consumer, reading the source twice, or more when
+     * it holds more than {@code maxSuspects} possible duplicates. Calls arrive in source order unless the suspects
+     * had to be split; then they arrive one key hash range after another, each in source order.
+     *
+     * @return number of repeated records that were dropped
+     */
+    public long deduplicate(CallSource calls, Consumer<Call> consumer) throws IOException {
+        return filterByRange(calls, (position, call, duplicate) -> {
+            if (!duplicate) {
+                consumer.accept(call);
+            }
+        });
+    }
+
+    private List<Call> deduplicateExact(List<Call> calls) {
+        Set<Call> seen = new HashSet<>(calls.size() * 2);
+        List<Call> unique = new ArrayList<>(calls.size());
+
+        for (Call call : calls) {
+            if (seen.add(call)) {
+                unique.add(call);
+            }
+        }
+
+        return unique;
+    }
+
+    /**
+     * Marks the duplicates by position, so the result keeps the list order even when the suspects are split.
+     */
+    private List<Call> deduplicateWithFilter(List<Call> calls) {
+        BitSet duplicates = new BitSet(calls.size());
+        try {
+            filterByRange(calls::forEach, (position, call, duplicate) -> {
+                if (duplicate) {
+                    duplicates.set((int) position);
+                }
+            });
+        } catch (IOException e) {
+            // List.forEach does not throw it
+            throw new UncheckedIOException(e);
+        }
+
+        if (duplicates.isEmpty()) {
+            return calls;
+        }
+
+        List<Call> unique = new ArrayList<>(calls.size() - duplicates.cardinality());
+        for (int i = duplicates.nextClearBit(0); i < calls.size(); i = duplicates.nextClearBit(i + 1)) {
+            unique.add(calls.get(i));
+        }
+        return unique;
+    }
+
+    /**
+     * Decides every call once, starting with the whole key hash range and halving any range whose suspects exceed
+     * the cap.
+     */
+    private long filterByRange(CallSource calls, Decision decision) throws IOException {
+        Deque<long[]> ranges = new ArrayDeque<>();
+        ranges.push(new long[] {0, HASH_RANGE_END});
+        long dropped = 0;
+
+        while (!ranges.isEmpty()) {
+            long[] range = ranges.pop();
+            Set<Call> suspects = collectSuspects(calls, range[0], range[1]);
+            if (suspects == null) {
+                long middle = (range[0] + range[1]) >>> 1;
+                if (middle == range[0]) {
+                    throw new IllegalStateException("More than " + maxSuspects + " suspects share one key hash");
+                }
+                ranges.push(new long[] {middle, range[1]});
+                ranges.push(new long[] {range[0], middle});
+            } else {
+                dropped += decide(calls, range[0], range[1], suspects, decision);
+            }
+        }
+
+        return dropped;
+    }
+
+    /**
+     * First pass collects the keys the filter reports as already seen. Every real duplicate is among them,
+     * and so is its first occurrence's key, so the second pass only has to track those keys exactly.
+     *
+     * @return the suspects in the range, or null if there are more than the cap
+     */
+    private Set<Call> collectSuspects(CallSource calls, long from, long to) throws IOException {
+        CallBloomFilter filter = new CallBloomFilter(log2BloomBits, hashFunctions);
+        Set<Call> suspects = new HashSet<>();
+        boolean[] overflow = new boolean[1];
+
+        calls.forEach(call -> {
+            if (!overflow[0] && inRange(call, from, to) && filter.put(call) && suspects.add(call)) {
+                overflow[0] = suspects.size() > maxSuspects;
+            }
+        });
+
+        return overflow[0] ? null : suspects;
+    }
+
+    private long decide(CallSource calls, long from, long to, Set<Call> suspects, Decision decision) throws IOException {
+        Set<Call> seenSuspects = new HashSet<>(suspects.size() * 2);
+        long[] position = new long[1];
+        long[] dropped = new long[1];
+
+        calls.forEach(call -> {
+            if (inRange(call, from, to)) {
+                boolean duplicate = suspects.contains(call) && !seenSuspects.add(call);
+                if (duplicate) {
+                    dropped[0]++;
+                }
+                decision.accept(position[0], call, duplicate);
+            }
+            position[0]++;
+        });
+
+        return dropped[0];
+    }
+
+    private static boolean inRange(Call call, long from, long to) {
+        if (from == 0 && to == HASH_RANGE_END) {
+            return true;
+        }
+        int hash = CallBloomFilter.rangeHash(call);
+        return hash >= from && hash < to;
+    }
+
+    @FunctionalInterface
+    private interface Decision {
+
+        void accept(long position, Call call, boolean duplicate);
+    }
+}
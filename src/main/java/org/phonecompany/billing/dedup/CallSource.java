@@ -0,0 +1,33 @@
+package org.phonecompany.billing.dedup;
+
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Calls that can be read more than once, each time in the same order.
+ */
+@FunctionalInterface
+public interface CallSource {
+
+    /**
+     * Hands every call to the consumer, in order.
+     */
+    void forEach(Consumer<Call> consumer) throws IOException;
+
+    /**
+     * Returns the calls of a log file, parsed line by line on every read so that the file is never held in memory.
+     */
+    static CallSource of(Path phoneLog, CsvCallLogParser parser) {
+        return consumer -> {
+            try (BufferedReader reader = Files.newBufferedReader(phoneLog)) {
+                parser.parse(reader, consumer);
+            }
+        };
+    }
+}
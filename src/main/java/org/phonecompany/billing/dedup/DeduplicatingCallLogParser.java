@@ -0,0 +1,41 @@
+package org.phonecompany.billing.dedup;
+
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CallLogParser;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parser decorator that drops duplicate call records before they reach pricing.
+ * Plug it into {@link org.phonecompany.billing.TelephoneBillCalculatorImpl} in place of the plain parser.
+ */
+public class DeduplicatingCallLogParser implements CallLogParser {
+
+    private final CallLogParser delegate;
+    private final CallDeduplicator deduplicator;
+    private final LongAdder duplicatesDropped = new LongAdder();
+
+    public DeduplicatingCallLogParser(CallLogParser delegate, CallDeduplicator deduplicator) {
+        this.delegate = delegate;
+        this.deduplicator = deduplicator;
+    }
+
+    public DeduplicatingCallLogParser(CallLogParser delegate) {
+        this(delegate, new CallDeduplicator());
+    }
+
+    @Override
+    public List<Call> parse(String phoneLog) {
+        DeduplicationResult result = deduplicator.deduplicate(delegate.parse(phoneLog));
+        duplicatesDropped.add(result.duplicatesDropped());
+        return result.calls();
+    }
+
+    /**
+     * Returns the total number of duplicate records dropped by this parser so far.
+     */
+    public long getDuplicatesDropped() {
+        return duplicatesDropped.sum();
+    }
+}
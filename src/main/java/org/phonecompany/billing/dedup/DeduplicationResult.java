@@ -0,0 +1,14 @@
+package org.phonecompany.billing.dedup;
+
+import org.phonecompany.billing.model.Call;
+
+import java.util.List;
+
+/**
+ * Calls left after duplicate elimination, in their original order.
+ *
+ * @param calls             unique calls
+ * @param duplicatesDropped number of repeated records that were removed
+ */
+public record DeduplicationResult(List<Call> calls, int duplicatesDropped) {
+}
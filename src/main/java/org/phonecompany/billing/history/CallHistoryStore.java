@@ -0,0 +1,184 @@
+package org.phonecompany.billing.history;
+
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local, append-only call history for dispute handling: "all calls to this number between these dates, and
+ * what they cost".
+ * <p>
+ * Every {@link #append(List)} rates the calls once and writes them as new immutable {@link HistorySegment}
+ * files, sorted by start time and indexed by time and by number. Queries only read the segments whose time
+ * span overlaps the range, and within a segment only the rows in the answer, so a query over a year of history
+ * costs about the same as over a day. Time ranges are half-open, {@code [from, to)}, on call start time.
+ * <p>
+ * Appends are serialised; queries may run concurrently with them and see the segments that existed when they
+ * started.
+ */
+public class CallHistoryStore {
+
+    /** Larger appends are split so that every segment stays well below the 2 GB mapping limit. */
+    static final int MAX_SEGMENT_CALLS = 8 * 1024 * 1024;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.hist");
+
+    private final Path directory;
+    private final CallPriceCalculator priceCalculator;
+
+    private volatile List<HistorySegment> segments;
+    private int nextSegmentId;
+
+    private CallHistoryStore(Path directory, CallPriceCalculator priceCalculator, List<HistorySegment> segments, int nextSegmentId) {
+        this.directory = directory;
+        this.priceCalculator = priceCalculator;
+        this.segments = segments;
+        this.nextSegmentId = nextSegmentId;
+    }
+
+    /**
+     * Opens the store in the given directory, creating it if needed.
+     *
+     * @param priceCalculator rates calls as they are appended
+     */
+    public static CallHistoryStore open(Path directory, CallPriceCalculator priceCalculator) throws IOException {
+        Files.createDirectories(directory);
+        List<HistorySegment> segments = new ArrayList<>();
+        int nextSegmentId = 0;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(HistorySegment.open(file));
+                    nextSegmentId = Math.max(nextSegmentId, Integer.parseInt(matcher.group(1)) + 1);
+                }
+            }
+        }
+        return new CallHistoryStore(directory, priceCalculator, List.copyOf(segments), nextSegmentId);
+    }
+
+    public static CallHistoryStore open(Path directory) throws IOException {
+        return open(directory, new CallPriceCalculator());
+    }
+
+    /**
+     * Rates the calls and stores them as one or more new segments. The calls need not be ordered.
+     */
+    public synchronized void append(List<Call> calls) throws IOException {
+        if (calls.isEmpty()) {
+            return;
+        }
+        List<Call> sorted = new ArrayList<>(calls);
+        sorted.sort(Comparator.comparing(Call::startTime));
+
+        List<HistorySegment> updated = new ArrayList<>(segments);
+        for (int from = 0; from < sorted.size(); from += MAX_SEGMENT_CALLS) {
+            List<Call> chunk = sorted.subList(from, Math.min(sorted.size(), from + MAX_SEGMENT_CALLS));
+            List<HistoricCall> rated = new ArrayList<>(chunk.size());
+            long[] prices = new long[chunk.size()];
+            for (int i = 0; i < prices.length; i++) {
+                Call call = chunk.get(i);
+                BigDecimal price = priceCalculator.calculate(call);
+                prices[i] = price.movePointRight(2).longValueExact();
+                rated.add(new HistoricCall(call.phoneNumber(), call.startTime(), call.endTime(), price));
+            }
+
+            Path file = directory.resolve(String.format("segment-%08d.hist", nextSegmentId++));
+            HistorySegment.write(file, rated, prices);
+            updated.add(HistorySegment.open(file));
+        }
+        segments = List.copyOf(updated);
+    }
+
+    /**
+     * @return calls starting in {@code [from, to)}, ordered by start time
+     */
+    public List<HistoricCall> find(LocalDateTime from, LocalDateTime to) {
+        long fromSecond = HistorySegment.toEpochSecond(from);
+        long toSecond = HistorySegment.toEpochSecond(to);
+        return collect((segment, sink) -> segment.forEach(fromSecond, toSecond, sink), fromSecond, toSecond);
+    }
+
+    /**
+     * @return calls to the number starting in {@code [from, to)}, ordered by start time
+     */
+    public List<HistoricCall> find(PhoneNumber number, LocalDateTime from, LocalDateTime to) {
+        long fromSecond = HistorySegment.toEpochSecond(from);
+        long toSecond = HistorySegment.toEpochSecond(to);
+        return collect((segment, sink) -> segment.forEach(number, fromSecond, toSecond, sink), fromSecond, toSecond);
+    }
+
+    /**
+     * @return total price of the calls starting in {@code [from, to)}, read from prefix sums without visiting the calls
+     */
+    public BigDecimal cost(LocalDateTime from, LocalDateTime to) {
+        long fromSecond = HistorySegment.toEpochSecond(from);
+        long toSecond = HistorySegment.toEpochSecond(to);
+        long haler = 0;
+        for (HistorySegment segment : segments) {
+            if (segment.overlaps(fromSecond, toSecond)) {
+                haler += segment.cost(fromSecond, toSecond);
+            }
+        }
+        return BigDecimal.valueOf(haler, 2);
+    }
+
+    /**
+     * @return total price of the calls to the number starting in {@code [from, to)}
+     */
+    public BigDecimal cost(PhoneNumber number, LocalDateTime from, LocalDateTime to) {
+        long fromSecond = HistorySegment.toEpochSecond(from);
+        long toSecond = HistorySegment.toEpochSecond(to);
+        long haler = 0;
+        for (HistorySegment segment : segments) {
+            if (segment.overlaps(fromSecond, toSecond)) {
+                haler += segment.cost(number, fromSecond, toSecond);
+            }
+        }
+        return BigDecimal.valueOf(haler, 2);
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getCallCount() {
+        long calls = 0;
+        for (HistorySegment segment : segments) {
+            calls += segment.getCount();
+        }
+        return calls;
+    }
+
+    private List<HistoricCall> collect(
+            BiConsumer<HistorySegment, Consumer<HistoricCall>> query, long fromSecond, long toSecond) {
+        List<HistoricCall> result = new ArrayList<>();
+        int overlapping = 0;
+        for (HistorySegment segment : segments) {
+            if (segment.overlaps(fromSecond, toSecond)) {
+                query.accept(segment, result::add);
+                overlapping++;
+            }
+        }
+        if (overlapping > 1) {
+            // Segments from separate appends may interleave in time.
+            result.sort(Comparator.comparing(HistoricCall::startTime));
+        }
+        return result;
+    }
+}
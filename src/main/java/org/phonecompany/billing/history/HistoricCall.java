@@ -0,0 +1,13 @@
+package org.phonecompany.billing.history;
+
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A call as recorded in the {@link CallHistoryStore}, with the price it was rated at when appended
+ * (before any promotion).
+ */
+public record HistoricCall(PhoneNumber phoneNumber, LocalDateTime startTime, LocalDateTime endTime, BigDecimal price) {
+}
@@ -0,0 +1,302 @@
+package org.phonecompany.billing.history;
+
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * One immutable, memory-mapped file of calls sorted by start time, stored column by column.
+ * <p>
+ * Layout (big-endian): a header, then the columns {@code start[n]}, {@code end[n]} (local epoch-seconds),
+ * {@code number[n]} (dictionary ids), {@code price[n]} (haléř) and {@code cumulative[n + 1]} (prefix sums of
+ * price); a sparse index holding every {@value #SPARSE_STRIDE}th start; per-number posting lists of row ids
+ * with their own price prefix sums; and finally the number dictionary.
+ * <p>
+ * A time-range query binary-searches the small sparse index, scans at most one stride of the start column and
+ * reads the cost from two prefix sums. A per-number query does the same over that number's postings, so
+ * neither touches rows outside the answer.
+ */
+final class HistorySegment {
+
+    static final int SPARSE_STRIDE = 64;
+
+    private static final int MAGIC = 0x48534731; // "HSG1"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final long minStart;
+    private final long maxStart;
+
+    private final int startOffset;
+    private final int endOffset;
+    private final int numberOffset;
+    private final int priceOffset;
+    private final int cumulativeOffset;
+    private final int sparseOffset;
+    private final int sparseCount;
+    private final int postingOffsetsOffset;
+    private final int postingsOffset;
+    private final int postingCumulativeOffset;
+
+    private final PhoneNumber[] numbers;
+    private final Map<PhoneNumber, Integer> numberIds;
+
+    private HistorySegment(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a history segment: " + file);
+        }
+        this.count = buffer.getInt(4);
+        int numberCount = buffer.getInt(8);
+        this.minStart = buffer.getLong(12);
+        this.maxStart = buffer.getLong(20);
+
+        this.startOffset = HEADER_BYTES;
+        this.endOffset = startOffset + 8 * count;
+        this.numberOffset = endOffset + 8 * count;
+        this.priceOffset = numberOffset + 4 * count;
+        this.cumulativeOffset = priceOffset + 8 * count;
+        this.sparseOffset = cumulativeOffset + 8 * (count + 1);
+        this.sparseCount = sparseCount(count);
+        this.postingOffsetsOffset = sparseOffset + 8 * sparseCount;
+        this.postingsOffset = postingOffsetsOffset + 4 * (numberCount + 1);
+        this.postingCumulativeOffset = postingsOffset + 4 * count;
+
+        ByteBuffer dictionary = buffer.duplicate().position(postingCumulativeOffset + 8 * (count + numberCount));
+        this.numbers = new PhoneNumber[numberCount];
+        this.numberIds = new HashMap<>(numberCount * 2);
+        for (int id = 0; id < numberCount; id++) {
+            byte[] digits = new byte[dictionary.getShort()];
+            dictionary.get(digits);
+            numbers[id] = new PhoneNumber(new String(digits, StandardCharsets.US_ASCII));
+            numberIds.put(numbers[id], id);
+        }
+    }
+
+    static HistorySegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new HistorySegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes a segment through a temporary sibling, forced to disk before it is renamed into place.
+     *
+     * @param calls  sorted by start time
+     * @param prices in haléř, parallel to {@code calls}
+     */
+    static void write(Path file, List<HistoricCall> calls, long[] prices) throws IOException {
+        int count = calls.size();
+        Map<PhoneNumber, Integer> ids = new HashMap<>();
+        int[] numberOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            numberOf[i] = ids.computeIfAbsent(calls.get(i).phoneNumber(), n -> ids.size());
+        }
+        int numberCount = ids.size();
+        PhoneNumber[] numbers = new PhoneNumber[numberCount];
+        ids.forEach((number, id) -> numbers[id] = number);
+
+        // Counting sort of row ids by number keeps each posting list in time order.
+        int[] postingOffsets = new int[numberCount + 1];
+        for (int id : numberOf) {
+            postingOffsets[id + 1]++;
+        }
+        for (int id = 0; id < numberCount; id++) {
+            postingOffsets[id + 1] += postingOffsets[id];
+        }
+        int[] postings = new int[count];
+        int[] fill = postingOffsets.clone();
+        for (int row = 0; row < count; row++) {
+            postings[fill[numberOf[row]]++] = row;
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(count);
+            out.writeInt(numberCount);
+            out.writeLong(count == 0 ? 0 : toEpochSecond(calls.get(0).startTime()));
+            out.writeLong(count == 0 ? 0 : toEpochSecond(calls.get(count - 1).startTime()));
+
+            for (HistoricCall call : calls) {
+                out.writeLong(toEpochSecond(call.startTime()));
+            }
+            for (HistoricCall call : calls) {
+                out.writeLong(toEpochSecond(call.endTime()));
+            }
+            for (int id : numberOf) {
+                out.writeInt(id);
+            }
+            for (long price : prices) {
+                out.writeLong(price);
+            }
+            long cumulative = 0;
+            out.writeLong(cumulative);
+            for (long price : prices) {
+                cumulative += price;
+                out.writeLong(cumulative);
+            }
+            for (int row = 0; row < count; row += SPARSE_STRIDE) {
+                out.writeLong(toEpochSecond(calls.get(row).startTime()));
+            }
+            for (int offset : postingOffsets) {
+                out.writeInt(offset);
+            }
+            for (int row : postings) {
+                out.writeInt(row);
+            }
+            for (int id = 0; id < numberCount; id++) {
+                long sum = 0;
+                out.writeLong(sum);
+                for (int p = postingOffsets[id]; p < postingOffsets[id + 1]; p++) {
+                    sum += prices[postings[p]];
+                    out.writeLong(sum);
+                }
+            }
+            for (PhoneNumber number : numbers) {
+                byte[] digits = number.value().getBytes(StandardCharsets.US_ASCII);
+                out.writeShort(digits.length);
+                out.write(digits);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    boolean overlaps(long fromSecond, long toSecond) {
+        return count > 0 && minStart < toSecond && maxStart >= fromSecond;
+    }
+
+    /**
+     * Passes the calls starting in {@code [fromSecond, toSecond)} to the consumer, in time order.
+     */
+    void forEach(long fromSecond, long toSecond, Consumer<HistoricCall> consumer) {
+        int to = lowerBound(toSecond);
+        for (int row = lowerBound(fromSecond); row < to; row++) {
+            consumer.accept(row(row));
+        }
+    }
+
+    /**
+     * @return total price in haléř of the calls starting in {@code [fromSecond, toSecond)}
+     */
+    long cost(long fromSecond, long toSecond) {
+        int from = lowerBound(fromSecond);
+        int to = Math.max(from, lowerBound(toSecond));
+        return buffer.getLong(cumulativeOffset + 8 * to) - buffer.getLong(cumulativeOffset + 8 * from);
+    }
+
+    void forEach(PhoneNumber number, long fromSecond, long toSecond, Consumer<HistoricCall> consumer) {
+        Integer id = numberIds.get(number);
+        if (id == null) {
+            return;
+        }
+        int to = postingLowerBound(id, toSecond);
+        for (int p = postingLowerBound(id, fromSecond); p < to; p++) {
+            consumer.accept(row(buffer.getInt(postingsOffset + 4 * p)));
+        }
+    }
+
+    long cost(PhoneNumber number, long fromSecond, long toSecond) {
+        Integer id = numberIds.get(number);
+        if (id == null) {
+            return 0;
+        }
+        int from = postingLowerBound(id, fromSecond);
+        int to = Math.max(from, postingLowerBound(id, toSecond));
+        // Number id's prefix sums start at its first posting plus one slot per preceding number.
+        return buffer.getLong(postingCumulativeOffset + 8 * (to + id))
+                - buffer.getLong(postingCumulativeOffset + 8 * (from + id));
+    }
+
+    /**
+     * @return the first row starting at or after {@code second}, or {@code count}
+     */
+    private int lowerBound(long second) {
+        int low = 0;
+        int high = sparseCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(sparseOffset + 8 * mid) < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // Sparse entry low is the first block starting at or after second, so the answer is in block low - 1.
+        int row = Math.max(0, (low - 1) * SPARSE_STRIDE);
+        int limit = Math.min(count, low * SPARSE_STRIDE);
+        while (row < limit && start(row) < second) {
+            row++;
+        }
+        return row;
+    }
+
+    /**
+     * @return the first posting position of the number starting at or after {@code second}
+     */
+    private int postingLowerBound(int id, long second) {
+        int low = buffer.getInt(postingOffsetsOffset + 4 * id);
+        int high = buffer.getInt(postingOffsetsOffset + 4 * (id + 1));
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (start(buffer.getInt(postingsOffset + 4 * mid)) < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long start(int row) {
+        return buffer.getLong(startOffset + 8 * row);
+    }
+
+    private HistoricCall row(int row) {
+        return new HistoricCall(
+                numbers[buffer.getInt(numberOffset + 4 * row)],
+                LocalDateTime.ofEpochSecond(start(row), 0, ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(buffer.getLong(endOffset + 8 * row), 0, ZoneOffset.UTC),
+                BigDecimal.valueOf(buffer.getLong(priceOffset + 8 * row), 2)
+        );
+    }
+
+    private static int sparseCount(int count) {
+        return (count + SPARSE_STRIDE - 1) / SPARSE_STRIDE;
+    }
+
+    static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,120 @@
+package org.phonecompany.billing.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads UTF-8 lines from a file channel starting at a byte offset and reports, for each line,
+ * the offset just past it. Callers use that offset to record exactly how far they got.
+ * The read buffer is reused between calls, so an instance must not be shared between threads.
+ */
+public class OffsetLineReader {
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives lines read by {@link OffsetLineReader}.
+     */
+    @FunctionalInterface
+    public interface LineConsumer {
+
+        /**
+         * @param line      line content without terminator
+         * @param lineStart byte offset of the first character of the line
+         * @param nextLine  byte offset just past the line terminator (where reading would resume)
+         */
+        void accept(String line, long lineStart, long nextLine) throws IOException;
+    }
+
+    private final boolean includeUnterminatedLastLine;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /**
+     * @param includeUnterminatedLastLine whether text after the last newline counts as a line at end of file;
+     *                                    false for files still being written, where it may be incomplete
+     */
+    public OffsetLineReader(boolean includeUnterminatedLastLine) {
+        this.includeUnterminatedLastLine = includeUnterminatedLastLine;
+    }
+
+    /**
+     * Reads lines from {@code offset} to the end of the channel.
+     *
+     * @return offset just past the last line handed to the consumer
+     */
+    public long read(FileChannel channel, long offset, LineConsumer consumer) throws IOException {
+        return read(channel, offset, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Reads lines from {@code offset} up to byte {@code end} (exclusive) or the end of the channel, whichever
+     * comes first. Nothing at or after {@code end} is read, so a file split at line starts can be read range by
+     * range, by separate readers; text between the last newline and {@code end} is treated like the unterminated
+     * last line of a file.
+     *
+     * @return offset just past the last line handed to the consumer
+     */
+    public long read(FileChannel channel, long offset, long end, LineConsumer consumer) throws IOException {
+        buffer.clear();
+
+        // buffer[0] always holds the byte at the current offset
+        while (true) {
+            long readPosition = offset + buffer.position();
+            long remaining = end - readPosition;
+            if (remaining <= 0) {
+                break;
+            }
+            if (remaining < buffer.remaining()) {
+                buffer.limit(buffer.position() + (int) remaining);
+            }
+            if (channel.read(buffer, readPosition) <= 0) {
+                break;
+            }
+            buffer.flip();
+            offset = consumeCompleteLines(offset, consumer);
+            buffer.compact();
+
+            if (!buffer.hasRemaining()) {
+                buffer = grow(buffer);
+            }
+        }
+
+        if (includeUnterminatedLastLine && buffer.position() > 0) {
+            long lineEnd = offset + buffer.position();
+            consumer.accept(decode(0, buffer.position()), offset, lineEnd);
+            offset = lineEnd;
+        }
+
+        return offset;
+    }
+
+    private long consumeCompleteLines(long bufferStart, LineConsumer consumer) throws IOException {
+        byte[] bytes = buffer.array();
+        int lineStart = buffer.position();
+        int limit = buffer.limit();
+
+        for (int i = lineStart; i < limit; i++) {
+            if (bytes[i] == '\n') {
+                consumer.accept(decode(lineStart, i), bufferStart + lineStart, bufferStart + i + 1);
+                lineStart = i + 1;
+            }
+        }
+
+        buffer.position(lineStart);
+        return bufferStart + lineStart;
+    }
+
+    private String decode(int from, int to) {
+        int end = to > from && buffer.array()[to - 1] == '\r' ? to - 1 : to;
+        return new String(buffer.array(), from, end - from, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer grow(ByteBuffer full) {
+        ByteBuffer larger = ByteBuffer.allocate(full.capacity() * 2);
+        full.flip();
+        larger.put(full);
+        return larger;
+    }
+}
@@ -0,0 +1,44 @@
+package org.phonecompany.billing.ingest;
+
+import org.phonecompany.billing.BillAccumulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Progress of a tailed log: the byte offset just past the last billed line and the bill built up to it.
+ * Both are stored in one file, replaced atomically, so they can never disagree after a crash.
+ */
+record TailCheckpoint(long offset, BillAccumulator bill) {
+
+    private static final int MAGIC = 0x54414C31; // "TAL1"
+
+    void store(Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeLong(offset);
+            bill.writeTo(out);
+        }
+        AtomicFiles.write(file, bytes.toByteArray());
+    }
+
+    static Optional<TailCheckpoint> load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a tail checkpoint file: " + file);
+            }
+            long offset = in.readLong();
+            return Optional.of(new TailCheckpoint(offset, BillAccumulator.readFrom(in)));
+        }
+    }
+}
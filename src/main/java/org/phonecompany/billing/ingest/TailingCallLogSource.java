@@ -0,0 +1,183 @@
+package org.phonecompany.billing.ingest;
+
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a CSV call log that is being appended to and keeps a running bill of it.
+ * <p>
+ * Only complete lines (terminated by a newline) are billed; a partially written last line is left for the next
+ * poll. After each poll the byte offset past the last billed line and the bill state are persisted together
+ * in an atomically replaced checkpoint file. A new source created with the same checkpoint file resumes from
+ * that offset with that state, so after a crash every line is billed exactly once.
+ * <p>
+ * Change detection uses a {@link WatchService} on the log's directory, with a periodic size check as
+ * fallback for file systems where watch events are late or missing.
+ */
+public class TailingCallLogSource implements AutoCloseable {
+
+    private final Path logFile;
+    private final Path checkpointFile;
+    private final CsvCallLogParser parser;
+    private final CallPriceCalculator priceCalculator;
+
+    private final BillAccumulator bill;
+    private long offset;
+    private final OffsetLineReader lineReader = new OffsetLineReader(false);
+    private volatile boolean closed;
+    private volatile WatchService watchService;
+
+    public TailingCallLogSource(
+            Path logFile,
+            Path checkpointFile,
+            CsvCallLogParser parser,
+            CallPriceCalculator priceCalculator) throws IOException {
+        this.logFile = logFile;
+        this.checkpointFile = checkpointFile;
+        this.parser = parser;
+        this.priceCalculator = priceCalculator;
+
+        Optional<TailCheckpoint> checkpoint = TailCheckpoint.load(checkpointFile);
+        this.offset = checkpoint.map(TailCheckpoint::offset).orElse(0L);
+        this.bill = checkpoint.map(TailCheckpoint::bill).orElseGet(BillAccumulator::new);
+    }
+
+    public TailingCallLogSource(Path logFile, Path checkpointFile) throws IOException {
+        this(logFile, checkpointFile, new CsvCallLogParser(), new CallPriceCalculator());
+    }
+
+    /**
+     * Bills all complete lines appended since the last poll and checkpoints the result.
+     *
+     * @return number of calls billed by this poll
+     * @throws IllegalArgumentException if a line cannot be parsed; lines before it are billed and checkpointed
+     * @throws IllegalStateException    if the log became shorter than the checkpointed offset
+     */
+    public synchronized int poll() throws IOException {
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                throw new IllegalStateException(
+                    "Log " + logFile + " shrank to " + size + " bytes, below checkpointed offset " + offset
+                );
+            }
+            if (size == offset) {
+                return 0;
+            }
+
+            long startOffset = offset;
+            long callsBefore = bill.getCallCount();
+
+            try {
+                lineReader.read(channel, offset, (line, lineStart, nextLine) -> {
+                    if (!line.isBlank()) {
+                        billLine(line.trim(), lineStart);
+                    }
+                    offset = nextLine;
+                });
+            } finally {
+                if (offset != startOffset) {
+                    new TailCheckpoint(offset, bill).store(checkpointFile);
+                }
+            }
+
+            return (int) (bill.getCallCount() - callsBefore);
+        }
+    }
+
+    /**
+     * Blocks, polling whenever the log changes or at least every {@code maxPollInterval}, until {@link #close()}.
+     */
+    public void follow(Duration maxPollInterval) throws IOException, InterruptedException {
+        Path directory = logFile.toAbsolutePath().getParent();
+
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            watchService = watcher;
+            directory.register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+
+            while (!closed) {
+                poll();
+
+                WatchKey key;
+                try {
+                    key = watcher.poll(maxPollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (ClosedWatchServiceException e) {
+                    break;
+                }
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } finally {
+            watchService = null;
+        }
+    }
+
+    /**
+     * Returns the byte offset just past the last billed line.
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    public synchronized BigDecimal getTotal() {
+        return bill.getTotal();
+    }
+
+    public synchronized Optional<PhoneNumber> getFreePhoneNumber() {
+        return bill.getFreePhoneNumber();
+    }
+
+    public synchronized long getCallCount() {
+        return bill.getCallCount();
+    }
+
+    /**
+     * Stops {@link #follow(Duration)}. State is already checkpointed after every poll.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        WatchService watcher = watchService;
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    private void billLine(String line, long lineStart) {
+        Call call;
+        try {
+            call = parser.parseLine(line);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                "Failed to parse line at byte " + lineStart + ": " + line, e
+            );
+        }
+        bill.add(call.phoneNumber(), priceCalculator.calculate(call));
+    }
+}
@@ -0,0 +1,28 @@
+package org.phonecompany.billing.invoice;
+
+/**
+ * Encoding of an itemized invoice written by {@link ItemizedInvoiceWriter}.
+ * <p>
+ * Both forms contain, in order, one line item per call, one subtotal per called number (ordered by number)
+ * and a single total. Every line item and subtotal carries a free marker: {@code Y}/{@code N} in CSV,
+ * {@code 2}/{@code 1} in binary. Line items are written before the promotion is known, with an unresolved marker
+ * ({@code ?} / {@code 0}); see {@link ItemizedInvoiceWriter} for when it is filled in.
+ */
+public enum InvoiceFormat {
+
+    /**
+     * Text with the header {@code type,number,start,end,minutes,calls,price,free}. Rows have type {@code item}
+     * (calls empty), {@code subtotal} or {@code total} (start, end and minutes empty; number holds the free number
+     * for the total). Times use the input log's {@code dd-MM-yyyy HH:mm:ss} format, prices have two decimals and
+     * the free marker is always the last character of the row.
+     */
+    CSV,
+
+    /**
+     * Big-endian records after the magic {@code INV1}. Every record starts with a type byte
+     * (1 item, 2 subtotal, 3 total), a marker byte and the number as a length-prefixed ASCII string
+     * (the free number, possibly empty, for the total). Items continue with start and end as local
+     * epoch-seconds and the price in haléř; subtotals and the total with the call count and amount in haléř.
+     */
+    BINARY
+}
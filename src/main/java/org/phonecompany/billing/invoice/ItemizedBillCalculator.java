@@ -0,0 +1,54 @@
+package org.phonecompany.billing.invoice;
+
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+/**
+ * Bills a log in one streaming pass while writing its itemized invoice. Only per-number subtotals are kept, so
+ * memory does not grow with the number of calls; the promotion is the most-called-number rule applied by
+ * {@link BillAccumulator}.
+ */
+public class ItemizedBillCalculator {
+
+    private final CsvCallLogParser parser;
+    private final CallPriceCalculator priceCalculator;
+
+    public ItemizedBillCalculator(CsvCallLogParser parser, CallPriceCalculator priceCalculator) {
+        this.parser = parser;
+        this.priceCalculator = priceCalculator;
+    }
+
+    public ItemizedBillCalculator() {
+        this(new CsvCallLogParser(), new CallPriceCalculator());
+    }
+
+    /**
+     * Prices every call of the log, writes its line item and finishes the invoice.
+     *
+     * @return the bill total, the same as {@link org.phonecompany.billing.TelephoneBillCalculatorImpl} returns
+     */
+    public BigDecimal calculate(Reader phoneLog, ItemizedInvoiceWriter invoice) throws IOException {
+        BillAccumulator bill = new BillAccumulator();
+        try {
+            parser.parse(phoneLog, call -> {
+                BigDecimal price = priceCalculator.calculate(call);
+                bill.add(call.phoneNumber(), price);
+                try {
+                    invoice.writeItem(call, price);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        invoice.finish(bill);
+        return bill.getTotal();
+    }
+}
@@ -0,0 +1,299 @@
+package org.phonecompany.billing.invoice;
+
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streams an itemized invoice to a channel as calls are priced, through a reusable {@link ByteBuffer}; line items
+ * are never kept in memory.
+ * <p>
+ * The free number is only known once all calls are seen, so line items are written with an unresolved free
+ * marker. {@link #finish(BillAccumulator)} writes the subtotals and total, whose markers are always resolved, and
+ * then, if the channel is a readable {@link SeekableByteChannel} (such as a {@code FileChannel} opened for read and
+ * write), re-reads the invoice's own line items and patches their markers in place. The input log is not read
+ * again. On other channels the item markers stay unresolved and readers take the free number from the subtotals
+ * or the total.
+ * <p>
+ * Prices and amounts are written in whole haléř, rounded half up, so tariffs with finer rates still produce an
+ * invoice; the bill total returned by the calculators is not rounded. The writer does not close the channel.
+ * Not thread-safe.
+ */
+public class ItemizedInvoiceWriter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    static final int BINARY_MAGIC = 0x494E5631; // "INV1"
+    static final byte TYPE_ITEM = 1;
+    static final byte TYPE_SUBTOTAL = 2;
+    static final byte TYPE_TOTAL = 3;
+    static final byte MARKER_UNRESOLVED = 0;
+    static final byte MARKER_BILLED = 1;
+    static final byte MARKER_FREE = 2;
+
+    private static final byte[] CSV_HEADER = "type,number,start,end,minutes,calls,price,free\n".getBytes(StandardCharsets.US_ASCII);
+
+    /** Upper bound of a record's size besides the number's digits. */
+    private static final int MAX_RECORD_OVERHEAD = 96;
+
+    private final WritableByteChannel channel;
+    private final InvoiceFormat format;
+    private final ByteBuffer buffer;
+
+    private final long startPosition;
+    private final long itemsStart;
+    private long written;
+    private boolean finished;
+    private boolean markersResolved;
+
+    public ItemizedInvoiceWriter(WritableByteChannel channel, InvoiceFormat format, int bufferSize) throws IOException {
+        if (bufferSize < 2 * MAX_RECORD_OVERHEAD) {
+            throw new IllegalArgumentException("Buffer too small: " + bufferSize);
+        }
+        this.channel = channel;
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+
+        if (format == InvoiceFormat.CSV) {
+            buffer.put(CSV_HEADER);
+        } else {
+            buffer.putInt(BINARY_MAGIC);
+        }
+        this.startPosition = channel instanceof SeekableByteChannel seekable ? seekable.position() : 0;
+        this.itemsStart = startPosition + buffer.position();
+    }
+
+    public ItemizedInvoiceWriter(WritableByteChannel channel, InvoiceFormat format) throws IOException {
+        this(channel, format, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Writes the line item of one priced call.
+     */
+    public void writeItem(Call call, BigDecimal price) throws IOException {
+        checkNotFinished();
+        byte[] number = ensureRoom(call.phoneNumber());
+
+        if (format == InvoiceFormat.CSV) {
+            putAscii("item,");
+            buffer.put(number).put((byte) ',');
+            putDateTime(call.startTime());
+            buffer.put((byte) ',');
+            putDateTime(call.endTime());
+            buffer.put((byte) ',');
+            putAscii(Long.toString(call.getDurationInMinutes()));
+            putAscii(",,");
+            putAscii(price.setScale(2, RoundingMode.HALF_UP).toPlainString());
+            putAscii(",?\n");
+        } else {
+            buffer.put(TYPE_ITEM).put(MARKER_UNRESOLVED);
+            buffer.putShort((short) number.length).put(number);
+            buffer.putLong(call.startTime().toEpochSecond(ZoneOffset.UTC));
+            buffer.putLong(call.endTime().toEpochSecond(ZoneOffset.UTC));
+            buffer.putLong(toHaler(price));
+        }
+    }
+
+    /**
+     * Writes the subtotals and total of the bill, flushes, and resolves the line items' free markers if the
+     * channel allows it. No items can be written afterwards.
+     */
+    public void finish(BillAccumulator bill) throws IOException {
+        checkNotFinished();
+        PhoneNumber freeNumber = bill.getFreePhoneNumber().orElse(null);
+        long itemsEnd = startPosition + written + buffer.position();
+
+        for (Map.Entry<PhoneNumber, BillAccumulator.NumberSubtotal> entry : new TreeMap<>(bill.getSubtotals()).entrySet()) {
+            boolean free = entry.getKey().equals(freeNumber);
+            writeSummary(TYPE_SUBTOTAL, entry.getKey(), entry.getValue().calls(), entry.getValue().subtotal(), free);
+        }
+        writeSummary(TYPE_TOTAL, freeNumber, bill.getCallCount(), bill.getTotal(), false);
+        flush();
+        finished = true;
+
+        if (channel instanceof SeekableByteChannel seekable) {
+            markersResolved = patchMarkers(seekable, itemsEnd, freeNumber);
+        }
+    }
+
+    /**
+     * @return whether line items carry resolved free markers; only true after {@link #finish(BillAccumulator)}
+     *         on a readable, seekable channel
+     */
+    public boolean isMarkersResolved() {
+        return markersResolved;
+    }
+
+    private void writeSummary(byte type, PhoneNumber number, long calls, BigDecimal amount, boolean free) throws IOException {
+        byte[] digits = number == null ? new byte[0] : ensureRoom(number);
+        if (format == InvoiceFormat.CSV) {
+            putAscii(type == TYPE_SUBTOTAL ? "subtotal," : "total,");
+            buffer.put(digits);
+            putAscii(",,,,");
+            putAscii(Long.toString(calls));
+            buffer.put((byte) ',');
+            putAscii(amount.setScale(2, RoundingMode.HALF_UP).toPlainString());
+            putAscii(type == TYPE_SUBTOTAL ? (free ? ",Y\n" : ",N\n") : ",\n");
+        } else {
+            buffer.put(type).put(type == TYPE_SUBTOTAL ? (free ? MARKER_FREE : MARKER_BILLED) : MARKER_UNRESOLVED);
+            buffer.putShort((short) digits.length).put(digits);
+            buffer.putLong(calls);
+            buffer.putLong(toHaler(amount));
+        }
+    }
+
+    /**
+     * Scans the line items between {@code itemsStart} and {@code itemsEnd} chunk by chunk, rewriting each chunk
+     * with its markers set. Records cut by the end of a chunk are re-read at the start of the next one.
+     */
+    private boolean patchMarkers(SeekableByteChannel seekable, long itemsEnd, PhoneNumber freeNumber) throws IOException {
+        byte[] free = freeNumber == null ? null : freeNumber.value().getBytes(StandardCharsets.US_ASCII);
+        long end = seekable.position();
+        long position = itemsStart;
+
+        try {
+            while (position < itemsEnd) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), itemsEnd - position));
+                seekable.position(position);
+                while (buffer.hasRemaining()) {
+                    if (seekable.read(buffer) < 0) {
+                        throw new IOException("Invoice ended before its line items");
+                    }
+                }
+                int complete = format == InvoiceFormat.CSV ? markCsv(free) : markBinary(free);
+                if (complete == 0) {
+                    throw new IOException("Line item larger than the buffer at " + position);
+                }
+
+                buffer.position(0).limit(complete);
+                seekable.position(position);
+                while (buffer.hasRemaining()) {
+                    seekable.write(buffer);
+                }
+                position += complete;
+            }
+        } catch (NonReadableChannelException e) {
+            return false;
+        } finally {
+            buffer.clear();
+            seekable.position(end);
+        }
+        return true;
+    }
+
+    /**
+     * @return bytes of complete rows in the buffer, all of them marked
+     */
+    private int markCsv(byte[] free) {
+        int limit = buffer.limit();
+        int rowStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                // "item," then the number up to the next comma
+                int numberStart = rowStart + 5;
+                int numberEnd = numberStart;
+                while (buffer.get(numberEnd) != ',') {
+                    numberEnd++;
+                }
+                buffer.put(i - 1, matches(numberStart, numberEnd - numberStart, free) ? (byte) 'Y' : (byte) 'N');
+                rowStart = i + 1;
+            }
+        }
+        return rowStart;
+    }
+
+    private int markBinary(byte[] free) {
+        int limit = buffer.limit();
+        int recordStart = 0;
+        while (recordStart + 4 <= limit) {
+            int length = buffer.getShort(recordStart + 2);
+            int recordEnd = recordStart + 4 + length + 24;
+            if (recordEnd > limit) {
+                break;
+            }
+            buffer.put(recordStart + 1, matches(recordStart + 4, length, free) ? MARKER_FREE : MARKER_BILLED);
+            recordStart = recordEnd;
+        }
+        return recordStart;
+    }
+
+    private boolean matches(int offset, int length, byte[] number) {
+        if (number == null || number.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + i) != number[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] ensureRoom(PhoneNumber number) throws IOException {
+        byte[] digits = number.value().getBytes(StandardCharsets.US_ASCII);
+        int needed = MAX_RECORD_OVERHEAD + digits.length;
+        if (needed > buffer.capacity()) {
+            throw new IllegalArgumentException("Phone number too long for the buffer: " + number.value());
+        }
+        if (buffer.remaining() < needed) {
+            flush();
+        }
+        return digits;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void putAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private void putDateTime(LocalDateTime time) {
+        putTwoDigits(time.getDayOfMonth());
+        buffer.put((byte) '-');
+        putTwoDigits(time.getMonthValue());
+        buffer.put((byte) '-');
+        putAscii(Integer.toString(time.getYear()));
+        buffer.put((byte) ' ');
+        putTwoDigits(time.getHour());
+        buffer.put((byte) ':');
+        putTwoDigits(time.getMinute());
+        buffer.put((byte) ':');
+        putTwoDigits(time.getSecond());
+    }
+
+    private void putTwoDigits(int value) {
+        buffer.put((byte) ('0' + value / 10)).put((byte) ('0' + value % 10));
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("Invoice already finished");
+        }
+    }
+
+    private static long toHaler(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+}
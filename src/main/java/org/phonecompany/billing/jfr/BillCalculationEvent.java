@@ -0,0 +1,36 @@
+package org.phonecompany.billing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * One bill calculated by {@link org.phonecompany.billing.TelephoneBillCalculatorImpl}. The pricing stage is timed
+ * once per bill rather than per call, as a clock read costs more than pricing a short call.
+ */
+@Name("org.phonecompany.billing.BillCalculation")
+@Label("Bill Calculation")
+@Category({"Billing"})
+@Description("Parsing, promotion and pricing of one call log")
+@Threshold("20 ms")
+@StackTrace(false)
+public class BillCalculationEvent extends Event {
+
+    @Label("Calls")
+    public long callCount;
+
+    @Label("Free Number")
+    public String freeNumber;
+
+    @Label("Total")
+    public String total;
+
+    @Label("Pricing Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long pricingDuration;
+}
@@ -0,0 +1,23 @@
+package org.phonecompany.billing.jfr;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Gate in front of the billing events. On JDK 21 the first {@link jdk.jfr.Event} subclass a process loads
+ * initializes the Flight Recorder metadata, some 350 ms, whether or not anything is recording. Callers therefore
+ * create an event only when this returns true, so that the event classes are never loaded in a JVM where JFR was
+ * not started, by {@code -XX:StartFlightRecording}, {@code jcmd JFR.start} or the recording API.
+ */
+public final class BillingEvents {
+
+    private BillingEvents() {
+    }
+
+    /**
+     * @return whether Flight Recorder has been started in this JVM; each event's own settings then decide
+     *         whether it is committed
+     */
+    public static boolean isEnabled() {
+        return FlightRecorder.isInitialized();
+    }
+}
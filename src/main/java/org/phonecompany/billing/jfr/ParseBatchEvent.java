@@ -0,0 +1,24 @@
+package org.phonecompany.billing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One log parsed by {@link org.phonecompany.billing.parser.CsvCallLogParser}.
+ */
+@Name("org.phonecompany.billing.ParseBatch")
+@Label("Parse Batch")
+@Category({"Billing"})
+@Description("Parsing of one call log into calls")
+@Threshold("10 ms")
+@StackTrace(false)
+public class ParseBatchEvent extends Event {
+
+    @Label("Lines")
+    public long lineCount;
+}
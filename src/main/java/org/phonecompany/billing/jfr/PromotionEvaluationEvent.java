@@ -0,0 +1,30 @@
+package org.phonecompany.billing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One evaluation of {@link org.phonecompany.billing.promotion.MostCalledNumberPromotion}.
+ */
+@Name("org.phonecompany.billing.PromotionEvaluation")
+@Label("Promotion Evaluation")
+@Category({"Billing"})
+@Description("Choice of the free number for one bill")
+@Threshold("10 ms")
+@StackTrace(false)
+public class PromotionEvaluationEvent extends Event {
+
+    @Label("Calls")
+    public long callCount;
+
+    @Label("Distinct Numbers")
+    public long distinctNumbers;
+
+    @Label("Free Number")
+    public String freeNumber;
+}
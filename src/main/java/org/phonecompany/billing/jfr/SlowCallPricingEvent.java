@@ -0,0 +1,29 @@
+package org.phonecompany.billing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Pricing of a single call by {@link org.phonecompany.billing.CallPriceCalculator} that took longer than
+ * the threshold. Fields are only filled in when the event is actually committed. Only created while
+ * {@link BillingEvents#isEnabled()}.
+ */
+@Name("org.phonecompany.billing.SlowCallPricing")
+@Label("Slow Call Pricing")
+@Category({"Billing"})
+@Description("Pricing of one call exceeding the threshold")
+@Threshold("1 ms")
+@StackTrace(false)
+public class SlowCallPricingEvent extends Event {
+
+    @Label("Phone Number")
+    public String phoneNumber;
+
+    @Label("Call Minutes")
+    public long durationMinutes;
+}
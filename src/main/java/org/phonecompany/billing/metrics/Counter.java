@@ -0,0 +1,13 @@
+package org.phonecompany.billing.metrics;
+
+/**
+ * Monotonically increasing count.
+ */
+public interface Counter {
+
+    void add(long amount);
+
+    default void increment() {
+        add(1);
+    }
+}
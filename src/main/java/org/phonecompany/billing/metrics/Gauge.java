@@ -0,0 +1,9 @@
+package org.phonecompany.billing.metrics;
+
+/**
+ * Last reported value of a quantity that can go up and down.
+ */
+public interface Gauge {
+
+    void set(long value);
+}
@@ -0,0 +1,12 @@
+package org.phonecompany.billing.metrics;
+
+/**
+ * Distribution of recorded values, typically latencies in nanoseconds.
+ */
+public interface Histogram {
+
+    /**
+     * Records one value. Negative values are treated as zero.
+     */
+    void record(long value);
+}
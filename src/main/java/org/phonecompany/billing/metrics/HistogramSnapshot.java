@@ -0,0 +1,82 @@
+package org.phonecompany.billing.metrics;
+
+/**
+ * Point-in-time copy of a {@link LogLinearHistogram}.
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+
+    HistogramSnapshot(long[] counts) {
+        this.counts = counts;
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        this.count = total;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the value at the given quantile (0..1), or 0 if empty.
+     */
+    public long getValueAtQuantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * quantile));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return LogLinearHistogram.bucketUpperBound(i);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the upper bound of the highest non-empty bucket, or 0 if empty.
+     */
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return LogLinearHistogram.bucketUpperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Renders count, common percentiles and the non-empty buckets as JSON, with values divided by
+     * {@code unitDivisor} (e.g. 1000 to turn nanoseconds into microseconds).
+     */
+    public String toJson(long unitDivisor) {
+        StringBuilder json = new StringBuilder("{\"count\":").append(count);
+        json.append(",\"p50\":").append(getValueAtQuantile(0.50) / unitDivisor);
+        json.append(",\"p90\":").append(getValueAtQuantile(0.90) / unitDivisor);
+        json.append(",\"p99\":").append(getValueAtQuantile(0.99) / unitDivisor);
+        json.append(",\"p999\":").append(getValueAtQuantile(0.999) / unitDivisor);
+        json.append(",\"max\":").append(getMax() / unitDivisor);
+        json.append(",\"buckets\":[");
+
+        boolean first = true;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"upTo\":").append(LogLinearHistogram.bucketUpperBound(i) / unitDivisor)
+                    .append(",\"count\":").append(counts[i]).append('}');
+        }
+
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,90 @@
+package org.phonecompany.billing.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry keeping instruments in memory. Requesting the same name twice returns the same instrument; a name
+ * belongs to one kind of instrument, as exporters such as {@link JmxMetricsExporter} publish all kinds side by side.
+ * Thread-safe; counters use {@link LongAdder} so that many threads can update them without contention.
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, AdderCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicGauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LogLinearHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, String> kinds = new ConcurrentHashMap<>();
+
+    /**
+     * @throws IllegalArgumentException if the name is taken by a gauge or histogram
+     */
+    @Override
+    public Counter counter(String name) {
+        claim(name, "counter");
+        return counters.computeIfAbsent(name, key -> new AdderCounter());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name is taken by a counter or histogram
+     */
+    @Override
+    public Gauge gauge(String name) {
+        claim(name, "gauge");
+        return gauges.computeIfAbsent(name, key -> new AtomicGauge());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name is taken by a counter or gauge
+     */
+    @Override
+    public LogLinearHistogram histogram(String name) {
+        claim(name, "histogram");
+        return histograms.computeIfAbsent(name, key -> new LogLinearHistogram());
+    }
+
+    private void claim(String name, String kind) {
+        String existing = kinds.putIfAbsent(name, kind);
+        if (existing != null && !existing.equals(kind)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + existing);
+        }
+    }
+
+    /**
+     * Returns the current values, sorted by instrument name.
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.sum.sum()));
+
+        Map<String, Long> gaugeValues = new TreeMap<>();
+        gauges.forEach((name, gauge) -> gaugeValues.put(name, gauge.value.get()));
+
+        Map<String, HistogramSnapshot> histogramValues = new TreeMap<>();
+        histograms.forEach((name, histogram) -> histogramValues.put(name, histogram.snapshot()));
+
+        return new MetricsSnapshot(counterValues, gaugeValues, histogramValues);
+    }
+
+    private static final class AdderCounter implements Counter {
+
+        private final LongAdder sum = new LongAdder();
+
+        @Override
+        public void add(long amount) {
+            sum.add(amount);
+        }
+    }
+
+    private static final class AtomicGauge implements Gauge {
+
+        private final AtomicLong value = new AtomicLong();
+
+        @Override
+        public void set(long newValue) {
+            value.set(newValue);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.phonecompany.billing.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes an {@link InMemoryMetricsRegistry} as a read-only MBean.
+ * Counters and gauges appear as attributes named after the instrument; each histogram contributes
+ * {@code <name>.count}, {@code .p50}, {@code .p99} and {@code .max} attributes.
+ * Attributes are computed from a fresh snapshot on every read, so new instruments show up automatically.
+ */
+public class JmxMetricsExporter implements DynamicMBean {
+
+    private final InMemoryMetricsRegistry registry;
+
+    private JmxMetricsExporter(InMemoryMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Registers the registry with the platform MBean server.
+     *
+     * @param objectName e.g. {@code org.phonecompany.billing:type=Metrics}
+     */
+    public static ObjectName register(InMemoryMetricsRegistry registry, String objectName) throws JMException {
+        ObjectName name = new ObjectName(objectName);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new JmxMetricsExporter(registry), name);
+        return name;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Long value = attributes().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("No metric named " + attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        Map<String, Long> values = attributes();
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            if (values.containsKey(name)) {
+                list.add(new Attribute(name, values.get(name)));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> infos = new ArrayList<>();
+        for (String name : attributes().keySet()) {
+            infos.add(new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "Billing metrics",
+                infos.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "No operations available");
+    }
+
+    private Map<String, Long> attributes() {
+        MetricsSnapshot snapshot = registry.snapshot();
+        Map<String, Long> values = new LinkedHashMap<>();
+
+        values.putAll(snapshot.counters());
+        values.putAll(snapshot.gauges());
+        snapshot.histograms().forEach((name, histogram) -> {
+            values.put(name + ".count", histogram.getCount());
+            values.put(name + ".p50", histogram.getValueAtQuantile(0.50));
+            values.put(name + ".p99", histogram.getValueAtQuantile(0.99));
+            values.put(name + ".max", histogram.getMax());
+        });
+
+        return values;
+    }
+}
@@ -0,0 +1,22 @@
+package org.phonecompany.billing.metrics;
+
+/**
+ * Source of named instruments that billing components report into.
+ * Components look their instruments up once, at construction, so that recording is a plain method call
+ * without name lookups or allocation.
+ */
+public interface MetricsRegistry {
+
+    Counter counter(String name);
+
+    Gauge gauge(String name);
+
+    Histogram histogram(String name);
+
+    /**
+     * Returns the registry that discards everything, used when no metrics are configured.
+     */
+    static MetricsRegistry noop() {
+        return NoopMetricsRegistry.INSTANCE;
+    }
+}
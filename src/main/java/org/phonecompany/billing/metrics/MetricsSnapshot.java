@@ -0,0 +1,13 @@
+package org.phonecompany.billing.metrics;
+
+import java.util.Map;
+
+/**
+ * Point-in-time values of all instruments of an {@link InMemoryMetricsRegistry}, keyed by name.
+ */
+public record MetricsSnapshot(
+        Map<String, Long> counters,
+        Map<String, Long> gauges,
+        Map<String, HistogramSnapshot> histograms
+) {
+}
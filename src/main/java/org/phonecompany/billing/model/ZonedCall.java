@@ -0,0 +1,51 @@
+package org.phonecompany.billing.model;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * A phone call with zone-aware timestamps. Unlike {@link Call}, duration is measured between instants, so a call
+ * across a daylight saving change lasts as long as it really did.
+ * Immutable value object.
+ */
+public record ZonedCall(
+        PhoneNumber phoneNumber,
+        ZonedDateTime startTime,
+        ZonedDateTime endTime
+) {
+
+    public ZonedCall {
+        if (phoneNumber == null) {
+            throw new IllegalArgumentException("Phone number cannot be null");
+        }
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Start time and end time cannot be null");
+        }
+        if (endTime.toInstant().isBefore(startTime.toInstant())) {
+            throw new IllegalArgumentException("End time cannot be before start time");
+        }
+    }
+
+    /**
+     * Places a call with local timestamps in a zone. Times in a gap are moved forward by the length of the gap.
+     * Times in an overlap take the earlier offset, except that the end takes the later one when the call would
+     * otherwise end before it started.
+     */
+    public static ZonedCall of(Call call, ZoneId zone) {
+        ZonedDateTime start = ZonedDateTime.ofLocal(call.startTime(), zone, null);
+        ZonedDateTime end = ZonedDateTime.ofLocal(call.endTime(), zone, null);
+        if (end.toInstant().isBefore(start.toInstant())) {
+            end = end.withLaterOffsetAtOverlap();
+        }
+        return new ZonedCall(call.phoneNumber(), start, end);
+    }
+
+    /**
+     * Calculates the duration of the call in minutes (rounded up), from the elapsed time between the instants.
+     */
+    public long getDurationInMinutes() {
+        long seconds = endTime.toEpochSecond() - startTime.toEpochSecond();
+
+        return (seconds + 59) / 60;
+    }
+}
@@ -1,13 +1,24 @@
 package org.phonecompany.billing.parser;
 
+import org.phonecompany.billing.jfr.BillingEvents;
+import org.phonecompany.billing.jfr.ParseBatchEvent;
+import org.phonecompany.billing.metrics.Counter;
+import org.phonecompany.billing.metrics.Histogram;
+import org.phonecompany.billing.metrics.MetricsRegistry;
 import org.phonecompany.billing.model.Call;
 import org.phonecompany.billing.model.PhoneNumber;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Parses phone call logs in CSV format.
@@ -15,19 +26,34 @@ import java.util.List;
  * Date format: dd-MM-yyyy HH:mm:ss
  */
 public class CsvCallLogParser implements CallLogParser {
-    
-    private static final DateTimeFormatter DATE_FORMATTER = 
-        DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-    
+
+    private static final String DATE_PATTERN = "dd-MM-yyyy HH:mm:ss";
     private static final String CSV_DELIMITER = ",";
     private static final int EXPECTED_FIELDS = 3;
+
+    private final Counter linesParsed;
+    private final Histogram parseLatency;
+
+    /**
+     * @param metrics receives {@code parser.lines} (calls parsed) and {@code parser.batch.nanos} (time per log)
+     */
+    public CsvCallLogParser(MetricsRegistry metrics) {
+        this.linesParsed = metrics.counter("parser.lines");
+        this.parseLatency = metrics.histogram("parser.batch.nanos");
+    }
+
+    public CsvCallLogParser() {
+        this(MetricsRegistry.noop());
+    }
     
     @Override
     public List<Call> parse(String phoneLog) {
         if (phoneLog == null || phoneLog.isBlank()) {
             return List.of();
         }
-        
+
+        ParseBatchEvent event = beginEvent();
+        long start = System.nanoTime();
         List<Call> calls = new ArrayList<>();
         String[] lines = phoneLog.split("\\r?\\n");
         
@@ -47,11 +73,79 @@ public class CsvCallLogParser implements CallLogParser {
                 );
             }
         }
-        
+
+        parseLatency.record(System.nanoTime() - start);
+        commit(event, calls.size());
         return calls;
     }
-    
-    private Call parseLine(String line) {
+
+    /**
+     * Parses a phone log from a reader, handing each call to the consumer as soon as its line is read.
+     * Nothing but the current line is held in memory.
+     *
+     * @throws IllegalArgumentException if the log format is invalid
+     */
+    public void parse(Reader phoneLog, Consumer<Call> consumer) throws IOException {
+        BufferedReader reader = phoneLog instanceof BufferedReader buffered
+                ? buffered
+                : new BufferedReader(phoneLog);
+
+        ParseBatchEvent event = beginEvent();
+        long start = System.nanoTime();
+        String rawLine;
+        long lineNumber = 0;
+        long callCount = 0;
+
+        while ((rawLine = reader.readLine()) != null) {
+            lineNumber++;
+            String line = rawLine.trim();
+
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            Call call;
+            try {
+                call = parseLine(line);
+            } catch (Exception e) {
+                throw new IllegalArgumentException(
+                    "Failed to parse line " + lineNumber + ": " + line, e
+                );
+            }
+            consumer.accept(call);
+            callCount++;
+        }
+
+        parseLatency.record(System.nanoTime() - start);
+        commit(event, callCount);
+    }
+
+    private static ParseBatchEvent beginEvent() {
+        if (!BillingEvents.isEnabled()) {
+            return null;
+        }
+        ParseBatchEvent event = new ParseBatchEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void commit(ParseBatchEvent event, long callCount) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.lineCount = callCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Parses a single log line (without line terminator) into a call.
+     *
+     * @throws IllegalArgumentException if the line format is invalid
+     */
+    public Call parseLine(String line) {
         String[] fields = line.split(CSV_DELIMITER);
         
         if (fields.length != EXPECTED_FIELDS) {
@@ -67,18 +161,66 @@ public class CsvCallLogParser implements CallLogParser {
         PhoneNumber phoneNumber = new PhoneNumber(phoneNumberStr);
         LocalDateTime startTime = parseDateTime(startTimeStr);
         LocalDateTime endTime = parseDateTime(endTimeStr);
-        
-        return new Call(phoneNumber, startTime, endTime);
+
+        Call call = new Call(phoneNumber, startTime, endTime);
+        linesParsed.increment();
+        return call;
     }
     
     private LocalDateTime parseDateTime(String dateTimeStr) {
+        LocalDateTime exact = parseExactDateTime(dateTimeStr);
+        if (exact != null) {
+            return exact;
+        }
         try {
-            return LocalDateTime.parse(dateTimeStr, DATE_FORMATTER);
+            return LocalDateTime.parse(dateTimeStr, Formatter.DATE_FORMATTER);
         } catch (DateTimeParseException e) {
             throw new IllegalArgumentException(
                 "Invalid date format: " + dateTimeStr + 
-                ". Expected format: dd-MM-yyyy HH:mm:ss", e
+                ". Expected format: " + DATE_PATTERN, e
             );
         }
     }
+
+    /**
+     * Reads a date-time written exactly as {@value #DATE_PATTERN} with fields in range, which is every line of a
+     * well-formed log, without the formatter. Returns null for anything else, which the formatter then resolves or
+     * rejects as before; it is only built on first use, as it costs a short-lived process more than the billing.
+     */
+    private static LocalDateTime parseExactDateTime(String text) {
+        if (text.length() != DATE_PATTERN.length()
+                || text.charAt(2) != '-' || text.charAt(5) != '-'
+                || text.charAt(10) != ' ' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return null;
+        }
+        int day = twoDigits(text, 0);
+        int month = twoDigits(text, 3);
+        int century = twoDigits(text, 6);
+        int yearOfCentury = twoDigits(text, 8);
+        int hour = twoDigits(text, 11);
+        int minute = twoDigits(text, 14);
+        int second = twoDigits(text, 17);
+        if ((day | month | century | yearOfCentury | hour | minute | second) < 0) {
+            return null;
+        }
+        int year = century * 100 + yearOfCentury;
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))
+                || hour > 23 || minute > 59 || second > 59) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second);
+    }
+
+    private static int twoDigits(String text, int at) {
+        int high = text.charAt(at) - '0';
+        int low = text.charAt(at + 1) - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
+    }
+
+    private static final class Formatter {
+        private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_PATTERN);
+    }
 }
\ No newline at end of file
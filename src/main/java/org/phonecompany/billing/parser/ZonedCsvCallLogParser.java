@@ -0,0 +1,120 @@
+package org.phonecompany.billing.parser;
+
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.model.ZonedCall;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses phone call logs in CSV format into {@link ZonedCall}s of one zone.
+ * Expected format: phoneNumber,startTime,endTime
+ * Date format: dd-MM-yyyy HH:mm:ss, optionally followed by the UTC offset, e.g. {@code 27-10-2024 02:30:00+02:00}
+ * <p>
+ * Without an offset, times are resolved as by {@link ZonedCall#of(org.phonecompany.billing.model.Call, ZoneId)}:
+ * times in a gap move forward and times in an overlap take the earlier offset, or the later one for an end time
+ * that would otherwise come before the start. Exporters that can should write the offset, which removes the
+ * ambiguity of the repeated hour in autumn; an offset that the zone does not use at that time is rejected.
+ */
+public class ZonedCsvCallLogParser {
+
+    private static final DateTimeFormatter DATE_FORMATTER =
+        DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss[xxx]");
+
+    private static final String CSV_DELIMITER = ",";
+    private static final int EXPECTED_FIELDS = 3;
+
+    private final ZoneId zone;
+
+    public ZonedCsvCallLogParser(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the log format is invalid
+     */
+    public List<ZonedCall> parse(String phoneLog) {
+        if (phoneLog == null || phoneLog.isBlank()) {
+            return List.of();
+        }
+
+        List<ZonedCall> calls = new ArrayList<>();
+        String[] lines = phoneLog.split("\\r?\\n");
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            try {
+                calls.add(parseLine(line));
+            } catch (Exception e) {
+                throw new IllegalArgumentException(
+                    "Failed to parse line " + (i + 1) + ": " + line, e
+                );
+            }
+        }
+        return calls;
+    }
+
+    /**
+     * Parses a single log line (without line terminator) into a call.
+     *
+     * @throws IllegalArgumentException if the line format is invalid
+     */
+    public ZonedCall parseLine(String line) {
+        String[] fields = line.split(CSV_DELIMITER);
+
+        if (fields.length != EXPECTED_FIELDS) {
+            throw new IllegalArgumentException(
+                "Expected " + EXPECTED_FIELDS + " fields, but got " + fields.length
+            );
+        }
+
+        PhoneNumber phoneNumber = new PhoneNumber(fields[0].trim());
+        ZonedDateTime startTime = parseDateTime(fields[1].trim(), null);
+        ZonedDateTime endTime = parseDateTime(fields[2].trim(), startTime);
+        return new ZonedCall(phoneNumber, startTime, endTime);
+    }
+
+    /**
+     * @param notBefore start of the call when parsing its end, used to resolve an overlap; null for the start
+     */
+    private ZonedDateTime parseDateTime(String dateTimeStr, ZonedDateTime notBefore) {
+        TemporalAccessor parsed;
+        try {
+            parsed = DATE_FORMATTER.parse(dateTimeStr);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(
+                "Invalid date format: " + dateTimeStr +
+                ". Expected format: dd-MM-yyyy HH:mm:ss with an optional offset", e
+            );
+        }
+        LocalDateTime local = LocalDateTime.from(parsed);
+        ZoneOffset offset = parsed.query(TemporalQueries.offset());
+        if (offset == null) {
+            ZonedDateTime resolved = ZonedDateTime.ofLocal(local, zone, null);
+            return notBefore != null && resolved.isBefore(notBefore) ? resolved.withLaterOffsetAtOverlap() : resolved;
+        }
+        try {
+            return ZonedDateTime.ofStrict(local, offset, zone);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Offset " + offset + " is not used in " + zone + " at " + local, e);
+        }
+    }
+}
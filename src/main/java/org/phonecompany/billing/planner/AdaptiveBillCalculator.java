@@ -0,0 +1,368 @@
+package org.phonecompany.billing.planner;
+
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.TelephoneBillCalculator;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.ingest.OffsetLineReader;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Bill calculator that lets an {@link ExecutionPlanner} pick how each input is billed: sequentially, in parallel
+ * chunks or out-of-core. All strategies produce the same total as {@link TelephoneBillCalculatorImpl}.
+ * <p>
+ * Parallel chunks are billed on the common fork-join pool. Out-of-core runs write temporary partition files into
+ * the spill directory and delete them before returning, also on failure.
+ */
+public class AdaptiveBillCalculator implements TelephoneBillCalculator {
+
+    private static final int CHUNKS_PER_WORKER = 4;
+    static final int MAX_OPEN_SPILL_FILES = 64;
+
+    private final ExecutionPlanner planner;
+    private final CsvCallLogParser parser;
+    private final CallPriceCalculator priceCalculator;
+    private final TelephoneBillCalculatorImpl sequential;
+    private final Path spillDirectory;
+
+    public AdaptiveBillCalculator(
+            ExecutionPlanner planner,
+            CsvCallLogParser parser,
+            CallPriceCalculator priceCalculator,
+            Path spillDirectory) {
+        this.planner = planner;
+        this.parser = parser;
+        this.priceCalculator = priceCalculator;
+        this.sequential = new TelephoneBillCalculatorImpl(parser, priceCalculator, new MostCalledNumberPromotion());
+        this.spillDirectory = spillDirectory;
+    }
+
+    public AdaptiveBillCalculator() {
+        this(
+            ExecutionPlanner.withDefaults(),
+            new CsvCallLogParser(),
+            new CallPriceCalculator(),
+            Path.of(System.getProperty("java.io.tmpdir"))
+        );
+    }
+
+    /**
+     * @throws IllegalArgumentException if the log format is invalid
+     * @throws UncheckedIOException     if spilling to disk fails
+     */
+    @Override
+    public BigDecimal calculate(String phoneLog) {
+        ExecutionPlan plan = planner.plan(phoneLog);
+        return switch (plan.strategy()) {
+            case SEQUENTIAL -> sequential.calculate(phoneLog);
+            case PARALLEL -> billParallel(phoneLog, plan.workers() * CHUNKS_PER_WORKER).getTotal();
+            case OUT_OF_CORE -> {
+                try {
+                    yield billOutOfCore(plan, consumer -> parser.parse(new StringReader(phoneLog), consumer));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Bills a call log file without reading it into memory as a whole.
+     *
+     * @throws IllegalArgumentException if the log format is invalid
+     */
+    public BigDecimal calculate(Path phoneLog) throws IOException {
+        ExecutionPlan plan = planner.plan(phoneLog);
+        return switch (plan.strategy()) {
+            case SEQUENTIAL -> {
+                BillAccumulator bill = new BillAccumulator();
+                try (BufferedReader reader = Files.newBufferedReader(phoneLog)) {
+                    parser.parse(reader, call -> bill.add(call.phoneNumber(), priceCalculator.calculate(call)));
+                }
+                yield bill.getTotal();
+            }
+            case PARALLEL -> billParallel(phoneLog, plan.workers() * CHUNKS_PER_WORKER).getTotal();
+            case OUT_OF_CORE -> billOutOfCore(plan, consumer -> {
+                try (BufferedReader reader = Files.newBufferedReader(phoneLog)) {
+                    parser.parse(reader, consumer);
+                }
+            });
+        };
+    }
+
+    private BillAccumulator billParallel(String phoneLog, int chunks) {
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = phoneLog.length();
+        for (int i = 1; i < chunks; i++) {
+            int newline = phoneLog.indexOf('\n', Math.max(bounds[i - 1], (int) ((long) phoneLog.length() * i / chunks)));
+            bounds[i] = newline < 0 ? phoneLog.length() : newline + 1;
+        }
+
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    BillAccumulator bill = new BillAccumulator();
+                    int lineStart = bounds[chunk];
+                    while (lineStart < bounds[chunk + 1]) {
+                        int newline = phoneLog.indexOf('\n', lineStart);
+                        int lineEnd = newline < 0 ? phoneLog.length() : newline;
+                        billLine(bill, phoneLog.substring(lineStart, lineEnd), lineStart);
+                        lineStart = lineEnd + 1;
+                    }
+                    return bill;
+                })
+                .reduce(AdaptiveBillCalculator::merge)
+                .orElseGet(BillAccumulator::new);
+    }
+
+    private BillAccumulator billParallel(Path phoneLog, int chunks) throws IOException {
+        try (FileChannel channel = FileChannel.open(phoneLog, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = new long[chunks + 1];
+            bounds[chunks] = size;
+            for (int i = 1; i < chunks; i++) {
+                bounds[i] = nextLineStart(channel, Math.max(bounds[i - 1], size * i / chunks), size);
+            }
+
+            return IntStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        BillAccumulator bill = new BillAccumulator();
+                        try {
+                            new OffsetLineReader(true).read(channel, bounds[chunk], bounds[chunk + 1],
+                                    (line, lineStart, nextLine) -> billLine(bill, line, lineStart));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return bill;
+                    })
+                    .reduce(AdaptiveBillCalculator::merge)
+                    .orElseGet(BillAccumulator::new);
+        }
+    }
+
+    private void billLine(BillAccumulator bill, String rawLine, long lineStart) {
+        String line = rawLine.trim();
+        if (line.isEmpty()) {
+            return;
+        }
+        Call call;
+        try {
+            call = parser.parseLine(line);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to parse line at offset " + lineStart + ": " + line, e);
+        }
+        bill.add(call.phoneNumber(), priceCalculator.calculate(call));
+    }
+
+    private static BillAccumulator merge(BillAccumulator first, BillAccumulator second) {
+        first.addAll(second);
+        return first;
+    }
+
+    /**
+     * Returns the offset just past the first newline at or after {@code from}, or {@code size} if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Prices every call into one of the plan's partition files by number, then bills the partitions one at a time.
+     * A number's calls all land in the same partition, so each partition's most called number is a candidate for the
+     * free number; the winner among the candidates is the free number of the whole bill.
+     * <p>
+     * At most {@value #MAX_OPEN_SPILL_FILES} files are written at once. With more partitions, calls are first spilled
+     * by group of partitions, and each group is then split into its own partitions.
+     */
+    private BigDecimal billOutOfCore(ExecutionPlan plan, CallSource source) throws IOException {
+        int partitions = plan.spillPartitions();
+        int groups = Math.min(partitions, MAX_OPEN_SPILL_FILES);
+        Path directory = Files.createTempDirectory(spillDirectory, "bill-spill-");
+        try {
+            SpillFile[] groupFiles = spill(directory, "group-", groups, writer -> source.forEach(call -> {
+                String number = call.phoneNumber().value();
+                long haler = priceCalculator.calculate(call).movePointRight(2).longValueExact();
+                writer.write(Math.floorMod(number.hashCode(), partitions) % groups, number, haler);
+            }));
+
+            FreeNumberMerge bill = new FreeNumberMerge();
+            for (int group = 0; group < groups; group++) {
+                SpillFile groupFile = groupFiles[group];
+                if (groups == partitions) {
+                    bill.add(groupFile.read());
+                } else {
+                    // partitions group, group + groups, group + 2 * groups, ...
+                    int split = (partitions - group + groups - 1) / groups;
+                    SpillFile[] partitionFiles = spill(directory, "partition-" + group + "-", split,
+                            writer -> groupFile.forEach((number, haler) ->
+                                    writer.write(Math.floorMod(number.hashCode(), partitions) / groups, number, haler)));
+                    for (SpillFile partitionFile : partitionFiles) {
+                        bill.add(partitionFile.read());
+                        Files.delete(partitionFile.path);
+                    }
+                }
+                Files.delete(groupFile.path);
+            }
+            return bill.total;
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Writes the records of the source into {@code count} new files, closing them all before returning.
+     */
+    private static SpillFile[] spill(Path directory, String prefix, int count, SpillSource source) throws IOException {
+        SpillFile[] files = new SpillFile[count];
+        DataOutputStream[] outputs = new DataOutputStream[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                files[i] = new SpillFile(directory.resolve(prefix + i));
+                outputs[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(files[i].path)));
+            }
+            source.forEach((file, number, haler) -> {
+                try {
+                    outputs[file].writeUTF(number);
+                    outputs[file].writeLong(haler);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                files[file].calls++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (DataOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Bill total over partitions billed one after another, with the free number chosen among their candidates.
+     */
+    private static final class FreeNumberMerge {
+
+        private BigDecimal total = BigDecimal.ZERO;
+        private PhoneNumber freeNumber;
+        private long freeCalls;
+        private BigDecimal freeSubtotal = BigDecimal.ZERO;
+
+        void add(BillAccumulator partition) {
+            PhoneNumber candidate = partition.getFreePhoneNumber().orElse(null);
+            if (candidate == null) {
+                return;
+            }
+            total = total.add(partition.getTotal());
+            BillAccumulator.NumberSubtotal subtotal = partition.getSubtotal(candidate).orElseThrow();
+            if (freeNumber == null
+                    || subtotal.calls() > freeCalls
+                    || (subtotal.calls() == freeCalls && candidate.compareTo(freeNumber) > 0)) {
+                if (freeNumber != null) {
+                    total = total.add(freeSubtotal);
+                }
+                freeNumber = candidate;
+                freeCalls = subtotal.calls();
+                freeSubtotal = subtotal.subtotal();
+            } else {
+                total = total.add(subtotal.subtotal());
+            }
+        }
+    }
+
+    /**
+     * Spilled calls, as number and price in haléř.
+     */
+    private static final class SpillFile {
+
+        private final Path path;
+        private long calls;
+
+        private SpillFile(Path path) {
+            this.path = path;
+        }
+
+        void forEach(ObjLongConsumer<String> consumer) throws IOException {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                for (long i = 0; i < calls; i++) {
+                    String number = input.readUTF();
+                    consumer.accept(number, input.readLong());
+                }
+            }
+        }
+
+        BillAccumulator read() throws IOException {
+            BillAccumulator bill = new BillAccumulator();
+            forEach((number, haler) ->
+                    bill.add(new PhoneNumber(number), haler == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(haler, 2)));
+            return bill;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SpillWriter {
+
+        void write(int file, String number, long haler);
+    }
+
+    @FunctionalInterface
+    private interface SpillSource {
+
+        void forEach(SpillWriter writer) throws IOException;
+    }
+
+    /**
+     * Streams the calls of one input.
+     */
+    @FunctionalInterface
+    private interface CallSource {
+
+        void forEach(Consumer<Call> consumer) throws IOException;
+    }
+}
@@ -0,0 +1,22 @@
+package org.phonecompany.billing.planner;
+
+/**
+ * Decision of an {@link ExecutionPlanner} for one input, with the estimates it was based on.
+ *
+ * @param inputBytes       size of the input (characters for a string)
+ * @param estimatedLines   calls in the input, exact if the whole input fit in the sample
+ * @param estimatedNumbers distinct called numbers, extrapolated from the sample (an upper bound in practice)
+ * @param workers          threads to bill with, 1 unless parallel
+ * @param spillPartitions  partitions to spill to, 0 unless out-of-core
+ * @param reason           why the strategy was chosen, for logs
+ */
+public record ExecutionPlan(
+        ExecutionStrategy strategy,
+        long inputBytes,
+        long estimatedLines,
+        long estimatedNumbers,
+        int workers,
+        int spillPartitions,
+        String reason
+) {
+}
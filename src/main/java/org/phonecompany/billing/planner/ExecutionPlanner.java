@@ -0,0 +1,216 @@
+package org.phonecompany.billing.planner;
+
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Chooses an {@link ExecutionStrategy} for an input from its size, a sample of its first lines, the available cores
+ * and a heap budget, so that callers need not know whether a log is 10 lines or 10 GB.
+ * <p>
+ * The rules, in order:
+ * <ol>
+ *     <li>{@link ExecutionStrategy#OUT_OF_CORE} if the estimated per-number state (distinct numbers times
+ *     {@link PlannerCalibration#bytesPerNumber()}) exceeds the heap budget;</li>
+ *     <li>{@link ExecutionStrategy#PARALLEL} if there is more than one core and the input is at least
+ *     {@link #getParallelThresholdBytes()}, the size at which single-threaded billing takes
+ *     {@value #PARALLEL_PAYBACK} times the fan-out overhead;</li>
+ *     <li>{@link ExecutionStrategy#SEQUENTIAL} otherwise.</li>
+ * </ol>
+ * Line and number counts come from the first {@value #SAMPLE_BYTES} bytes. Lines are extrapolated to the whole input
+ * in proportion to its size; distinct numbers are not, as a log of a few subscribers shows all of them early and then
+ * only repeats them. They are estimated with the bias-corrected Chao1 estimator from how many numbers the sample holds
+ * once and twice, between the numbers sampled and the estimated lines.
+ * A planner created {@link #withOverride(ExecutionStrategy) with an override} still estimates and logs, but always
+ * returns the overriding strategy. Every decision is logged at {@code DEBUG} to the {@code System.Logger} named after
+ * this class. Instances are immutable and thread-safe.
+ */
+public class ExecutionPlanner {
+
+    static final int SAMPLE_BYTES = 64 * 1024;
+    static final long MIN_PARALLEL_BYTES = 64 * 1024;
+    static final int PARALLEL_PAYBACK = 8;
+    static final int MAX_SPILL_PARTITIONS = 1024;
+
+    private static final System.Logger LOGGER = System.getLogger(ExecutionPlanner.class.getName());
+
+    private final PlannerCalibration calibration;
+    private final int cores;
+    private final long heapBudgetBytes;
+    private final long parallelThresholdBytes;
+    private final ExecutionStrategy override;
+
+    /**
+     * @param cores           threads available for billing
+     * @param heapBudgetBytes heap one bill may use for per-number state before spilling to disk
+     */
+    public ExecutionPlanner(PlannerCalibration calibration, int cores, long heapBudgetBytes) {
+        this(calibration, cores, heapBudgetBytes, null);
+    }
+
+    private ExecutionPlanner(PlannerCalibration calibration, int cores, long heapBudgetBytes, ExecutionStrategy override) {
+        if (cores < 1) {
+            throw new IllegalArgumentException("Core count must be positive: " + cores);
+        }
+        if (heapBudgetBytes < 1) {
+            throw new IllegalArgumentException("Heap budget must be positive: " + heapBudgetBytes);
+        }
+        this.calibration = calibration;
+        this.cores = cores;
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.parallelThresholdBytes = Math.max(
+            MIN_PARALLEL_BYTES,
+            (long) Math.ceil(PARALLEL_PAYBACK * calibration.parallelOverheadNanos() / calibration.nanosPerByte())
+        );
+        this.override = override;
+    }
+
+    /**
+     * Returns a planner for this JVM with the {@link PlannerCalibration#DEFAULT} costs, all available processors and a
+     * quarter of the maximum heap as the budget. It does not measure this machine: probing is opt-in, by passing
+     * {@link PlannerCalibration#probe()} to the constructor once, off the billing path.
+     */
+    public static ExecutionPlanner withDefaults() {
+        return Defaults.INSTANCE;
+    }
+
+    /**
+     * Returns a planner that always chooses the given strategy, or plans normally again for null.
+     */
+    public ExecutionPlanner withOverride(ExecutionStrategy strategy) {
+        return new ExecutionPlanner(calibration, cores, heapBudgetBytes, strategy);
+    }
+
+    public long getParallelThresholdBytes() {
+        return parallelThresholdBytes;
+    }
+
+    public ExecutionPlan plan(String phoneLog) {
+        if (phoneLog == null) {
+            return plan(0, 0, 0);
+        }
+        boolean complete = phoneLog.length() <= SAMPLE_BYTES;
+        String sample = complete ? phoneLog : phoneLog.substring(0, SAMPLE_BYTES);
+        return plan(phoneLog.length(), sample, complete);
+    }
+
+    public ExecutionPlan plan(Path phoneLog) throws IOException {
+        try (FileChannel channel = FileChannel.open(phoneLog, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, SAMPLE_BYTES));
+            while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+                // keep reading until the sample is full
+            }
+            boolean complete = size <= SAMPLE_BYTES;
+            return plan(size, new String(head.array(), 0, head.position(), StandardCharsets.UTF_8), complete);
+        }
+    }
+
+    private ExecutionPlan plan(long inputBytes, String sample, boolean complete) {
+        // An incomplete sample ends mid-line; count only the lines it holds entirely.
+        int sampled = complete ? sample.length() : sample.lastIndexOf('\n') + 1;
+        long lines = 0;
+        Map<String, Integer> numbers = new HashMap<>();
+        int lineStart = 0;
+        while (lineStart < sampled) {
+            int newline = sample.indexOf('\n', lineStart);
+            int lineEnd = newline < 0 || newline >= sampled ? sampled : newline;
+            String line = sample.substring(lineStart, lineEnd).trim();
+            if (!line.isEmpty()) {
+                lines++;
+                int comma = line.indexOf(',');
+                numbers.merge(comma < 0 ? line : line.substring(0, comma).trim(), 1, Integer::sum);
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        if (complete) {
+            return plan(inputBytes, lines, numbers.size());
+        }
+        if (sampled == 0) {
+            // A single line longer than the sample: too odd to extrapolate from.
+            return plan(inputBytes, 1, 1);
+        }
+        long estimatedLines = (long) Math.ceil(lines * ((double) inputBytes / sampled));
+        return plan(inputBytes, estimatedLines, estimateNumbers(numbers, estimatedLines));
+    }
+
+    /**
+     * Chao1 estimate of the distinct numbers in the whole input: the sampled ones plus f1(f1 - 1) / 2(f2 + 1) unseen,
+     * where f1 and f2 count the numbers sampled once and twice. A saturated sample, whose numbers all repeat, adds
+     * none; a sample of singletons adds up to the estimated lines.
+     */
+    static long estimateNumbers(Map<String, Integer> sampleCounts, long estimatedLines) {
+        long once = 0;
+        long twice = 0;
+        for (int count : sampleCounts.values()) {
+            if (count == 1) {
+                once++;
+            } else if (count == 2) {
+                twice++;
+            }
+        }
+        long sampled = sampleCounts.size();
+        double unseen = once * (once - 1) / (2.0 * (twice + 1));
+        return Math.max(sampled, Math.min(estimatedLines, (long) Math.ceil(sampled + unseen)));
+    }
+
+    /**
+     * Decides from already estimated input properties.
+     */
+    ExecutionPlan plan(long inputBytes, long estimatedLines, long estimatedNumbers) {
+        long numberStateBytes = estimatedNumbers * calibration.bytesPerNumber();
+        ExecutionStrategy strategy;
+        String reason;
+        if (numberStateBytes > heapBudgetBytes) {
+            strategy = ExecutionStrategy.OUT_OF_CORE;
+            reason = "estimated per-number state of " + numberStateBytes + " B exceeds the heap budget of "
+                    + heapBudgetBytes + " B";
+        } else if (cores > 1 && inputBytes >= parallelThresholdBytes) {
+            strategy = ExecutionStrategy.PARALLEL;
+            reason = "input of " + inputBytes + " B reaches the parallel threshold of " + parallelThresholdBytes + " B";
+        } else {
+            strategy = ExecutionStrategy.SEQUENTIAL;
+            reason = cores > 1
+                    ? "input of " + inputBytes + " B is below the parallel threshold of " + parallelThresholdBytes + " B"
+                    : "only one core";
+        }
+        if (override != null && override != strategy) {
+            reason = "overridden, planned " + strategy + " because " + reason;
+            strategy = override;
+        }
+
+        int partitions = 0;
+        if (strategy == ExecutionStrategy.OUT_OF_CORE) {
+            long needed = 2 * Math.ceilDiv(Math.max(numberStateBytes, 1), heapBudgetBytes);
+            partitions = (int) Math.max(2, Math.min(needed, MAX_SPILL_PARTITIONS));
+        }
+        ExecutionPlan plan = new ExecutionPlan(
+            strategy,
+            inputBytes,
+            estimatedLines,
+            estimatedNumbers,
+            strategy == ExecutionStrategy.PARALLEL ? cores : 1,
+            partitions,
+            reason
+        );
+        LOGGER.log(Level.DEBUG, () -> "Billing " + plan.inputBytes() + " B " + plan.strategy()
+                + " (~" + plan.estimatedLines() + " calls, ~" + plan.estimatedNumbers() + " numbers): " + plan.reason());
+        return plan;
+    }
+
+    private static final class Defaults {
+
+        private static final ExecutionPlanner INSTANCE = new ExecutionPlanner(
+            PlannerCalibration.DEFAULT,
+            Runtime.getRuntime().availableProcessors(),
+            Runtime.getRuntime().maxMemory() / 4
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package org.phonecompany.billing.planner;
+
+/**
+ * How {@link AdaptiveBillCalculator} bills one input.
+ */
+public enum ExecutionStrategy {
+
+    /**
+     * One thread, the plain {@link org.phonecompany.billing.TelephoneBillCalculatorImpl} path. Cheapest for small
+     * inputs, where splitting work costs more than it saves.
+     */
+    SEQUENTIAL,
+
+    /**
+     * The input is split at line boundaries into chunks billed on all cores, each into its own
+     * {@link org.phonecompany.billing.BillAccumulator}, and the chunks are merged.
+     */
+    PARALLEL,
+
+    /**
+     * Priced calls are spilled to disk in partitions by number, and the partitions are billed one at a time, so that
+     * only one partition's per-number state is in memory at once. For inputs with more distinct numbers than the heap
+     * budget holds.
+     */
+    OUT_OF_CORE
+}
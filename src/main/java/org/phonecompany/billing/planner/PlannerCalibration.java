@@ -0,0 +1,143 @@
+package org.phonecompany.billing.planner;
+
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Machine-specific costs that {@link ExecutionPlanner} derives its thresholds from.
+ *
+ * @param nanosPerByte          time to parse, price and accumulate one byte of call log on one thread
+ * @param parallelOverheadNanos time to fan out to all cores and merge the results, excluding the work itself
+ * @param bytesPerNumber        heap retained per distinct number in a {@link BillAccumulator}
+ */
+public record PlannerCalibration(double nanosPerByte, long parallelOverheadNanos, long bytesPerNumber) {
+
+    static final long DEFAULT_BYTES_PER_NUMBER = 256;
+
+    /**
+     * Costs of compiled code on a current server core: about 15 ns to bill a byte of log and 50 µs to fan out to
+     * the common pool and merge. Used where a probe would cost more than it saves, such as the first bill of a
+     * process, whose billing code is not compiled yet.
+     */
+    public static final PlannerCalibration DEFAULT = new PlannerCalibration(15.0, 50_000, DEFAULT_BYTES_PER_NUMBER);
+
+    private static final int PROBE_LINES = 256;
+    private static final int PROBE_NUMBERS = 4096;
+    private static final int MAX_ROUNDS = 8;
+    private static final long ROUND_BUDGET_NANOS = 25_000_000;
+    /** Calls billed before timing, enough for the JIT to compile the parse and price loops. */
+    private static final int WARMUP_CALLS = 64 * 1024;
+    private static final int WARMUP_FAN_OUTS = 64;
+    private static final long WARMUP_BUDGET_NANOS = 500_000_000;
+
+    private static volatile Object sink;
+
+    public PlannerCalibration {
+        if (!(nanosPerByte > 0) || parallelOverheadNanos < 0 || bytesPerNumber < 1) {
+            throw new IllegalArgumentException(
+                "Invalid calibration: " + nanosPerByte + " ns/B, " + parallelOverheadNanos + " ns, " + bytesPerNumber + " B"
+            );
+        }
+    }
+
+    /**
+     * Measures this machine with a short micro-probe: the best of a few rounds of billing a small generated log,
+     * of an empty parallel fan-out, and the allocation of a bill with many numbers. Billing and fan-out are first
+     * run untimed, for {@value #WARMUP_CALLS} calls and {@value #WARMUP_FAN_OUTS} fan-outs or at most
+     * {@value #WARMUP_BUDGET_NANOS} ns, so that the rounds time compiled code as a long-running billing process runs
+     * it; cold code would overstate the per-byte cost several times and pin the threshold to
+     * {@link ExecutionPlanner#MIN_PARALLEL_BYTES}. Heap per number falls back to {@value #DEFAULT_BYTES_PER_NUMBER}
+     * bytes where allocation cannot be measured.
+     * <p>
+     * The warm-up makes this take up to about half a second, so call it once, off the billing path.
+     */
+    public static PlannerCalibration probe() {
+        StringBuilder log = new StringBuilder(PROBE_LINES * 56);
+        for (int i = 0; i < PROBE_LINES; i++) {
+            log.append(String.format(Locale.ROOT, "420774%06d,%02d-01-2020 %02d:%02d:15,%02d-01-2020 %02d:%02d:57%n",
+                    i % 256, 1 + i % 28, i % 24, i % 50, 1 + i % 28, i % 24, i % 50 + i % 9));
+        }
+        String phoneLog = log.toString();
+        CsvCallLogParser parser = new CsvCallLogParser();
+        CallPriceCalculator pricer = new CallPriceCalculator();
+
+        Supplier<Object> billRound = () -> {
+            BillAccumulator bill = new BillAccumulator();
+            for (Call call : parser.parse(phoneLog)) {
+                bill.add(call.phoneNumber(), pricer.calculate(call));
+            }
+            return bill;
+        };
+        int cores = Runtime.getRuntime().availableProcessors();
+        Supplier<Object> fanOutRound = () -> IntStream.range(0, cores * 4)
+                .parallel()
+                .mapToObj(i -> new BillAccumulator())
+                .reduce(new BillAccumulator(), (a, b) -> a);
+
+        long warmupDeadline = System.nanoTime() + WARMUP_BUDGET_NANOS;
+        warmUp(billRound, WARMUP_CALLS / PROBE_LINES, warmupDeadline);
+        warmUp(fanOutRound, WARMUP_FAN_OUTS, warmupDeadline);
+        long billNanos = best(billRound);
+        long fanOutNanos = best(fanOutRound);
+
+        return new PlannerCalibration(
+            Math.max((double) billNanos / phoneLog.length(), Double.MIN_NORMAL),
+            fanOutNanos,
+            measureBytesPerNumber()
+        );
+    }
+
+    private static void warmUp(Supplier<Object> round, int rounds, long deadline) {
+        for (int i = 0; i < rounds && System.nanoTime() - deadline < 0; i++) {
+            sink = round.get();
+        }
+        sink = null;
+    }
+
+    /**
+     * Returns the fastest of up to {@value #MAX_ROUNDS} rounds, ignoring the first, stopping early once the rounds
+     * have taken {@value #ROUND_BUDGET_NANOS} ns together.
+     */
+    private static long best(Supplier<Object> round) {
+        long best = Long.MAX_VALUE;
+        long spent = 0;
+        for (int i = 0; i < MAX_ROUNDS && (i < 2 || spent < ROUND_BUDGET_NANOS); i++) {
+            long start = System.nanoTime();
+            sink = round.get();
+            long elapsed = System.nanoTime() - start;
+            spent += elapsed;
+            if (i > 0) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        sink = null;
+        return Math.max(best, 1);
+    }
+
+    private static long measureBytesPerNumber() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()
+                || !threads.isThreadAllocatedMemoryEnabled()) {
+            return DEFAULT_BYTES_PER_NUMBER;
+        }
+        BigDecimal price = new BigDecimal("1.50");
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        BillAccumulator bill = new BillAccumulator();
+        for (int i = 0; i < PROBE_NUMBERS; i++) {
+            bill.add(new PhoneNumber(String.valueOf(420_774_000_000L + i)), price);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        sink = bill;
+        return Math.max(allocated / PROBE_NUMBERS, 1);
+    }
+}
@@ -1,33 +1,117 @@
 package org.phonecompany.billing.promotion;
 
+import org.phonecompany.billing.jfr.BillingEvents;
+import org.phonecompany.billing.jfr.PromotionEvaluationEvent;
+import org.phonecompany.billing.metrics.Gauge;
+import org.phonecompany.billing.metrics.Histogram;
+import org.phonecompany.billing.metrics.MetricsRegistry;
 import org.phonecompany.billing.model.Call;
 import org.phonecompany.billing.model.PhoneNumber;
 
 import java.util.*;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 /**
  * Promotion that makes calls to the most frequently called number free.
  */
 public class MostCalledNumberPromotion implements FreePromotionStrategy {
+
+    private final Histogram evaluationLatency;
+    private final Gauge distinctNumbers;
+
+    /**
+     * @param metrics receives {@code promotion.evaluate.nanos} (time per evaluation)
+     *                and {@code promotion.distinctNumbers} (numbers seen by the last evaluation)
+     */
+    public MostCalledNumberPromotion(MetricsRegistry metrics) {
+        this.evaluationLatency = metrics.histogram("promotion.evaluate.nanos");
+        this.distinctNumbers = metrics.gauge("promotion.distinctNumbers");
+    }
+
+    public MostCalledNumberPromotion() {
+        this(MetricsRegistry.noop());
+    }
     
     @Override
     public Optional<PhoneNumber> getFreePhoneNumber(List<Call> calls) {
         if (calls == null || calls.isEmpty()) {
             return Optional.empty();
         }
-        
+
+        PromotionEvaluationEvent event = beginEvent();
+        long start = System.nanoTime();
         Map<PhoneNumber, Long> callCounts = countCallsByPhoneNumber(calls);
+        distinctNumbers.set(callCounts.size());
         
         if (callCounts.isEmpty()) {
             return Optional.empty();
         }
         
         long maxCount = findMaxCallCount(callCounts);
-        
-        return findHighestPhoneNumberWithCount(callCounts, maxCount);
+        Optional<PhoneNumber> freeNumber = findHighestPhoneNumberWithCount(callCounts, maxCount);
+
+        evaluationLatency.record(System.nanoTime() - start);
+        commit(event, calls.size(), callCounts.size(), freeNumber.orElse(null));
+        return freeNumber;
     }
     
+    /**
+     * Same rule for calls already counted by a dense number id, as {@code callCounts[id]} calls to
+     * {@code phoneNumbers.apply(id)}, for stores that never materialize the calls. Ids without calls are ignored.
+     */
+    public Optional<PhoneNumber> getFreePhoneNumber(long[] callCounts, IntFunction<PhoneNumber> phoneNumbers) {
+        PromotionEvaluationEvent event = beginEvent();
+        long start = System.nanoTime();
+        PhoneNumber freeNumber = null;
+        long maxCount = 0;
+        long callCount = 0;
+        int numbers = 0;
+        for (int id = 0; id < callCounts.length; id++) {
+            long count = callCounts[id];
+            if (count == 0) {
+                continue;
+            }
+            PhoneNumber number = phoneNumbers.apply(id);
+            if (freeNumber == null || count > maxCount || (count == maxCount && number.compareTo(freeNumber) > 0)) {
+                freeNumber = number;
+                maxCount = count;
+            }
+            callCount += count;
+            numbers++;
+        }
+        if (freeNumber == null) {
+            return Optional.empty();
+        }
+        distinctNumbers.set(numbers);
+
+        evaluationLatency.record(System.nanoTime() - start);
+        commit(event, callCount, numbers, freeNumber);
+        return Optional.of(freeNumber);
+    }
+
+    private static PromotionEvaluationEvent beginEvent() {
+        if (!BillingEvents.isEnabled()) {
+            return null;
+        }
+        PromotionEvaluationEvent event = new PromotionEvaluationEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void commit(PromotionEvaluationEvent event, long callCount, long distinctNumbers, PhoneNumber freeNumber) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.callCount = callCount;
+            event.distinctNumbers = distinctNumbers;
+            event.freeNumber = freeNumber == null ? null : freeNumber.value();
+            event.commit();
+        }
+    }
+
     /**
      * Counts the number of calls for each phone number.
      */
@@ -0,0 +1,44 @@
+package org.phonecompany.billing.rerate;
+
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Correction of one subscriber's bill for the re-rated period.
+ *
+ * @param subscriber    subscriber the bill belongs to
+ * @param oldTotal      total as billed under the old configuration
+ * @param newTotal      total under the new configuration
+ * @param oldFreeNumber number made free under the old configuration, or null
+ * @param newFreeNumber number made free under the new configuration, or null
+ * @param callsRepriced calls whose rates differ between the configurations and were priced twice
+ */
+public record CorrectionDelta(
+        String subscriber,
+        BigDecimal oldTotal,
+        BigDecimal newTotal,
+        PhoneNumber oldFreeNumber,
+        PhoneNumber newFreeNumber,
+        long callsRepriced
+) {
+
+    /**
+     * @return amount to charge (positive) or refund (negative)
+     */
+    public BigDecimal delta() {
+        return newTotal.subtract(oldTotal);
+    }
+
+    public boolean isFreeNumberChanged() {
+        return !Objects.equals(oldFreeNumber, newFreeNumber);
+    }
+
+    /**
+     * @return whether the bill needs correcting at all
+     */
+    public boolean isCorrection() {
+        return delta().signum() != 0 || isFreeNumberChanged();
+    }
+}
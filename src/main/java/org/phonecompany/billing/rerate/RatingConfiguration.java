@@ -0,0 +1,26 @@
+package org.phonecompany.billing.rerate;
+
+import org.phonecompany.billing.promotion.FreePromotionStrategy;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+import org.phonecompany.billing.tariff.Tariff;
+import org.phonecompany.billing.tariff.TariffSchedule;
+
+import java.util.Objects;
+
+/**
+ * Everything that decides what a bill costs: the tariffs in force over time and the promotion.
+ */
+public record RatingConfiguration(TariffSchedule tariffs, FreePromotionStrategy promotion) {
+
+    public RatingConfiguration {
+        Objects.requireNonNull(tariffs, "tariffs");
+        Objects.requireNonNull(promotion, "promotion");
+    }
+
+    /**
+     * @return the standard tariff at all times with the most-called-number promotion
+     */
+    public static RatingConfiguration standard() {
+        return new RatingConfiguration(TariffSchedule.constant(Tariff.STANDARD), new MostCalledNumberPromotion());
+    }
+}
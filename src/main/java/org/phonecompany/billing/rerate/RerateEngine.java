@@ -0,0 +1,228 @@
+package org.phonecompany.billing.rerate;
+
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.tariff.ScheduledCallPriceCalculator;
+import org.phonecompany.billing.tariff.Tariff;
+import org.phonecompany.billing.tariff.TariffSchedule;
+import org.phonecompany.billing.tariff.TariffVersion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Re-rates past bills after a tariff or promotion change and reports what each subscriber is owed or owes.
+ * <p>
+ * Each log is read once. Calls starting in {@code [from, to)} are priced under the old configuration; a call is
+ * priced again under the new one only if one of its minutes starts while the two schedules have different
+ * tariffs in force. Those differing periods are worked out once, up front, from the two schedules' changeovers,
+ * so checking a call is a binary search. Both promotions are then evaluated on the period's calls, which catches
+ * a changed free-number winner even when no rate changed.
+ */
+public class RerateEngine {
+
+    private static final long SECONDS_PER_MINUTE = 60;
+
+    private final RatingConfiguration oldConfiguration;
+    private final RatingConfiguration newConfiguration;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final CsvCallLogParser parser;
+
+    private final CallPriceCalculator oldPricer;
+    private final CallPriceCalculator newPricer;
+
+    /** Disjoint, sorted {@code [start, end)} epoch-second intervals where the schedules' tariffs differ. */
+    private final long[] differenceStarts;
+    private final long[] differenceEnds;
+
+    public RerateEngine(
+            RatingConfiguration oldConfiguration,
+            RatingConfiguration newConfiguration,
+            LocalDateTime from,
+            LocalDateTime to,
+            CsvCallLogParser parser) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Empty re-rating period: " + from + " to " + to);
+        }
+        this.oldConfiguration = oldConfiguration;
+        this.newConfiguration = newConfiguration;
+        this.from = from;
+        this.to = to;
+        this.parser = parser;
+        this.oldPricer = new ScheduledCallPriceCalculator(oldConfiguration.tariffs());
+        this.newPricer = new ScheduledCallPriceCalculator(newConfiguration.tariffs());
+
+        List<long[]> differences = differences(oldConfiguration.tariffs(), newConfiguration.tariffs());
+        this.differenceStarts = differences.stream().mapToLong(interval -> interval[0]).toArray();
+        this.differenceEnds = differences.stream().mapToLong(interval -> interval[1]).toArray();
+    }
+
+    public RerateEngine(RatingConfiguration oldConfiguration, RatingConfiguration newConfiguration, LocalDateTime from, LocalDateTime to) {
+        this(oldConfiguration, newConfiguration, from, to, new CsvCallLogParser());
+    }
+
+    /**
+     * Re-rates every subscriber's log.
+     *
+     * @param logsBySubscriber call logs keyed by subscriber, in the order corrections should be reported
+     */
+    public RerateReport rerate(Map<String, String> logsBySubscriber) {
+        List<CorrectionDelta> corrections = new ArrayList<>();
+        long callsInRange = 0;
+        long callsRepriced = 0;
+
+        for (Map.Entry<String, String> entry : logsBySubscriber.entrySet()) {
+            Rerate rerate = new Rerate();
+            try {
+                parser.parse(new StringReader(entry.getValue()), rerate::accept);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            CorrectionDelta delta = rerate.finish(entry.getKey());
+            callsInRange += rerate.calls.size();
+            callsRepriced += delta.callsRepriced();
+            if (delta.isCorrection()) {
+                corrections.add(delta);
+            }
+        }
+        return new RerateReport(corrections, logsBySubscriber.size(), callsInRange, callsRepriced);
+    }
+
+    /**
+     * Re-rates one subscriber's log, streaming it from the reader.
+     */
+    public CorrectionDelta rerate(String subscriber, Reader log) throws IOException {
+        Rerate rerate = new Rerate();
+        parser.parse(log, rerate::accept);
+        return rerate.finish(subscriber);
+    }
+
+    /**
+     * @return whether some minute of the call starts while the old and new tariffs differ
+     */
+    boolean isAffected(Call call) {
+        long minutes = call.getDurationInMinutes();
+        if (minutes == 0 || differenceStarts.length == 0) {
+            return false;
+        }
+        long firstMinuteStart = toEpochSecond(call.startTime());
+        long lastMinuteStart = firstMinuteStart + (minutes - 1) * SECONDS_PER_MINUTE;
+
+        // The last interval starting at or before the last minute is the only one that can overlap.
+        int low = 0;
+        int high = differenceStarts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (differenceStarts[mid] <= lastMinuteStart) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low > 0 && differenceEnds[low - 1] > firstMinuteStart;
+    }
+
+    private final class Rerate {
+
+        private final List<Call> calls = new ArrayList<>();
+        private final Map<PhoneNumber, BigDecimal> oldSubtotals = new HashMap<>();
+        private final Map<PhoneNumber, BigDecimal> newSubtotals = new HashMap<>();
+        private long repriced;
+
+        void accept(Call call) {
+            if (call.startTime().isBefore(from) || !call.startTime().isBefore(to)) {
+                return;
+            }
+            calls.add(call);
+
+            BigDecimal oldPrice = oldPricer.calculate(call);
+            BigDecimal newPrice = oldPrice;
+            if (isAffected(call)) {
+                newPrice = newPricer.calculate(call);
+                repriced++;
+            }
+            oldSubtotals.merge(call.phoneNumber(), oldPrice, BigDecimal::add);
+            newSubtotals.merge(call.phoneNumber(), newPrice, BigDecimal::add);
+        }
+
+        CorrectionDelta finish(String subscriber) {
+            PhoneNumber oldFree = oldConfiguration.promotion().getFreePhoneNumber(calls).orElse(null);
+            PhoneNumber newFree = newConfiguration.promotion().getFreePhoneNumber(calls).orElse(null);
+            return new CorrectionDelta(
+                    subscriber, total(oldSubtotals, oldFree), total(newSubtotals, newFree), oldFree, newFree, repriced);
+        }
+
+        private BigDecimal total(Map<PhoneNumber, BigDecimal> subtotals, PhoneNumber freeNumber) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (Map.Entry<PhoneNumber, BigDecimal> entry : subtotals.entrySet()) {
+                if (!entry.getKey().equals(freeNumber)) {
+                    total = total.add(entry.getValue());
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Splits the timeline at every changeover of either schedule and keeps the pieces where the tariffs in force
+     * differ (including where only one schedule has a tariff), merging adjacent pieces.
+     */
+    private static List<long[]> differences(TariffSchedule oldSchedule, TariffSchedule newSchedule) {
+        TreeSet<Long> changeovers = new TreeSet<>();
+        changeovers.add(Long.MIN_VALUE);
+        for (TariffVersion version : oldSchedule.getVersions()) {
+            changeovers.add(toEpochSecond(version.effectiveFrom()));
+        }
+        for (TariffVersion version : newSchedule.getVersions()) {
+            changeovers.add(toEpochSecond(version.effectiveFrom()));
+        }
+
+        List<long[]> differences = new ArrayList<>();
+        Long[] points = changeovers.toArray(Long[]::new);
+        for (int i = 0; i < points.length; i++) {
+            long start = points[i];
+            long end = i + 1 < points.length ? points[i + 1] : Long.MAX_VALUE;
+            if (Objects.equals(tariffAt(oldSchedule, start), tariffAt(newSchedule, start))) {
+                continue;
+            }
+            if (!differences.isEmpty() && differences.get(differences.size() - 1)[1] == start) {
+                differences.get(differences.size() - 1)[1] = end;
+            } else {
+                differences.add(new long[]{start, end});
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * @return the tariff in force at the epoch-second, or null before the schedule's first version
+     */
+    private static Tariff tariffAt(TariffSchedule schedule, long epochSecond) {
+        Tariff tariff = null;
+        for (TariffVersion version : schedule.getVersions()) {
+            if (toEpochSecond(version.effectiveFrom()) > epochSecond) {
+                break;
+            }
+            tariff = version.tariff();
+        }
+        return tariff;
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
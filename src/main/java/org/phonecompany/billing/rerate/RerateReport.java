@@ -0,0 +1,22 @@
+package org.phonecompany.billing.rerate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Result of a re-rating run.
+ *
+ * @param corrections   bills that change, in subscriber order; unaffected bills are left out
+ * @param subscribers   number of subscribers re-rated
+ * @param callsInRange  calls that started in the re-rated period
+ * @param callsRepriced calls priced under both configurations; the rest were priced once
+ */
+public record RerateReport(List<CorrectionDelta> corrections, int subscribers, long callsInRange, long callsRepriced) {
+
+    /**
+     * @return sum of all corrections
+     */
+    public BigDecimal totalDelta() {
+        return corrections.stream().map(CorrectionDelta::delta).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,353 @@
+package org.phonecompany.billing.scheduler;
+
+import org.phonecompany.billing.TelephoneBillCalculator;
+import org.phonecompany.billing.metrics.Counter;
+import org.phonecompany.billing.metrics.Gauge;
+import org.phonecompany.billing.metrics.Histogram;
+import org.phonecompany.billing.metrics.MetricsRegistry;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs bill calculations on a fixed set of worker threads, keeping single interactive bills responsive while
+ * large batch runs are in progress.
+ * <p>
+ * Work is queued in two {@link SchedulerLane lanes}. A batch run is split into chunks of {@code batchChunkSize}
+ * bills; an interactive bill is a task of its own. Tasks are never interrupted, so chunk boundaries are the
+ * preemption points: whenever a worker finishes a task it picks the next one afresh, and an interactive bill waits
+ * at most for the chunk a worker is currently on, not for the rest of the run.
+ * <p>
+ * The lanes share the workers in proportion to their weights, measured in worker time. Each lane has a virtual
+ * clock that advances by the time its tasks take divided by its weight, and a free worker serves the non-empty lane
+ * whose clock is behind. A lane that was idle rejoins at the current virtual time, so it cannot bank credit for
+ * the time it had nothing to do. Interactive bills are short, so they are normally served as soon as a worker is
+ * free; if interactive traffic alone could saturate the workers, batch runs still get their share.
+ * <p>
+ * For every lane the scheduler reports the queue wait of each task ({@code scheduler.<lane>.wait.nanos}),
+ * the latency from submission to result ({@code scheduler.<lane>.nanos}, per bill for interactive and per run for
+ * batch), the number of tasks run ({@code scheduler.<lane>.tasks}) and the number queued
+ * ({@code scheduler.<lane>.queued}).
+ */
+public class BillingScheduler implements AutoCloseable {
+
+    static final int DEFAULT_INTERACTIVE_WEIGHT = 8;
+    static final int DEFAULT_BATCH_WEIGHT = 1;
+    static final int DEFAULT_BATCH_CHUNK_SIZE = 64;
+
+    private final TelephoneBillCalculator calculator;
+    private final LongSupplier clock;
+    private final int batchChunkSize;
+    private final Lane[] lanes = new Lane[SchedulerLane.values().length];
+    private final Thread[] workers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private long virtualClock;
+    private boolean closed;
+
+    /**
+     * Starts the workers.
+     *
+     * @param workers           number of worker threads, usually the number of CPUs given to billing
+     * @param interactiveWeight share of worker time for the interactive lane when both lanes have work
+     * @param batchWeight       share of worker time for the batch lane when both lanes have work
+     * @param batchChunkSize    bills per batch task; bounds how long an interactive bill can wait for a worker
+     */
+    public BillingScheduler(
+            TelephoneBillCalculator calculator,
+            int workers,
+            int interactiveWeight,
+            int batchWeight,
+            int batchChunkSize,
+            MetricsRegistry metrics) {
+        this(calculator, workers, interactiveWeight, batchWeight, batchChunkSize, metrics, System::nanoTime);
+    }
+
+    /**
+     * @param clock source of the nanosecond times that task durations, waits and latencies are measured with
+     */
+    BillingScheduler(
+            TelephoneBillCalculator calculator,
+            int workers,
+            int interactiveWeight,
+            int batchWeight,
+            int batchChunkSize,
+            MetricsRegistry metrics,
+            LongSupplier clock) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Worker count must be positive: " + workers);
+        }
+        if (interactiveWeight < 1 || batchWeight < 1) {
+            throw new IllegalArgumentException(
+                "Lane weights must be positive: " + interactiveWeight + ", " + batchWeight
+            );
+        }
+        if (batchChunkSize < 1) {
+            throw new IllegalArgumentException("Batch chunk size must be positive: " + batchChunkSize);
+        }
+        this.calculator = calculator;
+        this.clock = clock;
+        this.batchChunkSize = batchChunkSize;
+        this.lanes[SchedulerLane.INTERACTIVE.ordinal()] = new Lane(SchedulerLane.INTERACTIVE, interactiveWeight, metrics);
+        this.lanes[SchedulerLane.BATCH.ordinal()] = new Lane(SchedulerLane.BATCH, batchWeight, metrics);
+
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = Thread.ofPlatform()
+                    .name("billing-scheduler-" + i)
+                    .daemon()
+                    .start(this::work);
+        }
+    }
+
+    public BillingScheduler(TelephoneBillCalculator calculator) {
+        this(
+            calculator,
+            Runtime.getRuntime().availableProcessors(),
+            DEFAULT_INTERACTIVE_WEIGHT,
+            DEFAULT_BATCH_WEIGHT,
+            DEFAULT_BATCH_CHUNK_SIZE,
+            MetricsRegistry.noop()
+        );
+    }
+
+    /**
+     * Queues one bill in the interactive lane.
+     *
+     * @return the bill total, or the calculator's exception
+     * @throws IllegalStateException if the scheduler is closed
+     */
+    public CompletableFuture<BigDecimal> submitInteractive(String phoneLog) {
+        CompletableFuture<BigDecimal> result = new CompletableFuture<>();
+        Lane lane = lane(SchedulerLane.INTERACTIVE);
+        long submitted = clock.getAsLong();
+        enqueue(lane, List.of(new Task(submitted) {
+            @Override
+            void run() {
+                try {
+                    result.complete(calculator.calculate(phoneLog));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+                lane.latency.record(clock.getAsLong() - submitted);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Queues a batch run in the batch lane, in chunks of {@code batchChunkSize} bills.
+     * <p>
+     * The first failing bill completes the run exceptionally, and its remaining chunks are skipped when they come
+     * up; so are the chunks of a run whose future has been cancelled.
+     *
+     * @return the bill totals in input order
+     * @throws IllegalStateException if the scheduler is closed
+     */
+    public CompletableFuture<List<BigDecimal>> submitBatch(List<String> phoneLogs) {
+        BatchRun run = new BatchRun(List.copyOf(phoneLogs), lane(SchedulerLane.BATCH));
+        if (run.phoneLogs.isEmpty()) {
+            run.result.complete(List.of());
+            return run.result;
+        }
+        int chunkCount = (run.phoneLogs.size() + batchChunkSize - 1) / batchChunkSize;
+        Task[] chunks = new Task[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            int from = i * batchChunkSize;
+            int to = Math.min(from + batchChunkSize, run.phoneLogs.size());
+            chunks[i] = new Task(run.submitted) {
+                @Override
+                void run() {
+                    run.bill(from, to);
+                }
+            };
+        }
+        enqueue(run.lane, Arrays.asList(chunks));
+        return run.result;
+    }
+
+    public int getQueuedTasks(SchedulerLane lane) {
+        lock.lock();
+        try {
+            return lane(lane).tasks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting work, lets the workers finish everything already queued and waits for them.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Lane lane(SchedulerLane lane) {
+        return lanes[lane.ordinal()];
+    }
+
+    private void enqueue(Lane lane, List<Task> tasks) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Scheduler is closed");
+            }
+            if (lane.tasks.isEmpty()) {
+                lane.virtualTime = Math.max(lane.virtualTime, virtualClock);
+            }
+            lane.tasks.addAll(tasks);
+            lane.queued.set(lane.tasks.size());
+            if (tasks.size() == 1) {
+                workAvailable.signal();
+            } else {
+                workAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Lane lane;
+            Task task;
+            lock.lock();
+            try {
+                while ((lane = nextLane()) == null) {
+                    if (closed) {
+                        return;
+                    }
+                    workAvailable.awaitUninterruptibly();
+                }
+                task = lane.tasks.poll();
+                lane.queued.set(lane.tasks.size());
+                virtualClock = lane.virtualTime;
+            } finally {
+                lock.unlock();
+            }
+
+            long start = clock.getAsLong();
+            lane.queueWait.record(start - task.enqueued);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // Tasks report their own failures; this only keeps the worker alive.
+            }
+            long elapsed = clock.getAsLong() - start;
+            lane.tasksRun.increment();
+
+            lock.lock();
+            try {
+                lane.virtualTime += Math.max(elapsed, 1) / lane.weight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return the non-empty lane furthest behind in virtual time, or null if there is no work
+     */
+    private Lane nextLane() {
+        Lane next = null;
+        for (Lane lane : lanes) {
+            if (!lane.tasks.isEmpty() && (next == null || lane.virtualTime < next.virtualTime)) {
+                next = lane;
+            }
+        }
+        return next;
+    }
+
+    private static final class Lane {
+
+        private final int weight;
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private final Histogram queueWait;
+        private final Histogram latency;
+        private final Counter tasksRun;
+        private final Gauge queued;
+        private long virtualTime;
+
+        private Lane(SchedulerLane lane, int weight, MetricsRegistry metrics) {
+            String prefix = "scheduler." + lane.metricName();
+            this.weight = weight;
+            this.queueWait = metrics.histogram(prefix + ".wait.nanos");
+            this.latency = metrics.histogram(prefix + ".nanos");
+            this.tasksRun = metrics.counter(prefix + ".tasks");
+            this.queued = metrics.gauge(prefix + ".queued");
+        }
+    }
+
+    private abstract static class Task {
+
+        private final long enqueued;
+
+        private Task(long enqueued) {
+            this.enqueued = enqueued;
+        }
+
+        abstract void run();
+    }
+
+    /**
+     * Results of one batch run, filled in by whichever workers run its chunks.
+     */
+    private final class BatchRun {
+
+        private final List<String> phoneLogs;
+        private final Lane lane;
+        private final long submitted = clock.getAsLong();
+        private final BigDecimal[] totals;
+        private final AtomicInteger remaining;
+        private final CompletableFuture<List<BigDecimal>> result = new CompletableFuture<>();
+
+        private BatchRun(List<String> phoneLogs, Lane lane) {
+            this.phoneLogs = phoneLogs;
+            this.lane = lane;
+            this.totals = new BigDecimal[phoneLogs.size()];
+            this.remaining = new AtomicInteger(phoneLogs.size());
+        }
+
+        private void bill(int from, int to) {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                for (int i = from; i < to; i++) {
+                    totals[i] = calculator.calculate(phoneLogs.get(i));
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            // The decrement publishes this chunk's totals to whichever worker completes the run.
+            if (remaining.addAndGet(from - to) == 0) {
+                result.complete(List.of(totals));
+                lane.latency.record(clock.getAsLong() - submitted);
+            }
+        }
+    }
+}
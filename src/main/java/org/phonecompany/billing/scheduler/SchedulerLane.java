@@ -0,0 +1,24 @@
+package org.phonecompany.billing.scheduler;
+
+import java.util.Locale;
+
+/**
+ * Queue of a {@link BillingScheduler}. Each lane has its own weight and its own metrics, published as
+ * {@code scheduler.<lane>.*} where {@code <lane>} is {@link #metricName()}.
+ */
+public enum SchedulerLane {
+
+    /**
+     * Single bills someone is waiting for (customer care, the app). One task is one bill.
+     */
+    INTERACTIVE,
+
+    /**
+     * Bulk runs such as the month-end batch. One task is a chunk of consecutive bills of a run.
+     */
+    BATCH;
+
+    public String metricName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
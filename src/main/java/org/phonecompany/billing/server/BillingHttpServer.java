@@ -0,0 +1,211 @@
+package org.phonecompany.billing.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.metrics.LogLinearHistogram;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Long-running bill calculation service on the JDK's built-in HTTP server,
+ * handling each request on its own virtual thread.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code POST /bill} - request body is a CSV call log, response body is the bill total. The body is
+ *     parsed and priced as it arrives, keeping only per-number subtotals, the same way as
+ *     {@link org.phonecompany.billing.invoice.ItemizedBillCalculator}</li>
+ *     <li>{@code GET /metrics/latency} - JSON latency histogram of {@code /bill} requests, in microseconds</li>
+ * </ul>
+ * Bodies larger than the configured limit are rejected with 413, a malformed {@code Content-Length} with 400, and
+ * requests beyond the concurrency limit are rejected immediately with 503 instead of queueing.
+ */
+public class BillingHttpServer implements AutoCloseable {
+
+    static final int DEFAULT_MAX_REQUEST_BYTES = 16 * 1024 * 1024;
+    static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 256;
+
+    private final CsvCallLogParser parser;
+    private final CallPriceCalculator priceCalculator;
+    private final int maxRequestBytes;
+    private final Semaphore admission;
+    private final LogLinearHistogram latency = new LogLinearHistogram();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+
+    /**
+     * Binds the server; call {@link #start()} to begin serving.
+     *
+     * @param address               address to bind, port 0 picks a free port
+     * @param maxRequestBytes       largest accepted request body
+     * @param maxConcurrentRequests bill requests processed at the same time before rejecting new ones
+     */
+    public BillingHttpServer(
+            InetSocketAddress address,
+            CsvCallLogParser parser,
+            CallPriceCalculator priceCalculator,
+            int maxRequestBytes,
+            int maxConcurrentRequests) throws IOException {
+        this.parser = parser;
+        this.priceCalculator = priceCalculator;
+        this.maxRequestBytes = maxRequestBytes;
+        this.admission = new Semaphore(maxConcurrentRequests);
+
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/bill", this::handleBill);
+        this.server.createContext("/metrics/latency", this::handleLatency);
+    }
+
+    public BillingHttpServer(InetSocketAddress address) throws IOException {
+        this(address, new CsvCallLogParser(), new CallPriceCalculator(),
+                DEFAULT_MAX_REQUEST_BYTES, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handleBill(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Use POST");
+                return;
+            }
+            if (!admission.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "Too many concurrent requests");
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                billRequest(exchange);
+            } finally {
+                admission.release();
+                latency.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void billRequest(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            long length;
+            try {
+                length = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "Invalid Content-Length: " + contentLength);
+                return;
+            }
+            if (length > maxRequestBytes) {
+                respond(exchange, 413, "Request body exceeds " + maxRequestBytes + " bytes");
+                return;
+            }
+        }
+
+        BillAccumulator bill = new BillAccumulator();
+        try {
+            InputStream body = new LimitedInputStream(exchange.getRequestBody(), maxRequestBytes);
+            parser.parse(new InputStreamReader(body, StandardCharsets.UTF_8),
+                    call -> bill.add(call.phoneNumber(), priceCalculator.calculate(call)));
+        } catch (BodyTooLargeException e) {
+            respond(exchange, 413, "Request body exceeds " + maxRequestBytes + " bytes");
+            return;
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage());
+            return;
+        }
+        respond(exchange, 200, bill.getTotal().toPlainString());
+    }
+
+    private void handleLatency(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            respond(exchange, 200, latency.snapshot().toJson(1_000));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Fails the read that takes a body past the size limit, however the body is framed.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counted(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                counted(read);
+            }
+            return read;
+        }
+
+        private void counted(int read) throws BodyTooLargeException {
+            count += read;
+            if (count > limit) {
+                throw new BodyTooLargeException();
+            }
+        }
+    }
+
+    private static final class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Starts the server on the given port (default 8080) and serves until the JVM exits.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        BillingHttpServer server = new BillingHttpServer(new InetSocketAddress(port));
+        server.start();
+        System.out.println("Billing server listening on port " + server.getPort());
+    }
+}
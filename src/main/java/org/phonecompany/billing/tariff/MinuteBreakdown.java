@@ -0,0 +1,63 @@
+package org.phonecompany.billing.tariff;
+
+import org.phonecompany.billing.BatchCallPricer;
+import org.phonecompany.billing.model.Call;
+
+/**
+ * Billable minutes of one or more calls, split by rate band: peak or off-peak, and within or after the
+ * first 5 minutes of the call (after which the long-call discount applies). Any tariff prices a call from
+ * this breakdown alone, so it is computed once and reused across tariffs.
+ */
+public record MinuteBreakdown(long peak, long offPeak, long discountedPeak, long discountedOffPeak) {
+
+    /** Minutes of a call charged before the long-call discount starts. */
+    public static final int STANDARD_MINUTES_THRESHOLD = 5;
+
+    public static final MinuteBreakdown EMPTY = new MinuteBreakdown(0, 0, 0, 0);
+
+    public static MinuteBreakdown of(Call call) {
+        long minutes = call.getDurationInMinutes();
+        return of(BatchCallPricer.toEpochMinute(call.startTime()), minutes, 0, minutes);
+    }
+
+    /**
+     * Breakdown of the minutes with index {@code [fromMinute, toMinute)} of a call starting at the given
+     * local epoch-minute; the index decides whether a minute is discounted, so parts of a call split
+     * elsewhere are still priced as part of the whole call.
+     */
+    public static MinuteBreakdown of(long startEpochMinute, long minutes, long fromMinute, long toMinute) {
+        if (fromMinute < 0 || fromMinute > toMinute || toMinute > minutes) {
+            throw new IllegalArgumentException(
+                    "Invalid minute range [" + fromMinute + ", " + toMinute + ") of " + minutes);
+        }
+        long standardEnd = Math.max(fromMinute, Math.min(toMinute, STANDARD_MINUTES_THRESHOLD));
+
+        long standardPeak = peakMinutes(startEpochMinute, fromMinute, standardEnd);
+        long discountedPeak = peakMinutes(startEpochMinute, standardEnd, toMinute);
+
+        return new MinuteBreakdown(
+                standardPeak,
+                standardEnd - fromMinute - standardPeak,
+                discountedPeak,
+                toMinute - standardEnd - discountedPeak
+        );
+    }
+
+    private static long peakMinutes(long startEpochMinute, long fromMinute, long toMinute) {
+        return BatchCallPricer.peakMinutesBefore(startEpochMinute + toMinute)
+                - BatchCallPricer.peakMinutesBefore(startEpochMinute + fromMinute);
+    }
+
+    public MinuteBreakdown plus(MinuteBreakdown other) {
+        return new MinuteBreakdown(
+                peak + other.peak,
+                offPeak + other.offPeak,
+                discountedPeak + other.discountedPeak,
+                discountedOffPeak + other.discountedOffPeak
+        );
+    }
+
+    public long totalMinutes() {
+        return peak + offPeak + discountedPeak + discountedOffPeak;
+    }
+}
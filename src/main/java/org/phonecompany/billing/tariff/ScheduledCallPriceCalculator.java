@@ -0,0 +1,85 @@
+package org.phonecompany.billing.tariff;
+
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.metrics.Counter;
+import org.phonecompany.billing.metrics.MetricsRegistry;
+import org.phonecompany.billing.model.Call;
+
+import java.math.BigDecimal;
+
+/**
+ * Prices calls against a {@link TariffSchedule}: each minute is charged at the tariff in force when the minute
+ * starts. A call running across a changeover is split at the first minute starting at or after it, and each
+ * part is priced from its {@link MinuteBreakdown}, so the long-call discount still counts from the start of
+ * the whole call.
+ * <p>
+ * With historic versions in the schedule this also re-rates old logs at the rates that applied back then.
+ */
+public class ScheduledCallPriceCalculator extends CallPriceCalculator {
+
+    private static final long SECONDS_PER_MINUTE = 60;
+
+    private final TariffSchedule schedule;
+    private final Counter callsPriced;
+    private final Counter minutesPriced;
+    private final Counter callsSplit;
+
+    /**
+     * @param metrics receives {@code pricer.calls}, {@code pricer.minutes} and {@code pricer.tariffSplits}
+     *                (calls priced under more than one version)
+     */
+    public ScheduledCallPriceCalculator(TariffSchedule schedule, MetricsRegistry metrics) {
+        this.schedule = schedule;
+        this.callsPriced = metrics.counter("pricer.calls");
+        this.minutesPriced = metrics.counter("pricer.minutes");
+        this.callsSplit = metrics.counter("pricer.tariffSplits");
+    }
+
+    public ScheduledCallPriceCalculator(TariffSchedule schedule) {
+        this(schedule, MetricsRegistry.noop());
+    }
+
+    /**
+     * @throws IllegalArgumentException if a call of at least one minute starts before the first tariff version
+     */
+    @Override
+    public BigDecimal calculate(Call call) {
+        long minutes = call.getDurationInMinutes();
+        callsPriced.increment();
+        minutesPriced.add(minutes);
+
+        if (minutes == 0) {
+            return BigDecimal.ZERO;
+        }
+        long startSecond = TariffSchedule.toEpochSecond(call.startTime());
+        int index = schedule.indexAt(startSecond);
+
+        long startMinute = Math.floorDiv(startSecond, SECONDS_PER_MINUTE);
+        long lastMinuteStart = startSecond + (minutes - 1) * SECONDS_PER_MINUTE;
+        if (lastMinuteStart < schedule.nextChangeSecond(index)) {
+            return schedule.tariff(index).price(MinuteBreakdown.of(startMinute, minutes, 0, minutes));
+        }
+
+        callsSplit.increment();
+        BigDecimal total = BigDecimal.ZERO;
+        long fromMinute = 0;
+        while (fromMinute < minutes) {
+            long toMinute = Math.min(minutes, firstMinuteStartingAt(startSecond, schedule.nextChangeSecond(index)));
+            total = total.add(schedule.tariff(index).price(MinuteBreakdown.of(startMinute, minutes, fromMinute, toMinute)));
+            fromMinute = toMinute;
+            index++;
+        }
+        return total;
+    }
+
+    /**
+     * @return index of the first minute of a call starting at {@code startSecond} that starts at or after
+     *         {@code boundarySecond}
+     */
+    private static long firstMinuteStartingAt(long startSecond, long boundarySecond) {
+        if (boundarySecond == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.ceilDiv(boundarySecond - startSecond, SECONDS_PER_MINUTE);
+    }
+}
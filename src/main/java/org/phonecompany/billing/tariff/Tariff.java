@@ -0,0 +1,57 @@
+package org.phonecompany.billing.tariff;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Per-minute rates of a tariff. Peak hours and the 5-minute discount threshold are the same for every
+ * tariff; only the rates vary.
+ *
+ * @param name             label used in reports
+ * @param peakRate         rate per minute starting in [08:00, 16:00)
+ * @param offPeakRate      rate per minute starting outside peak hours
+ * @param longCallDiscount subtracted from either rate for each minute after the 5th
+ */
+public record Tariff(String name, BigDecimal peakRate, BigDecimal offPeakRate, BigDecimal longCallDiscount) {
+
+    /** The rates {@link org.phonecompany.billing.CallPriceCalculator} has always applied. */
+    public static final Tariff STANDARD = new Tariff(
+            "standard", new BigDecimal("1.00"), new BigDecimal("0.50"), new BigDecimal("0.20"));
+
+    public Tariff {
+        Objects.requireNonNull(name, "name");
+        requireNonNegative("Peak rate", peakRate);
+        requireNonNegative("Off-peak rate", offPeakRate);
+        requireNonNegative("Long call discount", longCallDiscount);
+        if (longCallDiscount.compareTo(peakRate.min(offPeakRate)) > 0) {
+            throw new IllegalArgumentException("Long call discount exceeds a rate: " + longCallDiscount);
+        }
+    }
+
+    private static void requireNonNegative(String what, BigDecimal rate) {
+        if (rate == null || rate.signum() < 0) {
+            throw new IllegalArgumentException(what + " must be non-negative: " + rate);
+        }
+    }
+
+    public BigDecimal discountedPeakRate() {
+        return peakRate.subtract(longCallDiscount);
+    }
+
+    public BigDecimal discountedOffPeakRate() {
+        return offPeakRate.subtract(longCallDiscount);
+    }
+
+    /**
+     * @return the price of the given minutes, or {@link BigDecimal#ZERO} if there are none
+     */
+    public BigDecimal price(MinuteBreakdown minutes) {
+        if (minutes.totalMinutes() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return peakRate.multiply(BigDecimal.valueOf(minutes.peak()))
+                .add(offPeakRate.multiply(BigDecimal.valueOf(minutes.offPeak())))
+                .add(discountedPeakRate().multiply(BigDecimal.valueOf(minutes.discountedPeak())))
+                .add(discountedOffPeakRate().multiply(BigDecimal.valueOf(minutes.discountedOffPeak())));
+    }
+}
@@ -0,0 +1,77 @@
+package org.phonecompany.billing.tariff;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Bill totals of a {@link TariffSimulation}, one per subscriber, promotion and tariff.
+ */
+public class TariffMatrix {
+
+    private final List<String> subscribers;
+    private final List<String> promotions;
+    private final List<Tariff> tariffs;
+    private final List<BigDecimal[][]> totals;
+
+    TariffMatrix(List<String> subscribers, List<String> promotions, List<Tariff> tariffs, List<BigDecimal[][]> totals) {
+        this.subscribers = List.copyOf(subscribers);
+        this.promotions = promotions;
+        this.tariffs = tariffs;
+        this.totals = totals;
+    }
+
+    public List<String> getSubscribers() {
+        return subscribers;
+    }
+
+    public List<String> getPromotions() {
+        return promotions;
+    }
+
+    public List<Tariff> getTariffs() {
+        return tariffs;
+    }
+
+    /**
+     * @param subscriber index into {@link #getSubscribers()}
+     * @param promotion  index into {@link #getPromotions()}
+     * @param tariff     index into {@link #getTariffs()}
+     */
+    public BigDecimal getTotal(int subscriber, int promotion, int tariff) {
+        return totals.get(subscriber)[promotion][tariff];
+    }
+
+    /**
+     * @return the sum over all subscribers for one promotion and tariff
+     */
+    public BigDecimal getColumnTotal(int promotion, int tariff) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal[][] row : totals) {
+            sum = sum.add(row[promotion][tariff]);
+        }
+        return sum;
+    }
+
+    /**
+     * Writes one CSV line per subscriber and promotion: {@code subscriber,promotion,<total per tariff>},
+     * preceded by a header naming the tariffs.
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("subscriber,promotion");
+        for (Tariff tariff : tariffs) {
+            out.append(',').append(tariff.name());
+        }
+        out.append('\n');
+
+        for (int s = 0; s < subscribers.size(); s++) {
+            for (int p = 0; p < promotions.size(); p++) {
+                out.append(subscribers.get(s)).append(',').append(promotions.get(p));
+                for (int t = 0; t < tariffs.size(); t++) {
+                    out.append(',').append(getTotal(s, p, t).toPlainString());
+                }
+                out.append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.phonecompany.billing.tariff;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Effective-dated tariff versions, held as a sorted array of changeover instants.
+ * <p>
+ * Finding the version in force is a binary search, O(log versions). Consecutive calls usually fall in the
+ * same version, so the index of the last version found is remembered and checked first; the hint is a
+ * plain int that may be stale under concurrent use, in which case the search simply runs again.
+ */
+public final class TariffSchedule {
+
+    private final TariffVersion[] versions;
+    private final long[] effectiveFromSeconds;
+
+    private volatile int lastIndex;
+
+    private TariffSchedule(TariffVersion[] versions) {
+        this.versions = versions;
+        this.effectiveFromSeconds = new long[versions.length];
+        for (int i = 0; i < versions.length; i++) {
+            effectiveFromSeconds[i] = toEpochSecond(versions[i].effectiveFrom());
+        }
+    }
+
+    /**
+     * @param versions in any order; no two may take effect at the same time
+     * @throws IllegalArgumentException if there are no versions or two share an effective time
+     */
+    public static TariffSchedule of(List<TariffVersion> versions) {
+        if (versions.isEmpty()) {
+            throw new IllegalArgumentException("A schedule needs at least one tariff version");
+        }
+        List<TariffVersion> sorted = new ArrayList<>(versions);
+        sorted.sort(Comparator.comparing(TariffVersion::effectiveFrom));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).effectiveFrom().equals(sorted.get(i - 1).effectiveFrom())) {
+                throw new IllegalArgumentException("Two tariff versions take effect at " + sorted.get(i).effectiveFrom());
+            }
+        }
+        return new TariffSchedule(sorted.toArray(TariffVersion[]::new));
+    }
+
+    /**
+     * @return a schedule with a single version in force at all times
+     */
+    public static TariffSchedule constant(Tariff tariff) {
+        return new TariffSchedule(new TariffVersion[]{new TariffVersion(LocalDateTime.MIN, tariff)});
+    }
+
+    public List<TariffVersion> getVersions() {
+        return List.of(versions);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the time is before the first version
+     */
+    public TariffVersion versionAt(LocalDateTime time) {
+        return versions[indexAt(toEpochSecond(time))];
+    }
+
+    /**
+     * @return index of the version in force at the given local epoch-second
+     * @throws IllegalArgumentException if the time is before the first version
+     */
+    int indexAt(long epochSecond) {
+        int hint = lastIndex;
+        if (effectiveFromSeconds[hint] <= epochSecond && epochSecond < nextChangeSecond(hint)) {
+            return hint;
+        }
+
+        int found = Arrays.binarySearch(effectiveFromSeconds, epochSecond);
+        int index = found >= 0 ? found : -found - 2;
+        if (index < 0) {
+            throw new IllegalArgumentException("No tariff in force at " + LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC));
+        }
+        lastIndex = index;
+        return index;
+    }
+
+    Tariff tariff(int index) {
+        return versions[index].tariff();
+    }
+
+    /**
+     * @return the local epoch-second at which the version after {@code index} takes over, or
+     *         {@link Long#MAX_VALUE} for the last version
+     */
+    long nextChangeSecond(int index) {
+        return index + 1 < effectiveFromSeconds.length ? effectiveFromSeconds[index + 1] : Long.MAX_VALUE;
+    }
+
+    static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,87 @@
+package org.phonecompany.billing.tariff;
+
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CallLogParser;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.FreePromotionStrategy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers "what would these bills have cost under each tariff and promotion?" reading every call once.
+ * <p>
+ * Each call's {@link MinuteBreakdown} is computed once and summed per called number. Since pricing is linear in
+ * minutes, a number's subtotal under any tariff is that tariff's price of the summed breakdown, so the cost of
+ * adding a tariff or a promotion grows with the number of distinct numbers, not with the number of calls.
+ */
+public class TariffSimulation {
+
+    private final List<Tariff> tariffs;
+    private final Map<String, FreePromotionStrategy> promotions;
+    private final CallLogParser parser;
+
+    /**
+     * @param promotions promotion strategies by label, iterated in the map's order
+     */
+    public TariffSimulation(List<Tariff> tariffs, Map<String, FreePromotionStrategy> promotions, CallLogParser parser) {
+        if (tariffs.isEmpty() || promotions.isEmpty()) {
+            throw new IllegalArgumentException("At least one tariff and one promotion are required");
+        }
+        this.tariffs = List.copyOf(tariffs);
+        this.promotions = new LinkedHashMap<>(promotions);
+        this.parser = parser;
+    }
+
+    public TariffSimulation(List<Tariff> tariffs, Map<String, FreePromotionStrategy> promotions) {
+        this(tariffs, promotions, new CsvCallLogParser());
+    }
+
+    /**
+     * @param logsBySubscriber each subscriber's call log, in the order rows should appear
+     */
+    public TariffMatrix simulate(Map<String, String> logsBySubscriber) {
+        List<String> subscribers = new ArrayList<>(logsBySubscriber.size());
+        List<BigDecimal[][]> rows = new ArrayList<>(logsBySubscriber.size());
+
+        for (Map.Entry<String, String> entry : logsBySubscriber.entrySet()) {
+            subscribers.add(entry.getKey());
+            rows.add(simulate(parser.parse(entry.getValue())));
+        }
+
+        return new TariffMatrix(subscribers, List.copyOf(promotions.keySet()), tariffs, rows);
+    }
+
+    /**
+     * @return totals of one bill indexed by promotion, then tariff
+     */
+    BigDecimal[][] simulate(List<Call> calls) {
+        Map<PhoneNumber, MinuteBreakdown> minutesByNumber = new HashMap<>();
+        for (Call call : calls) {
+            minutesByNumber.merge(call.phoneNumber(), MinuteBreakdown.of(call), MinuteBreakdown::plus);
+        }
+
+        BigDecimal[][] totals = new BigDecimal[promotions.size()][tariffs.size()];
+        int p = 0;
+        for (FreePromotionStrategy promotion : promotions.values()) {
+            PhoneNumber freeNumber = promotion.getFreePhoneNumber(calls).orElse(null);
+
+            MinuteBreakdown billable = MinuteBreakdown.EMPTY;
+            for (Map.Entry<PhoneNumber, MinuteBreakdown> entry : minutesByNumber.entrySet()) {
+                if (!entry.getKey().equals(freeNumber)) {
+                    billable = billable.plus(entry.getValue());
+                }
+            }
+            for (int t = 0; t < tariffs.size(); t++) {
+                totals[p][t] = tariffs.get(t).price(billable);
+            }
+            p++;
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,16 @@
+package org.phonecompany.billing.tariff;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A tariff in force from {@code effectiveFrom} (inclusive, log local time) until the next version of the
+ * same {@link TariffSchedule} takes over.
+ */
+public record TariffVersion(LocalDateTime effectiveFrom, Tariff tariff) {
+
+    public TariffVersion {
+        Objects.requireNonNull(effectiveFrom, "effectiveFrom");
+        Objects.requireNonNull(tariff, "tariff");
+    }
+}
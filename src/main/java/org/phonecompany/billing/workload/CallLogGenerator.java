@@ -0,0 +1,214 @@
+package org.phonecompany.billing.workload;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Streams deterministic, realistic call logs in the {@link org.phonecompany.billing.parser.CsvCallLogParser} format.
+ * <ul>
+ *     <li>Called numbers follow a Zipf distribution over the subscriber population.</li>
+ *     <li>Start times are non-decreasing and follow a diurnal curve (quiet nights, busy late morning
+ *     and early evening), so calls regularly cross the 08:00 and 16:00 rate boundaries.</li>
+ *     <li>Durations are mostly short (exponential, mean 2 minutes), with a Pareto tail reaching hours
+ *     and a small share of one- to three-day calls.</li>
+ * </ul>
+ * Lines are formatted straight into a byte buffer without {@code java.time} objects or string formatting,
+ * so generation runs at several million lines per second.
+ */
+public class CallLogGenerator {
+
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_LINE_LENGTH = 64;
+    private static final int LINE_LENGTH = 54;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    private static final long NUMBER_BASE = 420_000_000_000L;
+
+    private static final double MEAN_SHORT_CALL_SECONDS = 120;
+    private static final double PARETO_MIN_SECONDS = 300;
+    private static final double PARETO_ALPHA = 1.3;
+    private static final int MAX_PARETO_SECONDS = SECONDS_PER_DAY;
+
+    /**
+     * Relative call volume per hour of day, 00:00 to 23:00.
+     */
+    private static final double[] HOURLY_WEIGHTS = {
+            0.6, 0.3, 0.2, 0.2, 0.2, 0.4, 1.0, 2.5,
+            4.5, 6.0, 6.5, 6.0, 5.0, 5.0, 5.5, 6.0,
+            6.5, 7.0, 7.5, 7.0, 5.5, 4.0, 2.5, 1.2
+    };
+
+    private final WorkloadProfile profile;
+    private final ZipfSampler numberSampler;
+    private final double[] hourCdf;
+
+    public CallLogGenerator(WorkloadProfile profile) {
+        this.profile = profile;
+        this.numberSampler = new ZipfSampler(profile.subscribers(), profile.zipfExponent());
+        this.hourCdf = cumulative(HOURLY_WEIGHTS);
+    }
+
+    /**
+     * Writes {@code lines} call records to the stream. The stream is flushed but not closed.
+     */
+    public void writeCsv(OutputStream out, long lines) throws IOException {
+        SplittableRandom random = new SplittableRandom(profile.seed());
+        LineWriter writer = new LineWriter();
+        byte[] buffer = writer.buffer;
+        int position = 0;
+
+        long firstEpochDay = profile.startDate().toEpochDay();
+        long linesPerDay = Math.max(1, (lines + profile.days() - 1) / profile.days());
+
+        for (long i = 0; i < lines; i++) {
+            long day = Math.min(i / linesPerDay, profile.days() - 1);
+            long indexInDay = i - day * linesPerDay;
+            long dayLines = Math.min(linesPerDay, lines - day * linesPerDay);
+
+            // Stratified quantiles keep start times sorted within the day
+            double quantile = (indexInDay + random.nextDouble()) / dayLines;
+            long start = (firstEpochDay + day) * SECONDS_PER_DAY + secondOfDay(quantile);
+            long end = start + duration(random);
+            int number = numberSampler.sample(random) - 1;
+
+            if (position > BUFFER_SIZE - MAX_LINE_LENGTH) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            position = writer.writeLine(position, number, start, end);
+        }
+
+        out.write(buffer, 0, position);
+        out.flush();
+    }
+
+    /**
+     * Returns a log of {@code lines} call records as a string.
+     */
+    public String csv(int lines) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min((long) lines * LINE_LENGTH, MAX_ARRAY_LENGTH));
+        try {
+            writeCsv(out, lines);
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory stream cannot fail", e);
+        }
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    private int secondOfDay(double quantile) {
+        int hour = 0;
+        while (hour < 23 && hourCdf[hour] < quantile) {
+            hour++;
+        }
+        double hourStart = hour == 0 ? 0 : hourCdf[hour - 1];
+        double withinHour = (quantile - hourStart) / (hourCdf[hour] - hourStart);
+        return Math.min(SECONDS_PER_DAY - 1, hour * 3600 + (int) (withinHour * 3600));
+    }
+
+    private long duration(SplittableRandom random) {
+        double kind = random.nextDouble();
+
+        if (kind < profile.multiDayCallShare()) {
+            return SECONDS_PER_DAY + random.nextLong(2L * SECONDS_PER_DAY);
+        }
+        if (kind < profile.multiDayCallShare() + profile.longCallShare()) {
+            double pareto = PARETO_MIN_SECONDS / Math.pow(1 - random.nextDouble(), 1 / PARETO_ALPHA);
+            return (long) Math.min(pareto, MAX_PARETO_SECONDS);
+        }
+        return (long) (-MEAN_SHORT_CALL_SECONDS * Math.log(1 - random.nextDouble()));
+    }
+
+    /**
+     * Formats lines into its buffer, reusing the date part while consecutive timestamps fall on the same day.
+     */
+    private static final class LineWriter {
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final byte[] datePrefix = new byte[11];
+        private long cachedEpochDay = Long.MIN_VALUE;
+
+        private int writeLine(int position, int number, long start, long end) {
+            position = writeDigits(buffer, position, NUMBER_BASE + number, 12);
+            buffer[position++] = ',';
+            position = writeDateTime(position, start);
+            buffer[position++] = ',';
+            position = writeDateTime(position, end);
+            buffer[position++] = '\n';
+            return position;
+        }
+
+        /**
+         * Writes epoch seconds (of local time) as dd-MM-yyyy HH:mm:ss.
+         */
+        private int writeDateTime(int position, long epochSecond) {
+            long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+            int secondOfDay = Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+            if (epochDay != cachedEpochDay) {
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                writeDigits(datePrefix, 0, date.getDayOfMonth(), 2);
+                datePrefix[2] = '-';
+                writeDigits(datePrefix, 3, date.getMonthValue(), 2);
+                datePrefix[5] = '-';
+                writeDigits(datePrefix, 6, date.getYear(), 4);
+                datePrefix[10] = ' ';
+                cachedEpochDay = epochDay;
+            }
+
+            System.arraycopy(datePrefix, 0, buffer, position, datePrefix.length);
+            position += datePrefix.length;
+            position = writeDigits(buffer, position, secondOfDay / 3600, 2);
+            buffer[position++] = ':';
+            position = writeDigits(buffer, position, secondOfDay / 60 % 60, 2);
+            buffer[position++] = ':';
+            position = writeDigits(buffer, position, secondOfDay % 60, 2);
+            return position;
+        }
+    }
+
+    private static int writeDigits(byte[] buffer, int position, long value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + width;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cdf = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= sum;
+        }
+        cdf[cdf.length - 1] = 1.0;
+        return cdf;
+    }
+
+    /**
+     * Writes a log file: {@code <output> <lines> [seed] [subscribers]}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CallLogGenerator <output> <lines> [seed] [subscribers]");
+            System.exit(2);
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        int subscribers = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        CallLogGenerator generator = new CallLogGenerator(WorkloadProfile.standard(seed, subscribers));
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Path.of(args[0])))) {
+            generator.writeCsv(out, Long.parseLong(args[1]));
+        }
+    }
+}
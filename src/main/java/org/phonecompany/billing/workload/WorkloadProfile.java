@@ -0,0 +1,50 @@
+package org.phonecompany.billing.workload;
+
+import java.time.LocalDate;
+
+/**
+ * Shape of a synthetic call log.
+ *
+ * @param seed              random seed; the same profile always produces the same log
+ * @param subscribers       number of distinct called numbers
+ * @param zipfExponent      skew of called-number popularity (0 = uniform, around 1 = typical)
+ * @param startDate         first day of the log
+ * @param days              number of days the start times are spread over
+ * @param longCallShare     share of calls with a Pareto-tailed duration (minutes to hours)
+ * @param multiDayCallShare share of calls lasting one to three days
+ */
+public record WorkloadProfile(
+        long seed,
+        int subscribers,
+        double zipfExponent,
+        LocalDate startDate,
+        int days,
+        double longCallShare,
+        double multiDayCallShare
+) {
+
+    public WorkloadProfile {
+        if (subscribers < 1) {
+            throw new IllegalArgumentException("At least one subscriber is required");
+        }
+        if (zipfExponent < 0) {
+            throw new IllegalArgumentException("Zipf exponent cannot be negative: " + zipfExponent);
+        }
+        if (startDate == null) {
+            throw new IllegalArgumentException("Start date cannot be null");
+        }
+        if (days < 1) {
+            throw new IllegalArgumentException("At least one day is required");
+        }
+        if (longCallShare < 0 || multiDayCallShare < 0 || longCallShare + multiDayCallShare > 1) {
+            throw new IllegalArgumentException("Call shares must be non-negative and add up to at most 1");
+        }
+    }
+
+    /**
+     * A month of traffic to {@code subscribers} numbers with typical skew and duration mix.
+     */
+    public static WorkloadProfile standard(long seed, int subscribers) {
+        return new WorkloadProfile(seed, subscribers, 1.0, LocalDate.of(2020, 1, 1), 31, 0.05, 0.0005);
+    }
+}
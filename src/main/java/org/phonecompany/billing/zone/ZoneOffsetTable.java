@@ -0,0 +1,160 @@
+package org.phonecompany.billing.zone;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * UTC offsets of one zone, precomputed per year from its {@link ZoneRules}, so that pricing can ask for the offset
+ * in force at an instant without a rules lookup.
+ * <p>
+ * For every year of the table it keeps the offset at the start of the year (midnight UTC) and the year's
+ * transitions with the offset after each. A lookup finds the year arithmetically and scans its transitions,
+ * of which zones have at most a few. Instants outside the table's years fall back to the zone rules.
+ * Immutable and thread-safe.
+ */
+public final class ZoneOffsetTable {
+
+    static final int DEFAULT_FIRST_YEAR = 1970;
+    static final int DEFAULT_LAST_YEAR = 2100;
+
+    private static final long SECONDS_PER_AVERAGE_YEAR = 31_556_952;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final int firstYear;
+    /** Epoch second of 1 January 00:00 UTC of each year, plus the end of the last year. */
+    private final long[] yearStarts;
+    private final int[] yearStartOffsets;
+    /** Index into the transition arrays of the first transition of each year, plus the transition count. */
+    private final int[] firstTransitions;
+    private final long[] transitionSeconds;
+    private final int[] offsetsAfter;
+    /** First transition at or after the end of the table, {@link Long#MAX_VALUE} if none. */
+    private final long firstTransitionAfterTable;
+
+    private ZoneOffsetTable(ZoneId zone, int firstYear, int lastYear) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        this.firstYear = firstYear;
+
+        int years = lastYear - firstYear + 1;
+        this.yearStarts = new long[years + 1];
+        this.yearStartOffsets = new int[years];
+        for (int i = 0; i <= years; i++) {
+            yearStarts[i] = LocalDate.of(firstYear + i, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+            if (i < years) {
+                yearStartOffsets[i] = rules.getOffset(Instant.ofEpochSecond(yearStarts[i])).getTotalSeconds();
+            }
+        }
+
+        long[] seconds = new long[16];
+        int[] offsets = new int[16];
+        int count = 0;
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(yearStarts[0] - 1));
+        while (transition != null && transition.toEpochSecond() < yearStarts[years]) {
+            if (count == seconds.length) {
+                seconds = Arrays.copyOf(seconds, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            seconds[count] = transition.toEpochSecond();
+            offsets[count] = transition.getOffsetAfter().getTotalSeconds();
+            count++;
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        this.firstTransitionAfterTable = transition == null ? Long.MAX_VALUE : transition.toEpochSecond();
+        this.transitionSeconds = Arrays.copyOf(seconds, count);
+        this.offsetsAfter = Arrays.copyOf(offsets, count);
+
+        this.firstTransitions = new int[years + 1];
+        int next = 0;
+        for (int i = 0; i <= years; i++) {
+            while (next < count && transitionSeconds[next] < yearStarts[i]) {
+                next++;
+            }
+            firstTransitions[i] = next;
+        }
+    }
+
+    /**
+     * Builds the table for the years {@value #DEFAULT_FIRST_YEAR} to {@value #DEFAULT_LAST_YEAR}.
+     */
+    public static ZoneOffsetTable of(ZoneId zone) {
+        return of(zone, DEFAULT_FIRST_YEAR, DEFAULT_LAST_YEAR);
+    }
+
+    /**
+     * Builds the table for the years {@code firstYear} to {@code lastYear}, inclusive.
+     */
+    public static ZoneOffsetTable of(ZoneId zone, int firstYear, int lastYear) {
+        if (firstYear > lastYear) {
+            throw new IllegalArgumentException("Invalid year range: " + firstYear + " to " + lastYear);
+        }
+        return new ZoneOffsetTable(zone, firstYear, lastYear);
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @return the total UTC offset in seconds in force at the given instant
+     */
+    public int offsetSecondsAt(long epochSecond) {
+        int year = yearIndex(epochSecond);
+        if (year < 0) {
+            return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        }
+        int offset = yearStartOffsets[year];
+        for (int i = firstTransitions[year]; i < firstTransitions[year + 1] && transitionSeconds[i] <= epochSecond; i++) {
+            offset = offsetsAfter[i];
+        }
+        return offset;
+    }
+
+    /**
+     * @return the epoch second of the first offset change after the given instant, or {@link Long#MAX_VALUE}
+     *         if the offset never changes again
+     */
+    public long nextTransitionAfter(long epochSecond) {
+        int year = yearIndex(epochSecond);
+        if (year < 0) {
+            ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(epochSecond));
+            return transition == null ? Long.MAX_VALUE : transition.toEpochSecond();
+        }
+        for (int i = firstTransitions[year]; i < transitionSeconds.length; i++) {
+            if (transitionSeconds[i] > epochSecond) {
+                return transitionSeconds[i];
+            }
+        }
+        return firstTransitionAfterTable;
+    }
+
+    /**
+     * @return index of the table year containing the instant, or -1 if it is outside the table
+     */
+    private int yearIndex(long epochSecond) {
+        int years = yearStartOffsets.length;
+        if (epochSecond < yearStarts[0] || epochSecond >= yearStarts[years]) {
+            return -1;
+        }
+        int year = (int) Math.min(years - 1, (epochSecond - yearStarts[0]) / SECONDS_PER_AVERAGE_YEAR);
+        while (epochSecond < yearStarts[year]) {
+            year--;
+        }
+        while (epochSecond >= yearStarts[year + 1]) {
+            year++;
+        }
+        return year;
+    }
+
+    @Override
+    public String toString() {
+        return "ZoneOffsetTable[" + zone + ", " + firstYear + "-" + (firstYear + yearStartOffsets.length - 1)
+                + ", " + transitionSeconds.length + " transitions]";
+    }
+}
@@ -0,0 +1,89 @@
+package org.phonecompany.billing.zone;
+
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.metrics.Counter;
+import org.phonecompany.billing.metrics.MetricsRegistry;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.ZonedCall;
+import org.phonecompany.billing.tariff.MinuteBreakdown;
+import org.phonecompany.billing.tariff.Tariff;
+
+import java.math.BigDecimal;
+
+/**
+ * Prices calls in the local time of one zone, correctly across daylight saving changes: the duration is the elapsed
+ * time between the call's instants, and each minute is charged by the local wall-clock time at which it starts.
+ * <p>
+ * A call is converted to epoch seconds once. Its minutes are then walked in runs of constant UTC offset taken from a
+ * {@link ZoneOffsetTable}; within a run local time advances with the instant, so every run is priced from its
+ * {@link MinuteBreakdown} in closed form, like a call without a zone. Minute indexes stay those of the whole call,
+ * so the long-call discount still counts from the start.
+ * <p>
+ * Plain {@link Call}s are taken to be in the table's zone (see {@link ZonedCall#of(Call, java.time.ZoneId)}),
+ * so this calculator can replace {@link CallPriceCalculator} in an existing bill calculator.
+ */
+public class ZonedCallPriceCalculator extends CallPriceCalculator {
+
+    private static final long SECONDS_PER_MINUTE = 60;
+
+    private final ZoneOffsetTable offsets;
+    private final Tariff tariff;
+    private final Counter callsPriced;
+    private final Counter minutesPriced;
+    private final Counter callsSplit;
+
+    /**
+     * @param metrics receives {@code pricer.calls}, {@code pricer.minutes} and {@code pricer.offsetSplits}
+     *                (calls priced across an offset change)
+     */
+    public ZonedCallPriceCalculator(ZoneOffsetTable offsets, Tariff tariff, MetricsRegistry metrics) {
+        this.offsets = offsets;
+        this.tariff = tariff;
+        this.callsPriced = metrics.counter("pricer.calls");
+        this.minutesPriced = metrics.counter("pricer.minutes");
+        this.callsSplit = metrics.counter("pricer.offsetSplits");
+    }
+
+    public ZonedCallPriceCalculator(ZoneOffsetTable offsets) {
+        this(offsets, Tariff.STANDARD, MetricsRegistry.noop());
+    }
+
+    @Override
+    public BigDecimal calculate(Call call) {
+        return calculate(ZonedCall.of(call, offsets.getZone()));
+    }
+
+    public BigDecimal calculate(ZonedCall call) {
+        long startSecond = call.startTime().toEpochSecond();
+        long minutes = call.getDurationInMinutes();
+        callsPriced.increment();
+        minutesPriced.add(minutes);
+        if (minutes == 0) {
+            return BigDecimal.ZERO;
+        }
+
+        long nextTransition = offsets.nextTransitionAfter(startSecond);
+        long lastMinuteStart = startSecond + (minutes - 1) * SECONDS_PER_MINUTE;
+        if (lastMinuteStart < nextTransition) {
+            long localStartMinute = Math.floorDiv(startSecond + offsets.offsetSecondsAt(startSecond), SECONDS_PER_MINUTE);
+            return tariff.price(MinuteBreakdown.of(localStartMinute, minutes, 0, minutes));
+        }
+
+        callsSplit.increment();
+        MinuteBreakdown breakdown = MinuteBreakdown.EMPTY;
+        long fromMinute = 0;
+        while (fromMinute < minutes) {
+            long runStart = startSecond + fromMinute * SECONDS_PER_MINUTE;
+            long runEnd = offsets.nextTransitionAfter(runStart);
+            long toMinute = runEnd == Long.MAX_VALUE
+                    ? minutes
+                    : Math.min(minutes, Math.ceilDiv(runEnd - startSecond, SECONDS_PER_MINUTE));
+            // Local epoch-minute the call would have started at had this run's offset applied throughout.
+            long localStartMinute = Math.floorDiv(runStart + offsets.offsetSecondsAt(runStart), SECONDS_PER_MINUTE)
+                    - fromMinute;
+            breakdown = breakdown.plus(MinuteBreakdown.of(localStartMinute, minutes, fromMinute, toMinute));
+            fromMinute = toMinute;
+        }
+        return tariff.price(breakdown);
+    }
+}
@@ -0,0 +1,67 @@
+package org.phonecompany.billing.perf;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the largest heap occupancy observed right after a garbage collection.
+ * Unlike the raw peak usage, which mostly reflects how large the young generation was sized,
+ * this follows the data the program actually keeps alive.
+ */
+final class LiveHeapTracker implements NotificationListener {
+
+    private final AtomicLong peak = new AtomicLong();
+
+    private LiveHeapTracker() {
+    }
+
+    static LiveHeapTracker start() {
+        LiveHeapTracker tracker = new LiveHeapTracker();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(tracker, null, null);
+            }
+        }
+        return tracker;
+    }
+
+    /**
+     * Stops tracking and returns the peak live heap in bytes.
+     */
+    long stop() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                try {
+                    emitter.removeNotificationListener(this);
+                } catch (ListenerNotFoundException e) {
+                    // not registered with this collector
+                }
+            }
+        }
+        return peak.get();
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+
+        long used = 0;
+        for (MemoryUsage usage : info.getGcInfo().getMemoryUsageAfterGc().values()) {
+            used += usage.getUsed();
+        }
+        peak.accumulateAndGet(used, Math::max);
+    }
+}
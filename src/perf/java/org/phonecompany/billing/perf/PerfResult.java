@@ -0,0 +1,62 @@
+package org.phonecompany.billing.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measurements of one dataset size.
+ *
+ * @param lines          calls in the dataset
+ * @param callsPerSecond end-to-end billing throughput (median of the measured runs)
+ * @param peakHeapBytes  peak heap usage during the measured runs
+ * @param peakRssBytes   peak resident set size of the process, or 0 where /proc is unavailable
+ * @param gcPauseMillis  total GC time during the measured runs
+ */
+record PerfResult(long lines, long callsPerSecond, long peakHeapBytes, long peakRssBytes, long gcPauseMillis) {
+
+    private static final Pattern OBJECT = Pattern.compile("\\{[^{}]*\"lines\"[^{}]*}");
+
+    String toJson() {
+        return "{\"lines\": " + lines
+                + ", \"callsPerSecond\": " + callsPerSecond
+                + ", \"peakHeapBytes\": " + peakHeapBytes
+                + ", \"peakRssBytes\": " + peakRssBytes
+                + ", \"gcPauseMillis\": " + gcPauseMillis + "}";
+    }
+
+    static String toJson(List<PerfResult> results) {
+        StringBuilder json = new StringBuilder("{\n  \"results\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            json.append("    ").append(results.get(i).toJson()).append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        return json.append("  ]\n}\n").toString();
+    }
+
+    /**
+     * Reads the results written by {@link #toJson(List)}. Only that flat layout is supported.
+     */
+    static List<PerfResult> fromJson(String json) {
+        List<PerfResult> results = new ArrayList<>();
+        Matcher matcher = OBJECT.matcher(json);
+        while (matcher.find()) {
+            String object = matcher.group();
+            results.add(new PerfResult(
+                    field(object, "lines"),
+                    field(object, "callsPerSecond"),
+                    field(object, "peakHeapBytes"),
+                    field(object, "peakRssBytes"),
+                    field(object, "gcPauseMillis")));
+        }
+        return results;
+    }
+
+    private static long field(String object, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\"\\s*:\\s*(\\d+)").matcher(object);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("Missing field " + name + " in " + object);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,200 @@
+package org.phonecompany.billing.perf;
+
+import org.phonecompany.billing.TelephoneBillCalculator;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * End-to-end throughput regression gate.
+ * <p>
+ * For each dataset size it generates a fixed-seed log file, bills it with {@link TelephoneBillCalculatorImpl}
+ * (read file, parse, promote, price) after warm-up in a fresh JVM, and records throughput, peak live heap
+ * (largest heap occupancy left after a collection), peak RSS and GC time.
+ * The results are compared with a stored baseline: the gate fails if throughput falls, or heap or RSS grows,
+ * by more than the tolerance. GC time is recorded but only reported, being too noisy to gate on.
+ * <p>
+ * Arguments: {@code <baseline.json> <workDir> <tolerance> <sizes,comma,separated> [--update]}.
+ * With {@code --update} the baseline is rewritten from this run instead of compared.
+ */
+public class ThroughputGate {
+
+    private static final String MEASURE_FLAG = "--measure";
+    private static final long SEED = 20_200_113;
+    private static final int SUBSCRIBERS = 10_000;
+    private static final long WARMUP_CALLS = 2_000_000;
+    private static final long MIN_CALLS_PER_RUN = 500_000;
+    private static final int MEASURED_RUNS = 5;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 3 && MEASURE_FLAG.equals(args[0])) {
+            System.out.println(measure(Path.of(args[1]), Long.parseLong(args[2])).toJson());
+            return;
+        }
+        if (args.length < 4) {
+            System.err.println("Usage: ThroughputGate <baseline.json> <workDir> <tolerance> <sizes> [--update]");
+            System.exit(2);
+        }
+        Path baselineFile = Path.of(args[0]);
+        Path workDir = Path.of(args[1]);
+        double tolerance = Double.parseDouble(args[2]);
+        long[] sizes = Arrays.stream(args[3].split(",")).mapToLong(Long::parseLong).sorted().toArray();
+        boolean update = args.length > 4 && "--update".equals(args[4]);
+
+        Files.createDirectories(workDir);
+        List<PerfResult> results = new ArrayList<>();
+        for (long size : sizes) {
+            PerfResult result = measureInFreshJvm(generate(workDir, size), size);
+            System.out.println("measured " + result.toJson());
+            results.add(result);
+        }
+
+        if (update || !Files.exists(baselineFile)) {
+            Files.writeString(baselineFile, PerfResult.toJson(results));
+            System.out.println("Baseline written to " + baselineFile);
+            return;
+        }
+
+        List<String> failures = compare(PerfResult.fromJson(Files.readString(baselineFile)), results, tolerance);
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("REGRESSION: " + failure));
+            System.exit(1);
+        }
+        System.out.println("No regression beyond " + Math.round(tolerance * 100) + "% tolerance");
+    }
+
+    /**
+     * Runs the measurement of one size in a child JVM with the same JVM options and class path,
+     * so that peak RSS and heap are not inherited from earlier sizes.
+     */
+    private static PerfResult measureInFreshJvm(Path file, long lines) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ThroughputGate.class.getName());
+        command.add(MEASURE_FLAG);
+        command.add(file.toString());
+        command.add(Long.toString(lines));
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Measurement of " + lines + " lines failed");
+        }
+
+        List<PerfResult> parsed = PerfResult.fromJson(output);
+        if (parsed.size() != 1) {
+            throw new IllegalStateException("Unexpected measurement output: " + output);
+        }
+        return parsed.getFirst();
+    }
+
+    static List<String> compare(List<PerfResult> baseline, List<PerfResult> current, double tolerance) {
+        List<String> failures = new ArrayList<>();
+
+        for (PerfResult result : current) {
+            PerfResult expected = baseline.stream()
+                    .filter(candidate -> candidate.lines() == result.lines())
+                    .findFirst()
+                    .orElse(null);
+            if (expected == null) {
+                System.out.println("No baseline for " + result.lines() + " lines, skipping comparison");
+                continue;
+            }
+
+            if (result.callsPerSecond() < expected.callsPerSecond() * (1 - tolerance)) {
+                failures.add(result.lines() + " lines: throughput " + result.callsPerSecond()
+                        + " calls/s, baseline " + expected.callsPerSecond());
+            }
+            if (result.peakHeapBytes() > expected.peakHeapBytes() * (1 + tolerance)) {
+                failures.add(result.lines() + " lines: peak heap " + result.peakHeapBytes()
+                        + " bytes, baseline " + expected.peakHeapBytes());
+            }
+            if (expected.peakRssBytes() > 0 && result.peakRssBytes() > expected.peakRssBytes() * (1 + tolerance)) {
+                failures.add(result.lines() + " lines: peak RSS " + result.peakRssBytes()
+                        + " bytes, baseline " + expected.peakRssBytes());
+            }
+        }
+
+        return failures;
+    }
+
+    private static Path generate(Path workDir, long lines) throws IOException {
+        Path file = workDir.resolve("calls-" + SEED + "-" + lines + ".csv");
+        if (!Files.exists(file)) {
+            CallLogGenerator generator = new CallLogGenerator(WorkloadProfile.standard(SEED, SUBSCRIBERS));
+            try (OutputStream out = Files.newOutputStream(file)) {
+                generator.writeCsv(out, lines);
+            }
+        }
+        return file;
+    }
+
+    private static PerfResult measure(Path file, long lines) throws IOException {
+        TelephoneBillCalculator calculator = new TelephoneBillCalculatorImpl();
+
+        // Small datasets are billed repeatedly so that JIT warm-up and timer resolution do not dominate
+        long repetitions = Math.max(1, MIN_CALLS_PER_RUN / lines);
+        for (long billed = 0; billed < Math.max(WARMUP_CALLS, 2 * lines); billed += lines) {
+            bill(calculator, file);
+        }
+
+        System.gc();
+        LiveHeapTracker liveHeap = LiveHeapTracker.start();
+        long gcBefore = totalGcMillis();
+        long[] nanos = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            for (long r = 0; r < repetitions; r++) {
+                bill(calculator, file);
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+        long gcMillis = totalGcMillis() - gcBefore;
+
+        Arrays.sort(nanos);
+        long median = nanos[MEASURED_RUNS / 2];
+        long callsPerSecond = (long) (lines * repetitions * 1e9 / median);
+
+        return new PerfResult(lines, callsPerSecond, liveHeap.stop(), peakRssBytes(), gcMillis);
+    }
+
+    private static BigDecimal bill(TelephoneBillCalculator calculator, Path file) throws IOException {
+        return calculator.calculate(Files.readString(file, StandardCharsets.US_ASCII));
+    }
+
+    private static long peakRssBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        return 0;
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,95 @@
+package org.phonecompany.billing;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Pins heap allocation of the hot paths. Budgets are the measured figures on JDK 21 with headroom for
+ * differences in JIT profile between test orders; an optimisation that lowers allocation should lower the matching budget too.
+ */
+class AllocationBudgetTest {
+
+    /** Per line: split, three trimmed fields, two parsed date-times and the call itself. */
+    private static final double PARSE_BYTES_PER_LINE = 3_072;
+
+    /** Per call: BigDecimal sums and the LocalDateTime of each walked minute. */
+    private static final double PRICING_BYTES_PER_CALL = 768;
+
+    /** A call spanning peak boundaries also allocates per discounted batch. */
+    private static final double PRICING_BYTES_PER_LONG_CALL = 1_024;
+
+    /** Per 1 000-call bill over 50 numbers: the grouping map and its boxed counts. */
+    private static final double PROMOTION_BYTES_PER_BILL = 32_768;
+
+    private static final String LOG = new CallLogGenerator(WorkloadProfile.standard(7, 50)).csv(1_000);
+    private static final String SHORT_LINE = "420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00";
+
+    private static List<Call> calls;
+
+    @BeforeAll
+    static void checkSupport() {
+        assumeTrue(AllocationMeter.isSupported(), "Thread allocation measurement is not available");
+        calls = new CsvCallLogParser().parse(LOG);
+    }
+
+    @Test
+    void parsingSingleLineShouldStayWithinBudget() {
+        CsvCallLogParser parser = new CsvCallLogParser();
+
+        double bytes = AllocationMeter.bytesPerOperation(20_000, 20_000, () -> parser.parseLine(SHORT_LINE));
+
+        assertWithinBudget("parseLine", bytes, PARSE_BYTES_PER_LINE);
+    }
+
+    @Test
+    void parsingWholeLogShouldStayWithinPerLineBudget() {
+        CsvCallLogParser parser = new CsvCallLogParser();
+
+        double bytes = AllocationMeter.bytesPerOperation(200, 50, () -> parser.parse(LOG)) / calls.size();
+
+        assertWithinBudget("parse per line", bytes, PARSE_BYTES_PER_LINE);
+    }
+
+    @Test
+    void pricingShortCallShouldStayWithinBudget() {
+        CallPriceCalculator pricer = new CallPriceCalculator();
+        Call call = new CsvCallLogParser().parseLine(SHORT_LINE);
+
+        double bytes = AllocationMeter.bytesPerOperation(50_000, 50_000, () -> pricer.calculate(call));
+
+        assertWithinBudget("short call", bytes, PRICING_BYTES_PER_CALL);
+    }
+
+    @Test
+    void pricingLongCallShouldStayWithinBudget() {
+        CallPriceCalculator pricer = new CallPriceCalculator();
+        Call call = new CsvCallLogParser().parseLine("420774577453,13-01-2020 07:30:00,13-01-2020 18:10:00");
+
+        double bytes = AllocationMeter.bytesPerOperation(50_000, 50_000, () -> pricer.calculate(call));
+
+        assertWithinBudget("long call", bytes, PRICING_BYTES_PER_LONG_CALL);
+    }
+
+    @Test
+    void promotionShouldStayWithinPerBillBudget() {
+        MostCalledNumberPromotion promotion = new MostCalledNumberPromotion();
+
+        double bytes = AllocationMeter.bytesPerOperation(200, 100, () -> promotion.getFreePhoneNumber(calls));
+
+        assertWithinBudget("promotion", bytes, PROMOTION_BYTES_PER_BILL);
+    }
+
+    private static void assertWithinBudget(String operation, double bytes, double budget) {
+        assertTrue(bytes <= budget, String.format("%s allocated %.1f bytes, budget is %.0f", operation, bytes, budget));
+    }
+}
@@ -0,0 +1,58 @@
+package org.phonecompany.billing;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Measures heap bytes allocated by the current thread per operation, using
+ * {@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()}.
+ * <p>
+ * The operation is run {@code warmupIterations} times first so that class loading, lazy initialisation and
+ * JIT compilation (including escape analysis) settle. The measured rounds are then repeated and the
+ * lowest per-operation figure is reported, which filters out one-off allocations such as TLAB refills and
+ * deoptimisation.
+ */
+public final class AllocationMeter {
+
+    private static final int ROUNDS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Keeps results reachable so the JIT cannot discard the measured work. */
+    private static volatile Object sink;
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * @return whether the running JVM can measure per-thread allocation
+     */
+    public static boolean isSupported() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @param operation the work to measure; its result is retained until the next operation
+     * @return bytes allocated per call of {@code operation}, as the minimum over several rounds
+     */
+    public static double bytesPerOperation(int warmupIterations, int measuredIterations, Supplier<?> operation) {
+        if (measuredIterations <= 0) {
+            throw new IllegalArgumentException("Measured iterations must be positive: " + measuredIterations);
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            sink = operation.get();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < measuredIterations; i++) {
+                sink = operation.get();
+            }
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+            best = Math.min(best, allocated);
+        }
+        return (double) best / measuredIterations;
+    }
+}
@@ -0,0 +1,113 @@
+package org.phonecompany.billing;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCallPricerTest {
+
+    private static final PhoneNumber NUMBER = new PhoneNumber("420774577453");
+
+    private final CallPriceCalculator calculator = new CallPriceCalculator();
+
+    @Test
+    void shouldMatchCallPriceCalculatorOnGeneratedLog() {
+        List<Call> calls = new CsvCallLogParser().parse(
+                new CallLogGenerator(WorkloadProfile.standard(5, 100)).csv(20_000));
+
+        long[] prices = BatchCallPricer.priceCalls(calls);
+
+        for (int i = 0; i < calls.size(); i++) {
+            assertEquals(calculator.calculate(calls.get(i)).movePointRight(2).longValueExact(), prices[i],
+                    calls.get(i).toString());
+        }
+    }
+
+    @Test
+    void shouldMatchCallPriceCalculatorAroundBoundaries() {
+        List<Call> calls = new ArrayList<>();
+        LocalDateTime day = LocalDateTime.of(2020, 1, 13, 0, 0);
+        for (int startMinute : new int[]{0, 470, 475, 478, 479, 480, 481, 955, 958, 959, 960, 1435, 1439}) {
+            for (int seconds : new int[]{0, 30}) {
+                for (int minutes : new int[]{0, 1, 4, 5, 6, 7, 480, 1000, 1440, 1441, 4000}) {
+                    LocalDateTime start = day.plusMinutes(startMinute).plusSeconds(seconds);
+                    calls.add(new Call(NUMBER, start, start.plusMinutes(minutes)));
+                }
+            }
+        }
+
+        long[] prices = BatchCallPricer.priceCalls(calls);
+
+        for (int i = 0; i < calls.size(); i++) {
+            assertEquals(calculator.calculate(calls.get(i)).movePointRight(2).longValueExact(), prices[i],
+                    calls.get(i).toString());
+        }
+    }
+
+    @Test
+    void shouldMatchCallPriceCalculatorAroundReciprocalEndLimit() {
+        LocalDateTime limit = LocalDateTime.of(1970, 1, 1, 0, 0).plusMinutes(BatchCallPricer.RECIPROCAL_END_LIMIT);
+        List<Call> calls = new ArrayList<>();
+        for (int minutesBefore : new int[]{2, 1, 3, 600, 1440, 2000}) {
+            for (int minutes : new int[]{0, 1, 2, 5, 6, 700, 3000}) {
+                LocalDateTime start = limit.minusMinutes(minutesBefore);
+                calls.add(new Call(NUMBER, start, start.plusMinutes(minutes)));
+            }
+        }
+
+        // The first two calls end just before the limit; the whole batch takes the division path
+        long[] prices = BatchCallPricer.priceCalls(calls);
+        long[] reciprocal = BatchCallPricer.priceCalls(calls.subList(0, 2));
+
+        for (int i = 0; i < calls.size(); i++) {
+            assertEquals(calculator.calculate(calls.get(i)).movePointRight(2).longValueExact(), prices[i],
+                    calls.get(i).toString());
+        }
+        assertArrayEquals(new long[]{prices[0], prices[1]}, reciprocal);
+    }
+
+    @Test
+    void shouldPriceOnlyRequestedRange() {
+        long start = BatchCallPricer.toEpochMinute(LocalDateTime.of(2020, 1, 13, 10, 0));
+        long[] starts = {start, start, start};
+        long[] durations = {3, 12, 3};
+        long[] prices = {-1, -1, -1};
+
+        BatchCallPricer.priceBatch(starts, durations, prices, 1, 2);
+
+        assertArrayEquals(new long[]{-1, 1060, -1}, prices);
+        assertEquals("10.60", BatchCallPricer.toCrowns(prices[1]).toPlainString());
+    }
+
+    @Test
+    void shouldRejectNegativeInputAndBadRanges() {
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCallPricer.priceBatch(new long[]{100}, new long[]{-1}, new long[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCallPricer.priceBatch(new long[]{-100}, new long[]{1}, new long[1]));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> BatchCallPricer.priceBatch(new long[2], new long[2], new long[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCallPricer.priceBatch(new long[]{Long.MAX_VALUE}, new long[]{1}, new long[1]));
+    }
+
+    @Test
+    void shouldWriteNothingWhenRejectingRange() {
+        long start = BatchCallPricer.toEpochMinute(LocalDateTime.of(2020, 1, 13, 10, 0));
+        long[] prices = {-1, -1, -1};
+
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchCallPricer.priceBatch(new long[]{start, start, start}, new long[]{3, 12, -3}, prices));
+
+        assertArrayEquals(new long[]{-1, -1, -1}, prices);
+    }
+}
@@ -0,0 +1,59 @@
+package org.phonecompany.billing;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillAccumulatorTest {
+
+    private static final PhoneNumber FIRST = new PhoneNumber("420774577453");
+    private static final PhoneNumber SECOND = new PhoneNumber("420776562353");
+
+    @Test
+    void shouldReturnZeroWhenEmpty() {
+        BillAccumulator bill = new BillAccumulator();
+
+        assertEquals(BigDecimal.ZERO, bill.getTotal());
+        assertTrue(bill.getFreePhoneNumber().isEmpty());
+    }
+
+    @Test
+    void shouldExcludeMostCalledNumber() {
+        BillAccumulator bill = new BillAccumulator();
+        bill.add(FIRST, new BigDecimal("3.00"));
+        bill.add(FIRST, new BigDecimal("2.00"));
+        bill.add(SECOND, new BigDecimal("5.00"));
+
+        assertEquals(FIRST, bill.getFreePhoneNumber().orElseThrow());
+        assertEquals(new BigDecimal("5.00"), bill.getTotal());
+        assertEquals(3, bill.getCallCount());
+    }
+
+    @Test
+    void shouldGiveTieToArithmeticallyHigherNumber() {
+        BillAccumulator bill = new BillAccumulator();
+        bill.add(new PhoneNumber("999"), new BigDecimal("1.00"));
+        bill.add(new PhoneNumber("1000"), new BigDecimal("2.00"));
+
+        assertEquals("1000", bill.getFreePhoneNumber().orElseThrow().value());
+        assertEquals(new BigDecimal("1.00"), bill.getTotal());
+    }
+
+    @Test
+    void shouldMergeAccumulators() {
+        BillAccumulator first = new BillAccumulator();
+        first.add(FIRST, new BigDecimal("3.00"));
+        BillAccumulator second = new BillAccumulator();
+        second.add(SECOND, new BigDecimal("1.00"));
+        second.add(SECOND, new BigDecimal("1.50"));
+
+        first.addAll(second);
+
+        assertEquals(SECOND, first.getFreePhoneNumber().orElseThrow());
+        assertEquals(new BigDecimal("3.00"), first.getTotal());
+        assertEquals(2, first.getSubtotals().get(SECOND).calls());
+    }
+}
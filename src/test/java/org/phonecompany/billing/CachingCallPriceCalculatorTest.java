@@ -0,0 +1,109 @@
+package org.phonecompany.billing;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingCallPriceCalculatorTest {
+
+    private static final PhoneNumber NUMBER = new PhoneNumber("420774577453");
+
+    private final CallPriceCalculator plain = new CallPriceCalculator();
+
+    @Test
+    void shouldPriceExactlyLikeDelegate() {
+        List<Call> calls = new CsvCallLogParser().parse(
+                new CallLogGenerator(WorkloadProfile.standard(11, 200)).csv(20_000));
+        CachingCallPriceCalculator cached = new CachingCallPriceCalculator(plain, 256, 24 * 60);
+
+        for (Call call : calls) {
+            assertEquals(plain.calculate(call), cached.calculate(call), call.toString());
+        }
+    }
+
+    @Test
+    void shouldHitForSameShapeOnDifferentDaysAndSeconds() {
+        CachingCallPriceCalculator cached = new CachingCallPriceCalculator(plain);
+
+        BigDecimal first = cached.calculate(call(LocalDateTime.of(2020, 1, 13, 7, 58, 0), 12));
+        BigDecimal second = cached.calculate(call(LocalDateTime.of(2020, 3, 2, 7, 58, 40), 12));
+
+        assertEquals(new BigDecimal("9.60"), first);
+        assertEquals(first, second);
+        assertEquals(new CachingCallPriceCalculator.Stats(1, 1, 0), cached.getStats());
+        assertEquals(0.5, cached.getStats().hitRate());
+    }
+
+    @Test
+    void shouldBypassCacheAboveDurationCutoff() {
+        CachingCallPriceCalculator cached = new CachingCallPriceCalculator(plain, 64, 60);
+        Call longCall = call(LocalDateTime.of(2020, 1, 13, 10, 0, 0), 61);
+
+        cached.calculate(longCall);
+        cached.calculate(longCall);
+
+        assertEquals(new CachingCallPriceCalculator.Stats(0, 0, 2), cached.getStats());
+        assertEquals(plain.calculate(longCall), cached.calculate(longCall));
+    }
+
+    @Test
+    void shouldStayCorrectUnderEvictionAndConcurrency() throws Exception {
+        CachingCallPriceCalculator cached = new CachingCallPriceCalculator(plain, 4, 24 * 60);
+        List<Call> calls = new ArrayList<>();
+        for (int minute = 0; minute < 24 * 60; minute += 7) {
+            calls.add(call(LocalDateTime.of(2020, 1, 13, 0, 0).plusMinutes(minute), 1 + minute % 30));
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        for (Call call : calls) {
+                            assertEquals(plain.calculate(call), cached.calculate(call));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        CachingCallPriceCalculator.Stats stats = cached.getStats();
+        assertEquals(4L * 20 * calls.size(), stats.hits() + stats.misses());
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new CachingCallPriceCalculator(plain, 0, 60));
+        assertThrows(IllegalArgumentException.class, () -> new CachingCallPriceCalculator(plain, 16, -1));
+    }
+
+    @Test
+    void shouldRejectDelegatesThatMayPriceByDate() {
+        CallPriceCalculator subclass = new CallPriceCalculator() {
+        };
+
+        assertThrows(IllegalArgumentException.class, () -> new CachingCallPriceCalculator(subclass));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CachingCallPriceCalculator(new CachingCallPriceCalculator(plain)));
+    }
+
+    private static Call call(LocalDateTime start, long minutes) {
+        return new Call(NUMBER, start, start.plusMinutes(minutes));
+    }
+}
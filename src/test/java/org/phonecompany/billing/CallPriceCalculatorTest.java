@@ -421,6 +421,42 @@ class CallPriceCalculatorTest {
         assertTrue(price.compareTo(new BigDecimal("900")) < 0);
     }
 
+    @Test
+    void shouldCountDiscountedMinuteStartingSecondsBeforePeakEnd() {
+        // Minutes start at :30 seconds
+        // First 5 minutes (15:50:30 - 15:54:30): all peak = 5 * 1.00 = 5.00
+        // Discounted minutes starting 15:55:30 - 15:59:30: 5 * 0.80 = 4.00
+        // Discounted minutes starting 16:00:30 - 16:09:30: 10 * 0.30 = 3.00
+        // Total: 12.00
+        Call call = new Call(
+                new PhoneNumber("420774577453"),
+                LocalDateTime.of(2020, 1, 13, 15, 50, 30),
+                LocalDateTime.of(2020, 1, 13, 16, 10, 30)
+        );
+
+        BigDecimal price = calculator.calculate(call);
+
+        assertEquals(new BigDecimal("12.00"), price);
+    }
+
+    @Test
+    void shouldCountDiscountedMinuteStartingSecondsBeforePeakStart() {
+        // 16:02:30 + 5 minutes = 16:07:30; discounted off-peak minutes up to the one starting 07:59:30
+        // First 5 minutes: 5 * 0.50 = 2.50
+        // Discounted off-peak minutes 16:07:30 - 07:59:30: 953 * 0.30 = 285.90
+        // Discounted peak minutes 08:00:30 - 08:01:30: 2 * 0.80 = 1.60
+        // Total: 290.00
+        Call call = new Call(
+                new PhoneNumber("420774577453"),
+                LocalDateTime.of(2020, 1, 13, 16, 2, 30),
+                LocalDateTime.of(2020, 1, 14, 8, 2, 30)
+        );
+
+        BigDecimal price = calculator.calculate(call);
+
+        assertEquals(new BigDecimal("290.00"), price);
+    }
+
     @Test
     void shouldCalculateVeryLongCallEfficiently() {
         // 1,000,000 minutes call - tests batch optimization
@@ -0,0 +1,219 @@
+package org.phonecompany.billing;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.model.PhoneNumber;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentBillAccumulatorTest {
+
+    private static final PhoneNumber FIRST = new PhoneNumber("420774577453");
+    private static final PhoneNumber SECOND = new PhoneNumber("420776562353");
+
+    @Test
+    void shouldMatchSequentialAccumulator() {
+        ConcurrentBillAccumulator concurrent = new ConcurrentBillAccumulator();
+        BillAccumulator sequential = new BillAccumulator();
+        for (int i = 0; i < 100; i++) {
+            PhoneNumber number = new PhoneNumber(String.valueOf(420_000 + i % 7));
+            BigDecimal price = new BigDecimal("0.50").multiply(BigDecimal.valueOf(i % 5));
+            concurrent.add(number, price);
+            sequential.add(number, price);
+        }
+
+        BillAccumulator snapshot = concurrent.snapshot();
+
+        assertEquals(sequential.getTotal(), snapshot.getTotal());
+        assertEquals(sequential.getFreePhoneNumber(), snapshot.getFreePhoneNumber());
+        assertEquals(sequential.getSubtotals(), snapshot.getSubtotals());
+    }
+
+    @Test
+    void shouldReturnZeroWhenEmpty() {
+        BillAccumulator snapshot = new ConcurrentBillAccumulator().snapshot();
+
+        assertEquals(BigDecimal.ZERO, snapshot.getTotal());
+        assertTrue(snapshot.getFreePhoneNumber().isEmpty());
+    }
+
+    @Test
+    void shouldRejectNegativeAndFractionalHalerPrices() {
+        ConcurrentBillAccumulator bill = new ConcurrentBillAccumulator();
+
+        assertThrows(IllegalArgumentException.class, () -> bill.add(FIRST, new BigDecimal("-1.00")));
+        assertThrows(ArithmeticException.class, () -> bill.add(FIRST, new BigDecimal("0.005")));
+    }
+
+    @Test
+    void shouldSpillFullCellsInsteadOfFailing() {
+        ConcurrentBillAccumulator bill = new ConcurrentBillAccumulator();
+        BigDecimal large = new BigDecimal("6000000000.00");
+
+        bill.add(FIRST, large);
+        bill.add(FIRST, large);
+        bill.add(FIRST, new BigDecimal("20000000000.50"));
+        bill.add(SECOND, BigDecimal.ONE);
+
+        BillAccumulator.NumberSubtotal subtotal = bill.snapshot().getSubtotals().get(FIRST);
+        assertEquals(3, subtotal.calls());
+        assertEquals(new BigDecimal("32000000000.50"), subtotal.subtotal());
+    }
+
+    @Test
+    void shouldNotLoseCallsUnderContention() throws Exception {
+        ConcurrentBillAccumulator bill = new ConcurrentBillAccumulator();
+        int threads = 8;
+        int callsPerThread = 20_000;
+
+        runConcurrently(threads, thread -> {
+            for (int i = 0; i < callsPerThread; i++) {
+                bill.add(i % 3 == 0 ? SECOND : FIRST, new BigDecimal("1.00"));
+            }
+        });
+
+        BillAccumulator snapshot = bill.snapshot();
+        assertEquals((long) threads * callsPerThread, snapshot.getCallCount());
+        assertEquals(FIRST, snapshot.getFreePhoneNumber().orElseThrow());
+        long secondCalls = snapshot.getSubtotals().get(SECOND).calls();
+        assertEquals(threads * ((callsPerThread + 2) / 3), secondCalls);
+        assertEquals(BigDecimal.valueOf(secondCalls * 100, 2), snapshot.getTotal());
+    }
+
+    @Test
+    void shouldKeepCountsAndSubtotalsInStepWhileWritersRun() throws Exception {
+        ConcurrentBillAccumulator bill = new ConcurrentBillAccumulator();
+        // Every call to number n costs n haléř, so counts and subtotals agree iff subtotal == calls * n for each number.
+        List<PhoneNumber> numbers = List.of(new PhoneNumber("3"), new PhoneNumber("7"), new PhoneNumber("11"));
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<BillAccumulator> snapshots = new ArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; running.get(); i++) {
+                        PhoneNumber number = numbers.get((i + offset) % numbers.size());
+                        bill.add(number, BigDecimal.valueOf(Long.parseLong(number.value()), 2));
+                    }
+                }));
+            }
+            for (int i = 0; i < 200; i++) {
+                snapshots.add(bill.snapshot());
+            }
+            running.set(false);
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long previousCalls = 0;
+        for (BillAccumulator snapshot : snapshots) {
+            for (Map.Entry<PhoneNumber, BillAccumulator.NumberSubtotal> entry : snapshot.getSubtotals().entrySet()) {
+                long unit = Long.parseLong(entry.getKey().value());
+                assertEquals(0, BigDecimal.valueOf(entry.getValue().calls() * unit, 2)
+                        .compareTo(entry.getValue().subtotal()));
+            }
+            assertTrue(snapshot.getCallCount() >= previousCalls);
+            previousCalls = snapshot.getCallCount();
+        }
+    }
+
+    @Test
+    void shouldSnapshotPrefixOfEveryWriterWhileWritersRun() throws Exception {
+        ConcurrentBillAccumulator bill = new ConcurrentBillAccumulator();
+        // Writer t alternates between its own numbers 2t and 2t + 1, so a snapshot holds a prefix of its calls iff it
+        // holds as many calls to 2t as to 2t + 1, or one more. Prices differ per writer to move the free number.
+        int writers = 4;
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<BillAccumulator> snapshots = new ArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < writers; t++) {
+                int writer = t;
+                futures.add(executor.submit(() -> {
+                    for (long i = 0; running.get(); i++) {
+                        bill.add(writerNumber(writer, i), writerPrice(writer, i));
+                    }
+                }));
+            }
+            for (int i = 0; i < 500; i++) {
+                snapshots.add(bill.snapshot());
+                Thread.yield();
+            }
+            running.set(false);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (BillAccumulator snapshot : snapshots) {
+            BillAccumulator prefix = new BillAccumulator();
+            for (int t = 0; t < writers; t++) {
+                long even = snapshot.getSubtotal(writerNumber(t, 0)).map(BillAccumulator.NumberSubtotal::calls).orElse(0L);
+                long odd = snapshot.getSubtotal(writerNumber(t, 1)).map(BillAccumulator.NumberSubtotal::calls).orElse(0L);
+                assertTrue(even == odd || even == odd + 1, "Writer " + t + ": " + even + " and " + odd + " calls");
+                if (even > 0) {
+                    prefix.add(writerNumber(t, 0), even, writerPrice(t, 0).multiply(BigDecimal.valueOf(even)));
+                }
+                if (odd > 0) {
+                    prefix.add(writerNumber(t, 1), odd, writerPrice(t, 1).multiply(BigDecimal.valueOf(odd)));
+                }
+            }
+            assertEquals(prefix.getSubtotals(), snapshot.getSubtotals());
+            assertEquals(prefix.getTotal(), snapshot.getTotal());
+            assertEquals(prefix.getFreePhoneNumber(), snapshot.getFreePhoneNumber());
+        }
+    }
+
+    private static PhoneNumber writerNumber(int writer, long call) {
+        return new PhoneNumber(String.valueOf(2 * writer + call % 2));
+    }
+
+    private static BigDecimal writerPrice(int writer, long call) {
+        return BigDecimal.valueOf(writer + 1 + call % 2, 2);
+    }
+
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,148 @@
+package org.phonecompany.billing.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+import org.phonecompany.billing.tariff.ScheduledCallPriceCalculator;
+import org.phonecompany.billing.tariff.Tariff;
+import org.phonecompany.billing.tariff.TariffSchedule;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsageCubeTest {
+
+    private static final String LOG = new CallLogGenerator(WorkloadProfile.standard(21, 500)).csv(10_000);
+
+    private final TelephoneBillCalculatorImpl calculator = new TelephoneBillCalculatorImpl();
+
+    @Test
+    void shouldAddUpToTheBill() {
+        UsageCube cube = new UsageCube();
+
+        BigDecimal total = calculator.calculate(LOG, cube);
+
+        List<Call> calls = new CsvCallLogParser().parse(LOG);
+        long minutes = calls.stream().mapToLong(Call::getDurationInMinutes).sum();
+        assertEquals(calculator.calculate(LOG), total);
+        assertEquals(total.movePointRight(2).longValueExact(), cube.total(UsageMetric.REVENUE_HALER));
+        assertEquals(calls.size(), cube.total(UsageMetric.CALLS));
+        assertEquals(minutes, cube.total(UsageMetric.MINUTES));
+        assertEquals(minutes, cube.total(UsageMetric.PEAK_MINUTES) + cube.total(UsageMetric.OFF_PEAK_MINUTES));
+        assertEquals(calls.size(), Arrays.stream(cube.byWeekday(UsageMetric.CALLS)).sum());
+        assertEquals(calls.size(), Arrays.stream(cube.byHourOfDay(UsageMetric.CALLS)).sum());
+        assertTrue(cube.total(UsageMetric.FREE_CALLS) > 0);
+    }
+
+    @Test
+    void shouldBucketByStartHourOfWeekAndSplitBands() {
+        UsageCube cube = new UsageCube();
+
+        // Monday 13 January 2020, 07:58 for 4 minutes: 2 off-peak and 2 peak minutes
+        calculator.calculate("""
+                420774577453,13-01-2020 07:58:00,13-01-2020 08:02:00
+                420776562353,13-01-2020 07:10:00,13-01-2020 07:11:00
+                420776562353,13-01-2020 07:20:00,13-01-2020 07:21:00
+                """, cube);
+
+        assertEquals(3, cube.get(DayOfWeek.MONDAY, 7, UsageMetric.CALLS));
+        assertEquals(2, cube.get(DayOfWeek.MONDAY, 7, UsageMetric.FREE_CALLS));
+        assertEquals(2, cube.get(DayOfWeek.MONDAY, 7, UsageMetric.PEAK_MINUTES));
+        assertEquals(4, cube.get(DayOfWeek.MONDAY, 7, UsageMetric.OFF_PEAK_MINUTES));
+        assertEquals(300, cube.get(DayOfWeek.MONDAY, 7, UsageMetric.REVENUE_HALER));
+        assertEquals(0, cube.get(DayOfWeek.TUESDAY, 7, UsageMetric.CALLS));
+    }
+
+    @Test
+    void shouldRoundRevenueOfFinerTariffPerCall() {
+        Tariff fine = new Tariff("fine", new BigDecimal("1.005"), new BigDecimal("0.505"), BigDecimal.ZERO);
+        TelephoneBillCalculatorImpl fineCalculator = new TelephoneBillCalculatorImpl(new CsvCallLogParser(),
+                new ScheduledCallPriceCalculator(TariffSchedule.constant(fine)), new MostCalledNumberPromotion());
+        UsageCube cube = new UsageCube();
+
+        BigDecimal total = fineCalculator.calculate("""
+                420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+                420776562353,13-01-2020 10:10:00,13-01-2020 10:11:00
+                420776562353,13-01-2020 10:20:00,13-01-2020 10:21:00
+                """, cube);
+
+        assertEquals(new BigDecimal("3.015"), total);
+        // 3.015 rounds to 3.02; the free number's calls earn nothing
+        assertEquals(302, cube.get(DayOfWeek.MONDAY, 10, UsageMetric.REVENUE_HALER));
+    }
+
+    @Test
+    void shouldMergeSubscriberCubesIntoTheSameTotals() {
+        String other = new CallLogGenerator(WorkloadProfile.standard(22, 500)).csv(10_000);
+        UsageCube first = new UsageCube();
+        UsageCube second = new UsageCube();
+        calculator.calculate(LOG, first);
+        calculator.calculate(other, second);
+
+        UsageCube merged = new UsageCube();
+        merged.merge(first);
+        merged.merge(second);
+
+        for (UsageMetric metric : UsageMetric.values()) {
+            assertEquals(first.total(metric) + second.total(metric), merged.total(metric), metric.name());
+            for (int hour = 0; hour < 24; hour++) {
+                assertEquals(first.get(DayOfWeek.FRIDAY, hour, metric) + second.get(DayOfWeek.FRIDAY, hour, metric),
+                        merged.get(DayOfWeek.FRIDAY, hour, metric));
+            }
+        }
+    }
+
+    @Test
+    void shouldFindHeavyHittersWithBoundedError() {
+        List<Call> calls = new CsvCallLogParser().parse(LOG);
+        Map<PhoneNumber, Long> exact = calls.stream()
+                .collect(Collectors.groupingBy(Call::phoneNumber, Collectors.counting()));
+        TopNumbers left = new TopNumbers(20);
+        TopNumbers right = new TopNumbers(20);
+        for (int i = 0; i < calls.size(); i++) {
+            (i % 2 == 0 ? left : right).add(calls.get(i).phoneNumber(), 1);
+        }
+        left.merge(right);
+
+        List<TopNumbers.Entry> top = left.getTop();
+        Map<PhoneNumber, TopNumbers.Entry> byNumber = top.stream()
+                .collect(Collectors.toMap(TopNumbers.Entry::number, Function.identity()));
+        exact.forEach((number, count) -> {
+            if (count > calls.size() / 20) {
+                assertTrue(byNumber.containsKey(number), "heavy hitter " + number.value() + " missing");
+            }
+        });
+        for (TopNumbers.Entry entry : top) {
+            long trueCount = exact.getOrDefault(entry.number(), 0L);
+            assertTrue(entry.calls() >= trueCount);
+            assertTrue(entry.calls() - entry.error() <= trueCount);
+        }
+        PhoneNumber mostCalled = exact.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+        assertEquals(mostCalled, top.get(0).number());
+    }
+
+    @Test
+    void shouldCountExactlyWithinCapacity() {
+        TopNumbers top = new TopNumbers(3);
+        top.add(new PhoneNumber("1"), 2);
+        top.add(new PhoneNumber("2"), 5);
+        top.add(new PhoneNumber("1"), 1);
+
+        assertEquals(List.of(
+                new TopNumbers.Entry(new PhoneNumber("2"), 5, 0),
+                new TopNumbers.Entry(new PhoneNumber("1"), 3, 0)), top.getTop());
+        assertThrows(IllegalArgumentException.class, () -> new TopNumbers(0));
+    }
+}
@@ -0,0 +1,96 @@
+package org.phonecompany.billing.arena;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.FreePromotionStrategy;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArenaBillCalculatorTest {
+
+    private static final String LOG = new CallLogGenerator(WorkloadProfile.standard(17, 60)).csv(20_000);
+    private static final BigDecimal EXPECTED_TOTAL = new TelephoneBillCalculatorImpl().calculate(LOG);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldMatchLibraryTotalSequentially() throws IOException {
+        try (OffHeapCallArena arena = load(OffHeapCallArena.direct(4_096), LOG)) {
+            assertEquals(EXPECTED_TOTAL, new ArenaBillCalculator(new MostCalledNumberPromotion(), false).calculate(arena));
+        }
+    }
+
+    @Test
+    void shouldMatchLibraryTotalInParallelFromMappedArena() throws IOException {
+        try (OffHeapCallArena arena = load(OffHeapCallArena.mapped(directory.resolve("calls.arena"), 4_096), LOG)) {
+            assertEquals(EXPECTED_TOTAL, new ArenaBillCalculator().calculate(arena));
+        }
+    }
+
+    @Test
+    void shouldMatchLibraryOnTieAndPeakBoundaries() throws IOException {
+        String log = """
+                420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57
+                420776562353,18-01-2020 07:59:20,18-01-2020 08:10:00
+                420774577453,18-01-2020 15:58:30,18-01-2020 16:04:00
+                420776562353,19-01-2020 23:58:00,20-01-2020 00:03:01
+                9,19-01-2020 10:00:00,19-01-2020 10:00:01
+                """;
+        try (OffHeapCallArena arena = load(OffHeapCallArena.direct(2), log)) {
+            assertEquals(new TelephoneBillCalculatorImpl().calculate(log), new ArenaBillCalculator().calculate(arena));
+        }
+    }
+
+    @Test
+    void shouldReturnZeroForEmptyAndSingleNumberArenas() throws IOException {
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(16)) {
+            assertEquals(BigDecimal.ZERO, new ArenaBillCalculator().calculate(arena));
+
+            load(arena, "420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57\n");
+            assertEquals(BigDecimal.ZERO, new ArenaBillCalculator().calculate(arena));
+        }
+    }
+
+    @Test
+    void shouldFallBackToListForStrategiesWithoutArenaSupport() throws IOException {
+        PhoneNumber first = new PhoneNumber("420774577453");
+        FreePromotionStrategy firstCalled = calls -> calls.isEmpty() ? Optional.empty() : Optional.of(calls.get(0).phoneNumber());
+        String log = """
+                420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57
+                420776562353,18-01-2020 08:59:20,18-01-2020 09:10:00
+                420776562353,18-01-2020 10:59:20,18-01-2020 11:00:00
+                """;
+        try (OffHeapCallArena arena = load(OffHeapCallArena.direct(16), log)) {
+            assertEquals(Optional.of(first), new ArenaPromotion(firstCalled).getFreePhoneNumber(arena));
+            assertEquals(new BigDecimal("10.80"), new ArenaBillCalculator(firstCalled, true).calculate(arena));
+        }
+    }
+
+    @Test
+    void shouldRejectClosedArena() throws IOException {
+        OffHeapCallArena arena = load(OffHeapCallArena.direct(16), LOG.lines().limit(10).reduce("", (a, b) -> a + b + "\n"));
+        arena.close();
+
+        assertThrows(IllegalStateException.class, () -> new ArenaBillCalculator().calculate(arena));
+    }
+
+    private static OffHeapCallArena load(OffHeapCallArena arena, String log) {
+        List<Call> calls = new CsvCallLogParser().parse(log);
+        calls.forEach(arena::append);
+        return arena;
+    }
+}
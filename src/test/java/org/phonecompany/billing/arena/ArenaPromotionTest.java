@@ -0,0 +1,73 @@
+package org.phonecompany.billing.arena;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.FreePromotionStrategy;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArenaPromotionTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 13, 10, 0, 0);
+
+    private final MostCalledNumberPromotion promotion = new MostCalledNumberPromotion();
+
+    @Test
+    void shouldPickSameNumberFromArenaAsFromList() throws IOException {
+        List<Call> calls = List.of(
+                call("999"), call("420111111111"), call("1000"), call("420111111111"),
+                call("420999999999"), call("420999999999"), call("420555555555"));
+
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(4)) {
+            assertTrue(new ArenaPromotion(promotion).getFreePhoneNumber(arena).isEmpty());
+
+            calls.forEach(arena::append);
+
+            assertEquals(promotion.getFreePhoneNumber(calls), new ArenaPromotion(promotion).getFreePhoneNumber(arena));
+            assertEquals("420999999999",
+                    new ArenaPromotion(promotion).getFreePhoneNumber(arena).orElseThrow().value());
+        }
+    }
+
+    @Test
+    void shouldMatchListOnGeneratedLog() throws IOException {
+        List<Call> calls = new CsvCallLogParser().parse(new CallLogGenerator(WorkloadProfile.standard(3, 500)).csv(10_000));
+
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(1_024)) {
+            calls.forEach(arena::append);
+
+            assertEquals(promotion.getFreePhoneNumber(calls), new ArenaPromotion(promotion).getFreePhoneNumber(arena));
+        }
+    }
+
+    @Test
+    void shouldApplySubclassesToCopiedCalls() throws IOException {
+        FreePromotionStrategy lastCalled = new MostCalledNumberPromotion() {
+            @Override
+            public Optional<PhoneNumber> getFreePhoneNumber(List<Call> calls) {
+                return Optional.of(calls.get(calls.size() - 1).phoneNumber());
+            }
+        };
+
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(4)) {
+            List.of(call("420111111111"), call("420111111111"), call("420555555555")).forEach(arena::append);
+
+            assertEquals(Optional.of(new PhoneNumber("420555555555")),
+                    new ArenaPromotion(lastCalled).getFreePhoneNumber(arena));
+        }
+    }
+
+    private static Call call(String number) {
+        return new Call(new PhoneNumber(number), START, START.plusMinutes(3));
+    }
+}
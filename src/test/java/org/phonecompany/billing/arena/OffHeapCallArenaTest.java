@@ -0,0 +1,242 @@
+package org.phonecompany.billing.arena;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.phonecompany.billing.BatchCallPricer;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCallArenaTest {
+
+    private static final List<Call> CALLS =
+            new CsvCallLogParser().parse(new CallLogGenerator(WorkloadProfile.standard(11, 30)).csv(5_000));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackAppendedCallsAcrossChunks() throws IOException {
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(256)) {
+            for (int i = 0; i < CALLS.size(); i++) {
+                assertEquals(i, arena.append(CALLS.get(i)));
+            }
+
+            assertEquals(CALLS.size(), arena.size());
+            assertEquals(CALLS, arena.toCalls());
+            assertEquals(CALLS.get(4_321), arena.getCall(4_321));
+            assertEquals(20L * 256 * OffHeapCallArena.RECORD_BYTES, arena.getReservedBytes());
+        }
+    }
+
+    @Test
+    void shouldAssignDensePhoneIdsInOrderOfFirstCall() throws IOException {
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(4)) {
+            arena.append(new PhoneNumber("420774577453"), 0, 60);
+            arena.append(new PhoneNumber("420776562353"), 60, 60);
+            arena.append(new PhoneNumber("420774577453"), 120, 60);
+
+            assertEquals(2, arena.getNumberCount());
+            assertEquals(new PhoneNumber("420774577453"), arena.getPhoneNumber(0));
+            assertEquals(new PhoneNumber("420776562353"), arena.getPhoneNumber(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> arena.getPhoneNumber(2));
+        }
+    }
+
+    @Test
+    void shouldFillBatchesWithPricerColumns() throws IOException {
+        long[] expectedPrices = BatchCallPricer.priceCalls(CALLS);
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(128)) {
+            CALLS.forEach(arena::append);
+
+            List<Long> firstIndexes = new ArrayList<>();
+            arena.forEachBatch(batch -> {
+                firstIndexes.add(batch.getFirstIndex());
+                for (int i = 0; i < batch.size(); i++) {
+                    Call call = CALLS.get((int) batch.getFirstIndex() + i);
+                    assertEquals(arena.getPhoneNumber(batch.phoneId(i)), call.phoneNumber());
+                    assertEquals(BatchCallPricer.toEpochMinute(call.startTime()), batch.startEpochMinute(i));
+                    assertEquals(call.getDurationInMinutes(), batch.durationMinutes(i));
+                    assertEquals(expectedPrices[(int) batch.getFirstIndex() + i], batch.priceHaler(i));
+                }
+                assertThrows(IndexOutOfBoundsException.class, () -> batch.phoneId(batch.size()));
+            });
+
+            assertEquals(List.of(0L, 1024L, 2048L, 3072L, 4096L), firstIndexes);
+        }
+    }
+
+    @Test
+    void shouldScanInParallelLikeSequentially() throws IOException {
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(512)) {
+            CALLS.forEach(arena::append);
+
+            long[] sequential = new long[2];
+            arena.forEachBatch(batch -> {
+                sequential[0] += batch.size();
+                for (int i = 0; i < batch.size(); i++) {
+                    sequential[1] += batch.priceHaler(i);
+                }
+            });
+            long[] parallel = arena.scan(() -> new long[2], (sums, batch) -> {
+                sums[0] += batch.size();
+                for (int i = 0; i < batch.size(); i++) {
+                    sums[1] += batch.priceHaler(i);
+                }
+            }, (left, right) -> new long[]{left[0] + right[0], left[1] + right[1]});
+
+            assertEquals(CALLS.size(), sequential[0]);
+            assertArrayEquals(sequential, parallel);
+        }
+    }
+
+    @Test
+    void shouldScanEmptyArena() throws IOException {
+        try (OffHeapCallArena arena = OffHeapCallArena.direct()) {
+            long[] batches = arena.scan(() -> new long[1], (count, batch) -> count[0]++,
+                    (left, right) -> new long[]{left[0] + right[0]});
+
+            assertEquals(0, batches[0]);
+            assertEquals(0, arena.getReservedBytes());
+        }
+    }
+
+    @Test
+    void shouldStoreLittleEndianRecordsInMappedFile() throws IOException {
+        Path file = directory.resolve("calls.arena");
+        try (OffHeapCallArena arena = OffHeapCallArena.mapped(file, 2)) {
+            arena.append(new Call(new PhoneNumber("420774577453"),
+                    LocalDateTime.of(2020, 1, 13, 18, 10, 15), LocalDateTime.of(2020, 1, 13, 18, 12, 57)));
+            arena.append(new Call(new PhoneNumber("420776562353"),
+                    LocalDateTime.of(2020, 1, 18, 8, 59, 20), LocalDateTime.of(2020, 1, 18, 9, 10, 0)));
+            arena.append(new Call(new PhoneNumber("420774577453"),
+                    LocalDateTime.of(2020, 1, 18, 15, 59, 30), LocalDateTime.of(2020, 1, 18, 16, 1, 0)));
+
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(4 * OffHeapCallArena.RECORD_BYTES, records.capacity());
+            assertEquals(1, records.getInt(16));
+            assertEquals(640, records.getInt(20));
+            assertEquals(LocalDateTime.of(2020, 1, 18, 8, 59, 20).toEpochSecond(java.time.ZoneOffset.UTC),
+                    records.getLong(24));
+            assertEquals(0, records.getInt(32));
+            assertEquals(90, records.getInt(36));
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void shouldRejectAccessAfterClose() throws IOException {
+        OffHeapCallArena arena = OffHeapCallArena.direct(16);
+        CALLS.subList(0, 100).forEach(arena::append);
+
+        arena.close();
+        arena.close();
+
+        assertTrue(arena.isClosed());
+        assertThrows(IllegalStateException.class, arena::size);
+        assertThrows(IllegalStateException.class, () -> arena.getCall(0));
+        assertThrows(IllegalStateException.class, () -> arena.append(CALLS.get(0)));
+        assertThrows(IllegalStateException.class, () -> arena.forEachBatch(batch -> fail("scanned")));
+    }
+
+    @Test
+    void shouldWaitForScanInProgressBeforeFreeingMemory() throws Exception {
+        OffHeapCallArena arena = OffHeapCallArena.direct(256);
+        CALLS.forEach(arena::append);
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Long> scan = CompletableFuture.supplyAsync(() -> {
+            long[] prices = new long[1];
+            arena.forEachBatch(batch -> {
+                scanning.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    prices[0] += batch.priceHaler(i);
+                }
+            });
+            return prices[0];
+        });
+        assertTrue(scanning.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Void> close = CompletableFuture.runAsync(() -> {
+            try {
+                arena.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        Thread.sleep(100);
+        assertFalse(close.isDone(), "closed while a scan was reading");
+        release.countDown();
+
+        assertEquals(Arrays.stream(BatchCallPricer.priceCalls(CALLS)).sum(), scan.get(10, TimeUnit.SECONDS));
+        close.get(10, TimeUnit.SECONDS);
+        assertTrue(arena.isClosed());
+    }
+
+    @Test
+    void shouldRejectCloseFromInsideScan() throws IOException {
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(16)) {
+            CALLS.subList(0, 10).forEach(arena::append);
+
+            arena.forEachBatch(batch -> assertThrows(IllegalStateException.class, arena::close));
+
+            assertFalse(arena.isClosed());
+            assertEquals(CALLS.subList(0, 10), arena.toCalls());
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidCalls() throws IOException {
+        try (OffHeapCallArena arena = OffHeapCallArena.direct(16)) {
+            PhoneNumber number = new PhoneNumber("420774577453");
+
+            assertThrows(IllegalArgumentException.class, () -> arena.append(new Call(number,
+                    LocalDateTime.of(1969, 12, 31, 23, 59, 0), LocalDateTime.of(1970, 1, 1, 0, 1, 0))));
+            assertThrows(IllegalArgumentException.class, () -> arena.append(new Call(number,
+                    LocalDateTime.of(2000, 1, 1, 0, 0, 0), LocalDateTime.of(2100, 1, 1, 0, 0, 0))));
+            assertThrows(IllegalArgumentException.class, () -> arena.append(number, 0, -1));
+            assertThrows(IndexOutOfBoundsException.class, () -> arena.getCall(0));
+            assertEquals(0, arena.size());
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidChunkSizes() {
+        assertThrows(IllegalArgumentException.class, () -> OffHeapCallArena.direct(0));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapCallArena.direct(1000));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapCallArena.direct(OffHeapCallArena.MAX_CHUNK_RECORDS * 2));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapCallArena.mapped(directory.resolve("x"), 3));
+    }
+
+    @Test
+    void shouldRefuseExistingFile() throws IOException {
+        Path file = Files.writeString(directory.resolve("existing.arena"), "keep");
+
+        assertThrows(IOException.class, () -> OffHeapCallArena.mapped(file));
+        assertEquals("keep", Files.readString(file));
+    }
+}
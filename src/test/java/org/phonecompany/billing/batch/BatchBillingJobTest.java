@@ -0,0 +1,146 @@
+package org.phonecompany.billing.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchBillingJobTest {
+
+    private static final String FIRST_LOG = """
+            420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+            420776562353,13-01-2020 12:00:00,13-01-2020 12:05:00
+            420776562353,13-01-2020 18:00:00,13-01-2020 18:12:00
+            """;
+    private static final String SECOND_LOG = """
+            420774577453,14-01-2020 07:58:00,14-01-2020 08:09:30
+            420774577453,14-01-2020 10:00:00,14-01-2020 10:01:00
+            420111111111,14-01-2020 15:55:00,14-01-2020 16:10:00
+            420222222222,14-01-2020 20:00:00,14-01-2020 20:01:00""";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldBillEachInputLikeSingleBillCalculator() throws IOException {
+        List<Path> inputs = writeInputs(SECOND_LOG);
+
+        List<BillResult> results = newJob(inputs, "job.checkpoint").run();
+
+        TelephoneBillCalculatorImpl calculator = new TelephoneBillCalculatorImpl();
+        assertEquals(2, results.size());
+        assertEquals(calculator.calculate(FIRST_LOG), results.get(0).total());
+        assertEquals(calculator.calculate(SECOND_LOG), results.get(1).total());
+        assertEquals("420774577453", results.get(1).freeNumber().value());
+    }
+
+    @Test
+    void shouldResumeInterruptedRunWithIdenticalResults() throws IOException {
+        String broken = SECOND_LOG.replace("420111111111", "4201111x1111");
+        List<Path> inputs = writeInputs(broken);
+        BatchBillingJob job = newJob(inputs, "job.checkpoint");
+
+        // The bad line stands in for a crash two calls into the second input
+        assertThrows(IllegalArgumentException.class, job::run);
+        Files.writeString(inputs.get(0), "this input is done and must not be read again\n");
+        Files.writeString(inputs.get(1), SECOND_LOG);
+
+        List<BillResult> resumed = newJob(inputs, "job.checkpoint").run();
+
+        List<BillResult> uninterrupted = newJob(writeInputs(SECOND_LOG), "fresh.checkpoint").run();
+        assertEquals(uninterrupted, resumed);
+    }
+
+    @Test
+    void shouldResumeUnchangedInputFromRecordedOffset() throws IOException {
+        List<Path> inputs = writeInputs(SECOND_LOG);
+        CountingParser crashing = new CountingParser(5);
+
+        assertThrows(IllegalArgumentException.class, () -> newJob(inputs, "job.checkpoint", crashing).run());
+        CountingParser resuming = new CountingParser(Integer.MAX_VALUE);
+        List<BillResult> resumed = newJob(inputs, "job.checkpoint", resuming).run();
+
+        assertEquals(newJob(inputs, "fresh.checkpoint").run(), resumed);
+        assertEquals(3, resuming.lines);
+    }
+
+    @Test
+    void shouldRestartInputChangedSinceCheckpoint() throws IOException {
+        String broken = SECOND_LOG.replace("420111111111", "4201111x1111");
+        List<Path> inputs = writeInputs(broken);
+
+        assertThrows(IllegalArgumentException.class, newJob(inputs, "job.checkpoint")::run);
+        // Rewritten with a longer second call, ahead of the recorded offset
+        String rewritten = SECOND_LOG.replace("14-01-2020 10:01:00", "14-01-2020 10:09:00") + "\n";
+        Files.writeString(inputs.get(1), rewritten);
+
+        List<BillResult> resumed = newJob(inputs, "job.checkpoint").run();
+
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(rewritten), resumed.get(1).total());
+    }
+
+    @Test
+    void shouldReturnStoredResultsWhenRunAgain() throws IOException {
+        List<Path> inputs = writeInputs(SECOND_LOG);
+        List<BillResult> first = newJob(inputs, "job.checkpoint").run();
+        Files.delete(inputs.get(0));
+
+        assertEquals(first, newJob(inputs, "job.checkpoint").run());
+    }
+
+    @Test
+    void shouldRejectCheckpointOfDifferentJob() throws IOException {
+        List<Path> inputs = writeInputs(SECOND_LOG);
+        newJob(inputs, "job.checkpoint").run();
+
+        BatchBillingJob other = newJob(List.of(inputs.get(1)), "job.checkpoint");
+
+        assertThrows(IllegalStateException.class, other::run);
+    }
+
+    private BatchBillingJob newJob(List<Path> inputs, String checkpointName) {
+        return newJob(inputs, checkpointName, new CsvCallLogParser());
+    }
+
+    private BatchBillingJob newJob(List<Path> inputs, String checkpointName, CsvCallLogParser parser) {
+        return new BatchBillingJob(inputs, directory.resolve(checkpointName), 1, parser, new CallPriceCalculator());
+    }
+
+    private List<Path> writeInputs(String secondLog) throws IOException {
+        Path first = directory.resolve("first.csv");
+        Path second = directory.resolve("second.csv");
+        Files.writeString(first, FIRST_LOG);
+        Files.writeString(second, secondLog);
+        return List.of(first, second);
+    }
+
+    /**
+     * Counts parsed lines and fails on line {@code failAt}, standing in for a crash.
+     */
+    private static final class CountingParser extends CsvCallLogParser {
+
+        private final int failAt;
+        private int lines;
+
+        private CountingParser(int failAt) {
+            this.failAt = failAt;
+        }
+
+        @Override
+        public Call parseLine(String line) {
+            if (++lines == failAt) {
+                throw new IllegalStateException("Crashed at line " + lines);
+            }
+            return super.parseLine(line);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.phonecompany.billing.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.invoice.InvoiceFormat;
+import org.phonecompany.billing.invoice.ItemizedBillCalculator;
+import org.phonecompany.billing.invoice.ItemizedInvoiceWriter;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillingCliTest {
+
+    private static final String LOG = new CallLogGenerator(WorkloadProfile.standard(5, 40)).csv(3_000);
+
+    /** Lines with surrounding spaces, a blank line, a pre-1970 date and a lenient day. */
+    private static final String IRREGULAR_LOG = """
+            420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57
+             420776562353 , 18-01-2020 08:59:20 , 18-01-2020 09:10:00
+            420774577453,31-12-1969 23:58:00,01-01-1970 00:03:00
+
+            420776562353,31-04-2020 07:59:00,31-04-2020 08:02:00
+            420776562353,18-01-2020 15:59:30,18-01-2020 16:01:00
+            """;
+
+    @TempDir
+    Path directory;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    void shouldPrintTotalOfLogFile() throws IOException {
+        Path log = write("calls.csv", LOG);
+
+        int status = run(log.toString());
+
+        assertEquals(BillingCli.EXIT_OK, status);
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(LOG).toPlainString(), output().strip());
+        assertEquals("", error());
+    }
+
+    @Test
+    void shouldMatchLibraryOnIrregularLines() throws IOException {
+        Path log = write("irregular.csv", IRREGULAR_LOG);
+
+        int status = run(log.toString());
+
+        assertEquals(BillingCli.EXIT_OK, status);
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(IRREGULAR_LOG).toPlainString(), output().strip());
+    }
+
+    @Test
+    void shouldReadStandardInput() {
+        int status = run(new ByteArrayInputStream(LOG.getBytes(StandardCharsets.UTF_8)), "-");
+
+        assertEquals(BillingCli.EXIT_OK, status);
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(LOG).toPlainString(), output().strip());
+    }
+
+    @Test
+    void shouldPrintZeroForEmptyLog() {
+        int status = run(InputStream.nullInputStream());
+
+        assertEquals(BillingCli.EXIT_OK, status);
+        assertEquals("0", output().strip());
+    }
+
+    @Test
+    void shouldWriteSameItemizedInvoiceAsLibrary() throws IOException {
+        String log = LOG + IRREGULAR_LOG;
+        Path output = directory.resolve("invoice.csv");
+        Path expected = directory.resolve("expected.csv");
+        try (FileChannel channel = FileChannel.open(expected, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            new ItemizedBillCalculator().calculate(new StringReader(log),
+                    new ItemizedInvoiceWriter(channel, InvoiceFormat.CSV));
+        }
+
+        int status = run(new ByteArrayInputStream(log.getBytes(StandardCharsets.UTF_8)),
+                "--itemized", "--output", output.toString());
+
+        assertEquals(BillingCli.EXIT_OK, status);
+        assertEquals(Files.readAllLines(expected), Files.readAllLines(output));
+        assertEquals("", output());
+    }
+
+    @Test
+    void shouldWriteSameBinaryInvoiceAsLibrary() throws IOException {
+        Path log = write("calls.csv", LOG);
+        Path expected = directory.resolve("expected.bin");
+        try (FileChannel channel = FileChannel.open(expected, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            new ItemizedBillCalculator().calculate(new StringReader(LOG),
+                    new ItemizedInvoiceWriter(channel, InvoiceFormat.BINARY));
+        }
+
+        int status = run("--binary", log.toString());
+
+        assertEquals(BillingCli.EXIT_OK, status);
+        assertArrayEquals(Files.readAllBytes(expected), out.toByteArray());
+    }
+
+    @Test
+    void shouldCopyItemizedInvoiceToStandardOutputWithoutOutputFile() throws IOException {
+        Path log = write("irregular.csv", IRREGULAR_LOG);
+
+        int status = run("--itemized", log.toString());
+
+        String[] rows = output().split("\n");
+        assertEquals(BillingCli.EXIT_OK, status);
+        assertEquals("type,number,start,end,minutes,calls,price,free", rows[0]);
+        assertTrue(rows[rows.length - 1].startsWith("total,"), rows[rows.length - 1]);
+        assertFalse(output().contains(",?"), "unresolved free markers");
+    }
+
+    @Test
+    void shouldReportInvalidLineWithFailureStatus() throws IOException {
+        Path log = write("invalid.csv", LOG.lines().limit(3).reduce("", (a, b) -> a + b + "\n")
+                + "420774577453,yesterday,today\n");
+
+        int status = run(log.toString());
+
+        assertEquals(BillingCli.EXIT_FAILURE, status);
+        assertEquals("", output());
+        assertTrue(error().startsWith("billing: Failed to parse line 4: 420774577453,yesterday,today"), error());
+    }
+
+    @Test
+    void shouldReportMissingFileWithFailureStatus() {
+        int status = run(directory.resolve("missing.csv").toString());
+
+        assertEquals(BillingCli.EXIT_FAILURE, status);
+        assertTrue(error().contains("missing.csv"), error());
+    }
+
+    @Test
+    void shouldRejectUsageErrors() {
+        assertEquals(BillingCli.EXIT_USAGE, run("--verbose"));
+        assertEquals(BillingCli.EXIT_USAGE, run("one.csv", "two.csv"));
+        assertEquals(BillingCli.EXIT_USAGE, run("--output", "invoice.csv", "calls.csv"));
+        assertEquals(BillingCli.EXIT_USAGE, run("--itemized", "--output"));
+        assertTrue(error().contains("Usage: billing"), error());
+        assertEquals("", output());
+    }
+
+    @Test
+    void shouldPrintUsageOnHelp() {
+        assertEquals(BillingCli.EXIT_OK, run("--help"));
+        assertTrue(output().startsWith("Usage: billing"), output());
+    }
+
+    @Test
+    void shouldReportTimingOnStandardError() throws IOException {
+        Path log = write("calls.csv", LOG);
+
+        int status = run("--timing", log.toString());
+
+        assertEquals(BillingCli.EXIT_OK, status);
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(LOG).toPlainString(), output().strip());
+        assertTrue(error().matches("billing: first result after \\d+ ms from JVM start, \\d+ ms in billing\\R"),
+                error());
+    }
+
+    @Test
+    void shouldLeaveStandardInputOpen() {
+        boolean[] closed = {false};
+        InputStream stdin = new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        run(stdin);
+
+        assertFalse(closed[0]);
+    }
+
+    @Test
+    void shouldPrintZeroForSingleNumberLog() {
+        String log = "420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57\n";
+
+        int status = run(new ByteArrayInputStream(log.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(BillingCli.EXIT_OK, status);
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(log).toPlainString(), output().strip());
+    }
+
+    private int run(String... args) {
+        return run(InputStream.nullInputStream(), args);
+    }
+
+    private int run(InputStream stdin, String... args) {
+        return BillingCli.run(args, stdin, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private String output() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String error() {
+        return err.toString(StandardCharsets.UTF_8);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+}
@@ -0,0 +1,139 @@
+package org.phonecompany.billing.cycle;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CycleBillingCalculatorTest {
+
+    private final CycleBillingCalculator calculator = new CycleBillingCalculator(new MonthlyBillingCycle(15));
+
+    @Test
+    void shouldClampCycleStartToShortMonths() {
+        MonthlyBillingCycle cycle = new MonthlyBillingCycle(31);
+
+        assertEquals(LocalDateTime.of(2020, 2, 29, 0, 0), cycle.cycleStart(LocalDateTime.of(2020, 3, 10, 12, 0)));
+        assertEquals(LocalDateTime.of(2020, 3, 31, 0, 0), cycle.nextCycleStart(LocalDateTime.of(2020, 2, 29, 0, 0)));
+    }
+
+    @Test
+    void shouldRejectInvalidDayOfMonth() {
+        assertThrows(IllegalArgumentException.class, () -> new MonthlyBillingCycle(0));
+    }
+
+    @Test
+    void shouldMatchSingleBillWhenLogFitsOneCycle() {
+        String log = """
+            420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+            420774577453,13-01-2020 11:00:00,13-01-2020 11:02:00
+            420776562353,13-01-2020 12:00:00,13-01-2020 12:05:00
+            """;
+
+        List<CycleBill> bills = calculator.calculate(log);
+
+        assertEquals(1, bills.size());
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(log), bills.getFirst().total());
+        assertEquals("420774577453", bills.getFirst().freeNumber().value());
+        assertEquals(LocalDateTime.of(2019, 12, 15, 0, 0), bills.getFirst().cycleStart());
+    }
+
+    @Test
+    void shouldBillEachCycleSeparately() {
+        String log = """
+            420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+            420776562353,13-01-2020 12:00:00,13-01-2020 12:05:00
+            420776562353,13-01-2020 13:00:00,13-01-2020 13:01:00
+            420774577453,20-01-2020 10:00:00,20-01-2020 10:03:00
+            420776562353,20-01-2020 12:00:00,20-01-2020 12:02:00
+            """;
+
+        List<CycleBill> bills = calculator.calculate(log);
+
+        assertEquals(2, bills.size());
+        // First cycle: 420776562353 is free, 3 peak minutes to 420774577453
+        assertEquals(new BigDecimal("3.00"), bills.get(0).total());
+        // Second cycle: tie, 420776562353 is higher and free
+        assertEquals(new BigDecimal("3.00"), bills.get(1).total());
+    }
+
+    @Test
+    void shouldSplitCallCrossingCycleBoundaryWithoutRestartingDiscount() {
+        String log = """
+            420774577453,14-01-2020 23:57:00,15-01-2020 00:07:00
+            420776562353,14-01-2020 10:00:00,14-01-2020 10:01:00
+            420776562353,15-01-2020 10:00:00,15-01-2020 10:01:00
+            420776562353,15-01-2020 11:00:00,15-01-2020 11:01:00
+            """;
+
+        List<CycleBill> bills = calculator.calculate(log);
+
+        assertEquals(2, bills.size());
+        // 3 off-peak minutes before midnight: 3 * 0.50, the tie is won by the higher number
+        assertEquals(new BigDecimal("1.50"), bills.get(0).total());
+        // 2 standard off-peak minutes + 5 discounted off-peak minutes: 1.00 + 1.50
+        assertEquals(new BigDecimal("2.50"), bills.get(1).total());
+        assertEquals(3, bills.get(1).callCount());
+    }
+
+    @Test
+    void shouldNotChargeNextCycleWhenNoMinuteStartsInIt() {
+        String log = """
+            420774577453,14-01-2020 23:59:30,15-01-2020 00:00:10
+            420776562353,14-01-2020 10:00:00,14-01-2020 10:01:00
+            420776562353,14-01-2020 11:00:00,14-01-2020 11:01:00
+            """;
+
+        List<CycleBill> bills = calculator.calculate(log);
+
+        // the only minute starts at 23:59:30, so the cycle starting at midnight gets neither price nor call
+        assertEquals(1, bills.size());
+        assertEquals(new BigDecimal("0.50"), bills.get(0).total());
+        assertEquals(3, bills.get(0).callCount());
+    }
+
+    @Test
+    void shouldEmitCycleAsSoonAsOrderedInputPassesItsEnd() throws IOException {
+        String log = """
+            420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+            420774577453,20-01-2020 10:00:00,20-01-2020 10:03:00
+            420774577453,20-02-2020 10:00:00,20-02-2020 10:03:00
+            """;
+        List<LocalDateTime> emittedAtLine = new ArrayList<>();
+        CycleBillingCalculator.Session session = calculator.openSession(true,
+                bill -> emittedAtLine.add(bill.cycleStart()));
+
+        session.accept(call("420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00"));
+        assertTrue(emittedAtLine.isEmpty());
+        session.accept(call("420774577453,20-01-2020 10:00:00,20-01-2020 10:03:00"));
+        assertEquals(List.of(LocalDateTime.of(2019, 12, 15, 0, 0)), emittedAtLine);
+
+        List<CycleBill> streamed = new ArrayList<>();
+        calculator.calculate(new StringReader(log), streamed::add);
+        assertEquals(3, streamed.size());
+    }
+
+    @Test
+    void shouldRejectCallForAlreadyClosedCycle() {
+        CycleBillingCalculator.Session session = calculator.openSession(true, bill -> { });
+
+        session.accept(call("420774577453,20-01-2020 10:00:00,20-01-2020 10:03:00"));
+        session.accept(call("420774577453,20-02-2020 10:00:00,20-02-2020 10:03:00"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> session.accept(call("420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00")));
+    }
+
+    private static Call call(String line) {
+        return new CsvCallLogParser().parseLine(line);
+    }
+}
@@ -0,0 +1,144 @@
+package org.phonecompany.billing.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.TelephoneBillCalculator;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallDeduplicatorTest {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 13, 10, 0, 0);
+
+    @Test
+    void shouldReturnEmptyResultForNullCalls() {
+        DeduplicationResult result = new CallDeduplicator().deduplicate(null);
+
+        assertTrue(result.calls().isEmpty());
+        assertEquals(0, result.duplicatesDropped());
+    }
+
+    @Test
+    void shouldDropExactDuplicatesKeepingFirstOccurrence() {
+        Call first = call("420774577453", 0);
+        Call second = call("420776562353", 0);
+        List<Call> calls = List.of(first, second, first, first);
+
+        DeduplicationResult result = new CallDeduplicator().deduplicate(calls);
+
+        assertEquals(List.of(first, second), result.calls());
+        assertEquals(2, result.duplicatesDropped());
+    }
+
+    @Test
+    void shouldKeepCallsThatDifferOnlyInEndTime() {
+        Call shorter = new Call(new PhoneNumber("420774577453"), START, START.plusMinutes(1));
+        Call longer = new Call(new PhoneNumber("420774577453"), START, START.plusMinutes(2));
+
+        DeduplicationResult result = new CallDeduplicator().deduplicate(List.of(shorter, longer));
+
+        assertEquals(0, result.duplicatesDropped());
+    }
+
+    @Test
+    void shouldMatchExactResultWhenFilterIsUsed() {
+        List<Call> calls = callsWithDuplicates();
+
+        DeduplicationResult exact = new CallDeduplicator().deduplicate(calls);
+        // Tiny filter forces plenty of false positives through the exact confirmation pass
+        DeduplicationResult filtered = new CallDeduplicator(0, 10, 3).deduplicate(calls);
+
+        assertEquals(exact.calls(), filtered.calls());
+        assertEquals(715, filtered.duplicatesDropped());
+    }
+
+    @Test
+    void shouldSplitSuspectsOverCapKeepingListOrder() {
+        List<Call> calls = callsWithDuplicates();
+
+        DeduplicationResult exact = new CallDeduplicator().deduplicate(calls);
+        DeduplicationResult capped = new CallDeduplicator(0, 10, 3, 50).deduplicate(calls);
+
+        assertEquals(exact.calls(), capped.calls());
+        assertEquals(715, capped.duplicatesDropped());
+    }
+
+    @Test
+    void shouldStreamLogFileWithinSuspectCap(@TempDir Path directory) throws IOException {
+        List<Call> calls = callsWithDuplicates();
+        StringBuilder csv = new StringBuilder();
+        for (Call call : calls) {
+            csv.append(call.phoneNumber().value()).append(',').append(call.startTime().format(FORMAT))
+                    .append(',').append(call.endTime().format(FORMAT)).append('\n');
+        }
+        Path log = directory.resolve("calls.csv");
+        Files.writeString(log, csv);
+        CallSource source = CallSource.of(log, new CsvCallLogParser());
+        List<Call> expected = new CallDeduplicator().deduplicate(calls).calls();
+
+        List<Call> inOrder = new ArrayList<>();
+        assertEquals(715, new CallDeduplicator(0, 10, 3).deduplicate(source, inOrder::add));
+        assertEquals(expected, inOrder);
+
+        List<Call> split = new ArrayList<>();
+        assertEquals(715, new CallDeduplicator(0, 10, 3, 50).deduplicate(source, split::add));
+        assertEquals(new HashSet<>(expected), new HashSet<>(split));
+        assertEquals(expected.size(), split.size());
+    }
+
+    @Test
+    void shouldNotBillDuplicatedCallTwice() {
+        String log = """
+            420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+            420774577453,13-01-2020 11:00:00,13-01-2020 11:03:00
+            420776562353,13-01-2020 12:00:00,13-01-2020 12:02:00
+            420776562353,13-01-2020 12:00:00,13-01-2020 12:02:00
+            420776562353,13-01-2020 12:00:00,13-01-2020 12:02:00
+            """;
+        DeduplicatingCallLogParser parser = new DeduplicatingCallLogParser(new CsvCallLogParser());
+        TelephoneBillCalculator calculator = new TelephoneBillCalculatorImpl(
+                parser, new CallPriceCalculator(), new MostCalledNumberPromotion());
+
+        BigDecimal result = calculator.calculate(log);
+
+        // Without dedup 420776562353 would be the most called number; with it, 420774577453 (2 calls) is free
+        assertEquals(new BigDecimal("2.00"), result);
+        assertEquals(2, parser.getDuplicatesDropped());
+    }
+
+    /**
+     * 5,000 calls of 97 numbers, every seventh repeated right away.
+     */
+    private static List<Call> callsWithDuplicates() {
+        List<Call> calls = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            calls.add(call("4207" + (i % 97), i));
+            if (i % 7 == 0) {
+                calls.add(call("4207" + (i % 97), i));
+            }
+        }
+        return calls;
+    }
+
+    private static Call call(String number, int minuteOffset) {
+        LocalDateTime start = START.plusMinutes(minuteOffset);
+        return new Call(new PhoneNumber(number), start, start.plusSeconds(90));
+    }
+}
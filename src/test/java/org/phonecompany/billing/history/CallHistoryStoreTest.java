@@ -0,0 +1,92 @@
+package org.phonecompany.billing.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallHistoryStoreTest {
+
+    private static final List<Call> CALLS = new CsvCallLogParser().parse(
+            new CallLogGenerator(WorkloadProfile.standard(17, 300)).csv(30_000));
+
+    private final CallPriceCalculator calculator = new CallPriceCalculator();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldAnswerTimeRangeQueriesLikeAFullScan() throws IOException {
+        CallHistoryStore store = CallHistoryStore.open(directory);
+        store.append(CALLS.subList(15_000, 30_000));
+        store.append(CALLS.subList(0, 15_000));
+
+        for (int[] range : new int[][]{{3, 10}, {1, 32}, {14, 15}, {40, 50}}) {
+            LocalDateTime from = LocalDateTime.of(2020, 1, 1, 0, 0).plusDays(range[0] - 1).plusHours(7).plusSeconds(13);
+            LocalDateTime to = LocalDateTime.of(2020, 1, 1, 0, 0).plusDays(range[1] - 1);
+
+            List<Call> expected = CALLS.stream()
+                    .filter(call -> !call.startTime().isBefore(from) && call.startTime().isBefore(to))
+                    .sorted(Comparator.comparing(Call::startTime))
+                    .toList();
+            List<HistoricCall> found = store.find(from, to);
+
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected.stream().map(Call::startTime).toList(), found.stream().map(HistoricCall::startTime).toList());
+            assertEquals(0, total(expected).compareTo(store.cost(from, to)));
+        }
+    }
+
+    @Test
+    void shouldAnswerPerNumberQueriesAfterReopening() throws IOException {
+        CallHistoryStore.open(directory).append(CALLS);
+        CallHistoryStore store = CallHistoryStore.open(directory);
+        LocalDateTime from = LocalDateTime.of(2020, 1, 3, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2020, 1, 10, 0, 0);
+
+        for (PhoneNumber number : List.of(CALLS.get(0).phoneNumber(), CALLS.get(123).phoneNumber(), CALLS.get(29_999).phoneNumber())) {
+            List<Call> expected = CALLS.stream()
+                    .filter(call -> call.phoneNumber().equals(number))
+                    .filter(call -> !call.startTime().isBefore(from) && call.startTime().isBefore(to))
+                    .toList();
+            List<HistoricCall> found = store.find(number, from, to);
+
+            assertEquals(expected.size(), found.size(), number.value());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).endTime(), found.get(i).endTime());
+                assertEquals(0, calculator.calculate(expected.get(i)).compareTo(found.get(i).price()));
+            }
+            assertEquals(0, total(expected).compareTo(store.cost(number, from, to)));
+        }
+
+        assertEquals(1, store.getSegmentCount());
+        assertEquals(CALLS.size(), store.getCallCount());
+        assertTrue(store.find(new PhoneNumber("1"), from, to).isEmpty());
+        assertEquals(new BigDecimal("0.00"), store.cost(new PhoneNumber("1"), from, to));
+    }
+
+    @Test
+    void shouldStartEmpty() throws IOException {
+        CallHistoryStore store = CallHistoryStore.open(directory.resolve("new"));
+
+        assertEquals(0, store.getSegmentCount());
+        assertTrue(store.find(LocalDateTime.MIN.plusYears(1), LocalDateTime.MAX.minusYears(1)).isEmpty());
+    }
+
+    private BigDecimal total(List<Call> calls) {
+        return calls.stream().map(calculator::calculate).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,130 @@
+package org.phonecompany.billing.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TailingCallLogSourceTest {
+
+    private static final String FIRST = "420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00\n";
+    private static final String SECOND = "420776562353,13-01-2020 12:00:00,13-01-2020 12:05:00\n";
+    private static final String THIRD = "420776562353,13-01-2020 18:00:00,13-01-2020 18:02:00\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReturnZeroWhenLogDoesNotExistYet() throws IOException {
+        try (TailingCallLogSource source = newSource()) {
+            assertEquals(0, source.poll());
+            assertEquals(BigDecimal.ZERO, source.getTotal());
+        }
+    }
+
+    @Test
+    void shouldBillOnlyCompleteLines() throws IOException {
+        Path log = directory.resolve("calls.csv");
+        Files.writeString(log, FIRST + SECOND.substring(0, 20));
+
+        try (TailingCallLogSource source = newSource()) {
+            assertEquals(1, source.poll());
+            assertEquals(FIRST.length(), source.getOffset());
+
+            append(log, SECOND.substring(20));
+            assertEquals(1, source.poll());
+            assertEquals(0, source.poll());
+
+            // 420776562353 (higher number) wins the tie and is free
+            assertEquals(new BigDecimal("3.00"), source.getTotal());
+        }
+    }
+
+    @Test
+    void shouldResumeFromCheckpointWithoutRebillingOrSkipping() throws IOException {
+        Path log = directory.resolve("calls.csv");
+        Files.writeString(log, FIRST + SECOND);
+
+        try (TailingCallLogSource source = newSource()) {
+            source.poll();
+        }
+        append(log, THIRD);
+
+        try (TailingCallLogSource restarted = newSource()) {
+            assertEquals(1, restarted.poll());
+            assertEquals(3, restarted.getCallCount());
+            // 420776562353 is now the most called number and free
+            assertEquals(new BigDecimal("3.00"), restarted.getTotal());
+        }
+    }
+
+    @Test
+    void shouldCheckpointLinesBeforeBadLine() throws IOException {
+        Path log = directory.resolve("calls.csv");
+        Files.writeString(log, FIRST + "garbage\n" + SECOND);
+
+        try (TailingCallLogSource source = newSource()) {
+            assertThrows(IllegalArgumentException.class, source::poll);
+        }
+        try (TailingCallLogSource restarted = newSource()) {
+            assertEquals(FIRST.length(), restarted.getOffset());
+            assertEquals(1, restarted.getCallCount());
+        }
+    }
+
+    @Test
+    void shouldRejectTruncatedLog() throws IOException {
+        Path log = directory.resolve("calls.csv");
+        Files.writeString(log, FIRST + SECOND);
+        try (TailingCallLogSource source = newSource()) {
+            source.poll();
+        }
+        Files.writeString(log, FIRST);
+
+        try (TailingCallLogSource restarted = newSource()) {
+            assertThrows(IllegalStateException.class, restarted::poll);
+        }
+    }
+
+    @Test
+    void shouldFollowAppendedLines() throws Exception {
+        Path log = directory.resolve("calls.csv");
+        Files.writeString(log, FIRST);
+        TailingCallLogSource source = newSource();
+        Thread follower = new Thread(() -> {
+            try {
+                source.follow(Duration.ofMillis(50));
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        follower.start();
+
+        append(log, SECOND);
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (source.getCallCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        source.close();
+        follower.join(5_000);
+
+        assertEquals(2, source.getCallCount());
+        assertFalse(follower.isAlive());
+    }
+
+    private TailingCallLogSource newSource() throws IOException {
+        return new TailingCallLogSource(directory.resolve("calls.csv"), directory.resolve("tail.checkpoint"));
+    }
+
+    private static void append(Path log, String content) throws IOException {
+        Files.writeString(log, content, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
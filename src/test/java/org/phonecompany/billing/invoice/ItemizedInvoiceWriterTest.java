@@ -0,0 +1,191 @@
+package org.phonecompany.billing.invoice;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.phonecompany.billing.BillAccumulator;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.tariff.ScheduledCallPriceCalculator;
+import org.phonecompany.billing.tariff.Tariff;
+import org.phonecompany.billing.tariff.TariffSchedule;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemizedInvoiceWriterTest {
+
+    private static final String LOG = new CallLogGenerator(WorkloadProfile.standard(9, 25)).csv(2_000);
+    private static final BigDecimal EXPECTED_TOTAL = new TelephoneBillCalculatorImpl().calculate(LOG);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldPatchCsvMarkersInSeekableChannel() throws IOException {
+        Path file = directory.resolve("invoice.csv");
+        BigDecimal total;
+        boolean resolved;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ItemizedInvoiceWriter invoice = new ItemizedInvoiceWriter(channel, InvoiceFormat.CSV, 512);
+            total = new ItemizedBillCalculator().calculate(new StringReader(LOG), invoice);
+            resolved = invoice.isMarkersResolved();
+        }
+
+        List<String> rows = Files.readAllLines(file);
+        String totalRow = rows.get(rows.size() - 1);
+        String freeNumber = totalRow.split(",")[1];
+
+        assertTrue(resolved);
+        assertEquals(EXPECTED_TOTAL, total);
+        assertEquals("type,number,start,end,minutes,calls,price,free", rows.get(0));
+        assertEquals("total," + freeNumber + ",,,,2000," + EXPECTED_TOTAL.setScale(2).toPlainString() + ",", totalRow);
+
+        BigDecimal billed = BigDecimal.ZERO;
+        long items = 0;
+        for (String row : rows.subList(1, rows.size() - 1)) {
+            String[] fields = row.split(",", -1);
+            String expectedMarker = fields[1].equals(freeNumber) ? "Y" : "N";
+            assertEquals(expectedMarker, fields[7], row);
+            if (fields[0].equals("item")) {
+                items++;
+                if (expectedMarker.equals("N")) {
+                    billed = billed.add(new BigDecimal(fields[6]));
+                }
+            }
+        }
+        assertEquals(2_000, items);
+        assertEquals(0, EXPECTED_TOTAL.compareTo(billed));
+    }
+
+    @Test
+    void shouldPatchBinaryMarkersInSeekableChannel() throws IOException {
+        Path file = directory.resolve("invoice.bin");
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            new ItemizedBillCalculator().calculate(new StringReader(LOG), new ItemizedInvoiceWriter(channel, InvoiceFormat.BINARY, 300));
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            assertEquals(ItemizedInvoiceWriter.BINARY_MAGIC, in.readInt());
+            List<Object[]> items = new ArrayList<>();
+            long billedHaler = 0;
+            String freeNumber = null;
+            while (true) {
+                byte type = in.readByte();
+                byte marker = in.readByte();
+                String number = new String(in.readNBytes(in.readShort()), StandardCharsets.US_ASCII);
+                if (type == ItemizedInvoiceWriter.TYPE_ITEM) {
+                    in.readLong();
+                    in.readLong();
+                    items.add(new Object[]{number, marker, in.readLong()});
+                } else if (type == ItemizedInvoiceWriter.TYPE_SUBTOTAL) {
+                    in.readLong();
+                    in.readLong();
+                } else {
+                    assertEquals(2_000, in.readLong());
+                    assertEquals(EXPECTED_TOTAL.movePointRight(2).longValueExact(), in.readLong());
+                    freeNumber = number;
+                    break;
+                }
+            }
+            assertEquals(-1, in.read());
+
+            assertEquals(2_000, items.size());
+            for (Object[] item : items) {
+                boolean free = item[0].equals(freeNumber);
+                assertEquals(free ? ItemizedInvoiceWriter.MARKER_FREE : ItemizedInvoiceWriter.MARKER_BILLED, item[1]);
+                if (!free) {
+                    billedHaler += (long) item[2];
+                }
+            }
+            assertEquals(EXPECTED_TOTAL.movePointRight(2).longValueExact(), billedHaler);
+        }
+    }
+
+    @Test
+    void shouldLeaveMarkersUnresolvedOnStreams() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ItemizedInvoiceWriter invoice = new ItemizedInvoiceWriter(Channels.newChannel(bytes), InvoiceFormat.CSV);
+
+        BigDecimal total = new ItemizedBillCalculator().calculate(new StringReader("""
+                420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+                420774577453,13-01-2020 11:00:00,13-01-2020 11:02:00
+                420776562353,13-01-2020 12:00:00,13-01-2020 12:05:00
+                """), invoice);
+
+        assertFalse(invoice.isMarkersResolved());
+        assertEquals(new BigDecimal("5.00"), total);
+        assertEquals("""
+                type,number,start,end,minutes,calls,price,free
+                item,420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00,3,,3.00,?
+                item,420774577453,13-01-2020 11:00:00,13-01-2020 11:02:00,2,,2.00,?
+                item,420776562353,13-01-2020 12:00:00,13-01-2020 12:05:00,5,,5.00,?
+                subtotal,420774577453,,,,2,5.00,Y
+                subtotal,420776562353,,,,1,5.00,N
+                total,420774577453,,,,3,5.00,
+                """, bytes.toString(StandardCharsets.US_ASCII));
+        assertThrows(IllegalStateException.class, () -> invoice.finish(new BillAccumulator()));
+    }
+
+    @Test
+    void shouldRoundPricesOfFinerTariffToHaler() throws IOException {
+        Tariff fine = new Tariff("fine", new BigDecimal("1.005"), new BigDecimal("0.505"), BigDecimal.ZERO);
+        ItemizedBillCalculator calculator = new ItemizedBillCalculator(
+                new CsvCallLogParser(), new ScheduledCallPriceCalculator(TariffSchedule.constant(fine)));
+        String log = """
+                420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+                420774577453,13-01-2020 11:00:00,13-01-2020 11:01:00
+                420776562353,13-01-2020 12:00:00,13-01-2020 12:01:00
+                """;
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+        BigDecimal total = calculator.calculate(new StringReader(log),
+                new ItemizedInvoiceWriter(Channels.newChannel(csv), InvoiceFormat.CSV));
+        calculator.calculate(new StringReader(log),
+                new ItemizedInvoiceWriter(Channels.newChannel(binary), InvoiceFormat.BINARY));
+
+        assertEquals(new BigDecimal("1.005"), total);
+        assertEquals("""
+                type,number,start,end,minutes,calls,price,free
+                item,420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00,3,,3.02,?
+                item,420774577453,13-01-2020 11:00:00,13-01-2020 11:01:00,1,,1.01,?
+                item,420776562353,13-01-2020 12:00:00,13-01-2020 12:01:00,1,,1.01,?
+                subtotal,420774577453,,,,2,4.02,Y
+                subtotal,420776562353,,,,1,1.01,N
+                total,420774577453,,,,3,1.01,
+                """, csv.toString(StandardCharsets.US_ASCII));
+        DataInputStream records = new DataInputStream(new ByteArrayInputStream(binary.toByteArray()));
+        records.skipNBytes(4 + 2 + 2 + 12 + 16);
+        assertEquals(302, records.readLong());
+    }
+
+    @Test
+    void shouldLeaveMarkersUnresolvedOnWriteOnlyFile() throws IOException {
+        Path file = directory.resolve("write-only.csv");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ItemizedInvoiceWriter invoice = new ItemizedInvoiceWriter(channel, InvoiceFormat.CSV);
+            new ItemizedBillCalculator().calculate(new StringReader(LOG), invoice);
+
+            assertFalse(invoice.isMarkersResolved());
+        }
+        assertTrue(Files.readString(file).contains(",?\n"));
+    }
+}
@@ -0,0 +1,124 @@
+package org.phonecompany.billing.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillingEventsTest {
+
+    private static final String LOG = """
+            420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+            420774577453,13-01-2020 11:00:00,13-01-2020 11:02:00
+            420776562353,13-01-2020 12:00:00,13-01-2020 12:05:00
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRecordOneEventPerStageWhenThresholdsAreLowered() throws Exception {
+        Path file = tempDir.resolve("billing.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("BillCalculation", "ParseBatch", "PromotionEvaluation", "SlowCallPricing")) {
+                recording.enable("org.phonecompany.billing." + name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            new TelephoneBillCalculatorImpl().calculate(LOG);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, List<RecordedEvent>> byName = readByName(file);
+
+        RecordedEvent bill = single(byName, "org.phonecompany.billing.BillCalculation");
+        assertEquals(3L, bill.getLong("callCount"));
+        assertEquals("420774577453", bill.getString("freeNumber"));
+        assertEquals("5.00", bill.getString("total"));
+        assertTrue(bill.getLong("pricingDuration") > 0);
+
+        assertEquals(3L, single(byName, "org.phonecompany.billing.ParseBatch").getLong("lineCount"));
+
+        RecordedEvent promotion = single(byName, "org.phonecompany.billing.PromotionEvaluation");
+        assertEquals(2L, promotion.getLong("distinctNumbers"));
+        assertEquals("420774577453", promotion.getString("freeNumber"));
+
+        // Calls to the free number are never priced
+        RecordedEvent pricing = single(byName, "org.phonecompany.billing.SlowCallPricing");
+        assertEquals("420776562353", pricing.getString("phoneNumber"));
+        assertEquals(5L, pricing.getLong("durationMinutes"));
+    }
+
+    @Test
+    void shouldRecordOnlySlowBillsAtDefaultThreshold() throws Exception {
+        TelephoneBillCalculatorImpl fast = new TelephoneBillCalculatorImpl();
+        TelephoneBillCalculatorImpl slow = new TelephoneBillCalculatorImpl(
+                new CsvCallLogParser(), new SleepingPriceCalculator(), new MostCalledNumberPromotion());
+        for (int i = 0; i < 2_000; i++) {
+            fast.calculate(LOG);
+        }
+        Path file = tempDir.resolve("thresholds.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.phonecompany.billing.BillCalculation");
+            recording.start();
+            for (int i = 0; i < 200; i++) {
+                fast.calculate(LOG);
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        // a GC pause on a busy test JVM may push the odd fast bill over 20 ms
+        assertTrue(readByName(file).getOrDefault("org.phonecompany.billing.BillCalculation", List.of()).size() <= 2);
+
+        try (Recording recording = new Recording()) {
+            recording.enable("org.phonecompany.billing.BillCalculation");
+            recording.start();
+            slow.calculate(LOG);
+            recording.stop();
+            recording.dump(file);
+        }
+        RecordedEvent bill = single(readByName(file), "org.phonecompany.billing.BillCalculation");
+        assertTrue(bill.getDuration().compareTo(Duration.ofMillis(20)) >= 0);
+        assertEquals("5.00", bill.getString("total"));
+    }
+
+    private static Map<String, List<RecordedEvent>> readByName(Path file) throws Exception {
+        return RecordingFile.readAllEvents(file).stream()
+                .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+    }
+
+    private static RecordedEvent single(Map<String, List<RecordedEvent>> byName, String name) {
+        List<RecordedEvent> events = byName.get(name);
+        assertNotNull(events, name);
+        assertEquals(1, events.size(), name);
+        return events.get(0);
+    }
+
+    private static final class SleepingPriceCalculator extends CallPriceCalculator {
+
+        @Override
+        public BigDecimal calculate(Call call) {
+            try {
+                Thread.sleep(25);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.calculate(call);
+        }
+    }
+}
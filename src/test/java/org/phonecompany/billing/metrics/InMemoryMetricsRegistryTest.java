@@ -0,0 +1,110 @@
+package org.phonecompany.billing.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+
+import javax.management.Attribute;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryMetricsRegistryTest {
+
+    private static final String LOG = """
+            420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+            420774577453,13-01-2020 11:00:00,13-01-2020 11:02:00
+            420776562353,13-01-2020 12:00:00,13-01-2020 12:05:00
+            """;
+
+    @Test
+    void shouldReturnSameInstrumentForSameName() {
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+
+        registry.counter("a").increment();
+        registry.counter("a").add(2);
+        registry.gauge("g").set(7);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(3L, snapshot.counters().get("a"));
+        assertEquals(7L, snapshot.gauges().get("g"));
+    }
+
+    @Test
+    void shouldRejectSameNameForDifferentKinds() {
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        registry.counter("a");
+        registry.gauge("g");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("a"));
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("a"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("g"));
+        assertSame(registry.counter("a"), registry.counter("a"));
+    }
+
+    @Test
+    void shouldKeepHistogramRelativeErrorWithinBucketWidth() {
+        for (long value : new long[]{0, 1, 7, 8, 15, 16, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LogLinearHistogram.bucketIndex(value);
+
+            assertTrue(LogLinearHistogram.bucketLowerBound(index) <= value, "lower bound of " + value);
+            assertTrue(LogLinearHistogram.bucketUpperBound(index) >= value, "upper bound of " + value);
+            assertTrue(LogLinearHistogram.bucketUpperBound(index) - value <= value / 8 + 1, "error of " + value);
+        }
+    }
+
+    @Test
+    void shouldReportQuantiles() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        long median = snapshot.getValueAtQuantile(0.5);
+        assertTrue(median >= 500_000 && median <= 500_000 * 9 / 8, "median " + median);
+        assertTrue(snapshot.getMax() >= 1_000_000);
+    }
+
+    @Test
+    void shouldCollectBillingStageMetrics() {
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        TelephoneBillCalculatorImpl calculator = new TelephoneBillCalculatorImpl(registry);
+
+        calculator.calculate(LOG);
+        calculator.calculate(LOG);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(2L, snapshot.counters().get("bill.count"));
+        assertEquals(6L, snapshot.counters().get("parser.lines"));
+        assertEquals(2L, snapshot.counters().get("pricer.calls"));
+        assertEquals(10L, snapshot.counters().get("pricer.minutes"));
+        assertEquals(2L, snapshot.gauges().get("promotion.distinctNumbers"));
+        assertEquals(2, snapshot.histograms().get("bill.nanos").getCount());
+        assertEquals(2, snapshot.histograms().get("promotion.evaluate.nanos").getCount());
+    }
+
+    @Test
+    void shouldExposeMetricsThroughJmx() throws Exception {
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        new TelephoneBillCalculatorImpl(registry).calculate(LOG);
+        ObjectName name = JmxMetricsExporter.register(registry, "org.phonecompany.billing:type=MetricsTest");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            assertEquals(1L, server.getAttribute(name, "bill.count"));
+            assertEquals(1L, server.getAttribute(name, "bill.nanos.count"));
+            assertThrows(AttributeNotFoundException.class,
+                    () -> server.setAttribute(name, new Attribute("bill.count", 0L)));
+            assertThrows(ReflectionException.class,
+                    () -> server.invoke(name, "reset", new Object[0], new String[0]));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
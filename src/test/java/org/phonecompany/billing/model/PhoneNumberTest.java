@@ -26,6 +26,22 @@ class PhoneNumberTest {
         assertThrows(IllegalArgumentException.class, () -> new PhoneNumber("420abc123"));
     }
 
+    @Test
+    void shouldThrowExceptionForNonAsciiDigits() {
+        assertThrows(IllegalArgumentException.class, () -> new PhoneNumber("420\u0663"));
+    }
+
+    @Test
+    void shouldBeEqualByValue() {
+        PhoneNumber phoneNumber = new PhoneNumber("420774577453");
+        PhoneNumber same = new PhoneNumber("420774577453");
+
+        assertEquals(phoneNumber, same);
+        assertEquals(phoneNumber.hashCode(), same.hashCode());
+        assertNotEquals(phoneNumber, new PhoneNumber("420774577454"));
+        assertNotEquals(phoneNumber, "420774577453");
+    }
+
     @Test
     void shouldAcceptValidPhoneNumber() {
         PhoneNumber phoneNumber = new PhoneNumber("420774577453");
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -86,6 +88,28 @@ class CsvCallLogParserTest {
         assertThrows(IllegalArgumentException.class, () -> parser.parse(log));
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "29-02-2020 23:59:59", "28-02-2021 00:00:00", "31-12-1969 12:00:00", "01-01-0001 00:00:00",
+            "31-04-2020 10:00:00", "29-02-2021 10:00:00", "29-02-2100 10:00:00", "29-02-2000 10:00:00",
+            "13-01-2020 24:00:00"
+    })
+    void shouldReadDatesLikeFormatter(String dateTime) {
+        String log = "420774577453," + dateTime + "," + dateTime;
+        LocalDateTime expected = LocalDateTime.parse(dateTime, DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss"));
+
+        Call call = parser.parse(log).get(0);
+
+        assertEquals(expected, call.startTime());
+        assertEquals(expected, call.endTime());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"13-13-2020 10:00:00", "32-01-2020 10:00:00", "13-01-2020 25:00:00", "13-01-2020 10:60:00"})
+    void shouldRejectOutOfRangeFields(String dateTime) {
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("420774577453," + dateTime + "," + dateTime));
+    }
+
     @Test
     void shouldHandleWhitespaceInFields() {
         String log = " 420774577453 , 13-01-2020 18:10:15 , 13-01-2020 18:12:57 ";
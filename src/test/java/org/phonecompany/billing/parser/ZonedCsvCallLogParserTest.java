@@ -0,0 +1,67 @@
+package org.phonecompany.billing.parser;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.model.ZonedCall;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZonedCsvCallLogParserTest {
+
+    private final ZonedCsvCallLogParser parser = new ZonedCsvCallLogParser(ZoneId.of("Europe/Prague"));
+
+    @Test
+    void shouldParseLocalTimesInZone() {
+        List<ZonedCall> calls = parser.parse("""
+                420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57
+
+                420776562353,18-07-2020 08:59:20,18-07-2020 09:10:00
+                """);
+
+        assertEquals(2, calls.size());
+        assertEquals(ZoneOffset.ofHours(1), calls.get(0).startTime().getOffset());
+        assertEquals(ZoneOffset.ofHours(2), calls.get(1).startTime().getOffset());
+        assertEquals(11, calls.get(1).getDurationInMinutes());
+    }
+
+    @Test
+    void shouldUseExplicitOffsetsInOverlap() {
+        ZonedCall call = parser.parseLine("420774577453,27-10-2024 02:50:00+02:00,27-10-2024 02:10:00+01:00");
+
+        assertEquals(20, call.getDurationInMinutes());
+    }
+
+    @Test
+    void shouldResolveAmbiguousEndAfterStart() {
+        ZonedCall withinFirstPass = parser.parseLine("420774577453,27-10-2024 02:10:00,27-10-2024 02:40:00");
+        ZonedCall acrossChange = parser.parseLine("420774577453,27-10-2024 02:50:00,27-10-2024 02:10:00");
+
+        assertEquals(30, withinFirstPass.getDurationInMinutes());
+        assertEquals(20, acrossChange.getDurationInMinutes());
+    }
+
+    @Test
+    void shouldMoveTimesInGapForward() {
+        ZonedCall call = parser.parseLine("420774577453,31-03-2024 02:30:00,31-03-2024 03:40:00");
+
+        assertEquals(ZoneOffset.ofHours(2), call.startTime().getOffset());
+        assertEquals(10, call.getDurationInMinutes());
+    }
+
+    @Test
+    void shouldRejectOffsetNotUsedByZone() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> parser.parse("420774577453,13-01-2020 18:10:15+02:00,13-01-2020 18:12:57"));
+
+        assertTrue(e.getMessage().contains("line 1"), e.getMessage());
+    }
+
+    @Test
+    void shouldRejectEndBeforeStart() {
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parseLine("420774577453,13-01-2020 18:10:15,13-01-2020 18:00:00"));
+    }
+}
@@ -0,0 +1,108 @@
+package org.phonecompany.billing.planner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBillCalculatorTest {
+
+    private static final PlannerCalibration CALIBRATION = new PlannerCalibration(1.0, 100_000, 200);
+
+    @TempDir
+    Path directory;
+
+    private AdaptiveBillCalculator calculator(ExecutionStrategy strategy) {
+        ExecutionPlanner planner = new ExecutionPlanner(CALIBRATION, 4, 1_000).withOverride(strategy);
+        return new AdaptiveBillCalculator(planner, new CsvCallLogParser(), new CallPriceCalculator(), directory);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionStrategy.class)
+    void shouldMatchReferenceCalculator(ExecutionStrategy strategy) throws IOException {
+        String csv = new CallLogGenerator(WorkloadProfile.standard(11, 300)).csv(20_000);
+        Path log = directory.resolve("calls.csv");
+        Files.writeString(log, csv);
+        BigDecimal expected = new TelephoneBillCalculatorImpl().calculate(csv);
+
+        AdaptiveBillCalculator calculator = calculator(strategy);
+
+        assertEquals(expected, calculator.calculate(csv));
+        assertEquals(expected, calculator.calculate(log));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count(), "Spill files left behind");
+        }
+    }
+
+    @Test
+    void shouldSplitMorePartitionsThanOpenFilesInTwoLevels() {
+        String csv = new CallLogGenerator(WorkloadProfile.standard(13, 2_000)).csv(20_000);
+        ExecutionPlanner planner = new ExecutionPlanner(CALIBRATION, 4, 1);
+        AdaptiveBillCalculator calculator = new AdaptiveBillCalculator(
+                planner, new CsvCallLogParser(), new CallPriceCalculator(), directory);
+
+        assertEquals(ExecutionPlanner.MAX_SPILL_PARTITIONS, planner.plan(csv).spillPartitions());
+        assertTrue(ExecutionPlanner.MAX_SPILL_PARTITIONS > AdaptiveBillCalculator.MAX_OPEN_SPILL_FILES);
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(csv), calculator.calculate(csv));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionStrategy.class)
+    void shouldGiveTieToArithmeticallyHigherNumberAcrossChunks(ExecutionStrategy strategy) {
+        String csv = """
+                999,13-01-2020 18:10:15,13-01-2020 18:12:57\r
+                1000,13-01-2020 08:10:15,13-01-2020 08:12:57\r
+                999,14-01-2020 18:10:15,14-01-2020 18:11:57\r
+                1000,14-01-2020 08:10:15,14-01-2020 08:11:57\r
+                """;
+
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(csv), calculator(strategy).calculate(csv));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionStrategy.class)
+    void shouldReturnZeroForEmptyLog(ExecutionStrategy strategy) {
+        assertEquals(BigDecimal.ZERO, calculator(strategy).calculate(""));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionStrategy.class)
+    void shouldRejectInvalidLine(ExecutionStrategy strategy) throws IOException {
+        String csv = "420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57\nnot a call\n";
+        Path log = directory.resolve("invalid.csv");
+        Files.writeString(log, csv);
+        AdaptiveBillCalculator calculator = calculator(strategy);
+
+        assertThrows(IllegalArgumentException.class, () -> calculator.calculate(csv));
+        assertThrows(IllegalArgumentException.class, () -> calculator.calculate(log));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count(), "Spill files left behind");
+        }
+    }
+
+    @Test
+    void shouldPlanOnItsOwnWithoutOverride() {
+        String csv = """
+                420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57
+                420776562353,18-01-2020 08:59:20,18-01-2020 09:10:00
+                420774577453,18-01-2020 10:00:00,18-01-2020 10:01:00
+                """;
+        AdaptiveBillCalculator calculator = new AdaptiveBillCalculator(
+                new ExecutionPlanner(CALIBRATION, 4, 1 << 20), new CsvCallLogParser(), new CallPriceCalculator(), directory);
+
+        assertEquals(new TelephoneBillCalculatorImpl().calculate(csv), calculator.calculate(csv));
+        assertNotEquals(BigDecimal.ZERO, calculator.calculate(csv));
+    }
+}
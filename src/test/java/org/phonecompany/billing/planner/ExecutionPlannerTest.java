@@ -0,0 +1,118 @@
+package org.phonecompany.billing.planner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionPlannerTest {
+
+    // 1 ns per byte, 100 µs fan-out: parallel from 800 KB
+    private static final PlannerCalibration CALIBRATION = new PlannerCalibration(1.0, 100_000, 200);
+
+    private final ExecutionPlanner planner = new ExecutionPlanner(CALIBRATION, 8, 1_000_000);
+
+    @Test
+    void shouldDeriveParallelThresholdFromCalibration() {
+        assertEquals(800_000, planner.getParallelThresholdBytes());
+        assertEquals(ExecutionPlanner.MIN_PARALLEL_BYTES,
+                new ExecutionPlanner(new PlannerCalibration(1.0, 0, 200), 8, 1_000_000).getParallelThresholdBytes());
+    }
+
+    @Test
+    void shouldChooseStrategyBySizeNumbersAndCores() {
+        assertEquals(ExecutionStrategy.SEQUENTIAL, planner.plan(799_999, 10_000, 100).strategy());
+        assertEquals(ExecutionStrategy.PARALLEL, planner.plan(800_000, 10_000, 100).strategy());
+        assertEquals(8, planner.plan(800_000, 10_000, 100).workers());
+
+        ExecutionPlan outOfCore = planner.plan(800_000, 10_000, 5_001);
+        assertEquals(ExecutionStrategy.OUT_OF_CORE, outOfCore.strategy());
+        assertEquals(4, outOfCore.spillPartitions());
+
+        ExecutionPlanner singleCore = new ExecutionPlanner(CALIBRATION, 1, 1_000_000);
+        assertEquals(ExecutionStrategy.SEQUENTIAL, singleCore.plan(10_000_000, 100_000, 100).strategy());
+    }
+
+    @Test
+    void shouldHonourOverride() {
+        ExecutionPlanner forced = planner.withOverride(ExecutionStrategy.OUT_OF_CORE);
+
+        ExecutionPlan plan = forced.plan("420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57");
+
+        assertEquals(ExecutionStrategy.OUT_OF_CORE, plan.strategy());
+        assertEquals(2, plan.spillPartitions());
+        assertTrue(plan.reason().contains("SEQUENTIAL"), plan.reason());
+        assertEquals(ExecutionStrategy.SEQUENTIAL, forced.withOverride(null).plan("").strategy());
+    }
+
+    @Test
+    void shouldCountSmallInputExactly() {
+        ExecutionPlan plan = planner.plan("""
+                420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57
+
+                420776562353,18-01-2020 08:59:20,18-01-2020 09:10:00
+                420774577453,18-01-2020 10:00:00,18-01-2020 10:01:00""");
+
+        assertEquals(3, plan.estimatedLines());
+        assertEquals(2, plan.estimatedNumbers());
+        assertEquals(ExecutionStrategy.SEQUENTIAL, plan.strategy());
+    }
+
+    @Test
+    void shouldExtrapolateFromSampleOfLargeFile(@TempDir Path directory) throws IOException {
+        Path log = directory.resolve("calls.csv");
+        String csv = new CallLogGenerator(WorkloadProfile.standard(3, 50)).csv(40_000);
+        Files.writeString(log, csv);
+        long lines = csv.lines().count();
+
+        ExecutionPlan plan = planner.plan(log);
+
+        assertEquals(Files.size(log), plan.inputBytes());
+        assertEquals(lines, plan.estimatedLines(), lines * 0.05);
+        assertTrue(plan.estimatedNumbers() >= 50, "Numbers: " + plan.estimatedNumbers());
+        assertEquals(ExecutionStrategy.PARALLEL, plan.strategy());
+    }
+
+    @Test
+    void shouldNotScaleNumbersOfSaturatedSample(@TempDir Path directory) throws IOException {
+        // 500 numbers fit the budget; scaling the 50 sampled ones by size would estimate some 1,600
+        ExecutionPlanner smallHeap = new ExecutionPlanner(CALIBRATION, 8, 100_000);
+        Path log = directory.resolve("calls.csv");
+        Files.writeString(log, new CallLogGenerator(WorkloadProfile.standard(3, 50)).csv(40_000));
+
+        ExecutionPlan plan = smallHeap.plan(log);
+
+        assertTrue(plan.estimatedNumbers() >= 50 && plan.estimatedNumbers() <= 60, "Numbers: " + plan.estimatedNumbers());
+        assertEquals(ExecutionStrategy.PARALLEL, plan.strategy());
+    }
+
+    @Test
+    void shouldEstimateNumbersBetweenSampledAndLines() {
+        assertEquals(3, ExecutionPlanner.estimateNumbers(Map.of("a", 5, "b", 3, "c", 9), 1_000));
+        // 2 singletons, 1 doubleton: 3 + 2 * 1 / (2 * 2) rounded up
+        assertEquals(4, ExecutionPlanner.estimateNumbers(Map.of("a", 1, "b", 1, "c", 2), 1_000));
+        Map<String, Integer> singletons = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            singletons.put("n" + i, 1);
+        }
+        assertEquals(50_000, ExecutionPlanner.estimateNumbers(singletons, 50_000));
+    }
+
+    @Test
+    void shouldProbeThisMachine() {
+        PlannerCalibration calibration = PlannerCalibration.probe();
+
+        assertTrue(calibration.nanosPerByte() > 0);
+        assertTrue(calibration.bytesPerNumber() > 0);
+        assertTrue(new ExecutionPlanner(calibration, 4, 1 << 30).getParallelThresholdBytes()
+                >= ExecutionPlanner.MIN_PARALLEL_BYTES);
+    }
+}
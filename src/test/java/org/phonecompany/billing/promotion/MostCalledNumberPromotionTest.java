@@ -126,4 +126,26 @@ class MostCalledNumberPromotionTest {
         assertTrue(result.isPresent());
         assertEquals("1000", result.get().value());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldPickSameNumberFromCountsAsFromList() {
+        List<PhoneNumber> numbers = List.of(new PhoneNumber("999"), new PhoneNumber("420111111111"),
+                new PhoneNumber("1000"), new PhoneNumber("420999999999"), new PhoneNumber("420555555555"));
+        List<Call> calls = List.of(
+                new Call(numbers.get(0), start, end),
+                new Call(numbers.get(1), start, end),
+                new Call(numbers.get(2), start, end),
+                new Call(numbers.get(1), start, end),
+                new Call(numbers.get(3), start, end),
+                new Call(numbers.get(3), start, end),
+                new Call(numbers.get(4), start, end)
+        );
+
+        Optional<PhoneNumber> fromCounts = promotion.getFreePhoneNumber(new long[]{1, 2, 1, 2, 1, 0}, numbers::get);
+
+        assertEquals(promotion.getFreePhoneNumber(calls), fromCounts);
+        assertEquals("420999999999", fromCounts.orElseThrow().value());
+        assertTrue(promotion.getFreePhoneNumber(new long[]{0, 0}, numbers::get).isEmpty());
+        assertTrue(promotion.getFreePhoneNumber(new long[0], numbers::get).isEmpty());
+    }
+}
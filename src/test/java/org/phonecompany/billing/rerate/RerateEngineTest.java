@@ -0,0 +1,130 @@
+package org.phonecompany.billing.rerate;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+import org.phonecompany.billing.tariff.ScheduledCallPriceCalculator;
+import org.phonecompany.billing.tariff.Tariff;
+import org.phonecompany.billing.tariff.TariffSchedule;
+import org.phonecompany.billing.tariff.TariffVersion;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RerateEngineTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2020, 1, 5, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2020, 1, 25, 0, 0);
+
+    /** The standard tariff until the 15th, then peak minutes cost 1.20. */
+    private static final RatingConfiguration PEAK_INCREASE = new RatingConfiguration(
+            TariffSchedule.of(List.of(
+                    new TariffVersion(LocalDateTime.of(2000, 1, 1, 0, 0), Tariff.STANDARD),
+                    new TariffVersion(LocalDateTime.of(2020, 1, 15, 12, 0), new Tariff(
+                            "peak-increase", new BigDecimal("1.20"), new BigDecimal("0.50"), new BigDecimal("0.20"))))),
+            new MostCalledNumberPromotion());
+
+    private static final Map<String, String> LOGS = new LinkedHashMap<>();
+
+    static {
+        for (int s = 0; s < 10; s++) {
+            LOGS.put("subscriber-" + s, new CallLogGenerator(WorkloadProfile.standard(100 + s, 40)).csv(800));
+        }
+    }
+
+    @Test
+    void shouldReportNothingForIdenticalConfigurations() {
+        RerateEngine engine = new RerateEngine(RatingConfiguration.standard(), RatingConfiguration.standard(), FROM, TO);
+
+        RerateReport report = engine.rerate(LOGS);
+
+        assertTrue(report.corrections().isEmpty());
+        assertEquals(0, report.callsRepriced());
+        assertEquals(10, report.subscribers());
+    }
+
+    @Test
+    void shouldMatchFullRecomputationAndRepriceOnlyAffectedCalls() {
+        RerateEngine engine = new RerateEngine(RatingConfiguration.standard(), PEAK_INCREASE, FROM, TO);
+
+        RerateReport report = engine.rerate(LOGS);
+
+        long expectedRepriced = 0;
+        BigDecimal expectedTotalDelta = BigDecimal.ZERO;
+        for (String log : LOGS.values()) {
+            List<Call> calls = callsInRange(log);
+            BigDecimal delta = total(calls, PEAK_INCREASE).subtract(total(calls, RatingConfiguration.standard()));
+            expectedTotalDelta = expectedTotalDelta.add(delta);
+            expectedRepriced += calls.stream()
+                    .filter(call -> call.getDurationInMinutes() > 0)
+                    .filter(call -> call.startTime().plusMinutes(call.getDurationInMinutes() - 1)
+                            .isAfter(LocalDateTime.of(2020, 1, 15, 11, 59, 59)))
+                    .count();
+        }
+
+        assertEquals(0, expectedTotalDelta.compareTo(report.totalDelta()));
+        assertTrue(expectedTotalDelta.signum() > 0);
+        assertEquals(expectedRepriced, report.callsRepriced());
+        assertTrue(report.callsRepriced() < report.callsInRange());
+        for (CorrectionDelta correction : report.corrections()) {
+            BigDecimal expected = total(callsInRange(LOGS.get(correction.subscriber())), PEAK_INCREASE);
+            assertEquals(0, expected.compareTo(correction.newTotal()), correction.subscriber());
+        }
+    }
+
+    @Test
+    void shouldReportChangedFreeNumberWithoutRepricing() throws IOException {
+        RatingConfiguration noPromotion = new RatingConfiguration(
+                TariffSchedule.constant(Tariff.STANDARD), calls -> Optional.empty());
+        RerateEngine engine = new RerateEngine(RatingConfiguration.standard(), noPromotion, FROM, TO);
+        String log = """
+                420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+                420774577453,14-01-2020 10:00:00,14-01-2020 10:02:00
+                420776562353,15-01-2020 18:00:00,15-01-2020 18:04:00
+                420776562353,26-01-2020 10:00:00,26-01-2020 10:30:00
+                """;
+
+        CorrectionDelta delta = engine.rerate("alice", new StringReader(log));
+
+        assertEquals(new PhoneNumber("420774577453"), delta.oldFreeNumber());
+        assertNull(delta.newFreeNumber());
+        assertTrue(delta.isFreeNumberChanged());
+        assertEquals(new BigDecimal("2.00"), delta.oldTotal());
+        assertEquals(new BigDecimal("7.00"), delta.newTotal());
+        assertEquals(new BigDecimal("5.00"), delta.delta());
+        assertEquals(0, delta.callsRepriced());
+    }
+
+    @Test
+    void shouldRejectEmptyPeriod() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RerateEngine(RatingConfiguration.standard(), PEAK_INCREASE, TO, FROM));
+    }
+
+    private static List<Call> callsInRange(String log) {
+        return new CsvCallLogParser().parse(log).stream()
+                .filter(call -> !call.startTime().isBefore(FROM) && call.startTime().isBefore(TO))
+                .toList();
+    }
+
+    private static BigDecimal total(List<Call> calls, RatingConfiguration configuration) {
+        ScheduledCallPriceCalculator pricer = new ScheduledCallPriceCalculator(configuration.tariffs());
+        PhoneNumber free = configuration.promotion().getFreePhoneNumber(calls).orElse(null);
+        return calls.stream()
+                .filter(call -> !call.phoneNumber().equals(free))
+                .map(pricer::calculate)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
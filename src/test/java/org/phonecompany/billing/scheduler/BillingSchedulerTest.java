@@ -0,0 +1,172 @@
+package org.phonecompany.billing.scheduler;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.TelephoneBillCalculator;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.metrics.InMemoryMetricsRegistry;
+import org.phonecompany.billing.metrics.MetricsRegistry;
+import org.phonecompany.billing.metrics.MetricsSnapshot;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillingSchedulerTest {
+
+    private static final String LOG = """
+            420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57
+            420776562353,18-01-2020 08:59:20,18-01-2020 09:10:00
+            420774577453,18-01-2020 10:00:00,18-01-2020 10:01:00
+            """;
+
+    @Test
+    void shouldCalculateInteractiveAndBatchBills() throws Exception {
+        TelephoneBillCalculator calculator = new TelephoneBillCalculatorImpl();
+        BigDecimal expected = calculator.calculate(LOG);
+
+        try (BillingScheduler scheduler = new BillingScheduler(calculator, 2, 8, 1, 3, MetricsRegistry.noop())) {
+            CompletableFuture<List<BigDecimal>> batch = scheduler.submitBatch(Collections.nCopies(10, LOG));
+            CompletableFuture<BigDecimal> interactive = scheduler.submitInteractive(LOG);
+
+            assertEquals(expected, interactive.get(10, TimeUnit.SECONDS));
+            assertEquals(Collections.nCopies(10, expected), batch.get(10, TimeUnit.SECONDS));
+            assertEquals(List.of(), scheduler.submitBatch(List.of()).get());
+        }
+    }
+
+    @Test
+    void shouldServeInteractiveBillAtNextChunkBoundary() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch interactiveSubmitted = new CountDownLatch(1);
+        TelephoneBillCalculator calculator = phoneLog -> {
+            if (order.isEmpty()) {
+                batchStarted.countDown();
+                awaitUninterruptibly(interactiveSubmitted);
+            }
+            order.add(phoneLog);
+            return BigDecimal.ONE;
+        };
+
+        CompletableFuture<List<BigDecimal>> batch;
+        try (BillingScheduler scheduler = new BillingScheduler(calculator, 1, 1, 1, 10, MetricsRegistry.noop())) {
+            List<String> batchLogs = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                batchLogs.add("batch-" + i);
+            }
+            batch = scheduler.submitBatch(batchLogs);
+            batchStarted.await();
+            scheduler.submitInteractive("interactive");
+            interactiveSubmitted.countDown();
+        }
+
+        assertEquals(10, order.indexOf("interactive"));
+        assertEquals(101, order.size());
+        assertEquals(100, batch.get().size());
+    }
+
+    @Test
+    void shouldShareWorkerTimeByWeight() {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch submitted = new CountDownLatch(1);
+        AtomicLong clock = new AtomicLong();
+        TelephoneBillCalculator calculator = phoneLog -> {
+            awaitUninterruptibly(submitted);
+            clock.addAndGet(300_000);
+            order.add(phoneLog);
+            return BigDecimal.ONE;
+        };
+
+        try (BillingScheduler scheduler =
+                     new BillingScheduler(calculator, 1, 3, 1, 1, MetricsRegistry.noop(), clock::get)) {
+            scheduler.submitBatch(Collections.nCopies(400, "batch"));
+            for (int i = 0; i < 400; i++) {
+                scheduler.submitInteractive("interactive");
+            }
+            submitted.countDown();
+        }
+
+        // One bill may already be running when the other lane arrives; after that every bill takes the same
+        // time on the injected clock, so the split follows 3:1 exactly, up to where the cycle is cut.
+        long interactive = order.subList(1, 201).stream().filter("interactive"::equals).count();
+        assertTrue(interactive >= 149 && interactive <= 151, "Interactive bills among the first 200: " + interactive);
+    }
+
+    @Test
+    void shouldFailBatchRunAndSkipRemainingChunks() {
+        List<String> billed = Collections.synchronizedList(new ArrayList<>());
+        TelephoneBillCalculator calculator = phoneLog -> {
+            billed.add(phoneLog);
+            if (phoneLog.equals("bad")) {
+                throw new IllegalArgumentException("Invalid line: " + phoneLog);
+            }
+            return BigDecimal.ONE;
+        };
+
+        CompletableFuture<List<BigDecimal>> batch;
+        CompletableFuture<BigDecimal> interactive;
+        try (BillingScheduler scheduler = new BillingScheduler(calculator, 1, 1, 1, 2, MetricsRegistry.noop())) {
+            batch = scheduler.submitBatch(List.of("a", "bad", "c", "d", "e"));
+            interactive = scheduler.submitInteractive("bad");
+        }
+
+        ExecutionException failure = assertThrows(ExecutionException.class, batch::get);
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        assertThrows(ExecutionException.class, interactive::get);
+        assertFalse(billed.contains("c"));
+    }
+
+    @Test
+    void shouldReportPerLaneMetrics() throws Exception {
+        InMemoryMetricsRegistry metrics = new InMemoryMetricsRegistry();
+        try (BillingScheduler scheduler =
+                     new BillingScheduler(new TelephoneBillCalculatorImpl(), 2, 8, 1, 4, metrics)) {
+            scheduler.submitBatch(Collections.nCopies(10, LOG)).get();
+            scheduler.submitInteractive(LOG).get();
+            scheduler.submitInteractive(LOG).get();
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.counters().get("scheduler.interactive.tasks"));
+        assertEquals(3, snapshot.counters().get("scheduler.batch.tasks"));
+        assertEquals(2, snapshot.histograms().get("scheduler.interactive.nanos").getCount());
+        assertEquals(1, snapshot.histograms().get("scheduler.batch.nanos").getCount());
+        assertEquals(3, snapshot.histograms().get("scheduler.batch.wait.nanos").getCount());
+        assertEquals(0, snapshot.gauges().get("scheduler.batch.queued"));
+    }
+
+    @Test
+    void shouldRejectWorkAfterClose() {
+        BillingScheduler scheduler = new BillingScheduler(new TelephoneBillCalculatorImpl());
+        scheduler.close();
+
+        assertThrows(IllegalStateException.class, () -> scheduler.submitInteractive(LOG));
+        assertThrows(IllegalStateException.class, () -> scheduler.submitBatch(List.of(LOG)));
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        TelephoneBillCalculator calculator = new TelephoneBillCalculatorImpl();
+        MetricsRegistry metrics = MetricsRegistry.noop();
+
+        assertThrows(IllegalArgumentException.class, () -> new BillingScheduler(calculator, 0, 1, 1, 1, metrics));
+        assertThrows(IllegalArgumentException.class, () -> new BillingScheduler(calculator, 1, 0, 1, 1, metrics));
+        assertThrows(IllegalArgumentException.class, () -> new BillingScheduler(calculator, 1, 1, 1, 0, metrics));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.phonecompany.billing.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillingHttpServerTest {
+
+    private static final String LOG = """
+            420774577453,13-01-2020 10:00:00,13-01-2020 10:03:00
+            420774577453,13-01-2020 11:00:00,13-01-2020 11:02:00
+            420776562353,13-01-2020 12:00:00,13-01-2020 12:05:00
+            """;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private BillingHttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void shouldReturnBillTotal() throws Exception {
+        startServer(new CallPriceCalculator(), 1024, 4);
+
+        HttpResponse<String> response = post(LOG);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("5.00", response.body());
+    }
+
+    @Test
+    void shouldRejectInvalidLog() throws Exception {
+        startServer(new CallPriceCalculator(), 1024, 4);
+
+        HttpResponse<String> response = post("not a call log");
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void shouldRejectOversizedBody() throws Exception {
+        startServer(new CallPriceCalculator(), 64, 4);
+
+        HttpResponse<String> response = post(LOG);
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    void shouldRejectOversizedBodyWithoutContentLength() throws Exception {
+        startServer(new CallPriceCalculator(), 64, 4);
+        HttpRequest chunked = HttpRequest.newBuilder(uri("/bill"))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(
+                        () -> new ByteArrayInputStream(LOG.getBytes(StandardCharsets.UTF_8))))
+                .build();
+
+        HttpResponse<String> response = client.send(chunked, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    void shouldRejectMalformedContentLength() throws Exception {
+        startServer(new CallPriceCalculator(), 1024, 4);
+
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /bill HTTP/1.1\r\nHost: localhost\r\nContent-Length: 12abc\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            String statusLine = new String(in.readAllBytes(), StandardCharsets.US_ASCII).lines().findFirst().orElse("");
+
+            assertTrue(statusLine.startsWith("HTTP/1.1 400"), statusLine);
+        }
+    }
+
+    @Test
+    void shouldRejectRequestsBeyondConcurrencyLimit() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CallPriceCalculator blocking = new CallPriceCalculator() {
+            @Override
+            public BigDecimal calculate(Call call) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return BigDecimal.ONE;
+            }
+        };
+        startServer(blocking, 1024, 1);
+
+        CompletableFuture<HttpResponse<String>> first = client.sendAsync(request(LOG),
+                HttpResponse.BodyHandlers.ofString());
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        HttpResponse<String> second = post(LOG);
+        release.countDown();
+
+        assertEquals(503, second.statusCode());
+        assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+    }
+
+    @Test
+    void shouldExposeLatencyHistogram() throws Exception {
+        startServer(new CallPriceCalculator(), 1024, 4);
+        post(LOG);
+        post(LOG);
+
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(uri("/metrics/latency")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("{\"count\":2,"), response.body());
+    }
+
+    private void startServer(CallPriceCalculator priceCalculator, int maxBytes, int maxConcurrent) throws IOException {
+        server = new BillingHttpServer(new InetSocketAddress("127.0.0.1", 0),
+                new CsvCallLogParser(), priceCalculator, maxBytes, maxConcurrent);
+        server.start();
+    }
+
+    private HttpResponse<String> post(String body) throws IOException, InterruptedException {
+        return client.send(request(body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String body) {
+        return HttpRequest.newBuilder(uri("/bill"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+}
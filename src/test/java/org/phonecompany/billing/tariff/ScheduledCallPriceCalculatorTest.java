@@ -0,0 +1,88 @@
+package org.phonecompany.billing.tariff;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduledCallPriceCalculatorTest {
+
+    private static final PhoneNumber NUMBER = new PhoneNumber("420774577453");
+
+    /** Doubles every rate from 2020-01-13 10:05. */
+    private static final Tariff DOUBLE = new Tariff(
+            "double", new BigDecimal("2.00"), new BigDecimal("1.00"), new BigDecimal("0.40"));
+
+    private static final LocalDateTime CHANGEOVER = LocalDateTime.of(2020, 1, 13, 10, 5);
+
+    private final TariffSchedule schedule = TariffSchedule.of(List.of(
+            new TariffVersion(CHANGEOVER, DOUBLE),
+            new TariffVersion(LocalDateTime.of(2019, 1, 1, 0, 0), Tariff.STANDARD)));
+
+    private final ScheduledCallPriceCalculator calculator = new ScheduledCallPriceCalculator(schedule);
+
+    @Test
+    void shouldMatchCallPriceCalculatorForConstantStandardTariff() {
+        List<Call> calls = new CsvCallLogParser().parse(
+                new CallLogGenerator(WorkloadProfile.standard(3, 100)).csv(20_000));
+        CallPriceCalculator plain = new CallPriceCalculator();
+        ScheduledCallPriceCalculator constant = new ScheduledCallPriceCalculator(TariffSchedule.constant(Tariff.STANDARD));
+
+        for (Call call : calls) {
+            assertEquals(plain.calculate(call), constant.calculate(call), call.toString());
+        }
+    }
+
+    @Test
+    void shouldPriceWholeCallWithVersionInForce() {
+        assertEquals(new BigDecimal("3.00"), calculator.calculate(call(LocalDateTime.of(2020, 1, 13, 9, 0), 3)));
+        assertEquals(new BigDecimal("6.00"), calculator.calculate(call(LocalDateTime.of(2020, 1, 14, 9, 0), 3)));
+    }
+
+    @Test
+    void shouldSplitCallAtChangeoverKeepingDiscountPosition() {
+        // 10:02-10:10: minutes 10:02-10:04 at 1.00, 10:05-10:06 at 2.00, then 3 discounted minutes at 1.60
+        assertEquals(new BigDecimal("11.80"), calculator.calculate(call(LocalDateTime.of(2020, 1, 13, 10, 2), 8)));
+    }
+
+    @Test
+    void shouldChargeMinuteStartingBeforeChangeoverAtOldRate() {
+        // Minutes start at 10:03:30 and 10:04:30, both before 10:05, then 10:05:30 under the new tariff
+        assertEquals(new BigDecimal("4.00"), calculator.calculate(call(LocalDateTime.of(2020, 1, 13, 10, 3, 30), 3)));
+    }
+
+    @Test
+    void shouldPriceZeroLengthCallBeforeFirstVersionAtZero() {
+        assertEquals(BigDecimal.ZERO, calculator.calculate(call(LocalDateTime.of(2018, 12, 31, 23, 0), 0)));
+    }
+
+    @Test
+    void shouldFindVersionsByBinarySearchAndHint() {
+        assertSame(Tariff.STANDARD, schedule.versionAt(LocalDateTime.of(2019, 6, 1, 0, 0)).tariff());
+        assertSame(DOUBLE, schedule.versionAt(CHANGEOVER).tariff());
+        assertSame(Tariff.STANDARD, schedule.versionAt(CHANGEOVER.minusSeconds(1)).tariff());
+        assertSame(DOUBLE, schedule.versionAt(LocalDateTime.of(2030, 1, 1, 0, 0)).tariff());
+    }
+
+    @Test
+    void shouldRejectCallsBeforeFirstVersionAndAmbiguousSchedules() {
+        assertThrows(IllegalArgumentException.class,
+                () -> calculator.calculate(call(LocalDateTime.of(2018, 12, 31, 23, 0), 3)));
+        assertThrows(IllegalArgumentException.class, () -> TariffSchedule.of(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> TariffSchedule.of(List.of(
+                new TariffVersion(CHANGEOVER, DOUBLE), new TariffVersion(CHANGEOVER, Tariff.STANDARD))));
+    }
+
+    private static Call call(LocalDateTime start, long minutes) {
+        return new Call(NUMBER, start, start.plusMinutes(minutes));
+    }
+}
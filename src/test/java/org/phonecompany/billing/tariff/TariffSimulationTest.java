@@ -0,0 +1,105 @@
+package org.phonecompany.billing.tariff;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.promotion.FreePromotionStrategy;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+import org.phonecompany.billing.workload.CallLogGenerator;
+import org.phonecompany.billing.workload.WorkloadProfile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TariffSimulationTest {
+
+    private static final Tariff CHEAP_PEAK = new Tariff(
+            "cheap-peak", new BigDecimal("0.70"), new BigDecimal("0.50"), new BigDecimal("0.10"));
+
+    private static final String LOG = """
+            420774577453,13-01-2020 18:10:15,13-01-2020 18:12:57
+            420776562353,18-01-2020 08:59:20,18-01-2020 09:10:00
+            """;
+
+    @Test
+    void shouldSplitMinutesByBandAndDiscount() {
+        // 07:58 for 12 minutes: 2 off-peak, 3 peak, then 7 discounted peak
+        LocalDateTime start = LocalDateTime.of(2020, 1, 13, 7, 58, 30);
+        Call call = new Call(new PhoneNumber("420774577453"), start, start.plusMinutes(12));
+
+        assertEquals(new MinuteBreakdown(3, 2, 7, 0), MinuteBreakdown.of(call));
+        assertEquals(new BigDecimal("9.60"), Tariff.STANDARD.price(MinuteBreakdown.of(call)));
+    }
+
+    @Test
+    void shouldKeepDiscountPositionForPartsOfCall() {
+        long start = 26_297_280L + 15 * 60 + 58; // 2020-01-01 15:58
+
+        MinuteBreakdown head = MinuteBreakdown.of(start, 20, 0, 3);
+        MinuteBreakdown tail = MinuteBreakdown.of(start, 20, 3, 20);
+
+        assertEquals(new MinuteBreakdown(2, 1, 0, 0), head);
+        assertEquals(new MinuteBreakdown(0, 2, 0, 15), tail);
+        assertEquals(MinuteBreakdown.of(start, 20, 0, 20), head.plus(tail));
+        assertThrows(IllegalArgumentException.class, () -> MinuteBreakdown.of(start, 20, 5, 21));
+    }
+
+    @Test
+    void shouldMatchBillCalculatorForStandardTariff() {
+        Map<String, String> logs = new LinkedHashMap<>();
+        for (int s = 0; s < 20; s++) {
+            logs.put("subscriber-" + s, new CallLogGenerator(WorkloadProfile.standard(s, 30)).csv(500));
+        }
+        TariffSimulation simulation = new TariffSimulation(
+                List.of(Tariff.STANDARD, CHEAP_PEAK), Map.of("most-called", new MostCalledNumberPromotion()));
+
+        TariffMatrix matrix = simulation.simulate(logs);
+
+        TelephoneBillCalculatorImpl calculator = new TelephoneBillCalculatorImpl();
+        BigDecimal sum = BigDecimal.ZERO;
+        int s = 0;
+        for (String log : logs.values()) {
+            BigDecimal expected = calculator.calculate(log);
+            assertEquals(expected, matrix.getTotal(s++, 0, 0));
+            sum = sum.add(expected);
+        }
+        assertEquals(sum, matrix.getColumnTotal(0, 0));
+    }
+
+    @Test
+    void shouldPriceEveryTariffAndPromotionCombination() throws IOException {
+        Map<String, FreePromotionStrategy> promotions = new LinkedHashMap<>();
+        promotions.put("none", calls -> Optional.empty());
+        promotions.put("most-called", new MostCalledNumberPromotion());
+        TariffSimulation simulation = new TariffSimulation(List.of(Tariff.STANDARD, CHEAP_PEAK), promotions);
+
+        TariffMatrix matrix = simulation.simulate(Map.of("alice", LOG));
+
+        StringBuilder csv = new StringBuilder();
+        matrix.writeCsv(csv);
+        // 3 off-peak minutes + 5 peak and 6 discounted peak minutes; the tie frees the higher number
+        assertEquals("""
+                subscriber,promotion,standard,cheap-peak
+                alice,none,11.30,8.60
+                alice,most-called,1.50,1.50
+                """, csv.toString());
+    }
+
+    @Test
+    void shouldRejectEmptyConfiguration() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TariffSimulation(List.of(), Map.of("most-called", new MostCalledNumberPromotion())));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TariffSimulation(List.of(Tariff.STANDARD), Map.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Tariff("bad", new BigDecimal("0.10"), new BigDecimal("0.50"), new BigDecimal("0.20")));
+    }
+}
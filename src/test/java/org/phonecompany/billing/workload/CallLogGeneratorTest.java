@@ -0,0 +1,81 @@
+package org.phonecompany.billing.workload;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallLogGeneratorTest {
+
+    private final CsvCallLogParser parser = new CsvCallLogParser();
+
+    @Test
+    void shouldProduceSameLogForSameSeed() {
+        String first = new CallLogGenerator(WorkloadProfile.standard(7, 1000)).csv(1000);
+        String second = new CallLogGenerator(WorkloadProfile.standard(7, 1000)).csv(1000);
+        String other = new CallLogGenerator(WorkloadProfile.standard(8, 1000)).csv(1000);
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    void shouldProduceParseableTimeOrderedCalls() {
+        List<Call> calls = parser.parse(new CallLogGenerator(WorkloadProfile.standard(1, 1000)).csv(10_000));
+
+        assertEquals(10_000, calls.size());
+        for (int i = 1; i < calls.size(); i++) {
+            assertFalse(calls.get(i).startTime().isBefore(calls.get(i - 1).startTime()));
+        }
+        assertEquals(LocalDate.of(2020, 1, 1), calls.getFirst().startTime().toLocalDate());
+        assertEquals(LocalDate.of(2020, 1, 31), calls.getLast().startTime().toLocalDate());
+    }
+
+    @Test
+    void shouldSkewCalledNumbersTowardsPopularOnes() {
+        List<Call> calls = parser.parse(new CallLogGenerator(WorkloadProfile.standard(1, 10_000)).csv(50_000));
+        Map<PhoneNumber, Integer> counts = new HashMap<>();
+        calls.forEach(call -> counts.merge(call.phoneNumber(), 1, Integer::sum));
+
+        int mostPopular = counts.get(new PhoneNumber("420000000000"));
+        int tenthMostPopular = counts.get(new PhoneNumber("420000000009"));
+
+        // Zipf with exponent 1 over 10,000 ranks gives rank 1 about 10% of calls, rank 10 about 1%
+        assertTrue(mostPopular > 3_500 && mostPopular < 6_500, "rank 1 count " + mostPopular);
+        assertTrue(tenthMostPopular > 300 && tenthMostPopular < 800, "rank 10 count " + tenthMostPopular);
+    }
+
+    @Test
+    void shouldIncludeBoundaryCrossingAndMultiDayCalls() {
+        List<Call> calls = parser.parse(new CallLogGenerator(WorkloadProfile.standard(1, 1000)).csv(50_000));
+
+        long crossingPeakStart = calls.stream().filter(call -> crosses(call, LocalTime.of(8, 0))).count();
+        long crossingPeakEnd = calls.stream().filter(call -> crosses(call, LocalTime.of(16, 0))).count();
+        long multiDay = calls.stream().filter(call -> call.getDurationInMinutes() >= 24 * 60).count();
+
+        assertTrue(crossingPeakStart > 0);
+        assertTrue(crossingPeakEnd > 0);
+        assertTrue(multiDay > 0);
+    }
+
+    @Test
+    void shouldRejectInvalidProfile() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new WorkloadProfile(1, 0, 1.0, LocalDate.of(2020, 1, 1), 31, 0.05, 0.001));
+        assertThrows(IllegalArgumentException.class,
+                () -> new WorkloadProfile(1, 10, 1.0, LocalDate.of(2020, 1, 1), 31, 0.8, 0.3));
+    }
+
+    private static boolean crosses(Call call, LocalTime boundary) {
+        return call.startTime().toLocalTime().isBefore(boundary)
+                && !call.endTime().isBefore(call.startTime().toLocalDate().atTime(boundary));
+    }
+}
@@ -0,0 +1,71 @@
+package org.phonecompany.billing.zone;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZoneOffsetTableTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Europe/Prague", "America/New_York", "Australia/Lord_Howe", "Asia/Kathmandu", "UTC"})
+    void shouldAgreeWithZoneRules(String zoneId) {
+        ZoneId zone = ZoneId.of(zoneId);
+        ZoneRules rules = zone.getRules();
+        ZoneOffsetTable table = ZoneOffsetTable.of(zone, 1990, 2040);
+        long from = LocalDateTime.of(1985, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long to = LocalDateTime.of(2045, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            assertAgrees(rules, table, random.nextLong(from, to));
+        }
+    }
+
+    @Test
+    void shouldSwitchExactlyAtTransitions() {
+        ZoneId prague = ZoneId.of("Europe/Prague");
+        ZoneOffsetTable table = ZoneOffsetTable.of(prague);
+        ZoneOffsetTransition transition = prague.getRules().nextTransition(Instant.parse("2024-01-01T00:00:00Z"));
+        long change = transition.toEpochSecond();
+
+        assertEquals(3600, table.offsetSecondsAt(change - 1));
+        assertEquals(7200, table.offsetSecondsAt(change));
+        assertEquals(change, table.nextTransitionAfter(change - 1));
+        assertEquals(Instant.parse("2024-10-27T01:00:00Z").getEpochSecond(), table.nextTransitionAfter(change));
+        for (ZoneOffsetTransition previous : prague.getRules().getTransitions().subList(0, 5)) {
+            assertAgrees(prague.getRules(), table, previous.toEpochSecond());
+            assertAgrees(prague.getRules(), table, previous.toEpochSecond() - 1);
+        }
+    }
+
+    @Test
+    void shouldHandleFixedOffsetZone() {
+        ZoneOffsetTable table = ZoneOffsetTable.of(ZoneOffset.ofHours(5));
+
+        assertEquals(18_000, table.offsetSecondsAt(0));
+        assertEquals(Long.MAX_VALUE, table.nextTransitionAfter(0));
+    }
+
+    @Test
+    void shouldRejectInvertedYearRange() {
+        assertThrows(IllegalArgumentException.class, () -> ZoneOffsetTable.of(ZoneOffset.UTC, 2030, 2020));
+    }
+
+    private static void assertAgrees(ZoneRules rules, ZoneOffsetTable table, long epochSecond) {
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        assertEquals(rules.getOffset(instant).getTotalSeconds(), table.offsetSecondsAt(epochSecond), instant::toString);
+        assertEquals(next == null ? Long.MAX_VALUE : next.toEpochSecond(), table.nextTransitionAfter(epochSecond),
+                instant::toString);
+    }
+}
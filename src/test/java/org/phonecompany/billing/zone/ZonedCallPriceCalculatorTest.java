@@ -0,0 +1,106 @@
+package org.phonecompany.billing.zone;
+
+import org.junit.jupiter.api.Test;
+import org.phonecompany.billing.CallPriceCalculator;
+import org.phonecompany.billing.TelephoneBillCalculatorImpl;
+import org.phonecompany.billing.metrics.InMemoryMetricsRegistry;
+import org.phonecompany.billing.model.Call;
+import org.phonecompany.billing.model.PhoneNumber;
+import org.phonecompany.billing.model.ZonedCall;
+import org.phonecompany.billing.parser.CsvCallLogParser;
+import org.phonecompany.billing.promotion.MostCalledNumberPromotion;
+import org.phonecompany.billing.tariff.Tariff;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZonedCallPriceCalculatorTest {
+
+    private static final ZoneId PRAGUE = ZoneId.of("Europe/Prague");
+    private static final PhoneNumber NUMBER = new PhoneNumber("420774577453");
+
+    private final ZonedCallPriceCalculator calculator = new ZonedCallPriceCalculator(ZoneOffsetTable.of(PRAGUE));
+
+    @Test
+    void shouldMatchLocalPricingWithoutOffsetChanges() {
+        ZonedCallPriceCalculator utc = new ZonedCallPriceCalculator(ZoneOffsetTable.of(ZoneOffset.UTC));
+        CallPriceCalculator local = new CallPriceCalculator();
+        SplittableRandom random = new SplittableRandom(7);
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+        for (int i = 0; i < 20_000; i++) {
+            LocalDateTime start = base.plusSeconds(random.nextLong(366L * 24 * 3600));
+            long seconds = random.nextInt(10) == 0 ? random.nextLong(3L * 24 * 3600) : random.nextLong(1800);
+            Call call = new Call(NUMBER, start, start.plusSeconds(seconds));
+
+            assertEquals(local.calculate(call), utc.calculate(call), call::toString);
+        }
+    }
+
+    @Test
+    void shouldChargeElapsedMinutesAcrossSpringChange() {
+        // 01:50 CET to 03:10 CEST is 20 minutes, all off-peak: 5 x 0.50 + 15 x 0.30
+        ZonedCall call = new ZonedCall(NUMBER,
+                ZonedDateTime.of(2024, 3, 31, 1, 50, 0, 0, PRAGUE),
+                ZonedDateTime.of(2024, 3, 31, 3, 10, 0, 0, PRAGUE));
+
+        assertEquals(20, call.getDurationInMinutes());
+        assertEquals(new BigDecimal("7.00"), calculator.calculate(call));
+        assertEquals(new BigDecimal("7.00"),
+                calculator.calculate(new Call(NUMBER, call.startTime().toLocalDateTime(), call.endTime().toLocalDateTime())));
+    }
+
+    @Test
+    void shouldChargeElapsedMinutesAcrossAutumnChange() {
+        // 02:50 CEST to 02:10 CET is 20 minutes
+        ZonedCall call = new ZonedCall(NUMBER,
+                ZonedDateTime.ofStrict(LocalDateTime.of(2024, 10, 27, 2, 50), ZoneOffset.ofHours(2), PRAGUE),
+                ZonedDateTime.ofStrict(LocalDateTime.of(2024, 10, 27, 2, 10), ZoneOffset.ofHours(1), PRAGUE));
+
+        assertEquals(new BigDecimal("7.00"), calculator.calculate(call));
+    }
+
+    @Test
+    void shouldUseLocalTimeForBandsAfterChange() {
+        // 01:00 CET to 08:30 CEST: 360 off-peak minutes (5 standard, 355 discounted), then 30 discounted peak
+        InMemoryMetricsRegistry metrics = new InMemoryMetricsRegistry();
+        ZonedCallPriceCalculator counted = new ZonedCallPriceCalculator(ZoneOffsetTable.of(PRAGUE), Tariff.STANDARD, metrics);
+        ZonedCall call = new ZonedCall(NUMBER,
+                ZonedDateTime.of(2024, 3, 31, 1, 0, 0, 0, PRAGUE),
+                ZonedDateTime.of(2024, 3, 31, 8, 30, 0, 0, PRAGUE));
+
+        assertEquals(new BigDecimal("133.00"), counted.calculate(call));
+        assertEquals(1, metrics.snapshot().counters().get("pricer.offsetSplits"));
+        assertEquals(390, metrics.snapshot().counters().get("pricer.minutes"));
+    }
+
+    @Test
+    void shouldCountMinuteStartingSecondsBeforeChangeInOldOffset() {
+        // Minutes start at 01:59:30 CET, then 03:00:30 CEST onwards; 8 minutes in total
+        ZonedCall call = new ZonedCall(NUMBER,
+                ZonedDateTime.of(2024, 3, 31, 1, 59, 30, 0, PRAGUE),
+                ZonedDateTime.of(2024, 3, 31, 3, 7, 0, 0, PRAGUE));
+
+        assertEquals(8, call.getDurationInMinutes());
+        assertEquals(new BigDecimal("3.40"), calculator.calculate(call));
+    }
+
+    @Test
+    void shouldReplaceLocalPricerInBillCalculator() {
+        TelephoneBillCalculatorImpl bills = new TelephoneBillCalculatorImpl(
+                new CsvCallLogParser(), calculator, new MostCalledNumberPromotion());
+        String log = """
+                420774577453,31-03-2024 01:50:00,31-03-2024 03:10:00
+                420776562353,13-01-2024 10:00:00,13-01-2024 10:01:00
+                420776562353,13-01-2024 11:00:00,13-01-2024 11:01:00
+                """;
+
+        assertEquals(new BigDecimal("7.00"), bills.calculate(log));
+    }
+}